@@ -553,28 +553,65 @@ public class Autoload extends Function
         autoload(PACKAGE_MOP, "set-funcallable-instance-function", "FuncallableStandardObject", true);
         autoload(PACKAGE_PROF, "%start-profiler", "Profiler", true);
         autoload(PACKAGE_PROF, "stop-profiler", "Profiler", true);
+        autoload(PACKAGE_THREADS, "future-done-p", "ThreadPool", true);
+        autoload(PACKAGE_THREADS, "future-value", "ThreadPool", true);
+        autoload(PACKAGE_THREADS, "get-mutex", "Mutex", true);
+        autoload(PACKAGE_THREADS, "mailbox-count", "Mailbox", true);
+        autoload(PACKAGE_THREADS, "mailbox-empty-p", "Mailbox", true);
+        autoload(PACKAGE_THREADS, "mailbox-peek", "Mailbox", true);
+        autoload(PACKAGE_THREADS, "mailbox-read", "Mailbox", true);
+        autoload(PACKAGE_THREADS, "mailbox-send", "Mailbox", true);
+        autoload(PACKAGE_THREADS, "make-mailbox", "Mailbox", true);
+        autoload(PACKAGE_THREADS, "make-mutex", "Mutex", true);
+        autoload(PACKAGE_THREADS, "make-semaphore", "Semaphore", true);
+        autoload(PACKAGE_THREADS, "make-thread-pool", "ThreadPool", true);
+        autoload(PACKAGE_THREADS, "mutex-notify", "Mutex", true);
+        autoload(PACKAGE_THREADS, "mutex-notify-all", "Mutex", true);
+        autoload(PACKAGE_THREADS, "mutex-wait", "Mutex", true);
+        autoload(PACKAGE_THREADS, "release-mutex", "Mutex", true);
+        autoload(PACKAGE_THREADS, "semaphore-count", "Semaphore", true);
+        autoload(PACKAGE_THREADS, "shutdown-thread-pool", "ThreadPool", true);
+        autoload(PACKAGE_THREADS, "signal-semaphore", "Semaphore", true);
+        autoload(PACKAGE_THREADS, "submit", "ThreadPool", true);
+        autoload(PACKAGE_THREADS, "try-get-mutex", "Mutex", true);
+        autoload(PACKAGE_THREADS, "try-mailbox-read", "Mailbox", true);
+        autoload(PACKAGE_THREADS, "try-mailbox-send", "Mailbox", true);
+        autoload(PACKAGE_THREADS, "try-semaphore", "Semaphore", true);
+        autoload(PACKAGE_THREADS, "wait-on-semaphore", "Semaphore", true);
         autoload(PACKAGE_SYS, "%%string=", "StringFunctions");
         autoload(PACKAGE_SYS, "%adjust-array", "adjust_array");
         autoload(PACKAGE_SYS, "%defpackage", "PackageFunctions");
         autoload(PACKAGE_SYS, "%get-output-stream-bytes", "ByteArrayOutputStream"); //AS 20090325
         autoload(PACKAGE_SYS, "%get-output-stream-array", "ByteArrayOutputStream");
+        autoload(PACKAGE_SYS, "%float-vector-fill", "FloatFunctions");
+        autoload(PACKAGE_SYS, "%float-vector-replace", "FloatFunctions");
+        autoload(PACKAGE_SYS, "%image-default-packages", "Image");
+        autoload(PACKAGE_SYS, "%load-image", "Image");
         autoload(PACKAGE_SYS, "%make-array", "make_array");
         autoload(PACKAGE_SYS, "%make-byte-array-input-stream", "ByteArrayInputStream"); //AS 20100317
         autoload(PACKAGE_SYS, "%make-byte-array-output-stream", "ByteArrayOutputStream"); //AS 20090325
+        autoload(PACKAGE_SYS, "%make-concurrent-hash-table", "HashTableFunctions");
         autoload(PACKAGE_SYS, "%make-condition", "make_condition", true);
         autoload(PACKAGE_SYS, "%make-emf-cache", "EMFCache", true);
         autoload(PACKAGE_SYS, "%make-hash-table", "HashTableFunctions");
         autoload(PACKAGE_SYS, "%make-hash-table", "HashTableFunctions");
         autoload(PACKAGE_SYS, "%make-logical-pathname", "LogicalPathname", true);
+        autoload(PACKAGE_SYS, "%make-open-addressing-hash-table", "HashTableFunctions");
         autoload(PACKAGE_SYS, "%make-server-socket", "make_server_socket");
+        autoload(PACKAGE_SYS, "%make-slot-reader", "SlotAccessor", true);
+        autoload(PACKAGE_SYS, "%make-slot-writer", "SlotAccessor", true);
         autoload(PACKAGE_SYS, "%make-socket", "make_socket");
         autoload(PACKAGE_SYS, "%make-string", "StringFunctions");
         autoload(PACKAGE_SYS, "%make-string-output-stream", "StringOutputStream");
         autoload(PACKAGE_SYS, "%nstring-capitalize", "StringFunctions");
         autoload(PACKAGE_SYS, "%nstring-downcase", "StringFunctions");
         autoload(PACKAGE_SYS, "%nstring-upcase", "StringFunctions");
+        autoload(PACKAGE_SYS, "%pmap", "ParallelFunctions");
+        autoload(PACKAGE_SYS, "%preduce", "ParallelFunctions");
+        autoload(PACKAGE_SYS, "%psort", "ParallelFunctions");
         autoload(PACKAGE_SYS, "%reinit-emf-cache", "EMFCache", true);
         autoload(PACKAGE_SYS, "%run-shell-command", "ShellCommand");
+        autoload(PACKAGE_SYS, "%save-image", "Image");
         autoload(PACKAGE_SYS, "%server-socket-close", "server_socket_close");
         autoload(PACKAGE_SYS, "%set-arglist", "arglist");
         autoload(PACKAGE_CL, "find-class", "LispClass", true);
@@ -614,12 +651,15 @@ public class Autoload extends Function
         autoload(PACKAGE_SYS, "%time", "Time");
         autoload(PACKAGE_SYS, "cache-emf", "EMFCache", true);
         autoload(PACKAGE_SYS, "canonicalize-logical-host", "LogicalPathname", true);
+        autoload(PACKAGE_SYS, "call-in-world", "World", true);
         autoload(PACKAGE_SYS, "%class-direct-slots", "SlotClass");
         autoload(PACKAGE_SYS, "%float-bits", "FloatFunctions");
         autoload(PACKAGE_SYS, "coerce-to-double-float", "FloatFunctions");
         autoload(PACKAGE_SYS, "coerce-to-single-float", "FloatFunctions");
         autoload(PACKAGE_SYS, "create-new-file", "create_new_file");
+        autoload(PACKAGE_SYS, "current-world", "World", true);
         autoload(PACKAGE_SYS, "default-time-zone", "Time");
+        autoload(PACKAGE_SYS, "destroy-world", "World", true);
         autoload(PACKAGE_SYS, "disassemble-class-bytes", "disassemble_class_bytes", true);
         autoload(PACKAGE_SYS, "disable-zip-cache", "Pathname", true);
         autoload(PACKAGE_SYS, "double-float-high-bits", "FloatFunctions", true);
@@ -641,10 +681,12 @@ public class Autoload extends Function
         autoload(PACKAGE_SYS, "make-file-stream", "FileStream");
         autoload(PACKAGE_SYS, "make-fill-pointer-output-stream", "FillPointerOutputStream");
         autoload(PACKAGE_SYS, "make-layout", "Layout", true);
+        autoload(PACKAGE_SYS, "make-mapped-file-stream", "MappedFileStream");
         autoload(PACKAGE_SYS, "make-single-float", "FloatFunctions", true);
         autoload(PACKAGE_SYS, "%make-slot-definition", "SlotDefinition", true);
         autoload(PACKAGE_SYS, "make-structure-class", "StructureClass");
         autoload(PACKAGE_SYS, "make-symbol-macro", "Primitives");
+        autoload(PACKAGE_SYS, "make-world", "World", true);
         autoload(PACKAGE_SYS, "psxhash", "HashTableFunctions");
         autoload(PACKAGE_SYS, "puthash", "HashTableFunctions");
         autoload(PACKAGE_SYS, "puthash", "HashTableFunctions");
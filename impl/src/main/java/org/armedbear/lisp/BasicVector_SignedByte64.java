@@ -0,0 +1,332 @@
+/*
+ * BasicVector_SignedByte64.java
+ *
+ * Copyright (C) 2026 The Armed Bear Common Lisp Project
+ * $Id$
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ *
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent
+ * modules, and to copy and distribute the resulting executable under
+ * terms of your choice, provided that you also meet, for each linked
+ * independent module, the terms and conditions of the license of that
+ * module.  An independent module is a module which is not derived from
+ * or based on this library.  If you modify this library, you may extend
+ * this exception to your version of the library, but you are not
+ * obligated to do so.  If you do not wish to do so, delete this
+ * exception statement from your version.
+ */
+
+package org.armedbear.lisp;
+
+import static org.armedbear.lisp.Lisp.*;
+
+import java.util.Arrays;
+
+// A basic vector is a specialized vector that is not displaced to another
+// array, has no fill pointer, and is not expressly adjustable.  The
+// elements are kept unboxed, in an array of long.
+public final class BasicVector_SignedByte64 extends AbstractVector
+{
+    private int capacity;
+    private long[] elements;
+
+    public BasicVector_SignedByte64(int capacity)
+    {
+        elements = new long[capacity];
+        this.capacity = capacity;
+    }
+
+    private BasicVector_SignedByte64(long[] elements)
+    {
+        this.elements = elements;
+        capacity = elements.length;
+    }
+
+    // Returns the value of OBJ, which has to be a (SIGNED-BYTE 64).
+    static long getValue(LispObject obj)
+    {
+        if (obj instanceof Fixnum)
+            return ((Fixnum)obj).value;
+        if (obj instanceof Bignum && ((Bignum)obj).fitsLong)
+            return ((Bignum)obj).longValue();
+        type_error(obj, SIGNED_BYTE_64);
+        // Not reached.
+        return 0;
+    }
+
+    @Override
+    public LispObject typeOf()
+    {
+        return list(Symbol.SIMPLE_ARRAY, SIGNED_BYTE_64,
+                    new Cons(Fixnum.getInstance(capacity)));
+    }
+
+    @Override
+    public LispObject classOf()
+    {
+        return BuiltInClass.VECTOR;
+    }
+
+    @Override
+    public LispObject typep(LispObject type)
+    {
+        if (type == Symbol.SIMPLE_ARRAY)
+            return T;
+        if (type == BuiltInClass.SIMPLE_ARRAY)
+            return T;
+        return super.typep(type);
+    }
+
+    @Override
+    public LispObject getElementType()
+    {
+        return SIGNED_BYTE_64;
+    }
+
+    @Override
+    public boolean isSimpleVector()
+    {
+        return false;
+    }
+
+    @Override
+    public boolean hasFillPointer()
+    {
+        return false;
+    }
+
+    @Override
+    public boolean isAdjustable()
+    {
+        return false;
+    }
+
+    @Override
+    public int capacity()
+    {
+        return capacity;
+    }
+
+    @Override
+    public int length()
+    {
+        return capacity;
+    }
+
+    @Override
+    public LispObject elt(int index)
+    {
+        try {
+            return LispInteger.getInstance(elements[index]);
+        }
+        catch (ArrayIndexOutOfBoundsException e) {
+            badIndex(index, capacity);
+            return NIL; // Not reached.
+        }
+    }
+
+    @Override
+    public LispObject AREF(int index)
+    {
+        try {
+            return LispInteger.getInstance(elements[index]);
+        }
+        catch (ArrayIndexOutOfBoundsException e) {
+            badIndex(index, capacity);
+            return NIL; // Not reached.
+        }
+    }
+
+    @Override
+    public long aref_long(int index)
+    {
+        try {
+            return elements[index];
+        }
+        catch (ArrayIndexOutOfBoundsException e) {
+            badIndex(index, capacity);
+            // Not reached.
+            return 0;
+        }
+    }
+
+    @Override
+    public void aset(int index, LispObject newValue)
+    {
+        try {
+            elements[index] = getValue(newValue);
+        }
+        catch (ArrayIndexOutOfBoundsException e) {
+            badIndex(index, capacity);
+        }
+    }
+
+    @Override
+    public void aset(int index, long newValue)
+    {
+        try {
+            elements[index] = newValue;
+        }
+        catch (ArrayIndexOutOfBoundsException e) {
+            badIndex(index, capacity);
+        }
+    }
+    @Override
+    public void aset(int index, int newValue)
+    {
+        try {
+            elements[index] = newValue;
+        }
+        catch (ArrayIndexOutOfBoundsException e) {
+            badIndex(index, capacity);
+        }
+    }
+
+    @Override
+    public LispObject subseq(int start, int end)
+    {
+        if (start < 0 || end > capacity || start > end)
+            return error(new TypeError("Array index out of bounds: " + end + "."));
+        return new BasicVector_SignedByte64(Arrays.copyOfRange(elements, start, end));
+    }
+
+    @Override
+    public void fill(LispObject obj)
+    {
+        Arrays.fill(elements, 0, capacity, getValue(obj));
+    }
+
+    // Fills the elements from START below END with OBJ, for FILL.
+    void fill(LispObject obj, int start, int end)
+    {
+        if (start < 0 || end > capacity || start > end)
+            badIndex(start > end ? start : end, capacity);
+        Arrays.fill(elements, start, end, getValue(obj));
+    }
+
+    // Copies the elements of SOURCE from SOURCESTART into this vector from
+    // START, up to whichever END is reached first, for REPLACE.
+    void replace(int start, int end, BasicVector_SignedByte64 source,
+                 int sourceStart, int sourceEnd)
+    {
+        if (start < 0 || end > capacity || start > end)
+            badIndex(start > end ? start : end, capacity);
+        if (sourceStart < 0 || sourceEnd > source.capacity
+            || sourceStart > sourceEnd)
+            badIndex(sourceStart > sourceEnd ? sourceStart : sourceEnd,
+                     source.capacity);
+        System.arraycopy(source.elements, sourceStart, elements, start,
+                         Math.min(end - start, sourceEnd - sourceStart));
+    }
+
+    @Override
+    public void shrink(int n)
+    {
+        if (n < capacity) {
+            elements = Arrays.copyOf(elements, n);
+            capacity = n;
+            return;
+        }
+        if (n == capacity)
+            return;
+        error(new LispError());
+    }
+
+    @Override
+    public LispObject reverse()
+    {
+        BasicVector_SignedByte64 result = new BasicVector_SignedByte64(capacity);
+        int i, j;
+        for (i = 0, j = capacity - 1; i < capacity; i++, j--)
+            result.elements[i] = elements[j];
+        return result;
+    }
+
+    @Override
+    public LispObject nreverse()
+    {
+        int i = 0;
+        int j = capacity - 1;
+        while (i < j) {
+            long temp = elements[i];
+            elements[i] = elements[j];
+            elements[j] = temp;
+            ++i;
+            --j;
+        }
+        return this;
+    }
+
+    @Override
+    public AbstractVector adjustArray(int newCapacity,
+                                       LispObject initialElement,
+                                       LispObject initialContents)
+
+    {
+        if (initialContents != null) {
+            BasicVector_SignedByte64 v = new BasicVector_SignedByte64(newCapacity);
+            if (initialContents.listp()) {
+                LispObject list = initialContents;
+                for (int i = 0; i < newCapacity; i++) {
+                    v.elements[i] = getValue(list.car());
+                    list = list.cdr();
+                }
+            } else if (initialContents.vectorp()) {
+                for (int i = 0; i < newCapacity; i++)
+                    v.elements[i] = getValue(initialContents.elt(i));
+            } else
+                type_error(initialContents, Symbol.SEQUENCE);
+            return v;
+        }
+        if (capacity != newCapacity) {
+            long[] newElements = Arrays.copyOf(elements, newCapacity);
+            if (initialElement != null && newCapacity > capacity)
+                Arrays.fill(newElements, capacity, newCapacity,
+                            getValue(initialElement));
+            return new BasicVector_SignedByte64(newElements);
+        }
+        // No change.
+        return this;
+    }
+
+    @Override
+    public AbstractVector adjustArray(int newCapacity,
+                                       AbstractArray displacedTo,
+                                       int displacement)
+    {
+        return new ComplexVector_SignedByte64(newCapacity, displacedTo, displacement);
+    }
+
+    @Override
+    public LispObject printObject()
+    {
+        if (Symbol.PRINT_READABLY.symbolValue() != NIL) {
+            StringBuilder sb = new StringBuilder("#.(MAKE-ARRAY ");
+            sb.append(capacity);
+            sb.append(" :ELEMENT-TYPE '(SIGNED-BYTE 64) :INITIAL-CONTENTS '(");
+            for (int i = 0; i < capacity; i++) {
+                if (i > 0)
+                    sb.append(' ');
+                sb.append(AREF(i).printObject());
+            }
+            sb.append("))");
+            return new SimpleString(sb.toString());
+        }
+        return super.printObject();
+    }
+}
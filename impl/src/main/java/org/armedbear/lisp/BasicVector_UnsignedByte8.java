@@ -64,6 +64,12 @@ public final class BasicVector_UnsignedByte8 extends AbstractVector
       elements[i] = coerceLispObjectToJavaByte(array[i]);
   }
 
+  // For bulk reads, see READ-VECTOR-UNSIGNED-BYTE-8
+  byte[] elements()
+  {
+    return elements;
+  }
+
   @Override
   public LispObject typeOf()
   {
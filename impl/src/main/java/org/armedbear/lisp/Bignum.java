@@ -39,7 +39,12 @@ import java.math.BigInteger;
 
 public final class Bignum extends LispInteger
 {
-  public final BigInteger value;
+  // A value that fits in a long is kept in longBits, and the
+  // BigInteger is only made when something asks for it, so arithmetic
+  // on integers of up to 64 bits doesn't go through BigInteger.
+  private BigInteger value;
+  final boolean fitsLong;
+  final long longBits;
 
   private static BigInteger MOST_NEGATIVE_FIXNUM =
           BigInteger.valueOf(Integer.MIN_VALUE);
@@ -62,38 +67,93 @@ public final class Bignum extends LispInteger
   }
 
   public static LispInteger getInstance(String s, int radix) {
-      BigInteger value = new BigInteger(s, radix);
+      BigInteger n = new BigInteger(s, radix);
 
-      return Bignum.getInstance(value);
+      return Bignum.getInstance(n);
   }
 
   private Bignum(long l)
   {
-    value = BigInteger.valueOf(l);
+    fitsLong = true;
+    longBits = l;
   }
 
   private Bignum(BigInteger n)
   {
     value = n;
+    fitsLong = n.bitLength() < 64;
+    longBits = n.longValue();
+  }
+
+  public final BigInteger getBigInteger()
+  {
+    BigInteger n = value;
+    if (n == null)
+      value = n = BigInteger.valueOf(longBits);
+    return n;
+  }
+
+  // Arithmetic on longs, which only goes through BigInteger when the
+  // result doesn't fit in a long.
+
+  static LispObject add(long a, long b)
+  {
+    long result = a + b;
+    if (((a ^ result) & (b ^ result)) < 0)
+      return number(BigInteger.valueOf(a).add(BigInteger.valueOf(b)));
+    return LispInteger.getInstance(result);
+  }
+
+  static LispObject subtract(long a, long b)
+  {
+    long result = a - b;
+    if (((a ^ b) & (a ^ result)) < 0)
+      return number(BigInteger.valueOf(a).subtract(BigInteger.valueOf(b)));
+    return LispInteger.getInstance(result);
+  }
+
+  static LispObject multiply(long a, long b)
+  {
+    long result = a * b;
+    if (((Math.abs(a) | Math.abs(b)) >>> 31) != 0
+        && ((b != 0 && result / b != a) || (a == Long.MIN_VALUE && b == -1)))
+      return number(BigInteger.valueOf(a).multiply(BigInteger.valueOf(b)));
+    return LispInteger.getInstance(result);
+  }
+
+  static int compare(long a, long b)
+  {
+    return a < b ? -1 : (a == b ? 0 : 1);
+  }
+
+  private int compareTo(LispObject obj)
+  {
+    if (obj.isFixnum())
+      return fitsLong ? compare(longBits, ((Fixnum)obj).value)
+        : value.signum();
+    Bignum n = (Bignum) obj;
+    if (fitsLong && n.fitsLong)
+      return compare(longBits, n.longBits);
+    return getBigInteger().compareTo(n.getBigInteger());
   }
 
   @Override
   public Object javaInstance()
   {
-    return value;
+    return getBigInteger();
   }
 
   @Override
   public Object javaInstance(Class c) {
     String cn = c.getName();
     if (cn.equals("java.lang.Byte") || cn.equals("byte"))
-      return Byte.valueOf((byte)value.intValue());
+      return Byte.valueOf((byte)getBigInteger().intValue());
     if (cn.equals("java.lang.Short") || cn.equals("short"))
-      return Short.valueOf((short)value.intValue());
+      return Short.valueOf((short)getBigInteger().intValue());
     if (cn.equals("java.lang.Integer") || cn.equals("int"))
-      return Integer.valueOf(value.intValue());
+      return Integer.valueOf(getBigInteger().intValue());
     if (cn.equals("java.lang.Long") || cn.equals("long"))
-      return Long.valueOf((long)value.longValue());
+      return Long.valueOf(longBits);
     return javaInstance();
   }
 
@@ -101,7 +161,7 @@ public final class Bignum extends LispInteger
   @Override
   public LispObject typeOf()
   {
-    if (value.signum() > 0)
+    if (plusp())
       return list(Symbol.INTEGER,
                    new Bignum((long)Integer.MAX_VALUE + 1));
     return Symbol.BIGNUM;
@@ -131,7 +191,7 @@ public final class Bignum extends LispInteger
         if (type == Symbol.SIGNED_BYTE)
           return T;
         if (type == Symbol.UNSIGNED_BYTE)
-          return value.signum() >= 0 ? T : NIL;
+          return getBigInteger().signum() >= 0 ? T : NIL;
       }
     else if (type != null && type.isLispClass())
       {
@@ -190,10 +250,7 @@ public final class Bignum extends LispInteger
     if (this == obj)
       return true;
     if (obj != null && obj.isBignum())
-      {
-        if (value.equals(((Bignum)obj).value))
-          return true;
-      }
+      return compareTo(obj) == 0;
     return false;
   }
 
@@ -203,10 +260,7 @@ public final class Bignum extends LispInteger
     if (this == obj)
       return true;
     if (obj != null && obj.isBignum())
-      {
-        if (value.equals(((Bignum)obj).value))
-          return true;
-      }
+      return compareTo(obj) == 0;
     return false;
   }
 
@@ -221,9 +275,11 @@ public final class Bignum extends LispInteger
   @Override
   public LispObject ABS()
   {
-    if (value.signum() >= 0)
+    if (!minusp())
       return this;
-    return new Bignum(value.negate());
+    if (fitsLong && longBits != Long.MIN_VALUE)
+      return new Bignum(-longBits);
+    return new Bignum(getBigInteger().negate());
   }
 
   @Override
@@ -241,25 +297,25 @@ public final class Bignum extends LispInteger
   @Override
   public boolean evenp()
   {
-    return !value.testBit(0);
+    return (longBits & 1) == 0;
   }
 
   @Override
   public boolean oddp()
   {
-    return value.testBit(0);
+    return (longBits & 1) != 0;
   }
 
   @Override
   public boolean plusp()
   {
-    return value.signum() > 0;
+    return fitsLong ? longBits > 0 : value.signum() > 0;
   }
 
   @Override
   public boolean minusp()
   {
-    return value.signum() < 0;
+    return fitsLong ? longBits < 0 : value.signum() < 0;
   }
 
   @Override
@@ -271,18 +327,20 @@ public final class Bignum extends LispInteger
   @Override
   public int intValue()
   {
-    return value.intValue();
+    return (int) longBits;
   }
 
   @Override
   public long longValue()
   {
-    return value.longValue();
+    return longBits;
   }
 
   @Override
   public float floatValue()
   {
+    if (fitsLong)
+      return (float) longBits;
     float f = value.floatValue();
     if (Float.isInfinite(f))
       error(new TypeError("The value " + princToString() +
@@ -293,6 +351,8 @@ public final class Bignum extends LispInteger
   @Override
   public double doubleValue()
   {
+    if (fitsLong)
+      return (double) longBits;
     double d = value.doubleValue();
     if (Double.isInfinite(d))
       error(new TypeError("The value " + princToString() +
@@ -305,7 +365,7 @@ public final class Bignum extends LispInteger
           
     if (obj != null && obj.isBignum())
       {
-        return ((Bignum)obj).value;
+        return ((Bignum)obj).getBigInteger();
       }
         type_error(obj, Symbol.BIGNUM);
         // Not reached.
@@ -315,33 +375,48 @@ public final class Bignum extends LispInteger
   @Override
   public final LispObject incr()
   {
-    return number(value.add(BigInteger.ONE));
+    if (fitsLong)
+      return add(longBits, 1);
+    return number(getBigInteger().add(BigInteger.ONE));
   }
 
   @Override
   public final LispObject decr()
   {
-    return number(value.subtract(BigInteger.ONE));
+    if (fitsLong)
+      return subtract(longBits, 1);
+    return number(getBigInteger().subtract(BigInteger.ONE));
   }
 
   @Override
   public LispObject add(int n)
   {
-    return number(value.add(BigInteger.valueOf(n)));
+    if (fitsLong)
+      return add(longBits, n);
+    return number(getBigInteger().add(BigInteger.valueOf(n)));
   }
 
   @Override
   public LispObject add(LispObject obj)
   {
     if (obj != null && obj.isFixnum())
-      return number(value.add(Fixnum.getBigInteger(obj)));
+      {
+        if (fitsLong)
+          return add(longBits, ((Fixnum)obj).value);
+        return number(getBigInteger().add(Fixnum.getBigInteger(obj)));
+      }
     if (obj != null && obj.isBignum())
-      return number(value.add(((Bignum)obj).value));
+      {
+        Bignum n = (Bignum) obj;
+        if (fitsLong && n.fitsLong)
+          return add(longBits, n.longBits);
+        return number(getBigInteger().add(n.getBigInteger()));
+      }
     if (obj != null && obj.isRatio())
       {
         BigInteger numerator = ((Ratio)obj).numerator();
         BigInteger denominator = ((Ratio)obj).denominator();
-        return number(value.multiply(denominator).add(numerator),
+        return number(getBigInteger().multiply(denominator).add(numerator),
                       denominator);
       }
     if (obj != null && obj.isSingleFloat())
@@ -360,14 +435,23 @@ public final class Bignum extends LispInteger
   public LispObject subtract(LispObject obj)
   {
     if (obj != null && obj.isFixnum())
-      return number(value.subtract(Fixnum.getBigInteger(obj)));
+      {
+        if (fitsLong)
+          return subtract(longBits, ((Fixnum)obj).value);
+        return number(getBigInteger().subtract(Fixnum.getBigInteger(obj)));
+      }
     if (obj != null && obj.isBignum())
-      return number(value.subtract(((Bignum)obj).value));
+      {
+        Bignum n = (Bignum) obj;
+        if (fitsLong && n.fitsLong)
+          return subtract(longBits, n.longBits);
+        return number(getBigInteger().subtract(n.getBigInteger()));
+      }
     if (obj != null && obj.isRatio())
       {
         BigInteger numerator = ((Ratio)obj).numerator();
         BigInteger denominator = ((Ratio)obj).denominator();
-        return number(value.multiply(denominator).subtract(numerator),
+        return number(getBigInteger().multiply(denominator).subtract(numerator),
                       denominator);
       }
     if (obj != null && obj.isSingleFloat())
@@ -390,7 +474,9 @@ public final class Bignum extends LispInteger
       return Fixnum.ZERO;
     if (n == 1)
       return this;
-    return new Bignum(value.multiply(BigInteger.valueOf(n)));
+    if (fitsLong)
+      return multiply(longBits, n);
+    return new Bignum(getBigInteger().multiply(BigInteger.valueOf(n)));
   }
 
   @Override
@@ -403,14 +489,21 @@ public final class Bignum extends LispInteger
           return Fixnum.ZERO;
         if (n == 1)
           return this;
-        return new Bignum(value.multiply(BigInteger.valueOf(n)));
+        if (fitsLong)
+          return multiply(longBits, n);
+        return new Bignum(getBigInteger().multiply(BigInteger.valueOf(n)));
       }
     if (obj != null && obj.isBignum())
-      return new Bignum(value.multiply(((Bignum)obj).value));
+      {
+        Bignum n = (Bignum) obj;
+        if (fitsLong && n.fitsLong)
+          return multiply(longBits, n.longBits);
+        return new Bignum(getBigInteger().multiply(n.getBigInteger()));
+      }
     if (obj != null && obj.isRatio())
       {
         BigInteger n = ((Ratio)obj).numerator();
-        return number(n.multiply(value), ((Ratio)obj).denominator());
+        return number(n.multiply(getBigInteger()), ((Ratio)obj).denominator());
       }
     if (obj != null && obj.isSingleFloat())
       return new SingleFloat(floatValue() * ((SingleFloat)obj).value);
@@ -429,13 +522,13 @@ public final class Bignum extends LispInteger
   public LispObject divideBy(LispObject obj)
   {
     if (obj != null && obj.isFixnum())
-      return number(value, Fixnum.getBigInteger(obj));
+      return number(getBigInteger(), Fixnum.getBigInteger(obj));
     if (obj != null && obj.isBignum())
-      return number(value, ((Bignum)obj).value);
+      return number(getBigInteger(), ((Bignum)obj).getBigInteger());
     if (obj != null && obj.isRatio())
       {
         BigInteger d = ((Ratio)obj).denominator();
-        return number(d.multiply(value), ((Ratio)obj).numerator());
+        return number(d.multiply(getBigInteger()), ((Ratio)obj).numerator());
       }
     if (obj != null && obj.isSingleFloat())
       return new SingleFloat(floatValue() / ((SingleFloat)obj).value);
@@ -458,7 +551,7 @@ public final class Bignum extends LispInteger
   public boolean isEqualTo(LispObject obj)
   {
     if (obj != null && obj.isBignum())
-      return value.equals(((Bignum)obj).value);
+      return compareTo(obj) == 0;
     if (obj != null && obj.isSingleFloat())
       return isEqualTo(((SingleFloat)obj).rational());
     if (obj != null && obj.isDoubleFloat())
@@ -474,7 +567,7 @@ public final class Bignum extends LispInteger
   public boolean isNotEqualTo(LispObject obj)
   {
     if (obj != null && obj.isBignum())
-      return !value.equals(((Bignum)obj).value);
+      return compareTo(obj) != 0;
     if (obj != null && obj.isSingleFloat())
       return isNotEqualTo(((SingleFloat)obj).rational());
     if (obj != null && obj.isDoubleFloat())
@@ -489,13 +582,11 @@ public final class Bignum extends LispInteger
   @Override
   public boolean isLessThan(LispObject obj)
   {
-    if (obj != null && obj.isFixnum())
-      return value.compareTo(Fixnum.getBigInteger(obj)) < 0;
-    if (obj != null && obj.isBignum())
-      return value.compareTo(((Bignum)obj).value) < 0;
+    if (obj != null && (obj.isFixnum() || obj.isBignum()))
+      return compareTo(obj) < 0;
     if (obj != null && obj.isRatio())
       {
-        BigInteger n = value.multiply(((Ratio)obj).denominator());
+        BigInteger n = getBigInteger().multiply(((Ratio)obj).denominator());
         return n.compareTo(((Ratio)obj).numerator()) < 0;
       }
     if (obj != null && obj.isSingleFloat())
@@ -510,13 +601,11 @@ public final class Bignum extends LispInteger
   @Override
   public boolean isGreaterThan(LispObject obj)
   {
-    if (obj != null && obj.isFixnum())
-      return value.compareTo(Fixnum.getBigInteger(obj)) > 0;
-    if (obj != null && obj.isBignum())
-      return value.compareTo(((Bignum)obj).value) > 0;
+    if (obj != null && (obj.isFixnum() || obj.isBignum()))
+      return compareTo(obj) > 0;
     if (obj != null && obj.isRatio())
       {
-        BigInteger n = value.multiply(((Ratio)obj).denominator());
+        BigInteger n = getBigInteger().multiply(((Ratio)obj).denominator());
         return n.compareTo(((Ratio)obj).numerator()) > 0;
       }
     if (obj != null && obj.isSingleFloat())
@@ -531,13 +620,11 @@ public final class Bignum extends LispInteger
   @Override
   public boolean isLessThanOrEqualTo(LispObject obj)
   {
-    if (obj != null && obj.isFixnum())
-      return value.compareTo(Fixnum.getBigInteger(obj)) <= 0;
-    if (obj != null && obj.isBignum())
-      return value.compareTo(((Bignum)obj).value) <= 0;
+    if (obj != null && (obj.isFixnum() || obj.isBignum()))
+      return compareTo(obj) <= 0;
     if (obj != null && obj.isRatio())
       {
-        BigInteger n = value.multiply(((Ratio)obj).denominator());
+        BigInteger n = getBigInteger().multiply(((Ratio)obj).denominator());
         return n.compareTo(((Ratio)obj).numerator()) <= 0;
       }
     if (obj != null && obj.isSingleFloat())
@@ -552,13 +639,11 @@ public final class Bignum extends LispInteger
   @Override
   public boolean isGreaterThanOrEqualTo(LispObject obj)
   {
-    if (obj != null && obj.isFixnum())
-      return value.compareTo(Fixnum.getBigInteger(obj)) >= 0;
-    if (obj != null && obj.isBignum())
-      return value.compareTo(((Bignum)obj).value) >= 0;
+    if (obj != null && (obj.isFixnum() || obj.isBignum()))
+      return compareTo(obj) >= 0;
     if (obj != null && obj.isRatio())
       {
-        BigInteger n = value.multiply(((Ratio)obj).denominator());
+        BigInteger n = getBigInteger().multiply(((Ratio)obj).denominator());
         return n.compareTo(((Ratio)obj).numerator()) >= 0;
       }
     if (obj != null && obj.isSingleFloat())
@@ -577,10 +662,25 @@ public final class Bignum extends LispInteger
     LispObject value1, value2;
     try
       {
-        if (obj != null && obj.isFixnum())
+        if (obj != null && obj.isFixnum() && fitsLong
+            && ((Fixnum)obj).value != 0
+            && !(longBits == Long.MIN_VALUE && ((Fixnum)obj).value == -1))
+          {
+            int divisor = ((Fixnum)obj).value;
+            value1 = LispInteger.getInstance(longBits / divisor);
+            value2 = Fixnum.getInstance((int)(longBits % divisor));
+          }
+        else if (obj != null && obj.isBignum() && fitsLong
+                 && ((Bignum)obj).fitsLong)
+          {
+            long divisor = ((Bignum)obj).longBits;
+            value1 = LispInteger.getInstance(longBits / divisor);
+            value2 = LispInteger.getInstance(longBits % divisor);
+          }
+        else if (obj != null && obj.isFixnum())
           {
             BigInteger divisor = ((Fixnum)obj).getBigInteger();
-            BigInteger[] results = value.divideAndRemainder(divisor);
+            BigInteger[] results = getBigInteger().divideAndRemainder(divisor);
             BigInteger quotient = results[0];
             BigInteger remainder = results[1];
             value1 = number(quotient);
@@ -588,8 +688,8 @@ public final class Bignum extends LispInteger
           }
         else if (obj != null && obj.isBignum())
           {
-            BigInteger divisor = ((Bignum)obj).value;
-            BigInteger[] results = value.divideAndRemainder(divisor);
+            BigInteger divisor = ((Bignum)obj).getBigInteger();
+            BigInteger[] results = getBigInteger().divideAndRemainder(divisor);
             BigInteger quotient = results[0];
             BigInteger remainder = results[1];
             value1 = number(quotient);
@@ -635,12 +735,19 @@ public final class Bignum extends LispInteger
   @Override
   public LispObject ash(LispObject obj)
   {
-    BigInteger n = value;
+    BigInteger n = getBigInteger();
     if (obj !=  null && obj.isFixnum())
       {
         int count = ((Fixnum)obj).value;
         if (count == 0)
           return this;
+        if (fitsLong)
+          {
+            if (count < 0)
+              return LispInteger.getInstance(longBits >> Math.min(-(long)count, 63));
+            if (count < 63 && (longBits << count) >> count == longBits)
+              return LispInteger.getInstance(longBits << count);
+          }
         // BigInteger.shiftLeft() succumbs to a stack overflow if count
         // is Integer.MIN_VALUE, so...
         if (count == Integer.MIN_VALUE)
@@ -649,7 +756,7 @@ public final class Bignum extends LispInteger
       }
     if (obj != null && obj.isBignum())
       {
-        BigInteger count = ((Bignum)obj).value;
+        BigInteger count = ((Bignum)obj).getBigInteger();
         if (count.signum() > 0)
           return error(new LispError("Can't represent result of left shift."));
         if (count.signum() < 0)
@@ -662,16 +769,20 @@ public final class Bignum extends LispInteger
   @Override
   public LispObject LOGNOT()
   {
-    return number(value.not());
+    if (fitsLong)
+      return LispInteger.getInstance(~longBits);
+    return number(getBigInteger().not());
   }
 
   @Override
   public LispObject LOGAND(int n)
   {
     if (n >= 0)
-      return Fixnum.getInstance(value.intValue() & n);
+      return Fixnum.getInstance(getBigInteger().intValue() & n);
+    else if (fitsLong)
+      return LispInteger.getInstance(longBits & n);
     else
-      return number(value.and(BigInteger.valueOf(n)));
+      return number(getBigInteger().and(BigInteger.valueOf(n)));
   }
 
   @Override
@@ -681,14 +792,18 @@ public final class Bignum extends LispInteger
       {
         int n = ((Fixnum)obj).value;
         if (n >= 0)
-          return Fixnum.getInstance(value.intValue() & n);
+          return Fixnum.getInstance(getBigInteger().intValue() & n);
+        else if (fitsLong)
+          return LispInteger.getInstance(longBits & n);
         else
-          return number(value.and(BigInteger.valueOf(n)));
+          return number(getBigInteger().and(BigInteger.valueOf(n)));
       }
     else if (obj != null && obj.isBignum())
       {
-        final BigInteger n = ((Bignum)obj).value;
-        return number(value.and(n));
+        final Bignum n = (Bignum) obj;
+        if (fitsLong && n.fitsLong)
+          return LispInteger.getInstance(longBits & n.longBits);
+        return number(getBigInteger().and(n.getBigInteger()));
       }
     else
       return type_error(obj, Symbol.INTEGER);
@@ -697,7 +812,9 @@ public final class Bignum extends LispInteger
   @Override
   public LispObject LOGIOR(int n)
   {
-    return number(value.or(BigInteger.valueOf(n)));
+    if (fitsLong)
+      return LispInteger.getInstance(longBits | n);
+    return number(getBigInteger().or(BigInteger.valueOf(n)));
   }
 
   @Override
@@ -705,13 +822,17 @@ public final class Bignum extends LispInteger
   {
     if (obj != null && obj.isFixnum())
       {
+        if (fitsLong)
+          return LispInteger.getInstance(longBits | ((Fixnum)obj).value);
         final BigInteger n = ((Fixnum)obj).getBigInteger();
-        return number(value.or(n));
+        return number(getBigInteger().or(n));
       }
     else if (obj != null && obj.isBignum())
       {
-        final BigInteger n = ((Bignum)obj).value;
-        return number(value.or(n));
+        final Bignum n = (Bignum) obj;
+        if (fitsLong && n.fitsLong)
+          return LispInteger.getInstance(longBits | n.longBits);
+        return number(getBigInteger().or(n.getBigInteger()));
       }
     else
       return type_error(obj, Symbol.INTEGER);
@@ -720,7 +841,9 @@ public final class Bignum extends LispInteger
   @Override
   public LispObject LOGXOR(int n)
   {
-    return number(value.xor(BigInteger.valueOf(n)));
+    if (fitsLong)
+      return LispInteger.getInstance(longBits ^ n);
+    return number(getBigInteger().xor(BigInteger.valueOf(n)));
   }
 
   @Override
@@ -728,18 +851,29 @@ public final class Bignum extends LispInteger
   {
     final BigInteger n;
     if (obj != null && obj.isFixnum())
-      n = ((Fixnum)obj).getBigInteger();
+      {
+        if (fitsLong)
+          return LispInteger.getInstance(longBits ^ ((Fixnum)obj).value);
+        n = ((Fixnum)obj).getBigInteger();
+      }
     else if (obj != null && obj.isBignum())
-      n = ((Bignum)obj).value;
+      {
+        if (fitsLong && ((Bignum)obj).fitsLong)
+          return LispInteger.getInstance(longBits ^ ((Bignum)obj).longBits);
+        n = ((Bignum)obj).getBigInteger();
+      }
     else
       return type_error(obj, Symbol.INTEGER);
-    return number(value.xor(n));
+    return number(getBigInteger().xor(n));
   }
 
   @Override
   public LispObject LDB(int size, int position)
   {
-    BigInteger n = value.shiftRight(position);
+    if (fitsLong && size < 63 && position < 64)
+      return LispInteger.getInstance((longBits >> position)
+                                     & ((1L << size) - 1));
+    BigInteger n = getBigInteger().shiftRight(position);
     BigInteger mask = BigInteger.ONE.shiftLeft(size).subtract(BigInteger.ONE);
     return number(n.and(mask));
   }
@@ -747,7 +881,7 @@ public final class Bignum extends LispInteger
   @Override
   public int hashCode()
   {
-    return value.hashCode();
+    return getBigInteger().hashCode();
   }
 
   @Override
@@ -755,7 +889,7 @@ public final class Bignum extends LispInteger
   {
     final LispThread thread = LispThread.currentThread();
     final int base = Fixnum.getValue(Symbol.PRINT_BASE.symbolValue(thread));
-    String s = value.toString(base).toUpperCase();
+    String s = getBigInteger().toString(base).toUpperCase();
     if (Symbol.PRINT_RADIX.symbolValue(thread) != NIL)
       {
         StringBuffer sb = new StringBuffer();
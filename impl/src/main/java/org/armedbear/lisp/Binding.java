@@ -40,7 +40,7 @@ import org.armedbear.lisp.protocol.IBinding;
  *
  */
 // Package accessibility.
-final class Binding implements IBinding
+final class Binding implements IBinding, java.io.Serializable
 {
     /** The symbol in case of a variable, block, symbol-macro or
      * non-SETF function binding, the tag (symbol or
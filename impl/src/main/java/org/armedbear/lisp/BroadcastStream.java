@@ -119,6 +119,14 @@ public final class BroadcastStream extends Stream
         return -1;
     }
 
+    @Override
+    public int _readChars(char[] chars, int start, int end)
+    {
+        notSupported();
+        // Not reached.
+        return -1;
+    }
+
     @Override
     protected void _unreadChar(int n)
     {
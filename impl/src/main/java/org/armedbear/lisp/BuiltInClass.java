@@ -103,6 +103,7 @@ public class BuiltInClass extends LispClass
   public static final BuiltInClass FIXNUM               = addClass(Symbol.FIXNUM);
   public static final BuiltInClass FLOAT                = addClass(Symbol.FLOAT);
   public static final BuiltInClass FUNCTION             = addClass(Symbol.FUNCTION);
+  public static final BuiltInClass FUTURE               = addClass(Symbol.FUTURE);
   public static final BuiltInClass HASH_TABLE           = addClass(Symbol.HASH_TABLE);
   public static final BuiltInClass INTEGER              = addClass(Symbol.INTEGER);
   public static final BuiltInClass JAVA_OBJECT          = addClass(Symbol.JAVA_OBJECT);
@@ -126,6 +127,7 @@ public class BuiltInClass extends LispClass
   public static final BuiltInClass READTABLE            = addClass(Symbol.READTABLE);
   public static final BuiltInClass REAL                 = addClass(Symbol.REAL);
   public static final BuiltInClass RESTART              = addClass(Symbol.RESTART);
+  public static final BuiltInClass SEMAPHORE            = addClass(Symbol.SEMAPHORE);
   public static final BuiltInClass SEQUENCE             = addClass(Symbol.SEQUENCE); 
   public static final BuiltInClass SIMPLE_ARRAY         = addClass(Symbol.SIMPLE_ARRAY);
   public static final BuiltInClass SIMPLE_BASE_STRING   = addClass(Symbol.SIMPLE_BASE_STRING);
@@ -136,7 +138,9 @@ public class BuiltInClass extends LispClass
   public static final BuiltInClass STRING               = addClass(Symbol.STRING);
   public static final BuiltInClass SYMBOL               = addClass(Symbol.SYMBOL);
   public static final BuiltInClass THREAD               = addClass(Symbol.THREAD);
+  public static final BuiltInClass THREAD_POOL          = addClass(Symbol.THREAD_POOL);
   public static final BuiltInClass VECTOR               = addClass(Symbol.VECTOR);
+  public static final BuiltInClass WORLD                = addClass(Symbol.WORLD);
   public static final BuiltInClass STACK_FRAME          = addClass(Symbol.STACK_FRAME);
   public static final BuiltInClass LISP_STACK_FRAME     = addClass(Symbol.LISP_STACK_FRAME);
   public static final BuiltInClass JAVA_STACK_FRAME     = addClass(Symbol.JAVA_STACK_FRAME);
@@ -269,6 +273,8 @@ public class BuiltInClass extends LispClass
     MAILBOX.setCPL(MAILBOX, CLASS_T);
     MUTEX.setDirectSuperclass(CLASS_T);
     MUTEX.setCPL(MUTEX, CLASS_T);
+    SEMAPHORE.setDirectSuperclass(CLASS_T);
+    SEMAPHORE.setCPL(SEMAPHORE, CLASS_T);
     NIL_VECTOR.setDirectSuperclass(STRING);
     NIL_VECTOR.setCPL(NIL_VECTOR, BASE_STRING, STRING, VECTOR, ARRAY, SEQUENCE, CLASS_T);
     NULL.setDirectSuperclass(LIST);
@@ -335,6 +341,12 @@ public class BuiltInClass extends LispClass
     SYSTEM_STREAM.setCPL(SYSTEM_STREAM, STREAM, STRUCTURE_OBJECT, CLASS_T);
     THREAD.setDirectSuperclass(CLASS_T);
     THREAD.setCPL(THREAD, CLASS_T);
+    THREAD_POOL.setDirectSuperclass(CLASS_T);
+    THREAD_POOL.setCPL(THREAD_POOL, CLASS_T);
+    FUTURE.setDirectSuperclass(CLASS_T);
+    FUTURE.setCPL(FUTURE, CLASS_T);
+    WORLD.setDirectSuperclass(CLASS_T);
+    WORLD.setCPL(WORLD, CLASS_T);
     TWO_WAY_STREAM.setCPL(TWO_WAY_STREAM, SYSTEM_STREAM, STREAM,
                           STRUCTURE_OBJECT, CLASS_T);
     VECTOR.setDirectSuperclasses(list(ARRAY, SEQUENCE));
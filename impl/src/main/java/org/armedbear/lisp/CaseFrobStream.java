@@ -132,6 +132,14 @@ public abstract class CaseFrobStream extends Stream
         return -1;
     }
 
+    @Override
+    public int _readChars(char[] chars, int start, int end)
+    {
+        notSupported();
+        // Not reached.
+        return -1;
+    }
+
     @Override
     protected void _unreadChar(int n)
     {
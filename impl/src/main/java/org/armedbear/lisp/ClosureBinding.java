@@ -40,7 +40,7 @@ package org.armedbear.lisp;
  * closures close over bindings and not over values.
  *
  */
-public class ClosureBinding
+public class ClosureBinding implements java.io.Serializable
 {
     public LispObject value;
 
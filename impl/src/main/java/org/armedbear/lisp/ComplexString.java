@@ -48,6 +48,12 @@ public final class ComplexString extends AbstractString
   private AbstractArray array;
   private int displacement;
 
+  // The values of sxhash() and psxhash() while the string is not
+  // displaced, or 0 until they are computed again after a
+  // modification.
+  private transient int sxhash;
+  private transient int psxhash;
+
   public ComplexString(int capacity)
   {
     this.capacity = capacity;
@@ -91,6 +97,7 @@ public final class ComplexString extends AbstractString
   public void setFillPointer(int n)
   {
     fillPointer = n;
+    charsModified();
   }
 
   @Override
@@ -120,6 +127,7 @@ public final class ComplexString extends AbstractString
         else
           fillPointer = n;
       }
+    charsModified();
   }
 
   @Override
@@ -263,6 +271,7 @@ public final class ComplexString extends AbstractString
             chars = newArray;
             capacity = n;
             fillPointer = -1;
+            charsModified();
             return;
           }
         if (n == capacity)
@@ -293,6 +302,7 @@ public final class ComplexString extends AbstractString
     displacement = 0;
     isDisplaced = false;
     fillPointer = -1;
+    charsModified();
   }
 
   @Override
@@ -382,6 +392,7 @@ public final class ComplexString extends AbstractString
         try
           {
             chars[index] = c;
+            charsModified();
           }
         catch (ArrayIndexOutOfBoundsException e)
           {
@@ -439,6 +450,7 @@ public final class ComplexString extends AbstractString
     else
       array.aset(fillPointer + displacement, element);
     ++fillPointer;
+    charsModified();
   }
 
   @Override
@@ -468,6 +480,7 @@ public final class ComplexString extends AbstractString
       }
     else
       array.aset(fillPointer + displacement, element);
+    charsModified();
     return Fixnum.getInstance(fillPointer++);
   }
 
@@ -518,9 +531,17 @@ public final class ComplexString extends AbstractString
       }
   }
 
+  private void charsModified()
+  {
+    sxhash = 0;
+    psxhash = 0;
+  }
+
   @Override
   public int sxhash()
   {
+    if (sxhash != 0)
+      return sxhash;
     int hashCode = randomStringHashBase;
     final int limit = length();
     for (int i = 0; i < limit; i++)
@@ -532,13 +553,19 @@ public final class ComplexString extends AbstractString
     hashCode += (hashCode << 3);
     hashCode ^= (hashCode >> 11);
     hashCode += (hashCode << 15);
-    return (hashCode & 0x7fffffff);
+    hashCode &= 0x7fffffff;
+    // The target of a displaced string may change under it
+    if (chars != null)
+      sxhash = hashCode;
+    return hashCode;
   }
 
   // For EQUALP hash tables.
   @Override
   public int psxhash()
   {
+    if (psxhash != 0)
+      return psxhash;
     int hashCode = randomStringHashBase;
     final int limit = length();
     for (int i = 0; i < limit; i++)
@@ -550,7 +577,10 @@ public final class ComplexString extends AbstractString
     hashCode += (hashCode << 3);
     hashCode ^= (hashCode >> 11);
     hashCode += (hashCode << 15);
-    return (hashCode & 0x7fffffff);
+    hashCode &= 0x7fffffff;
+    if (chars != null)
+      psxhash = hashCode;
+    return hashCode;
   }
 
   @Override
@@ -627,6 +657,7 @@ public final class ComplexString extends AbstractString
     array = null;
     displacement = 0;
     isDisplaced = false;
+    charsModified();
     return this;
   }
 
@@ -641,6 +672,7 @@ public final class ComplexString extends AbstractString
     this.displacement = displacement;
     chars = null;
     isDisplaced = true;
+    charsModified();
     return this;
   }
 }
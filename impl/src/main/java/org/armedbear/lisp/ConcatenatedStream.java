@@ -152,6 +152,18 @@ public final class ConcatenatedStream extends Stream
         return _readChar();
     }
 
+    @Override
+    public int _readChars(char[] chars, int start, int end)
+        throws java.io.IOException
+    {
+        while (start < end && streams != NIL) {
+            start = ((Stream) streams.car())._readChars(chars, start, end);
+            if (start < end)
+                streams = streams.cdr();
+        }
+        return start;
+    }
+
     @Override
     protected void _unreadChar(int n) throws java.io.IOException
     {
@@ -0,0 +1,330 @@
+/*
+ * ConcurrentHashTable.java
+ *
+ * Copyright (C) 2026 The Armed Bear Common Lisp Project
+ * $Id$
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ *
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent
+ * modules, and to copy and distribute the resulting executable under
+ * terms of your choice, provided that you also meet, for each linked
+ * independent module, the terms and conditions of the license of that
+ * module.  An independent module is a module which is not derived from
+ * or based on this library.  If you modify this library, you may extend
+ * this exception to your version of the library, but you are not
+ * obligated to do so.  If you do not wish to do so, delete this
+ * exception statement from your version.
+ */
+package org.armedbear.lisp;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.armedbear.lisp.Lisp.*;
+
+/**
+ * A hash table for heavily shared tables, created by
+ * (MAKE-HASH-TABLE ... :CONCURRENT T).
+ *
+ * The entries are spread over a number of segments, each with its own
+ * bucket array and lock, so that writers to different segments don't
+ * block each other.  Readers never take a lock: an entry is never
+ * modified once it is reachable from a bucket, except for its value,
+ * and removal copies the entries preceding the removed one.  A segment
+ * is rehashed on its own when it grows too large, which blocks only the
+ * writers to that segment.
+ */
+public class ConcurrentHashTable extends HashTable
+{
+    private static final int MAX_SEGMENTS = 1 << 8;
+
+    private final Segment[] segments;
+    private final int segmentShift;
+
+    protected ConcurrentHashTable(Comparator c, int size,
+                                  LispObject rehashSize,
+                                  LispObject rehashThreshold) {
+        super(c, 0, rehashSize, rehashThreshold);
+        int n = calculateInitialCapacity(Math.min(MAX_SEGMENTS,
+            Runtime.getRuntime().availableProcessors() * 2));
+        segments = new Segment[n];
+        segmentShift = 32 - Integer.numberOfTrailingZeros(n);
+        int capacity = calculateInitialCapacity(Math.max(2, size / n));
+        for (int i = 0; i < n; i++) {
+            segments[i] = new Segment(capacity);
+        }
+    }
+
+    public static HashTable newEqHashTable(int size, LispObject rehashSize,
+            LispObject rehashThreshold) {
+        return new ConcurrentHashTable(new Comparator(), size,
+                                       rehashSize, rehashThreshold);
+    }
+
+    public static HashTable newEqlHashTable(int size, LispObject rehashSize,
+            LispObject rehashThreshold) {
+        return new ConcurrentHashTable(new EqlComparator(), size,
+                                       rehashSize, rehashThreshold);
+    }
+
+    public static HashTable newEqualHashTable(int size, LispObject rehashSize,
+            LispObject rehashThreshold) {
+        return new ConcurrentHashTable(new EqualComparator(), size,
+                                       rehashSize, rehashThreshold);
+    }
+
+    public static HashTable newEqualpHashTable(int size, LispObject rehashSize,
+            LispObject rehashThreshold) {
+        return new ConcurrentHashTable(new EqualpComparator(), size,
+                                       rehashSize, rehashThreshold);
+    }
+
+    // Spreads the bits of the sxhash, which for fixnums and characters
+    // is close to the identity, so that the high bits select a segment
+    // and the low bits a bucket.
+    private static int spread(int h) {
+        h += (h << 15) ^ 0xffffcd7d;
+        h ^= (h >>> 10);
+        h += (h << 3);
+        h ^= (h >>> 6);
+        h += (h << 2) + (h << 14);
+        return h ^ (h >>> 16);
+    }
+
+    private Segment segmentFor(int hash) {
+        return segments[hash >>> segmentShift];
+    }
+
+    @Override
+    public int getSize() {
+        int size = 0;
+        for (Segment s : segments) {
+            size += s.buckets.length;
+        }
+        return size;
+    }
+
+    @Override
+    public int getCount() {
+        int n = 0;
+        for (Segment s : segments) {
+            n += s.count;
+        }
+        return n;
+    }
+
+    @Override
+    public void clear() {
+        for (Segment s : segments) {
+            s.clear();
+        }
+    }
+
+    @Override
+    protected HashEntry getEntry(LispObject key) {
+        int hash = spread(comparator.hash(key));
+        return segmentFor(hash).getEntry(key, hash);
+    }
+
+    @Override
+    public LispObject get(LispObject key) {
+        HashEntry e = getEntry(key);
+        return e == null ? null : e.value;
+    }
+
+    @Override
+    public void put(LispObject key, LispObject value) {
+        int hash = spread(comparator.hash(key));
+        segmentFor(hash).put(key, hash, value);
+    }
+
+    @Override
+    public LispObject remove(LispObject key) {
+        int hash = spread(comparator.hash(key));
+        return segmentFor(hash).remove(key, hash);
+    }
+
+    @Override
+    protected void rehash() {
+        for (Segment s : segments) {
+            s.lock();
+            try {
+                s.rehash();
+            } finally {
+                s.unlock();
+            }
+        }
+    }
+
+    @Override
+    public LispObject getEntries() {
+        LispObject list = NIL;
+        for (int i = segments.length; i-- > 0;) {
+            HashEntry[] b = segments[i].buckets;
+            for (int j = b.length; j-- > 0;) {
+                for (HashEntry e = b[j]; e != null; e = e.next) {
+                    list = new Cons(new Cons(e.key, e.value), list);
+                }
+            }
+        }
+        return list;
+    }
+
+    @Override
+    public LispObject getParts() {
+        LispObject parts = NIL;
+        for (int i = 0; i < segments.length; i++) {
+            HashEntry[] b = segments[i].buckets;
+            for (int j = 0; j < b.length; j++) {
+                for (HashEntry e = b[j]; e != null; e = e.next) {
+                    parts = parts.push(new Cons("KEY [segment " + i
+                                                + ", bucket " + j + "]",
+                                                e.key));
+                    parts = parts.push(new Cons("VALUE", e.value));
+                }
+            }
+        }
+        return parts.nreverse();
+    }
+
+    @Override
+    public LispObject MAPHASH(LispObject function) {
+        // As in HashTable, no lock is held while calling the function:
+        // it sees the entries of each segment at the time the segment
+        // is visited.
+        for (int i = segments.length; i-- > 0;) {
+            HashEntry[] b = segments[i].buckets;
+            for (int j = b.length; j-- > 0;) {
+                for (HashEntry e = b[j]; e != null; e = e.next) {
+                    function.execute(e.key, e.value);
+                }
+            }
+        }
+        return NIL;
+    }
+
+    private final class Segment extends ReentrantLock {
+
+        @SuppressWarnings("VolatileArrayField")
+        volatile HashEntry[] buckets;
+        // Written last by every modification, so that readers which
+        // read it first see the entries stored before.
+        volatile int count;
+        int threshold;
+
+        Segment(int capacity) {
+            buckets = new HashEntry[capacity];
+            threshold = (int) (capacity * loadFactor);
+        }
+
+        HashEntry getEntry(LispObject key, int hash) {
+            if (count == 0) {
+                return null;
+            }
+            HashEntry[] b = buckets;
+            HashEntry e = b[hash & (b.length - 1)];
+            while (e != null) {
+                if (hash == e.hash &&
+                        (key == e.key || comparator.keysEqual(key, e.key))) {
+                    return e;
+                }
+                e = e.next;
+            }
+            return null;
+        }
+
+        void put(LispObject key, int hash, LispObject value) {
+            lock();
+            try {
+                HashEntry e = getEntry(key, hash);
+                if (e != null) {
+                    e.value = value;
+                } else {
+                    int n = count + 1;
+                    if (n > threshold) {
+                        rehash();
+                    }
+                    HashEntry[] b = buckets;
+                    int index = hash & (b.length - 1);
+                    b[index] = new HashEntry(key, hash, value, b[index]);
+                    count = n;
+                }
+            } finally {
+                unlock();
+            }
+        }
+
+        LispObject remove(LispObject key, int hash) {
+            lock();
+            try {
+                HashEntry[] b = buckets;
+                int index = hash & (b.length - 1);
+                HashEntry first = b[index];
+                HashEntry e = first;
+                while (e != null && (hash != e.hash
+                                     || !comparator.keysEqual(key, e.key))) {
+                    e = e.next;
+                }
+                if (e == null) {
+                    return null;
+                }
+                // Concurrent readers may be walking the chain: copy the
+                // entries in front of the removed one instead of
+                // unlinking it.
+                HashEntry chain = e.next;
+                for (HashEntry p = first; p != e; p = p.next) {
+                    chain = new HashEntry(p.key, p.hash, p.value, chain);
+                }
+                b[index] = chain;
+                count = count - 1;
+                return e.value;
+            } finally {
+                unlock();
+            }
+        }
+
+        void clear() {
+            lock();
+            try {
+                buckets = new HashEntry[buckets.length];
+                count = 0;
+            } finally {
+                unlock();
+            }
+        }
+
+        // Called with the lock held.
+        void rehash() {
+            HashEntry[] oldBuckets = buckets;
+            final int newCapacity = oldBuckets.length * 2;
+            int mask = newCapacity - 1;
+            HashEntry[] newBuckets = new HashEntry[newCapacity];
+
+            for (int i = oldBuckets.length; i-- > 0;) {
+                HashEntry e = oldBuckets[i];
+                while (e != null) {
+                    final int index = e.hash & mask;
+                    newBuckets[index] = new HashEntry(e.key, e.hash, e.value,
+                                                      newBuckets[index]);
+                    e = e.next;
+                }
+            }
+            threshold = (int) (newCapacity * loadFactor);
+            buckets = newBuckets;
+        }
+    }
+}
@@ -41,10 +41,64 @@ public final class EMFCache extends LispObject
   ConcurrentHashMap<CacheEntry,LispObject> cache
     = new ConcurrentHashMap<CacheEntry,LispObject>();;
   EqlSpecialization eqlSpecializations[] = new EqlSpecialization[0];
+  // Polymorphic inline cache, consulted before the hash table: the
+  // specializations of the first few argument combinations cached,
+  // which are matched against the arguments without allocating.
+  private static final int INLINE_CACHE_SIZE = 4;
+  volatile InlineEntry[] inlineCache = new InlineEntry[0];
+  // Set by %reinit-emf-cache, -1 until then
+  int numberOfRequiredArgs = -1;
 
   void clearCache()
   {
     cache = new ConcurrentHashMap<CacheEntry,LispObject>();
+    inlineCache = new InlineEntry[0];
+  }
+
+  int getNumberOfRequiredArgs(FuncallableStandardObject gf)
+  {
+    int n = numberOfRequiredArgs;
+    if (n < 0)
+      n = gf.getInstanceSlotValue(Symbol.REQUIRED_ARGS).length();
+    return n;
+  }
+
+  /**
+   * Returns the effective method function cached in the inline cache
+   * for <tt>args</tt>, or null.
+   */
+  LispObject getInlineCachedEMF(LispObject args, int numberOfRequiredArgs)
+  {
+    final InlineEntry[] entries = inlineCache;
+    for (InlineEntry entry : entries)
+      {
+        final LispObject[] specializations = entry.specializations;
+        LispObject list = args;
+        int i = numberOfRequiredArgs;
+        while (i-- > 0)
+          {
+            if (getArgSpecialization(list.car()) != specializations[i])
+              break;
+            list = list.cdr();
+          }
+        if (i < 0)
+          return entry.emf;
+      }
+    return null;
+  }
+
+  void addInlineCacheEntry(LispObject[] specializations, LispObject emf)
+  {
+    synchronized (this)
+      {
+        final InlineEntry[] entries = inlineCache;
+        if (entries.length >= INLINE_CACHE_SIZE)
+          return;
+        InlineEntry[] newEntries = new InlineEntry[entries.length + 1];
+        System.arraycopy(entries, 0, newEntries, 0, entries.length);
+        newEntries[entries.length] = new InlineEntry(specializations, emf);
+        inlineCache = newEntries;
+      }
   }
 
   @Override
@@ -105,6 +159,19 @@ public final class EMFCache extends LispObject
     }
   }
 
+  private static final class InlineEntry
+  {
+    // In the order of CacheEntry.array
+    final LispObject[] specializations;
+    final LispObject emf;
+
+    InlineEntry(LispObject[] specializations, LispObject emf)
+    {
+      this.specializations = specializations;
+      this.emf = emf;
+    }
+  }
+
   private static final Primitive _MAKE_EMF_CACHE
     = new pf__make_emf_cache();
   @DocString(name="%make-emf-cache")
@@ -143,6 +210,8 @@ public final class EMFCache extends LispObject
         cache.eqlSpecializations[i] = new EqlSpecialization(eql_specializers.car());
         eql_specializers = eql_specializers.cdr();
       }
+      cache.numberOfRequiredArgs
+        = gf.getInstanceSlotValue(Symbol.REQUIRED_ARGS).length();
       return T;
     }
   };
@@ -164,8 +233,7 @@ public final class EMFCache extends LispObject
       final FuncallableStandardObject gf = checkStandardGenericFunction(first);
       EMFCache cache = gf.cache;
       LispObject args = second;
-      int numberOfRequiredArgs
-        = gf.getInstanceSlotValue(Symbol.REQUIRED_ARGS).length();
+      int numberOfRequiredArgs = cache.getNumberOfRequiredArgs(gf);
       LispObject[] array = new LispObject[numberOfRequiredArgs];
       for (int i = numberOfRequiredArgs; i-- > 0;)
         {
@@ -175,6 +243,7 @@ public final class EMFCache extends LispObject
       CacheEntry specializations = new CacheEntry(array);
       ConcurrentHashMap<CacheEntry,LispObject> ht = cache.cache;
       ht.put(specializations, third);
+      cache.addInlineCacheEntry(array, third);
       return third;
     }
   };
@@ -194,8 +263,10 @@ public final class EMFCache extends LispObject
       final FuncallableStandardObject gf = checkStandardGenericFunction(first);
       EMFCache cache = gf.cache;
       LispObject args = second;
-      int numberOfRequiredArgs
-        = gf.getInstanceSlotValue(Symbol.REQUIRED_ARGS).length();
+      int numberOfRequiredArgs = cache.getNumberOfRequiredArgs(gf);
+      LispObject emf = cache.getInlineCachedEMF(args, numberOfRequiredArgs);
+      if (emf != null)
+        return emf;
       LispObject[] array = new LispObject[numberOfRequiredArgs];
       for (int i = numberOfRequiredArgs; i-- > 0;)
         {
@@ -204,7 +275,7 @@ public final class EMFCache extends LispObject
         }
       CacheEntry specializations = new CacheEntry(array);
       ConcurrentHashMap<CacheEntry,LispObject> ht = cache.cache;
-      LispObject emf = (LispObject) ht.get(specializations);
+      emf = (LispObject) ht.get(specializations);
       return emf != null ? emf : NIL;
     }
   };
@@ -150,6 +150,21 @@ public final class EchoStream extends Stream
         return n;
     }
 
+    @Override
+    public int _readChars(char[] chars, int start, int end)
+        throws java.io.IOException
+    {
+        int n = in._readChars(chars, start, end);
+        int echoStart = start;
+        if (n > start && unreadChar >= 0) {
+            // The first character was echoed before it was unread.
+            ++echoStart;
+            unreadChar = -1;
+        }
+        out._writeChars(chars, echoStart, n);
+        return n;
+    }
+
     @Override
     protected void _unreadChar(int n) throws java.io.IOException
     {
@@ -35,7 +35,7 @@ package org.armedbear.lisp;
 
 import static org.armedbear.lisp.Lisp.*;
 
-public final class Environment extends LispObject
+public final class Environment extends LispObject implements java.io.Serializable
 {
   Binding vars;
   FunctionBinding lastFunctionBinding;
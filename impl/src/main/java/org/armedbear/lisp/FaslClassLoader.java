@@ -33,19 +33,72 @@
 
 package org.armedbear.lisp;
 
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 import static org.armedbear.lisp.Lisp.*;
 
 
 public class FaslClassLoader extends JavaClassLoader {
 
+    static {
+        registerAsParallelCapable();
+    }
+
     private final String baseName;
     private final JavaObject boxedThis = new JavaObject(this);
 
+    // The bytes of the classes and resources of a loader restored from
+    // an image, which has no FASL to read them from
+    final ConcurrentHashMap<String,byte[]> imageBytes
+        = new ConcurrentHashMap<String,byte[]>();
+    final ConcurrentHashMap<String,byte[]> imageResources
+        = new ConcurrentHashMap<String,byte[]>();
+
+    // The names of the classes defined by this loader, and of the
+    // resources read by them, which SAVE-IMAGE reads again from the
+    // FASL, found through the values *LOAD-TRUENAME-FASL* and
+    // *LOAD-TRUENAME* had when the loader was made
+    final Set<String> classNames
+        = Collections.newSetFromMap(new ConcurrentHashMap<String,Boolean>());
+    final Set<String> resourceNames
+        = Collections.newSetFromMap(new ConcurrentHashMap<String,Boolean>());
+    private LispObject loadTruenameFasl = NIL;
+    private LispObject loadTruename = NIL;
+
+    // The uninterned symbols of the FASL, which the constants of its
+    // functions refer to, for SAVE-IMAGE
+    volatile LispObject uninternedSymbols = NIL;
+
     public FaslClassLoader(String baseName) {
         this.baseName = baseName;
     }
 
+    /** A loader for classes and resources saved in an image. */
+    FaslClassLoader(String baseName, Map<String,byte[]> classes,
+                    Map<String,byte[]> resources) {
+        this.baseName = baseName;
+        imageBytes.putAll(classes);
+        imageResources.putAll(resources);
+    }
+
+    final String getBaseName() {
+        return baseName;
+    }
+
     @Override
     protected Class<?> loadClass(String name, boolean resolve)
             throws ClassNotFoundException {
@@ -59,9 +112,7 @@ public class FaslClassLoader extends JavaClassLoader {
          * which - in ABCL - is pretty deep, most of the time.
          */
         if (name.startsWith(baseName + "_")) {
-            String internalName = name.replace(".", "/");
-            if (!internalName.contains("/")) internalName = "org/armedbear/lisp/" + internalName;
-            Class<?> c = this.findLoadedClass(internalName);
+            Class<?> c = findLoadedClass(name);
 
             if (c == null && checkPreCompiledClassLoader) {
             	c = findPrecompiledClassOrNull(name);
@@ -92,8 +143,13 @@ public class FaslClassLoader extends JavaClassLoader {
             	if (c != null)
             		return c;                	
             }
-            byte[] b = getFunctionClassBytes(name);
-            return defineLispClass(name, b, 0, b.length);
+            byte[] b = imageBytes.get(name);
+            if (b == null) {
+                b = getFunctionClassBytes(name);
+            }
+            Class<?> c = defineLispClass(name, b, 0, b.length);
+            classNames.add(name);
+            return c;
         } catch(Throwable e) { //TODO handle this better, readFunctionBytes uses Debug.assert() but should return null
             e.printStackTrace();
             if(e instanceof ControlTransfer) { throw (ControlTransfer) e; }
@@ -103,6 +159,75 @@ public class FaslClassLoader extends JavaClassLoader {
 
     @Override
     public InputStream getResourceAsStream(String resourceName) {
+      byte[] b = imageResources.get(resourceName);
+      if (b != null) {
+        return new ByteArrayInputStream(b);
+      }
+      InputStream in = findResourceAsStream(resourceName);
+      // Only the constants of compiled functions are saved
+      if (in != null && resourceName.endsWith(".clc")) {
+        resourceNames.add(resourceName);
+      }
+      return in;
+    }
+
+    /** Returns the bytes of the classes defined by this loader, read
+     * again from its FASL unless the loader was restored from an image.
+     */
+    Map<String,byte[]> getClassBytes() {
+        Map<String,byte[]> result = new HashMap<String,byte[]>(imageBytes);
+        final LispThread thread = LispThread.currentThread();
+        final SpecialBindingsMark mark = thread.markSpecialBindings();
+        bindLoadTruenames(thread);
+        try {
+            for (String name : classNames) {
+                if (!result.containsKey(name)) {
+                    result.put(name, getFunctionClassBytes(name));
+                }
+            }
+        } finally {
+            thread.resetSpecialBindings(mark);
+        }
+        return result;
+    }
+
+    /** Returns the bytes of the resources read through this loader,
+     * like getClassBytes().
+     */
+    Map<String,byte[]> getResourceBytes() throws IOException {
+        Map<String,byte[]> result = new HashMap<String,byte[]>(imageResources);
+        final LispThread thread = LispThread.currentThread();
+        final SpecialBindingsMark mark = thread.markSpecialBindings();
+        bindLoadTruenames(thread);
+        try {
+            for (String name : resourceNames) {
+                if (result.containsKey(name)) {
+                    continue;
+                }
+                InputStream in = findResourceAsStream(name);
+                if (in == null) {
+                    throw new IOException("The resource " + name
+                                          + " can't be read from "
+                                          + loadTruenameFasl.princToString());
+                }
+                try {
+                    result.put(name, readAll(in, -1));
+                } finally {
+                    in.close();
+                }
+            }
+        } finally {
+            thread.resetSpecialBindings(mark);
+        }
+        return result;
+    }
+
+    private void bindLoadTruenames(LispThread thread) {
+        thread.bindSpecial(Symbol.LOAD_TRUENAME_FASL, loadTruenameFasl);
+        thread.bindSpecial(Symbol.LOAD_TRUENAME, loadTruename);
+    }
+
+    private InputStream findResourceAsStream(String resourceName) {
       final LispThread thread = LispThread.currentThread();
 
       Pathname name = new Pathname(resourceName.substring("org/armedbear/lisp/".length()));
@@ -125,6 +250,7 @@ public class FaslClassLoader extends JavaClassLoader {
     public LispObject loadFunction(int fnNumber) {
         //Function name is fnIndex + 1
         String name = baseName + "_" + (fnNumber + 1);
+        uninternedSymbols = Load._FASL_UNINTERNED_SYMBOLS_.symbolValue();
         try {
             Class clz = loadClass(name);
             if (clz==null) {
@@ -134,7 +260,8 @@ public class FaslClassLoader extends JavaClassLoader {
             ClassLoader fcl = clz.getClassLoader();
             if (fcl instanceof JavaClassLoader) {
                 // Don't do this for system classes (though probably dont need this for other classes) 
-                f.setClassBytes(getFunctionClassBytes(name));
+                byte[] b = imageBytes.get(name);
+                f.setClassBytes(b != null ? b : getFunctionClassBytes(name));
             }
             return f;
         } catch(Throwable e) {
@@ -144,6 +271,151 @@ public class FaslClassLoader extends JavaClassLoader {
         }
     }
 
+    /**
+     * Reads the function classes of the FASL being loaded from its zip
+     * file, and defines them, using a fork-join pool.  The classes are
+     * neither linked nor instantiated until loadFunction() asks for
+     * them, so that verification is done on first use.
+     *
+     * Does nothing unless the FASL is a jar in the local file system.
+     * A class which couldn't be read or defined here is loaded the usual
+     * way by loadFunction().
+     */
+    void preload(LispObject truenameFasl) {
+        if (!(truenameFasl instanceof Pathname)) {
+            return;
+        }
+        Pathname fasl = (Pathname) truenameFasl;
+        if (!fasl.isJar() || fasl.device.cdr() != NIL
+            || !(fasl.device.car() instanceof Pathname)) {
+            return;
+        }
+        Pathname jar = (Pathname) fasl.device.car();
+        String file = jar.isURL() ? null : jar.getNamestring();
+        if (file == null) {
+            return;
+        }
+        String prefix = baseName.substring(baseName.lastIndexOf('.') + 1) + "_";
+        String suffix = "."
+            + _COMPILE_FILE_CLASS_EXTENSION_.symbolValue().getStringValue();
+        ZipFile zip = null;
+        try {
+            zip = new ZipFile(new File(file));
+            List<ZipEntry> entries = new ArrayList<ZipEntry>();
+            for (Enumeration<? extends ZipEntry> e = zip.entries();
+                 e.hasMoreElements();) {
+                ZipEntry entry = e.nextElement();
+                String name = entry.getName();
+                if (name.startsWith(prefix) && name.endsWith(suffix)) {
+                    entries.add(entry);
+                }
+            }
+            if (entries.isEmpty()) {
+                return;
+            }
+            PreloadPool.pool.invoke(new PreloadTask(zip, entries, 0,
+                                                    entries.size(), suffix));
+        } catch (IOException e) {
+            // Leave it to loadFunction()
+        } finally {
+            if (zip != null) {
+                try {
+                    zip.close();
+                } catch (IOException e) {
+                }
+            }
+        }
+    }
+
+    private void preloadEntry(ZipFile zip, ZipEntry entry, String suffix) {
+        String entryName = entry.getName();
+        String name = baseName.substring(0, baseName.lastIndexOf('.') + 1)
+            + entryName.substring(0, entryName.length() - suffix.length());
+        try {
+            InputStream in = zip.getInputStream(entry);
+            byte[] b;
+            try {
+                b = readAll(in, (int) entry.getSize());
+            } finally {
+                in.close();
+            }
+            synchronized (getClassLoadingLock(name)) {
+                if (findLoadedClass(name) == null) {
+                    defineLispClass(name, b, 0, b.length);
+                    classNames.add(name);
+                }
+            }
+        } catch (IOException e) {
+            // Leave it to loadFunction(), which reports errors
+        } catch (LinkageError e) {
+            // Likewise
+        }
+    }
+
+    private static byte[] readAll(InputStream in, int size) throws IOException {
+        byte[] b = new byte[size >= 0 ? size : 4096];
+        int n = 0;
+        while (true) {
+            if (n == b.length) {
+                if (size >= 0) {
+                    return b;
+                }
+                byte[] bigger = new byte[b.length * 2];
+                System.arraycopy(b, 0, bigger, 0, n);
+                b = bigger;
+            }
+            int count = in.read(b, n, b.length - n);
+            if (count < 0) {
+                break;
+            }
+            n += count;
+        }
+        if (n == b.length) {
+            return b;
+        }
+        byte[] result = new byte[n];
+        System.arraycopy(b, 0, result, 0, n);
+        return result;
+    }
+
+    // Created on first use only
+    private static final class PreloadPool {
+        static final ForkJoinPool pool = new ForkJoinPool();
+    }
+
+    private final class PreloadTask extends RecursiveAction {
+        // Entries handled by one task without splitting
+        private static final int THRESHOLD = 4;
+
+        private final ZipFile zip;
+        private final List<ZipEntry> entries;
+        private final int start;
+        private final int end;
+        private final String suffix;
+
+        PreloadTask(ZipFile zip, List<ZipEntry> entries, int start, int end,
+                    String suffix) {
+            this.zip = zip;
+            this.entries = entries;
+            this.start = start;
+            this.end = end;
+            this.suffix = suffix;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start <= THRESHOLD) {
+                for (int i = start; i < end; i++) {
+                    preloadEntry(zip, entries.get(i), suffix);
+                }
+            } else {
+                int middle = (start + end) >>> 1;
+                invokeAll(new PreloadTask(zip, entries, start, middle, suffix),
+                          new PreloadTask(zip, entries, middle, end, suffix));
+            }
+        }
+    }
+
     private static final Primitive MAKE_FASL_CLASS_LOADER = new pf_make_fasl_class_loader();
     private static final class pf_make_fasl_class_loader extends Primitive {
         pf_make_fasl_class_loader() {
@@ -152,7 +424,13 @@ public class FaslClassLoader extends JavaClassLoader {
 
         @Override
         public LispObject execute(LispObject baseName) {
-            return new FaslClassLoader(baseName.getStringValue()).boxedThis;
+            FaslClassLoader loader = new FaslClassLoader(baseName.getStringValue());
+            loader.loadTruenameFasl = Symbol.LOAD_TRUENAME_FASL.symbolValue();
+            loader.loadTruename = Symbol.LOAD_TRUENAME.symbolValue();
+            if (_PARALLEL_FASL_LOADING_.symbolValue() != NIL) {
+                loader.preload(Symbol.LOAD_TRUENAME_FASL.symbolValue());
+            }
+            return loader.boxedThis;
         }
 
     };
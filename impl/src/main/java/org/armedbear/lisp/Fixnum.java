@@ -36,17 +36,35 @@ package org.armedbear.lisp;
 import static org.armedbear.lisp.Lisp.*;
 
 import java.math.BigInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 public final class Fixnum extends LispInteger
 {
-  public static final int MAX_POS_CACHE = 256;//just like before - however never set this to less than 256
+  /** getInstance() returns shared instances for MIN_CACHE up to (but
+   *  not including) MAX_POS_CACHE.  The range is set with the system
+   *  properties abcl.fixnum.cache.min and abcl.fixnum.cache.max; it
+   *  always covers 0 to 255, which compiled code takes from constants
+   *  directly. */
+  public static final int MIN_CACHE
+    = Math.min(0, Integer.getInteger("abcl.fixnum.cache.min", -128));
+  public static final int MAX_POS_CACHE
+    = Math.max(256, Integer.getInteger("abcl.fixnum.cache.max", 1023) + 1);
   public static final Fixnum[] constants = new Fixnum[MAX_POS_CACHE];
+  // negativeConstants[~n] is n
+  private static final Fixnum[] negativeConstants = new Fixnum[-MIN_CACHE];
   static
   {
     for (int i = 0; i < MAX_POS_CACHE; i++)
       constants[i] = new Fixnum(i);
+    for (int i = 0; i < negativeConstants.length; i++)
+      negativeConstants[i] = new Fixnum(~i);
   }
 
+  /** Counts the Fixnums getInstance() allocates, if the system property
+   *  abcl.allocation.counters is true; null otherwise. */
+  static final LongAdder allocations
+    = Boolean.getBoolean("abcl.allocation.counters") ? new LongAdder() : null;
+
   public static final Fixnum ZERO      = constants[0];
   public static final Fixnum ONE       = constants[1];
   public static final Fixnum TWO       = constants[2];
@@ -56,7 +74,16 @@ public final class Fixnum extends LispInteger
 
   public static Fixnum getInstance(int n)
   {
-    return (n >= 0 && n < MAX_POS_CACHE) ? constants[n] : new Fixnum(n);
+    if (n >= 0)
+      {
+        if (n < MAX_POS_CACHE)
+          return constants[n];
+      }
+    else if (n >= MIN_CACHE)
+      return negativeConstants[~n];
+    if (allocations != null)
+      allocations.increment();
+    return new Fixnum(n);
   }
 
   public final int value;
@@ -367,7 +394,7 @@ public final class Fixnum extends LispInteger
         return LispInteger.getInstance(result);
       }
     if (obj instanceof Bignum)
-      return number(getBigInteger().add(((Bignum)obj).value));
+      return obj.add(this);
     if (obj instanceof Ratio)
       {
         BigInteger numerator = ((Ratio)obj).numerator();
@@ -399,7 +426,12 @@ public final class Fixnum extends LispInteger
     if (obj instanceof Fixnum)
       return number((long) value - ((Fixnum)obj).value);
     if (obj instanceof Bignum)
-      return number(getBigInteger().subtract(Bignum.getValue(obj)));
+      {
+        Bignum n = (Bignum) obj;
+        if (n.fitsLong)
+          return Bignum.subtract(value, n.longBits);
+        return number(getBigInteger().subtract(n.getBigInteger()));
+      }
     if (obj instanceof Ratio)
       {
         BigInteger numerator = ((Ratio)obj).numerator();
@@ -437,7 +469,7 @@ public final class Fixnum extends LispInteger
         return LispInteger.getInstance(result);
       }
     if (obj instanceof Bignum)
-      return number(getBigInteger().multiply(((Bignum)obj).value));
+      return obj.multiplyBy(this);
     if (obj instanceof Ratio)
       {
         BigInteger numerator = ((Ratio)obj).numerator();
@@ -475,7 +507,7 @@ public final class Fixnum extends LispInteger
                           BigInteger.valueOf(divisor));
           }
         if (obj instanceof Bignum)
-          return number(getBigInteger(), ((Bignum)obj).value);
+          return number(getBigInteger(), ((Bignum)obj).getBigInteger());
         if (obj instanceof Ratio)
           {
             BigInteger numerator = ((Ratio)obj).numerator();
@@ -568,7 +600,7 @@ public final class Fixnum extends LispInteger
     if (obj instanceof Fixnum)
       return value < ((Fixnum)obj).value;
     if (obj instanceof Bignum)
-      return getBigInteger().compareTo(Bignum.getValue(obj)) < 0;
+      return ((Bignum)obj).plusp();
     if (obj instanceof Ratio)
       {
         BigInteger n = getBigInteger().multiply(((Ratio)obj).denominator());
@@ -595,7 +627,7 @@ public final class Fixnum extends LispInteger
     if (obj instanceof Fixnum)
       return value > ((Fixnum)obj).value;
     if (obj instanceof Bignum)
-      return getBigInteger().compareTo(Bignum.getValue(obj)) > 0;
+      return ((Bignum)obj).minusp();
     if (obj instanceof Ratio)
       {
         BigInteger n = getBigInteger().multiply(((Ratio)obj).denominator());
@@ -622,7 +654,7 @@ public final class Fixnum extends LispInteger
     if (obj instanceof Fixnum)
       return value <= ((Fixnum)obj).value;
     if (obj instanceof Bignum)
-      return getBigInteger().compareTo(Bignum.getValue(obj)) <= 0;
+      return ((Bignum)obj).plusp();
     if (obj instanceof Ratio)
       {
         BigInteger n = getBigInteger().multiply(((Ratio)obj).denominator());
@@ -649,7 +681,7 @@ public final class Fixnum extends LispInteger
     if (obj instanceof Fixnum)
       return value >= ((Fixnum)obj).value;
     if (obj instanceof Bignum)
-      return getBigInteger().compareTo(Bignum.getValue(obj)) >= 0;
+      return ((Bignum)obj).minusp();
     if (obj instanceof Ratio)
       {
         BigInteger n = getBigInteger().multiply(((Ratio)obj).denominator());
@@ -679,10 +711,16 @@ public final class Fixnum extends LispInteger
             value1 = Fixnum.getInstance(quotient);
             value2 = remainder == 0 ? Fixnum.ZERO : Fixnum.getInstance(remainder);
           }
+        else if (obj instanceof Bignum && ((Bignum)obj).fitsLong)
+          {
+            long divisor = ((Bignum)obj).longBits;
+            value1 = LispInteger.getInstance(value / divisor);
+            value2 = LispInteger.getInstance(value % divisor);
+          }
         else if (obj instanceof Bignum)
           {
             BigInteger val = getBigInteger();
-            BigInteger divisor = ((Bignum)obj).value;
+            BigInteger divisor = ((Bignum)obj).getBigInteger();
             BigInteger[] results = val.divideAndRemainder(divisor);
             BigInteger quotient = results[0];
             BigInteger remainder = results[1];
@@ -781,6 +819,8 @@ public final class Fixnum extends LispInteger
         n = n << shift;
         return LispInteger.getInstance(n);
       }
+    if (shift < 63 && (n << shift) >> shift == n)
+      return LispInteger.getInstance(n << shift);
     // BigInteger.shiftLeft() succumbs to a stack overflow if shift
     // is Integer.MIN_VALUE, so...
     if (shift == Integer.MIN_VALUE)
@@ -798,7 +838,7 @@ public final class Fixnum extends LispInteger
         if (value == 0)
           return this;
         BigInteger n = BigInteger.valueOf(value);
-        BigInteger shift = ((Bignum)obj).value;
+        BigInteger shift = ((Bignum)obj).getBigInteger();
         if (shift.signum() > 0)
           return error(new LispError("Can't represent result of left shift."));
         if (shift.signum() < 0)
@@ -829,15 +869,11 @@ public final class Fixnum extends LispInteger
       {
         if (value >= 0)
           {
-            int n2 = (((Bignum)obj).value).intValue();
+            int n2 = (((Bignum)obj).getBigInteger()).intValue();
             return Fixnum.getInstance(value & n2);
           }
         else
-          {
-            BigInteger n1 = getBigInteger();
-            BigInteger n2 = ((Bignum)obj).value;
-            return number(n1.and(n2));
-          }
+          return obj.LOGAND(this);
       }
     return type_error(obj, Symbol.INTEGER);
   }
@@ -854,11 +890,7 @@ public final class Fixnum extends LispInteger
     if (obj instanceof Fixnum)
       return Fixnum.getInstance(value | ((Fixnum)obj).value);
     if (obj instanceof Bignum)
-      {
-        BigInteger n1 = getBigInteger();
-        BigInteger n2 = ((Bignum)obj).value;
-        return number(n1.or(n2));
-      }
+      return obj.LOGIOR(this);
     return type_error(obj, Symbol.INTEGER);
   }
 
@@ -874,11 +906,7 @@ public final class Fixnum extends LispInteger
     if (obj instanceof Fixnum)
       return Fixnum.getInstance(value ^ ((Fixnum)obj).value);
     if (obj instanceof Bignum)
-      {
-        BigInteger n1 = getBigInteger();
-        BigInteger n2 = ((Bignum)obj).value;
-        return number(n1.xor(n2));
-      }
+      return obj.LOGXOR(this);
     return type_error(obj, Symbol.INTEGER);
   }
 
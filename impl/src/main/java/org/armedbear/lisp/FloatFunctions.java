@@ -358,7 +358,7 @@ public final class FloatFunctions
                 return new SingleFloat(Float.intBitsToFloat(bits));
             }
             if (arg instanceof Bignum) {
-                long bits = ((Bignum)arg).value.longValue();
+                long bits = ((Bignum)arg).longValue();
                 return new SingleFloat(Float.intBitsToFloat((int)bits));
             }
             return type_error(arg, Symbol.INTEGER);
@@ -378,7 +378,7 @@ public final class FloatFunctions
                 return new DoubleFloat(Double.longBitsToDouble(bits));
             }
             if (arg instanceof Bignum) {
-                long bits = ((Bignum)arg).value.longValue();
+                long bits = ((Bignum)arg).longValue();
                 return new DoubleFloat(Double.longBitsToDouble(bits));
             }
             return type_error(arg, Symbol.INTEGER);
@@ -469,4 +469,71 @@ public final class FloatFunctions
             return new SimpleString(sb.toString());
         }
     };
+
+    // ### %float-vector-fill vector item start end => vector or nil
+    // Fills a simple vector of unboxed floats, for FILL; returns NIL for
+    // any other vector.
+    private static final Primitive _FLOAT_VECTOR_FILL =
+        new Primitive("%float-vector-fill", PACKAGE_SYS, false,
+                      "vector item start end")
+    {
+        @Override
+        public LispObject execute(LispObject vector, LispObject item,
+                                  LispObject start, LispObject end)
+
+        {
+            int s = Fixnum.getValue(start);
+            if (vector instanceof BasicVector_DoubleFloat) {
+                BasicVector_DoubleFloat v = (BasicVector_DoubleFloat) vector;
+                v.fill(item, s, end == NIL ? v.length() : Fixnum.getValue(end));
+                return v;
+            }
+            if (vector instanceof BasicVector_SingleFloat) {
+                BasicVector_SingleFloat v = (BasicVector_SingleFloat) vector;
+                v.fill(item, s, end == NIL ? v.length() : Fixnum.getValue(end));
+                return v;
+            }
+            return NIL;
+        }
+    };
+
+    // ### %float-vector-replace target source start1 end1 start2 end2
+    // => target or nil
+    // Copies between two simple vectors of the same kind of unboxed
+    // floats, for REPLACE; returns NIL for any other vectors.
+    private static final Primitive _FLOAT_VECTOR_REPLACE =
+        new Primitive("%float-vector-replace", PACKAGE_SYS, false,
+                      "target source start1 end1 start2 end2")
+    {
+        @Override
+        public LispObject execute(LispObject[] args)
+
+        {
+            if (args.length != 6)
+                return error(new WrongNumberOfArgumentsException(this, 6));
+            LispObject target = args[0];
+            LispObject source = args[1];
+            if (target instanceof BasicVector_DoubleFloat
+                && source instanceof BasicVector_DoubleFloat) {
+                BasicVector_DoubleFloat t = (BasicVector_DoubleFloat) target;
+                BasicVector_DoubleFloat s = (BasicVector_DoubleFloat) source;
+                t.replace(Fixnum.getValue(args[2]),
+                          args[3] == NIL ? t.length() : Fixnum.getValue(args[3]),
+                          s, Fixnum.getValue(args[4]),
+                          args[5] == NIL ? s.length() : Fixnum.getValue(args[5]));
+                return t;
+            }
+            if (target instanceof BasicVector_SingleFloat
+                && source instanceof BasicVector_SingleFloat) {
+                BasicVector_SingleFloat t = (BasicVector_SingleFloat) target;
+                BasicVector_SingleFloat s = (BasicVector_SingleFloat) source;
+                t.replace(Fixnum.getValue(args[2]),
+                          args[3] == NIL ? t.length() : Fixnum.getValue(args[3]),
+                          s, Fixnum.getValue(args[4]),
+                          args[5] == NIL ? s.length() : Fixnum.getValue(args[5]));
+                return t;
+            }
+            return NIL;
+        }
+    };
 }
@@ -34,7 +34,7 @@
 package org.armedbear.lisp;
 
 // Package accessibility.
-final class FunctionBinding
+final class FunctionBinding implements java.io.Serializable
 {
     LispObject name;
     LispObject value;
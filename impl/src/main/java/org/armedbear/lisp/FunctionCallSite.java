@@ -0,0 +1,168 @@
+/*
+ * FunctionCallSite.java
+ *
+ * Copyright (C) 2026 The Armed Bear Common Lisp Project
+ * $Id$
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ *
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent
+ * modules, and to copy and distribute the resulting executable under
+ * terms of your choice, provided that you also meet, for each linked
+ * independent module, the terms and conditions of the license of that
+ * module.  An independent module is a module which is not derived from
+ * or based on this library.  If you modify this library, you may extend
+ * this exception to your version of the library, but you are not
+ * obligated to do so.  If you do not wish to do so, delete this
+ * exception statement from your version.
+ */
+
+
+package org.armedbear.lisp;
+
+import static org.armedbear.lisp.Lisp.*;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.MutableCallSite;
+import java.lang.invoke.SwitchPoint;
+import java.util.Collections;
+
+/** Call site of a call to a global function from compiled code.
+ *
+ * The compiler emits an invokedynamic instruction for such calls,
+ * passing the function's name (a symbol) as the first argument.  The
+ * first time the call is executed, the call site is bound to the
+ * function in the symbol's function cell, allowing the JIT to inline
+ * across the call.  The binding is dropped through the symbol's
+ * SwitchPoint when the function is redefined.
+ */
+public final class FunctionCallSite extends MutableCallSite
+{
+  private static final MethodHandle RELINK;
+  private static final MethodHandle IS_SAME;
+  private static final MethodHandle[] EXECUTE =
+    new MethodHandle[CALL_REGISTERS_MAX + 1];
+
+  static
+  {
+    MethodHandles.Lookup lookup = MethodHandles.lookup();
+    try
+      {
+        RELINK = lookup.findVirtual(FunctionCallSite.class, "relink",
+                                    MethodType.methodType(LispObject.class,
+                                                          LispObject[].class));
+        IS_SAME = lookup.findStatic(FunctionCallSite.class, "isSame",
+                                    MethodType.methodType(boolean.class,
+                                                          LispObject.class,
+                                                          LispObject.class));
+        for (int i = 0; i <= CALL_REGISTERS_MAX; i++)
+          EXECUTE[i] =
+            lookup.findVirtual(LispObject.class, "execute",
+                               MethodType.methodType(LispObject.class,
+                                                     Collections.nCopies(i, LispObject.class)));
+      }
+    catch (ReflectiveOperationException e)
+      {
+        throw new Error(e);
+      }
+  }
+
+  /** Bootstrap method of the invokedynamic instructions emitted by
+   * the compiler; `type' takes the symbol naming the function,
+   * followed by the function's arguments.
+   */
+  public static CallSite bootstrap(MethodHandles.Lookup lookup,
+                                   String name, MethodType type)
+  {
+    return new FunctionCallSite(type);
+  }
+
+  private final MethodHandle relink;
+
+  private FunctionCallSite(MethodType type)
+  {
+    super(type);
+    relink = RELINK.bindTo(this)
+      .asCollector(LispObject[].class, type.parameterCount())
+      .asType(type);
+    setTarget(relink);
+  }
+
+  private static boolean isSame(LispObject expected, LispObject actual)
+  {
+    return expected == actual;
+  }
+
+  private LispObject relink(LispObject[] args)
+  {
+    LispObject[] arguments = new LispObject[args.length - 1];
+    System.arraycopy(args, 1, arguments, 0, arguments.length);
+    if (!(args[0] instanceof Symbol))
+      return execute(args[0], arguments);
+
+    Symbol symbol = (Symbol) args[0];
+    // Fetch the switch point before the function: a redefinition
+    // happening in between invalidates the switch point.
+    SwitchPoint switchPoint = symbol.getFunctionSwitchPoint();
+    LispObject function = symbol.getSymbolFunction();
+    MethodHandle target = EXECUTE[arguments.length];
+    if (function == null)
+      // Dispatch through the symbol, which signals UNDEFINED-FUNCTION
+      function = symbol;
+    else
+      target = MethodHandles.dropArguments(target.bindTo(function),
+                                           0, LispObject.class);
+    target = MethodHandles.guardWithTest(IS_SAME.bindTo(symbol),
+                                         target.asType(type()), relink);
+    setTarget(switchPoint.guardWithTest(target, relink));
+    return execute(function, arguments);
+  }
+
+  private static LispObject execute(LispObject function, LispObject[] args)
+  {
+    switch (args.length)
+      {
+      case 0:
+        return function.execute();
+      case 1:
+        return function.execute(args[0]);
+      case 2:
+        return function.execute(args[0], args[1]);
+      case 3:
+        return function.execute(args[0], args[1], args[2]);
+      case 4:
+        return function.execute(args[0], args[1], args[2], args[3]);
+      case 5:
+        return function.execute(args[0], args[1], args[2], args[3],
+                                args[4]);
+      case 6:
+        return function.execute(args[0], args[1], args[2], args[3],
+                                args[4], args[5]);
+      case 7:
+        return function.execute(args[0], args[1], args[2], args[3],
+                                args[4], args[5], args[6]);
+      case 8:
+        return function.execute(args[0], args[1], args[2], args[3],
+                                args[4], args[5], args[6], args[7]);
+      default:
+        return function.execute(args);
+      }
+  }
+}
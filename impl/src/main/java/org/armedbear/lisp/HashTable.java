@@ -137,7 +137,7 @@ public class HashTable
         }
         if (obj instanceof HashTable) {
             HashTable ht = (HashTable) obj;
-            if (count != ht.count) {
+            if (getCount() != ht.getCount()) {
                 return false;
             }
             if (getTest() != ht.getTest()) {
@@ -235,6 +235,7 @@ public class HashTable
         sb.append(' ');
         sb.append(Symbol.HASH_TABLE.princToString());
         sb.append(' ');
+        int count = getCount();
         sb.append(count);
         if (count == 1) {
             sb.append(" entry");
@@ -242,7 +243,7 @@ public class HashTable
             sb.append(" entries");
         }
         sb.append(", ");
-        sb.append(buckets.length);
+        sb.append(getSize());
         sb.append(" buckets");
         return new SimpleString(unreadableString(sb.toString()));
     }
@@ -465,7 +466,7 @@ public class HashTable
     @Override
     public int psxhash() {
         long result = 2062775257; // Chosen at random.
-        result = mix(result, count);
+        result = mix(result, getCount());
         result = mix(result, getTest().sxhash());
         return (int) (result & 0x7fffffff);
     }
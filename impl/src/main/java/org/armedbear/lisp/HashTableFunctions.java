@@ -74,6 +74,62 @@ public final class HashTableFunctions
     };
 
 
+  private static final Primitive _MAKE_CONCURRENT_HASH_TABLE
+      = new pf__make_concurrent_hash_table();
+  @DocString(name="%make-concurrent-hash-table")
+  private static final class pf__make_concurrent_hash_table extends Primitive {
+      pf__make_concurrent_hash_table() {
+        super("%make-concurrent-hash-table", PACKAGE_SYS, false);
+      }
+
+      @Override
+      public LispObject execute(LispObject test, LispObject size,
+                                LispObject rehashSize,
+                                LispObject rehashThreshold)
+      {
+        final int n = Fixnum.getValue(size);
+        if (test == FUNCTION_EQL || test == NIL)
+          return ConcurrentHashTable.newEqlHashTable(n, rehashSize,
+                                                     rehashThreshold);
+        if (test == FUNCTION_EQ)
+          return ConcurrentHashTable.newEqHashTable(n, rehashSize,
+                                                    rehashThreshold);
+        if (test == FUNCTION_EQUAL)
+          return ConcurrentHashTable.newEqualHashTable(n, rehashSize,
+                                                       rehashThreshold);
+        if (test == FUNCTION_EQUALP)
+          return ConcurrentHashTable.newEqualpHashTable(n, rehashSize,
+                                                        rehashThreshold);
+        return error(new LispError("Unsupported test for MAKE-HASH-TABLE: " +
+                                    test.princToString()));
+      }
+    };
+
+  private static final Primitive _MAKE_OPEN_ADDRESSING_HASH_TABLE
+      = new pf__make_open_addressing_hash_table();
+  @DocString(name="%make-open-addressing-hash-table")
+  private static final class pf__make_open_addressing_hash_table extends Primitive {
+      pf__make_open_addressing_hash_table() {
+        super("%make-open-addressing-hash-table", PACKAGE_SYS, false);
+      }
+
+      @Override
+      public LispObject execute(LispObject test, LispObject size,
+                                LispObject rehashSize,
+                                LispObject rehashThreshold)
+      {
+        final int n = Fixnum.getValue(size);
+        if (test == FUNCTION_EQL || test == NIL)
+          return OpenAddressingHashTable.newEqlHashTable(n, rehashSize,
+                                                         rehashThreshold);
+        if (test == FUNCTION_EQ)
+          return OpenAddressingHashTable.newEqHashTable(n, rehashSize,
+                                                        rehashThreshold);
+        return error(new LispError("Unsupported test for an open addressing hash table: " +
+                                    test.princToString()));
+      }
+    };
+
   private static final Primitive _MAKE_WEAK_HASH_TABLE 
     = new pf__make_weak_hash_table();
   @DocString(name="%make-weak-hash-table")
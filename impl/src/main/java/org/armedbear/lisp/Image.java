@@ -0,0 +1,1281 @@
+/*
+ * Image.java
+ *
+ * Copyright (C) 2026 The Armed Bear Common Lisp Project
+ * $Id$
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ *
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent
+ * modules, and to copy and distribute the resulting executable under
+ * terms of your choice, provided that you also meet, for each linked
+ * independent module, the terms and conditions of the license of that
+ * module.  An independent module is a module which is not derived from
+ * or based on this library.  If you modify this library, you may extend
+ * this exception to your version of the library, but you are not
+ * obligated to do so.  If you do not wish to do so, delete this
+ * exception statement from your version.
+ */
+package org.armedbear.lisp;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.armedbear.lisp.Lisp.*;
+
+/**
+ * Saved images: the packages an application has made, with the values,
+ * functions and property lists of their symbols and the classes and
+ * generic functions named by them, written to a file from which a
+ * fresh runtime restores them instead of loading the application's
+ * FASLs again.  SYS:SAVE-IMAGE and SYS:LOAD-IMAGE in image.lisp drive
+ * the primitives here.
+ *
+ * An image is a gzipped file which starts with a header naming the
+ * version of ABCL which wrote it, followed by the bytes of the classes
+ * and the constants of the compiled functions it holds, grouped by the
+ * FASL loader which defined them, and by a Java serialization stream
+ * holding the package records, the definitions made by image.lisp and
+ * the symbol records, in that order.
+ *
+ * Lisp objects are written by Java serialization.  Only the records
+ * here and the classes of Lisp data are serializable: symbols,
+ * packages, conses, numbers, characters, arrays, pathnames, structures,
+ * instances and the environments of interpreted closures.  These
+ * objects are replaced by records resolved when the image is read: the
+ * singletons of the runtime; classes and generic functions, by name;
+ * the layouts of the instances of named classes; functions which are
+ * the global definitions of symbols in packages not saved, by name;
+ * compiled functions, by the name of their class and its loader;
+ * interpreted closures and macros, by their definitions; and hash
+ * tables, by their entries, as EQ and EQL tables hash by identity.
+ * Objects of other types, such as streams and threads, and functions
+ * compiled in memory can't be saved; neither can symbols of packages
+ * which are neither saved nor made while booting.  The parts of a
+ * symbol which can't be saved are left out of the image, and reported
+ * by %SAVE-IMAGE.  When an image is read, only the classes of this
+ * package and of the FASLs in the image are resolved.
+ */
+public final class Image
+{
+    private static final String MAGIC = "ABCL-IMAGE";
+    private static final int FORMAT = 1;
+
+    /** The stack size of the threads which write and read the objects
+     * of an image, as Java serialization recurses along lists.
+     */
+    private static final long STACK_SIZE = 1L << 30;
+
+    private static final Set<Package> bootPackages
+        = Collections.newSetFromMap(new IdentityHashMap<Package,Boolean>());
+
+    /** Records the packages made while booting, which are not saved
+     * by default, and which an image expects to find when read.
+     */
+    static void markBootPackages() {
+        synchronized (bootPackages) {
+            for (Package pkg : Packages.getAllPackages()) {
+                bootPackages.add(pkg);
+            }
+        }
+    }
+
+    private static boolean isBootPackage(Package pkg) {
+        synchronized (bootPackages) {
+            return bootPackages.contains(pkg);
+        }
+    }
+
+    /** Thrown while writing an object which can't be saved. */
+    static final class NotSavable extends RuntimeException
+    {
+        NotSavable(String message) {
+            super(message);
+        }
+    }
+
+    /** A replacement, resolved when the image is read. */
+    private interface Ref extends Serializable
+    {
+        Object resolve(In in) throws IOException;
+    }
+
+    private static final class Singleton implements Ref
+    {
+        private static final LispObject[] SINGLETONS = {
+            UNBOUND_VALUE, NULL_VALUE, EOF,
+        };
+
+        private final int index;
+
+        Singleton(int index) {
+            this.index = index;
+        }
+
+        public Object resolve(In in) {
+            return SINGLETONS[index];
+        }
+    }
+
+    private static final class ClassRef implements Ref
+    {
+        private final Symbol name;
+
+        ClassRef(Symbol name) {
+            this.name = name;
+        }
+
+        public Object resolve(In in) throws IOException {
+            LispClass c = LispClass.findClass(name);
+            if (c == null) {
+                throw new InvalidObjectException("The class " + name
+                                                 + " is not defined.");
+            }
+            return c;
+        }
+    }
+
+    private static final class LayoutRef implements Ref
+    {
+        private final Symbol className;
+
+        LayoutRef(Symbol className) {
+            this.className = className;
+        }
+
+        public Object resolve(In in) throws IOException {
+            LispClass c = LispClass.findClass(className);
+            Layout layout = c == null ? null : c.getClassLayout();
+            if (layout == null) {
+                throw new InvalidObjectException("The class " + className
+                                                 + " is not finalized.");
+            }
+            return layout;
+        }
+    }
+
+    private static final class FunctionRef implements Ref
+    {
+        private final LispObject name;
+
+        FunctionRef(LispObject name) {
+            this.name = name;
+        }
+
+        public Object resolve(In in) throws IOException {
+            LispObject f = globalDefinition(name);
+            if (f == null) {
+                throw new InvalidObjectException("The function "
+                                                 + name.princToString()
+                                                 + " is undefined.");
+            }
+            return f;
+        }
+    }
+
+    /** Returns true if 'c' is the class of a function compiled from
+     * the Lisp sources of ABCL, which can be made again without side
+     * effects.
+     */
+    private static boolean isSystemFunction(Class<?> c) {
+        return c.getClassLoader() == Image.class.getClassLoader()
+            && (CompiledPrimitive.class.isAssignableFrom(c)
+                || CompiledClosure.class.isAssignableFrom(c));
+    }
+
+    /** A compiled function, made again from its class: 'loader' is
+     * the index of its FASL loader, or -1 for a function of ABCL.
+     */
+    private static final class CompiledFunction implements Ref
+    {
+        private final int loader;
+        private final String className;
+        private final LispObject lambdaName;
+        private final LispObject lambdaList;
+        private final LispObject plist;
+        private final ClosureBinding[] ctx;
+        private final LispObject uninternedSymbols;
+
+        CompiledFunction(int loader, Function f) {
+            this.loader = loader;
+            ClassLoader l = f.getClass().getClassLoader();
+            uninternedSymbols = l instanceof FaslClassLoader
+                ? ((FaslClassLoader) l).uninternedSymbols : NIL;
+            className = f.getClass().getName();
+            lambdaName = f.getLambdaName();
+            lambdaList = f.getLambdaList();
+            plist = remove(f.getPropertyList(), Symbol.CLASS_BYTES);
+            ctx = f instanceof CompiledClosure
+                ? ((CompiledClosure) f).ctx : null;
+        }
+
+        public Object resolve(In in) throws IOException {
+            FaslClassLoader l = loader < 0 ? null : in.loaders[loader];
+            Class<?> c;
+            try {
+                c = l == null
+                    ? Class.forName(className, false,
+                                    Image.class.getClassLoader())
+                    : l.loadClass(className);
+            } catch (ClassNotFoundException e) {
+                c = null;
+            }
+            if (c == null
+                || (l == null ? !isSystemFunction(c) : c.getClassLoader() != l)) {
+                throw new InvalidObjectException("The function class "
+                                                 + className
+                                                 + " is not in the image.");
+            }
+            if (l != null) {
+                // For saving this function in another image
+                l.uninternedSymbols = uninternedSymbols;
+            }
+            Function f;
+            // The constructor reads the constants of the function
+            final LispThread thread = LispThread.currentThread();
+            final SpecialBindingsMark mark = thread.markSpecialBindings();
+            thread.bindSpecial(Load._FASL_UNINTERNED_SYMBOLS_,
+                               uninternedSymbols);
+            try {
+                f = (Function) c.newInstance();
+            } catch (Exception e) {
+                throw (IOException)
+                    new InvalidObjectException("The function class "
+                                               + className
+                                               + " can't be loaded.")
+                    .initCause(e);
+            } finally {
+                thread.resetSpecialBindings(mark);
+            }
+            if (ctx != null) {
+                // A closure over itself finds this record, not itself
+                for (ClosureBinding binding : ctx) {
+                    if (binding != null && binding.value == (Object) this) {
+                        binding.value = f;
+                    }
+                }
+                ((CompiledClosure) f).ctx = ctx;
+            }
+            f.setLambdaName(lambdaName);
+            f.setLambdaList(lambdaList);
+            f.setPropertyList(plist);
+            byte[] b = l == null ? null : l.imageBytes.get(className);
+            if (b != null) {
+                f.setClassBytes(b);
+            }
+            return f;
+        }
+    }
+
+    private static final class ClosureImage implements Ref
+    {
+        private final LispObject name;
+        private final LispObject lambdaList;
+        private final LispObject body;
+        private final Environment environment;
+        private final LispObject plist;
+
+        ClosureImage(Closure closure) {
+            name = closure.getLambdaName();
+            lambdaList = closure.getLambdaList();
+            body = closure.getBody();
+            environment = closure.getEnvironment();
+            plist = closure.getPropertyList();
+        }
+
+        public Object resolve(In in) {
+            // Any lambda list a closure was made with is also accepted
+            // as a macro lambda list, which &WHOLE and &ENVIRONMENT need
+            Closure closure
+                = new Closure(name, new Cons(Symbol.MACRO_FUNCTION,
+                                             new Cons(lambdaList, body)),
+                              environment);
+            closure.setPropertyList(plist);
+            return closure;
+        }
+    }
+
+    private static final class MacroImage implements Ref
+    {
+        private final LispObject name;
+        private final LispObject expander;
+
+        MacroImage(MacroObject macro) {
+            name = macro.name;
+            expander = macro.expander;
+        }
+
+        public Object resolve(In in) {
+            return new MacroObject(name, expander);
+        }
+    }
+
+    private static final class HashTableImage implements Ref
+    {
+        private static final int PLAIN = 0, CONCURRENT = 1, OPEN = 2,
+            WEAK = 3;
+
+        private final int kind;
+        private final Symbol test;
+        private final int size;
+        private final LispObject rehashSize;
+        private final LispObject rehashThreshold;
+        private final LispObject weakness;
+        private final LispObject[] keys;
+        private final LispObject[] values;
+
+        HashTableImage(LispObject table) {
+            LispObject entries;
+            if (table instanceof WeakHashTable) {
+                WeakHashTable ht = (WeakHashTable) table;
+                kind = WEAK;
+                test = ht.getTest();
+                size = ht.getSize();
+                rehashSize = ht.getRehashSize();
+                rehashThreshold = ht.getRehashThreshold();
+                weakness = ht.getWeakness();
+                entries = ht.getEntries();
+            } else {
+                HashTable ht = (HashTable) table;
+                kind = ht instanceof ConcurrentHashTable ? CONCURRENT
+                    : ht instanceof OpenAddressingHashTable ? OPEN : PLAIN;
+                test = ht.getTest();
+                size = ht.getSize();
+                rehashSize = ht.getRehashSize();
+                rehashThreshold = ht.getRehashThreshold();
+                weakness = NIL;
+                entries = ht.getEntries();
+            }
+            int n = entries.length();
+            keys = new LispObject[n];
+            values = new LispObject[n];
+            for (int i = 0; i < n; i++, entries = entries.cdr()) {
+                keys[i] = entries.car().car();
+                values[i] = entries.car().cdr();
+            }
+        }
+
+        public Object resolve(In in) {
+            if (kind == WEAK) {
+                WeakHashTable ht;
+                if (test == Symbol.EQ) {
+                    ht = WeakHashTable.newEqHashTable(size, rehashSize,
+                                                      rehashThreshold,
+                                                      weakness);
+                } else if (test == Symbol.EQL) {
+                    ht = WeakHashTable.newEqlHashTable(size, rehashSize,
+                                                       rehashThreshold,
+                                                       weakness);
+                } else if (test == Symbol.EQUAL) {
+                    ht = WeakHashTable.newEqualHashTable(size, rehashSize,
+                                                         rehashThreshold,
+                                                         weakness);
+                } else {
+                    ht = WeakHashTable.newEqualpHashTable(size, rehashSize,
+                                                          rehashThreshold,
+                                                          weakness);
+                }
+                for (int i = 0; i < keys.length; i++) {
+                    ht.put(keys[i], values[i]);
+                }
+                return ht;
+            }
+            HashTable ht;
+            if (kind == OPEN) {
+                ht = test == Symbol.EQ
+                    ? OpenAddressingHashTable.newEqHashTable(size, rehashSize,
+                                                             rehashThreshold)
+                    : OpenAddressingHashTable.newEqlHashTable(size, rehashSize,
+                                                              rehashThreshold);
+            } else if (kind == CONCURRENT) {
+                if (test == Symbol.EQ) {
+                    ht = ConcurrentHashTable.newEqHashTable(size, rehashSize,
+                                                            rehashThreshold);
+                } else if (test == Symbol.EQL) {
+                    ht = ConcurrentHashTable.newEqlHashTable(size, rehashSize,
+                                                             rehashThreshold);
+                } else if (test == Symbol.EQUAL) {
+                    ht = ConcurrentHashTable.newEqualHashTable(size, rehashSize,
+                                                               rehashThreshold);
+                } else {
+                    ht = ConcurrentHashTable.newEqualpHashTable(size, rehashSize,
+                                                                rehashThreshold);
+                }
+            } else {
+                if (test == Symbol.EQ) {
+                    ht = HashTable.newEqHashTable(size, rehashSize,
+                                                  rehashThreshold);
+                } else if (test == Symbol.EQL) {
+                    ht = HashTable.newEqlHashTable(size, rehashSize,
+                                                   rehashThreshold);
+                } else if (test == Symbol.EQUAL) {
+                    ht = HashTable.newEqualHashTable(size, rehashSize,
+                                                     rehashThreshold);
+                } else {
+                    ht = (HashTable)
+                        HashTable.newEqualpHashTable(size, rehashSize,
+                                                     rehashThreshold);
+                }
+            }
+            for (int i = 0; i < keys.length; i++) {
+                ht.put(keys[i], values[i]);
+            }
+            return ht;
+        }
+    }
+
+    /** The names of a package, the symbols present in it and the
+     * packages it uses.
+     */
+    private static final class PackageRecord implements Serializable
+    {
+        String name;
+        String[] nicknames;
+        String[] internals;     // present, internal and homed here
+        String[] externals;     // present, external and homed here
+        String[] importNames;
+        String[] importHomes;
+        boolean[] importExternal;
+        String[] shadows;
+        String[] uses;
+        String[] localNicknames; // nickname, package, ...
+    }
+
+    private static final class SymbolRecord implements Serializable
+    {
+        Symbol symbol;
+        boolean special;
+        boolean constant;
+        LispObject value;
+        LispObject function;
+        LispObject plist;
+    }
+
+    private static LispObject globalDefinition(LispObject name) {
+        if (name instanceof Symbol) {
+            return ((Symbol) name).getSymbolFunction();
+        }
+        if (name instanceof Cons && name.car() == Symbol.SETF
+            && name.cdr() instanceof Cons && name.cdr().cdr() == NIL
+            && name.cadr() instanceof Symbol) {
+            return get(name.cadr(), Symbol.SETF_FUNCTION, null);
+        }
+        return null;
+    }
+
+    private static Symbol nameSymbol(LispObject name) {
+        return name instanceof Symbol ? (Symbol) name : (Symbol) name.cadr();
+    }
+
+    private static LispObject remove(LispObject plist, LispObject indicator) {
+        LispObject result = NIL;
+        for (; plist instanceof Cons; plist = plist.cddr()) {
+            if (plist.car() != indicator) {
+                result = new Cons(plist.cadr(), new Cons(plist.car(), result));
+            }
+        }
+        return result.nreverse();
+    }
+
+    private static final class Writer
+    {
+        final Set<Package> packages
+            = Collections.newSetFromMap(new IdentityHashMap<Package,Boolean>());
+        final List<FaslClassLoader> loaders = new ArrayList<FaslClassLoader>();
+        final Map<FaslClassLoader,Integer> loaderIndex
+            = new IdentityHashMap<FaslClassLoader,Integer>();
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final Out out;
+        final Out trial;
+        final List<String> dropped = new ArrayList<String>();
+        // The functions defined while booting, to their names
+        private Map<LispObject,LispObject> builtIns;
+
+        Writer() throws IOException {
+            out = new Out(this, bytes);
+            trial = new Out(this, new OutputStream() {
+                    @Override
+                    public void write(int b) {}
+
+                    @Override
+                    public void write(byte[] b, int off, int len) {}
+                });
+        }
+
+        /** Returns true if 'obj' can be saved, noting why not in
+         * 'dropped' otherwise.  Everything written to 'out' is checked
+         * first, so that the image holds no partly written object.
+         */
+        boolean check(Object obj, String what) throws IOException {
+            try {
+                trial.writeObject(obj);
+                return true;
+            } catch (NotSavable e) {
+                dropped.add(what + ": " + e.getMessage());
+            } catch (IOException e) {
+                dropped.add(what + ": " + e);
+            }
+            trial.reset();
+            return false;
+        }
+
+        void checkPackage(LispObject pkg) {
+            if (pkg instanceof Package && !packages.contains(pkg)
+                && !isBootPackage((Package) pkg)) {
+                throw new NotSavable("the package "
+                                     + ((Package) pkg).getName()
+                                     + " is not saved");
+            }
+        }
+
+        /** Returns the name under which 'f' was defined while booting,
+         * in a package not saved, or null.
+         */
+        LispObject builtInName(LispObject f) {
+            if (builtIns == null) {
+                builtIns = new IdentityHashMap<LispObject,LispObject>();
+                List<Package> pkgs;
+                synchronized (bootPackages) {
+                    pkgs = new ArrayList<Package>(bootPackages);
+                }
+                for (Package pkg : pkgs) {
+                    if (packages.contains(pkg)) {
+                        continue;
+                    }
+                    for (int i = 0; i < 2; i++) {
+                        Map<String,Symbol> symbols = i == 0
+                            ? pkg.getInternSymbols() : pkg.getExternSymbols();
+                        for (Symbol symbol : symbols.values()) {
+                            if (symbol.getPackage() != pkg) {
+                                continue;
+                            }
+                            LispObject function = symbol.getSymbolFunction();
+                            if (function != null
+                                && !builtIns.containsKey(function)) {
+                                builtIns.put(function, symbol);
+                            }
+                            function = get(symbol, Symbol.SETF_FUNCTION, null);
+                            if (function != null
+                                && !builtIns.containsKey(function)) {
+                                builtIns.put(function,
+                                             list(Symbol.SETF, symbol));
+                            }
+                        }
+                    }
+                }
+            }
+            return builtIns.get(f);
+        }
+
+        Object replace(LispObject obj) {
+            if (obj == UNBOUND_VALUE) {
+                return new Singleton(0);
+            }
+            if (obj == NULL_VALUE) {
+                return new Singleton(1);
+            }
+            if (obj == EOF) {
+                return new Singleton(2);
+            }
+            if (obj instanceof Symbol) {
+                checkPackage(((Symbol) obj).getPackage());
+                return obj;
+            }
+            if (obj instanceof Package) {
+                checkPackage(obj);
+                return obj;
+            }
+            if (obj instanceof LispClass) {
+                LispObject name = ((LispClass) obj).getName();
+                if (name instanceof Symbol
+                    && LispClass.findClass((Symbol) name) == obj) {
+                    checkPackage(((Symbol) name).getPackage());
+                    return new ClassRef((Symbol) name);
+                }
+                throw new NotSavable("a class without a proper name");
+            }
+            if (obj instanceof Layout) {
+                LispObject c = ((Layout) obj).getLispClass();
+                if (c instanceof LispClass
+                    && ((LispClass) c).getClassLayout() == obj) {
+                    LispObject name = ((LispClass) c).getName();
+                    if (name instanceof Symbol
+                        && LispClass.findClass((Symbol) name) == c) {
+                        checkPackage(((Symbol) name).getPackage());
+                        return new LayoutRef((Symbol) name);
+                    }
+                }
+                throw new NotSavable("an instance of a class without a"
+                                     + " proper name, or an obsolete"
+                                     + " instance");
+            }
+            if (obj instanceof FuncallableStandardObject) {
+                LispObject name = ((FuncallableStandardObject) obj)
+                    .getInstanceSlotValue(Symbol.NAME);
+                if (globalDefinition(name) == obj) {
+                    checkPackage(nameSymbol(name).getPackage());
+                    return new FunctionRef(name);
+                }
+                throw new NotSavable("an anonymous generic function");
+            }
+            if (obj instanceof Function) {
+                Function f = (Function) obj;
+                LispObject name = f.getLambdaName();
+                if (name != null && globalDefinition(name) == obj
+                    && nameSymbol(name).getPackage() instanceof Package
+                    && !packages.contains(nameSymbol(name).getPackage())) {
+                    checkPackage(nameSymbol(name).getPackage());
+                    return new FunctionRef(name);
+                }
+                LispObject builtInName = builtInName(obj);
+                if (builtInName != null) {
+                    return new FunctionRef(builtInName);
+                }
+                ClassLoader loader = obj.getClass().getClassLoader();
+                if (loader instanceof FaslClassLoader) {
+                    Integer index = loaderIndex.get(loader);
+                    if (index == null) {
+                        index = loaders.size();
+                        loaders.add((FaslClassLoader) loader);
+                        loaderIndex.put((FaslClassLoader) loader, index);
+                    }
+                    return new CompiledFunction(index, f);
+                }
+                if (loader instanceof JavaClassLoader) {
+                    throw new NotSavable("the function "
+                                         + (name == null ? "" : name.princToString() + " ")
+                                         + "was compiled in memory");
+                }
+                if (obj instanceof MacroObject) {
+                    return new MacroImage((MacroObject) obj);
+                }
+                if (obj.getClass() == Closure.class) {
+                    return new ClosureImage((Closure) obj);
+                }
+                if (isSystemFunction(obj.getClass())) {
+                    return new CompiledFunction(-1, f);
+                }
+                throw new NotSavable("the built-in function "
+                                     + (name == null ? "" : name.princToString() + " ")
+                                     + "of type " + obj.getClass().getName());
+            }
+            if (obj instanceof HashTable || obj instanceof WeakHashTable) {
+                return new HashTableImage(obj);
+            }
+            if (obj instanceof Stream || obj instanceof LispThread) {
+                throw new NotSavable("an object of type "
+                                     + obj.typeOf().princToString());
+            }
+            return obj;
+        }
+
+        PackageRecord record(Package pkg) {
+            PackageRecord r = new PackageRecord();
+            r.name = pkg.getName();
+            List<String> nicknames = pkg.getNicknames();
+            r.nicknames = nicknames == null ? new String[0]
+                : nicknames.toArray(new String[nicknames.size()]);
+            List<String> internals = new ArrayList<String>();
+            List<String> externals = new ArrayList<String>();
+            List<String> importNames = new ArrayList<String>();
+            List<String> importHomes = new ArrayList<String>();
+            List<Boolean> importExternal = new ArrayList<Boolean>();
+            for (int i = 0; i < 2; i++) {
+                boolean external = i == 1;
+                Map<String,Symbol> symbols = external ? pkg.getExternSymbols()
+                    : pkg.getInternSymbols();
+                for (Symbol symbol : symbols.values()) {
+                    LispObject home = symbol.getPackage();
+                    if (home == pkg) {
+                        (external ? externals : internals).add(symbol.getName());
+                    } else if (home instanceof Package
+                               && (packages.contains(home)
+                                   || isBootPackage((Package) home))) {
+                        importNames.add(symbol.getName());
+                        importHomes.add(((Package) home).getName());
+                        importExternal.add(external);
+                    } else {
+                        dropped.add(symbol.getQualifiedName()
+                                    + " present in " + pkg.getName()
+                                    + ": its home package is not saved");
+                    }
+                }
+            }
+            r.internals = internals.toArray(new String[internals.size()]);
+            r.externals = externals.toArray(new String[externals.size()]);
+            r.importNames = importNames.toArray(new String[importNames.size()]);
+            r.importHomes = importHomes.toArray(new String[importHomes.size()]);
+            r.importExternal = new boolean[importExternal.size()];
+            for (int i = 0; i < r.importExternal.length; i++) {
+                r.importExternal[i] = importExternal.get(i);
+            }
+            List<String> shadows = new ArrayList<String>();
+            for (LispObject list = pkg.getShadowingSymbols(); list != NIL;
+                 list = list.cdr()) {
+                shadows.add(((Symbol) list.car()).getName());
+            }
+            r.shadows = shadows.toArray(new String[shadows.size()]);
+            List<String> uses = new ArrayList<String>();
+            for (LispObject list = pkg.getUseList(); list != NIL;
+                 list = list.cdr()) {
+                Package used = (Package) list.car();
+                if (packages.contains(used) || isBootPackage(used)) {
+                    uses.add(used.getName());
+                } else {
+                    dropped.add(pkg.getName() + " using " + used.getName()
+                                + ": the package is not saved");
+                }
+            }
+            r.uses = uses.toArray(new String[uses.size()]);
+            List<String> localNicknames = new ArrayList<String>();
+            for (LispObject list = pkg.getLocalPackageNicknames(); list != NIL;
+                 list = list.cdr()) {
+                Package target = (Package) list.car().cdr();
+                if (packages.contains(target) || isBootPackage(target)) {
+                    localNicknames.add(list.car().car().getStringValue());
+                    localNicknames.add(target.getName());
+                }
+            }
+            r.localNicknames
+                = localNicknames.toArray(new String[localNicknames.size()]);
+            return r;
+        }
+
+        void writeSymbols() throws IOException {
+            List<SymbolRecord> records = new ArrayList<SymbolRecord>();
+            for (Package pkg : packages) {
+                for (int i = 0; i < 2; i++) {
+                    Map<String,Symbol> symbols = i == 0
+                        ? pkg.getInternSymbols() : pkg.getExternSymbols();
+                    for (Symbol symbol : symbols.values()) {
+                        if (symbol.getPackage() == pkg) {
+                            SymbolRecord r = record(symbol);
+                            if (r != null) {
+                                records.add(r);
+                            }
+                        }
+                    }
+                }
+            }
+            out.writeInt(records.size());
+            for (SymbolRecord r : records) {
+                out.writeObject(r);
+            }
+        }
+
+        private SymbolRecord record(Symbol symbol) throws IOException {
+            LispObject value = symbol.getSymbolValue();
+            LispObject function = symbol.getSymbolFunction();
+            LispObject plist = symbol.getPropertyList();
+            if (value == null && function == null && plist == NIL
+                && !symbol.isSpecialVariable()) {
+                return null;
+            }
+            String name = symbol.getQualifiedName();
+            SymbolRecord r = new SymbolRecord();
+            r.symbol = symbol;
+            r.special = symbol.isSpecialVariable();
+            r.constant = symbol.isConstant();
+            if (value != null && check(value, "the value of " + name)) {
+                r.value = value;
+            }
+            // Generic functions are made again from their definitions
+            if (function != null
+                && !(function instanceof FuncallableStandardObject)
+                && check(function, "the function of " + name)) {
+                r.function = function;
+            }
+            LispObject saved = NIL;
+            for (; plist instanceof Cons; plist = plist.cddr()) {
+                LispObject indicator = plist.car();
+                LispObject property = plist.cadr();
+                if (indicator == Symbol.SETF_FUNCTION
+                    && property instanceof FuncallableStandardObject) {
+                    continue;
+                }
+                if (check(indicator, "a property of " + name)
+                    && check(property, "the " + indicator.princToString()
+                             + " property of " + name)) {
+                    saved = new Cons(property, new Cons(indicator, saved));
+                }
+            }
+            r.plist = saved.nreverse();
+            if (!check(r, name)) {
+                return null;
+            }
+            return r;
+        }
+
+        void finish(String namestring) throws IOException {
+            out.close();
+            DataOutputStream data = new DataOutputStream(
+                new GZIPOutputStream(new FileOutputStream(namestring), 65536));
+            try {
+                data.writeUTF(MAGIC);
+                data.writeInt(FORMAT);
+                data.writeUTF(Version.getVersion());
+                data.writeInt(loaders.size());
+                for (FaslClassLoader loader : loaders) {
+                    data.writeUTF(loader.getBaseName());
+                    writeMap(data, loader.getClassBytes());
+                    writeMap(data, loader.getResourceBytes());
+                }
+                data.writeInt(bytes.size());
+                bytes.writeTo(data);
+            } finally {
+                data.close();
+            }
+        }
+    }
+
+    private static void writeMap(DataOutputStream data, Map<String,byte[]> map)
+        throws IOException
+    {
+        data.writeInt(map.size());
+        for (Map.Entry<String,byte[]> entry : map.entrySet()) {
+            data.writeUTF(entry.getKey());
+            data.writeInt(entry.getValue().length);
+            data.write(entry.getValue());
+        }
+    }
+
+    private static Map<String,byte[]> readMap(DataInputStream data)
+        throws IOException
+    {
+        int n = data.readInt();
+        Map<String,byte[]> map = new HashMap<String,byte[]>(n * 2);
+        for (int i = 0; i < n; i++) {
+            String name = data.readUTF();
+            byte[] b = new byte[data.readInt()];
+            data.readFully(b);
+            map.put(name, b);
+        }
+        return map;
+    }
+
+    private static final class Out extends ObjectOutputStream
+    {
+        private final Writer writer;
+
+        Out(Writer writer, OutputStream out) throws IOException {
+            super(out);
+            this.writer = writer;
+            enableReplaceObject(true);
+        }
+
+        @Override
+        protected Object replaceObject(Object obj) {
+            return obj instanceof LispObject
+                ? writer.replace((LispObject) obj) : obj;
+        }
+    }
+
+    private static final class In extends ObjectInputStream
+    {
+        private static final String NOT_ALLOWED = "not allowed in an image";
+
+        final FaslClassLoader[] loaders;
+
+        In(InputStream in, FaslClassLoader[] loaders) throws IOException {
+            super(in);
+            this.loaders = loaders;
+            enableResolveObject(true);
+        }
+
+        @Override
+        protected Class<?> resolveClass(ObjectStreamClass desc)
+            throws IOException, ClassNotFoundException
+        {
+            String name = desc.getName();
+            String element = name.substring(name.lastIndexOf('[') + 1);
+            if (element.length() < name.length()) {
+                // The elements of an array: a primitive type unless 'L'
+                element = element.startsWith("L")
+                    ? element.substring(1, element.length() - 1) : null;
+            }
+            if (element != null) {
+                for (FaslClassLoader loader : loaders) {
+                    if (element.startsWith(loader.getBaseName() + "_")) {
+                        Class<?> c = Class.forName(name, false, loader);
+                        if (c.getClassLoader() != loader) {
+                            throw new InvalidClassException(name, NOT_ALLOWED);
+                        }
+                        return c;
+                    }
+                }
+                if (!isImageClass(element)) {
+                    throw new InvalidClassException(name, NOT_ALLOWED);
+                }
+            }
+            return Class.forName(name, false, Image.class.getClassLoader());
+        }
+
+        private static boolean isImageClass(String name) {
+            String pkg = "org.armedbear.lisp.";
+            return (name.startsWith(pkg) && name.indexOf('.', pkg.length()) < 0)
+                || name.equals("java.lang.String")
+                || name.equals("java.lang.Number")
+                || name.equals("java.math.BigInteger");
+        }
+
+        @Override
+        protected Class<?> resolveProxyClass(String[] interfaces)
+            throws IOException
+        {
+            throw new InvalidClassException("a proxy class", NOT_ALLOWED);
+        }
+
+        @Override
+        protected Object resolveObject(Object obj) throws IOException {
+            if (obj instanceof Ref) {
+                return ((Ref) obj).resolve(this);
+            }
+            if (obj instanceof Fixnum) {
+                return Fixnum.getInstance(((Fixnum) obj).value);
+            }
+            if (obj instanceof LispCharacter) {
+                return LispCharacter.getInstance(((LispCharacter) obj).value);
+            }
+            return obj;
+        }
+    }
+
+    /** Runs 'task' in a thread with a deep stack, in the world of the
+     * current thread.
+     */
+    private static <T> T deep(final Callable<T> task) {
+        final World world = LispThread.currentThread().world;
+        final Object[] result = new Object[1];
+        final Throwable[] failure = new Throwable[1];
+        Thread thread = new Thread(null, new Runnable() {
+                public void run() {
+                    LispThread.currentThread().world = world;
+                    try {
+                        result[0] = task.call();
+                    } catch (Throwable t) {
+                        failure[0] = t;
+                    } finally {
+                        LispThread.map.remove(Thread.currentThread());
+                    }
+                }
+            }, "image", STACK_SIZE);
+        thread.setDaemon(true);
+        thread.start();
+        boolean interrupted = false;
+        while (true) {
+            try {
+                thread.join();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        Throwable t = failure[0];
+        if (t instanceof ControlTransfer) {
+            throw (ControlTransfer) t;
+        }
+        if (t instanceof NotSavable) {
+            error(new LispError(t.getMessage()));
+        }
+        if (t instanceof StackOverflowError) {
+            error(new StorageCondition("Stack overflow while writing or"
+                                       + " reading an image."));
+        }
+        if (t != null) {
+            error(new LispError(t.toString()));
+        }
+        @SuppressWarnings("unchecked")
+        T value = (T) result[0];
+        return value;
+    }
+
+    private static void restore(PackageRecord[] records) {
+        Package[] pkgs = new Package[records.length];
+        for (int i = 0; i < records.length; i++) {
+            PackageRecord r = records[i];
+            Package pkg = Packages.findPackage(r.name);
+            if (pkg == null) {
+                pkg = Packages.createPackage(r.name);
+            }
+            for (String nickname : r.nicknames) {
+                pkg.addNickname(nickname);
+            }
+            pkgs[i] = pkg;
+        }
+        for (int i = 0; i < records.length; i++) {
+            for (String name : records[i].internals) {
+                pkgs[i].intern(name);
+            }
+            for (String name : records[i].externals) {
+                pkgs[i].intern(name);
+            }
+        }
+        for (int i = 0; i < records.length; i++) {
+            PackageRecord r = records[i];
+            Set<String> shadows = new HashSet<String>();
+            Collections.addAll(shadows, r.shadows);
+            for (int j = 0; j < r.importNames.length; j++) {
+                Symbol symbol = findPackageOrDie(r.importHomes[j])
+                    .intern(r.importNames[j]);
+                if (shadows.remove(r.importNames[j])) {
+                    pkgs[i].shadowingImport(symbol);
+                } else {
+                    pkgs[i].importSymbol(symbol);
+                }
+            }
+            for (String name : shadows) {
+                pkgs[i].shadow(name);
+            }
+        }
+        for (int i = 0; i < records.length; i++) {
+            for (String name : records[i].uses) {
+                pkgs[i].usePackage(findPackageOrDie(name));
+            }
+        }
+        for (int i = 0; i < records.length; i++) {
+            PackageRecord r = records[i];
+            for (String name : r.externals) {
+                pkgs[i].export(pkgs[i].intern(name));
+            }
+            for (int j = 0; j < r.importNames.length; j++) {
+                if (r.importExternal[j]) {
+                    pkgs[i].export(pkgs[i].findAccessibleSymbol(r.importNames[j]));
+                }
+            }
+            for (int j = 0; j < r.localNicknames.length; j += 2) {
+                pkgs[i].addLocalPackageNickname(
+                    r.localNicknames[j], findPackageOrDie(r.localNicknames[j + 1]));
+            }
+        }
+    }
+
+    private static Package findPackageOrDie(String name) {
+        Package pkg = Packages.findPackage(name);
+        if (pkg == null) {
+            error(new PackageError("The image needs the package " + name
+                                   + ", which doesn't exist."));
+        }
+        return pkg;
+    }
+
+    private static void restore(SymbolRecord r) {
+        Symbol symbol = r.symbol;
+        if (r.special) {
+            symbol.setSpecial(true);
+        }
+        if (r.value != null) {
+            if (r.constant) {
+                symbol.initializeConstant(r.value);
+            } else {
+                symbol.setSymbolValue(r.value);
+            }
+        }
+        if (r.function != null) {
+            symbol.setSymbolFunction(r.function);
+        }
+        for (LispObject plist = r.plist; plist != NIL; plist = plist.cddr()) {
+            put(symbol, plist.car(), plist.cadr());
+        }
+    }
+
+    private static final Primitive SAVE_IMAGE = new pf_save_image();
+    @DocString(name="%save-image", args="namestring packages definitions",
+    doc="Writes an image of PACKAGES, and of the objects in the list\n"
+      + "DEFINITIONS, to the file NAMESTRING.  Returns a list of strings\n"
+      + "describing the parts of the symbols and the definitions which\n"
+      + "couldn't be saved.")
+    private static final class pf_save_image extends Primitive
+    {
+        pf_save_image() {
+            super("%save-image", PACKAGE_SYS, false,
+                  "namestring packages definitions");
+        }
+
+        @Override
+        public LispObject execute(LispObject namestring, LispObject packages,
+                                  final LispObject definitions) {
+            final String file = javaString(namestring);
+            final List<Package> pkgs = new ArrayList<Package>();
+            for (LispObject list = packages; list != NIL; list = list.cdr()) {
+                pkgs.add(coerceToPackage(list.car()));
+            }
+            List<String> dropped = deep(new Callable<List<String>>() {
+                    public List<String> call() throws IOException {
+                        Writer writer = new Writer();
+                        writer.packages.addAll(pkgs);
+                        PackageRecord[] records = new PackageRecord[pkgs.size()];
+                        for (int i = 0; i < records.length; i++) {
+                            records[i] = writer.record(pkgs.get(i));
+                        }
+                        writer.out.writeObject(records);
+                        List<LispObject> saved = new ArrayList<LispObject>();
+                        for (LispObject list = definitions; list != NIL;
+                             list = list.cdr()) {
+                            LispObject definition = list.car();
+                            String what = definition instanceof Cons
+                                ? definition.car().princToString() + " "
+                                  + definition.cadr().princToString()
+                                : definition.princToString();
+                            if (writer.check(definition, what)) {
+                                saved.add(definition);
+                            }
+                        }
+                        writer.out.writeInt(saved.size());
+                        for (LispObject definition : saved) {
+                            writer.out.writeObject(definition);
+                        }
+                        writer.writeSymbols();
+                        writer.finish(file);
+                        return writer.dropped;
+                    }
+                });
+            LispObject result = NIL;
+            for (String s : dropped) {
+                result = new Cons(new SimpleString(s), result);
+            }
+            return result.nreverse();
+        }
+    };
+
+    private static final Primitive LOAD_IMAGE = new pf_load_image();
+    @DocString(name="%load-image", args="namestring function",
+    doc="Restores the packages and symbols of the image in the file\n"
+      + "NAMESTRING, calling FUNCTION on each of its definitions, in\n"
+      + "order, after the packages and before the symbols.")
+    private static final class pf_load_image extends Primitive
+    {
+        pf_load_image() {
+            super("%load-image", PACKAGE_SYS, false, "namestring function");
+        }
+
+        @Override
+        public LispObject execute(LispObject namestring, LispObject function) {
+            final String file = javaString(namestring);
+            DataInputStream data = null;
+            try {
+                data = new DataInputStream(
+                    new GZIPInputStream(new FileInputStream(file), 65536));
+                if (!MAGIC.equals(data.readUTF())
+                    || data.readInt() != FORMAT) {
+                    return error(new LispError(file + " is not an image."));
+                }
+                String version = data.readUTF();
+                if (!version.equals(Version.getVersion())) {
+                    return error(new LispError(file + " is an image of ABCL "
+                                               + version + ", not of "
+                                               + Version.getVersion() + "."));
+                }
+                FaslClassLoader[] loaders = new FaslClassLoader[data.readInt()];
+                for (int i = 0; i < loaders.length; i++) {
+                    String baseName = data.readUTF();
+                    Map<String,byte[]> classes = readMap(data);
+                    loaders[i] = new FaslClassLoader(baseName, classes,
+                                                     readMap(data));
+                }
+                data.readInt();
+                final In in = new In(data, loaders);
+                restore(deep(new Callable<PackageRecord[]>() {
+                        public PackageRecord[] call() throws Exception {
+                            return (PackageRecord[]) in.readObject();
+                        }
+                    }));
+                int n = in.readInt();
+                for (int i = 0; i < n; i++) {
+                    function.execute(deep(new Callable<LispObject>() {
+                            public LispObject call() throws Exception {
+                                return (LispObject) in.readObject();
+                            }
+                        }));
+                }
+                SymbolRecord[] records = deep(new Callable<SymbolRecord[]>() {
+                        public SymbolRecord[] call() throws Exception {
+                            SymbolRecord[] records
+                                = new SymbolRecord[in.readInt()];
+                            for (int i = 0; i < records.length; i++) {
+                                records[i] = (SymbolRecord) in.readObject();
+                            }
+                            return records;
+                        }
+                    });
+                for (SymbolRecord r : records) {
+                    restore(r);
+                }
+                return T;
+            } catch (IOException e) {
+                return error(new LispError("Can't read the image " + file
+                                           + ": " + e));
+            } finally {
+                if (data != null) {
+                    try {
+                        data.close();
+                    } catch (IOException e) {
+                        // Nothing to do
+                    }
+                }
+            }
+        }
+    };
+
+    private static final Primitive IMAGE_DEFAULT_PACKAGES
+        = new pf_image_default_packages();
+    @DocString(name="%image-default-packages",
+    doc="Returns the packages saved in an image by default: those made\n"
+      + "after booting, and COMMON-LISP-USER.")
+    private static final class pf_image_default_packages extends Primitive
+    {
+        pf_image_default_packages() {
+            super("%image-default-packages", PACKAGE_SYS, false);
+        }
+
+        @Override
+        public LispObject execute() {
+            LispObject result = NIL;
+            for (Package pkg : Packages.getAllPackages()) {
+                if (pkg == PACKAGE_CL_USER || !isBootPackage(pkg)) {
+                    result = new Cons(pkg, result);
+                }
+            }
+            return result;
+        }
+    };
+}
@@ -57,6 +57,7 @@ public final class Interpreter
     private static boolean noinform = false;
     private static boolean help = false;
     private static boolean doubledash = false;
+    private static String image = null;
 
     public static Interpreter getInstance() {
 	synchronized (INIT_LOCK) {
@@ -105,6 +106,8 @@ public final class Interpreter
         initializeTopLevel();
         if (!nosystem) 
             initializeSystem();
+        if (image != null)
+            loadImage(image);
         if (!noinit)
             processInitializationFile();
         doubledash = false;
@@ -179,6 +182,7 @@ public final class Interpreter
 	synchronized (INIT_LOCK) {
         if (!initialized) {
             Load.loadSystemFile("boot.lisp", false, false, false);
+            Image.markBootPackages();
             initialized = true;
         }
     }
@@ -196,6 +200,7 @@ public final class Interpreter
             catch (ClassNotFoundException e) { } // FIXME: what to do?
 
             Load.loadSystemFile("j.lisp", false); // not being autoloaded
+            Image.markBootPackages();
 
             initialized = true;
         }
@@ -286,6 +291,13 @@ public final class Interpreter
                         System.err.println("No argument supplied to --load");
                         exit(1); // FIXME
                     }
+                } else if (arg.equals("--image")) {
+                    if (i + 1 < args.length) {
+                        image = args[++i];
+                    } else {
+                        System.err.println("No argument supplied to --image");
+                        exit(1); // FIXME
+                    }
                 } else {
                     arglist = new Cons(args[i], arglist);
                 }
@@ -313,22 +325,8 @@ public final class Interpreter
                             evaluate(args[i + 1]);
                         }
                         catch (UnhandledCondition c) {
-                            final String separator =
-                                System.getProperty("line.separator");
-                            StringBuilder sb = new StringBuilder();
-                            sb.append(separator);
-                            sb.append("Caught ");
-                            sb.append(c.getCondition().typeOf().printObject().toString());
-                            sb.append(" while processing --eval option \"" +
-                                      args[i + 1] + "\":");
-                            sb.append(separator);
-                            sb.append("  ");
-                            final LispThread thread = LispThread.currentThread();
-                            thread.bindSpecial(Symbol.PRINT_ESCAPE, NIL);
-                            sb.append(c.getCondition().princToString());
-                            sb.append(separator);
-                            System.err.print(sb.toString());
-                            exit(2); // FIXME
+                            reportAndExit(c, "processing --eval option \""
+                                          + args[i + 1] + "\"");
                         }
                         ++i;
                     } else {
@@ -336,6 +334,8 @@ public final class Interpreter
                         System.err.println("No argument supplied to --eval");
                         exit(1); // FIXME
                     }
+                } else if (arg.equals("--image")) {
+                    ++i;
                 } else if (arg.equals("--load") ||
                            arg.equals("--load-system-file")) {
                     if (i + 1 < args.length) {
@@ -360,6 +360,43 @@ public final class Interpreter
         }
     }
 
+    // Restores the image given by the --image option, with SYS:LOAD-IMAGE.
+    private static void loadImage(String file)
+    {
+        final LispThread thread = LispThread.currentThread();
+        final SpecialBindingsMark mark = thread.markSpecialBindings();
+        thread.bindSpecial(Symbol.DEBUGGER_HOOK, _DEBUGGER_HOOK_FUNCTION);
+        try {
+            intern("LOAD-IMAGE", PACKAGE_SYS).execute(
+                Pathname.mergePathnames(new Pathname(file),
+                    checkPathname(Symbol.DEFAULT_PATHNAME_DEFAULTS.getSymbolValue())));
+        }
+        catch (UnhandledCondition c) {
+            reportAndExit(c, "loading the image \"" + file + "\"");
+        }
+        finally {
+            thread.resetSpecialBindings(mark);
+        }
+    }
+
+    private static void reportAndExit(UnhandledCondition c, String doing)
+    {
+        final String separator = System.getProperty("line.separator");
+        StringBuilder sb = new StringBuilder();
+        sb.append(separator);
+        sb.append("Caught ");
+        sb.append(c.getCondition().typeOf().printObject().toString());
+        sb.append(" while " + doing + ":");
+        sb.append(separator);
+        sb.append("  ");
+        final LispThread thread = LispThread.currentThread();
+        thread.bindSpecial(Symbol.PRINT_ESCAPE, NIL);
+        sb.append(c.getCondition().princToString());
+        sb.append(separator);
+        System.err.print(sb.toString());
+        exit(2); // FIXME
+    }
+
     @SuppressWarnings("CallToThreadDumpStack")
     public void run()
     {
@@ -694,6 +731,14 @@ public final class Interpreter
         sb.append("--load-system-file <FILE>").append(sep)
           .append("    Loads the system file <FILE> before initializing REPL.");
         sb.append(sep);
+        sb.append("--image <FILE>").append(sep)
+          .append("    Restores the image <FILE>, saved by SYS:SAVE-IMAGE, before loading").append(sep)
+          .append("    the initialization file.");
+        sb.append(sep);
+        sb.append("--cds-archive <FILE>").append(sep)
+          .append("    Runs ABCL in a JVM using the class data sharing archive <FILE>, creating").append(sep)
+          .append("    it on exit if it doesn't exist.  Must be the first option.");
+        sb.append(sep);
         sb.append("--batch").append(sep)
           .append("    The process evaluates forms specified by arguments and possibly by those").append(sep)
           .append("    by those in the intialization file '~/.abcl', and then exits.");
@@ -35,6 +35,7 @@ package org.armedbear.lisp;
 
 import static org.armedbear.lisp.Lisp.*;
 
+import java.lang.ref.WeakReference;
 import java.lang.reflect.Array;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
@@ -43,6 +44,7 @@ import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.text.MessageFormat;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 public final class Java
 {
@@ -443,23 +445,17 @@ public final class Java
                 Class c = javaClass(args[1]);
                 if (c != null) {
                     String methodName = methodRef.getStringValue();
-                    Method[] methods = c.getMethods();
-                    List<Method> staticMethods = new ArrayList<Method>();
-                    int argCount = args.length - 2;
-                    for(Method m1 : methods) {
-                        if(Modifier.isStatic(m1.getModifiers())) {
-                            staticMethods.add(m1);
-                        }
-                    }
-                    if(staticMethods.size() > 0) {
-                        m = findMethod(staticMethods.toArray(new Method[staticMethods.size()]), methodName, args, 2);
-                    }
+                    m = findStaticMethod(c, methodName,
+                                         translateMethodArguments(args, 2));
                     if (m == null)
                         error(new LispError("no such method"));
                 }
             } else {
               type_error(methodRef, Symbol.STRING);
             }
+            LispObject invoked = JavaInvoker.invoke(m, args, translate);
+            if (invoked != null)
+                return invoked;
             Object[] methodArgs = new Object[args.length-2];
             Class[] argTypes = m.getParameterTypes();
             for (int i = 2; i < args.length; i++) {
@@ -878,6 +874,9 @@ public final class Java
                 }
             } else
                 method = (Method) JavaObject.getObject(methodArg);
+            LispObject invoked = JavaInvoker.invoke(method, args, translate);
+            if (invoked != null)
+                return invoked;
             Class<?>[] argTypes = (Class<?>[])method.getParameterTypes();
 	    if(argTypes.length != args.length - 2) {
 		return error(new WrongNumberOfArgumentsException("Wrong number of arguments for " + method + ": expected " + argTypes.length + ", got " + (args.length - 2)));
@@ -996,19 +995,157 @@ public final class Java
        return false;
     }
 
+    /** The key of a resolved method in the method cache of a class:
+     * the method name, whether only static methods were considered,
+     * and the classes of the arguments (null for null arguments).
+     *
+     * Keys stored in a cache hold the argument classes weakly, so that
+     * the cache of a class doesn't keep the class loaders of argument
+     * classes alive; keys built for a lookup hold them directly.
+     */
+    private static final class MethodKey {
+        final String name;
+        final boolean staticOnly;
+        // Class or WeakReference<Class>
+        final Object[] argClasses;
+        final int hash;
+
+        MethodKey(String name, boolean staticOnly, Object[] javaArgs) {
+            this.name = name;
+            this.staticOnly = staticOnly;
+            argClasses = new Object[javaArgs.length];
+            int h = name.hashCode() ^ (staticOnly ? 1 : 0);
+            for (int i = 0; i < javaArgs.length; i++) {
+                Object arg = javaArgs[i];
+                if (arg != null) {
+                    argClasses[i] = arg.getClass();
+                    h = h * 31 + argClasses[i].hashCode();
+                } else {
+                    h = h * 31;
+                }
+            }
+            hash = h;
+        }
+
+        private MethodKey(MethodKey key) {
+            name = key.name;
+            staticOnly = key.staticOnly;
+            argClasses = new Object[key.argClasses.length];
+            for (int i = 0; i < argClasses.length; i++) {
+                Class<?> c = key.argClass(i);
+                if (c != null) {
+                    argClasses[i] = new WeakReference<Class<?>>(c);
+                }
+            }
+            hash = key.hash;
+        }
+
+        /** Returns a copy of this key holding its argument classes weakly. */
+        MethodKey weakCopy() {
+            return new MethodKey(this);
+        }
+
+        Class<?> argClass(int i) {
+            Object c = argClasses[i];
+            if (c instanceof WeakReference) {
+                return (Class<?>) ((WeakReference<?>) c).get();
+            }
+            return (Class<?>) c;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof MethodKey))
+                return false;
+            MethodKey k = (MethodKey) o;
+            if (hash != k.hash || staticOnly != k.staticOnly
+                || !name.equals(k.name)
+                || argClasses.length != k.argClasses.length)
+                return false;
+            for (int i = 0; i < argClasses.length; i++) {
+                // A collected class leaves a null behind, which must not
+                // match a null argument.
+                if ((argClasses[i] == null) != (k.argClasses[i] == null)
+                    || argClass(i) != k.argClass(i))
+                    return false;
+            }
+            return true;
+        }
+    }
+
+    // Cached in place of null: no applicable method.
+    private static final Method NO_METHOD;
+    static {
+        try {
+            NO_METHOD = Object.class.getMethod("toString");
+        } catch (NoSuchMethodException e) {
+            throw new Error(e);
+        }
+    }
+
+    // Beyond this many entries the cache of a class is cleared, rather
+    // than growing without bound on call sites seeing ever new
+    // argument classes.
+    private static final int METHOD_CACHE_LIMIT = 512;
+
+    /** The methods resolved by JCALL, JSTATIC and JRESOLVE-METHOD with a
+     * method name, per class.  Being attached to the class through a
+     * ClassValue, a cache goes away with its class when the class
+     * loader is unloaded.
+     */
+    private static final ClassValue<ConcurrentHashMap<MethodKey, Method>> methodCache
+        = new ClassValue<ConcurrentHashMap<MethodKey, Method>>() {
+            @Override
+            protected ConcurrentHashMap<MethodKey, Method> computeValue(Class<?> c) {
+                return new ConcurrentHashMap<MethodKey, Method>();
+            }
+        };
+
+    private static Method findCachedMethod(Class<?> c, String methodName,
+                                           Object[] javaArgs,
+                                           boolean staticOnly) {
+        ConcurrentHashMap<MethodKey, Method> cache = methodCache.get(c);
+        MethodKey key = new MethodKey(methodName, staticOnly, javaArgs);
+        Method method = cache.get(key);
+        if (method == null) {
+            Method[] methods = c.getMethods();
+            if (staticOnly) {
+                List<Method> staticMethods = new ArrayList<Method>();
+                for (Method m : methods) {
+                    if (Modifier.isStatic(m.getModifiers())) {
+                        staticMethods.add(m);
+                    }
+                }
+                methods = staticMethods.toArray(new Method[staticMethods.size()]);
+            }
+            method = findMethod(methods, methodName, javaArgs);
+            if (method == null) {
+                method = NO_METHOD;
+            }
+            if (cache.size() >= METHOD_CACHE_LIMIT) {
+                cache.clear();
+            }
+            cache.put(key.weakCopy(), method);
+        }
+        return method == NO_METHOD ? null : method;
+    }
+
     private static Method findMethod(Class<?> c, String methodName, Object[] javaArgs) {
-        Method[] methods = c.getMethods();
-        return findMethod(methods, methodName, javaArgs);
+        return findCachedMethod(c, methodName, javaArgs, false);
     }
 
-    private static Method findMethod(Class<?> c, String methodName, LispObject[] args, int offset) {
-        Object[] javaArgs = translateMethodArguments(args, offset);
-        return findMethod(c, methodName, javaArgs);
+    private static Method findStaticMethod(Class<?> c, String methodName, Object[] javaArgs) {
+        return findCachedMethod(c, methodName, javaArgs, true);
     }
 
-    private static Method findMethod(Method[] methods, String methodName, LispObject[] args, int offset) {
+    private static Method findMethod(Class<?> c, String methodName, LispObject[] args, int offset) {
         Object[] javaArgs = translateMethodArguments(args, offset);
-        return findMethod(methods, methodName, javaArgs);
+        return findMethod(c, methodName, javaArgs);
     }
 
     static Constructor findConstructor(Class<?> c, LispObject[] args) throws NoSuchMethodException {
@@ -46,6 +46,11 @@ import java.net.URLClassLoader;
 
 public class JavaClassLoader extends URLClassLoader {
 
+    static {
+        // Lets FaslClassLoader define classes from several threads
+        registerAsParallelCapable();
+    }
+
     private static JavaClassLoader persistentInstance;
 
     public static boolean checkPreCompiledClassLoader = true;
@@ -0,0 +1,423 @@
+/*
+ * JavaInvoker.java
+ *
+ * Copyright (C) 2026 The Armed Bear Common Lisp Project
+ * $Id$
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ *
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent
+ * modules, and to copy and distribute the resulting executable under
+ * terms of your choice, provided that you also meet, for each linked
+ * independent module, the terms and conditions of the license of that
+ * module.  An independent module is a module which is not derived from
+ * or based on this library.  If you modify this library, you may extend
+ * this exception to your version of the library, but you are not
+ * obligated to do so.  If you do not wish to do so, delete this
+ * exception statement from your version.
+ */
+
+package org.armedbear.lisp;
+
+import static org.armedbear.lisp.Lisp.*;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Invokes Java methods for JCALL and JSTATIC through method handles
+ * instead of Method.invoke().
+ *
+ * The handle of a method is adapted to take LispObject arguments and
+ * to return a LispObject, converting them as Java.jcall() does.
+ * Arguments of primitive types are converted straight from fixnums,
+ * floats and characters, and primitive results to Lisp objects, so
+ * that neither is boxed into a wrapper object.
+ *
+ * The adapted handles are cached per Method.  Methods the handle
+ * lookup has no access to are left to Method.invoke(), as are all
+ * methods when the system property abcl.java.methodHandles is false.
+ */
+final class JavaInvoker
+{
+    // -Dabcl.java.methodHandles=false invokes all methods through
+    // reflection.
+    static final boolean enabled
+        = Boolean.valueOf(System.getProperty("abcl.java.methodHandles", "true"));
+
+    // Invokers with more arguments take them in a LispObject[].
+    private static final int MAX_SPREAD_ARGS = 3;
+
+    private static final MethodHandle TO_JAVA;
+    private static final MethodHandle RECEIVER;
+    private static final MethodHandle GET_INSTANCE;
+    private static final MethodHandle[] TO_PRIMITIVE = new MethodHandle[8];
+    private static final MethodHandle[] FROM_PRIMITIVE = new MethodHandle[8];
+    private static final Class<?>[] PRIMITIVES = {
+        boolean.class, byte.class, char.class, short.class,
+        int.class, long.class, float.class, double.class
+    };
+    private static final String[] PRIMITIVE_NAMES = {
+        "Boolean", "Byte", "Char", "Short", "Int", "Long", "Float", "Double"
+    };
+
+    static {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        try {
+            TO_JAVA = lookup.findStatic(JavaInvoker.class, "toJava",
+                MethodType.methodType(Object.class, LispObject.class,
+                                      Class.class));
+            RECEIVER = lookup.findStatic(JavaInvoker.class, "receiver",
+                MethodType.methodType(Object.class, LispObject.class));
+            GET_INSTANCE = lookup.findStatic(JavaObject.class, "getInstance",
+                MethodType.methodType(LispObject.class, Object.class,
+                                      boolean.class, Class.class));
+            for (int i = 0; i < PRIMITIVES.length; i++) {
+                TO_PRIMITIVE[i] = lookup.findStatic(JavaInvoker.class,
+                    "to" + PRIMITIVE_NAMES[i],
+                    MethodType.methodType(PRIMITIVES[i], LispObject.class));
+                FROM_PRIMITIVE[i] = lookup.findStatic(JavaInvoker.class,
+                    "from" + PRIMITIVE_NAMES[i],
+                    MethodType.methodType(LispObject.class, PRIMITIVES[i]));
+            }
+        } catch (ReflectiveOperationException e) {
+            throw new Error(e);
+        }
+    }
+
+    /** The adapted handles of a method: for translated and raw
+     * results, or null when the method can't be invoked through a
+     * handle. */
+    private static final class Invokers {
+        final int argCount;
+        final MethodHandle translated;
+        final MethodHandle raw;
+
+        Invokers(int argCount, MethodHandle translated, MethodHandle raw) {
+            this.argCount = argCount;
+            this.translated = translated;
+            this.raw = raw;
+        }
+    }
+
+    private static final Invokers NO_INVOKERS = new Invokers(-1, null, null);
+
+    private static final ClassValue<ConcurrentHashMap<Method, Invokers>> invokers
+        = new ClassValue<ConcurrentHashMap<Method, Invokers>>() {
+            @Override
+            protected ConcurrentHashMap<Method, Invokers> computeValue(Class<?> c) {
+                return new ConcurrentHashMap<Method, Invokers>();
+            }
+        };
+
+    private static Invokers getInvokers(Method method) {
+        ConcurrentHashMap<Method, Invokers> cache
+            = invokers.get(method.getDeclaringClass());
+        Invokers i = cache.get(method);
+        if (i == null) {
+            i = makeInvokers(method);
+            cache.put(method, i);
+        }
+        return i;
+    }
+
+    private static Invokers makeInvokers(Method method) {
+        MethodHandle mh;
+        try {
+            if (!method.isAccessible()
+                && Modifier.isPublic(method.getModifiers())) {
+                // Possible for static member classes: see #229
+                method.setAccessible(true);
+            }
+            mh = MethodHandles.lookup().unreflect(method);
+        } catch (IllegalAccessException e) {
+            return NO_INVOKERS;
+        } catch (SecurityException e) {
+            return NO_INVOKERS;
+        }
+        if (Modifier.isStatic(method.getModifiers())) {
+            mh = MethodHandles.dropArguments(mh, 0, Object.class);
+        }
+        // Receiver
+        mh = MethodHandles.filterArguments(
+            mh.asType(mh.type().changeParameterType(0, Object.class)),
+            0, RECEIVER);
+        // Arguments
+        Class<?>[] types = method.getParameterTypes();
+        for (int i = 0; i < types.length; i++) {
+            mh = MethodHandles.filterArguments(mh, i + 1,
+                                               argumentConverter(types[i]));
+        }
+        MethodHandle translated
+            = adaptInvoker(convertResult(mh, method.getReturnType(), true),
+                           types.length);
+        MethodHandle raw
+            = adaptInvoker(convertResult(mh, method.getReturnType(), false),
+                           types.length);
+        return new Invokers(types.length, translated, raw);
+    }
+
+    private static int primitiveIndex(Class<?> c) {
+        for (int i = 0; i < PRIMITIVES.length; i++) {
+            if (PRIMITIVES[i] == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static MethodHandle argumentConverter(Class<?> type) {
+        int i = primitiveIndex(type);
+        if (i >= 0) {
+            return TO_PRIMITIVE[i];
+        }
+        return MethodHandles.insertArguments(TO_JAVA, 1, type)
+            .asType(MethodType.methodType(type, LispObject.class));
+    }
+
+    private static MethodHandle convertResult(MethodHandle mh, Class<?> type,
+                                              boolean translate) {
+        int i = primitiveIndex(type);
+        if (translate && i >= 0) {
+            return MethodHandles.filterReturnValue(mh, FROM_PRIMITIVE[i]);
+        }
+        // void and references; raw results of primitive types are boxed
+        // as by Method.invoke()
+        return MethodHandles.filterReturnValue(
+            mh.asType(mh.type().changeReturnType(Object.class)),
+            MethodHandles.insertArguments(GET_INSTANCE, 1, translate, type));
+    }
+
+    private static MethodHandle adaptInvoker(MethodHandle mh, int argCount) {
+        if (argCount > MAX_SPREAD_ARGS) {
+            return mh.asSpreader(LispObject[].class, argCount);
+        }
+        return mh;
+    }
+
+    /** Invokes 'method' through its handle, or returns null when it has
+     * no handle or is passed the wrong number of arguments, leaving
+     * the call and its error reporting to reflection.  'args' holds
+     * the method, the receiver and the arguments, as passed to JCALL
+     * and JSTATIC.
+     *
+     * The handles have the type (LispObject, LispObject...)LispObject
+     * for up to MAX_SPREAD_ARGS arguments, and
+     * (LispObject, LispObject[])LispObject beyond.
+     */
+    static LispObject invoke(Method method, LispObject[] args,
+                             boolean translate) throws Throwable {
+        if (!enabled) {
+            return null;
+        }
+        Invokers i = getInvokers(method);
+        if (i.argCount != args.length - 2) {
+            return null;
+        }
+        MethodHandle mh = translate ? i.translated : i.raw;
+        switch (args.length) {
+        case 2:
+            return (LispObject) mh.invokeExact(args[1]);
+        case 3:
+            return (LispObject) mh.invokeExact(args[1], args[2]);
+        case 4:
+            return (LispObject) mh.invokeExact(args[1], args[2], args[3]);
+        case 5:
+            return (LispObject) mh.invokeExact(args[1], args[2], args[3],
+                                               args[4]);
+        default:
+            return (LispObject) mh.invokeExact(args[1],
+                Arrays.copyOfRange(args, 2, args.length));
+        }
+    }
+
+    // Conversions of the receiver and the arguments, as done by
+    // Java.jcall()
+
+    static Object receiver(LispObject arg) {
+        if (arg instanceof AbstractString) {
+            return arg.getStringValue();
+        }
+        if (arg instanceof JavaObject) {
+            return ((JavaObject)arg).getObject();
+        }
+        return arg.javaInstance();
+    }
+
+    static Object toJava(LispObject arg, Class<?> type) {
+        if (arg == NIL) {
+            return Boolean.FALSE;
+        }
+        if (arg == T) {
+            return Boolean.TRUE;
+        }
+        return arg.javaInstance(type);
+    }
+
+    // Unboxes 'value' with the widening conversions Method.invoke()
+    // allows.
+    private static Object unbox(LispObject arg, Class<?> type) {
+        Object value = toJava(arg, type);
+        if (value instanceof Character
+            && type != boolean.class && type != byte.class
+            && type != short.class) {
+            return Integer.valueOf(((Character)value).charValue());
+        }
+        return value;
+    }
+
+    private static IllegalArgumentException mismatch() {
+        return new IllegalArgumentException("argument type mismatch");
+    }
+
+    static boolean toBoolean(LispObject arg) {
+        Object value = toJava(arg, boolean.class);
+        if (value instanceof Boolean) {
+            return ((Boolean)value).booleanValue();
+        }
+        throw mismatch();
+    }
+
+    static byte toByte(LispObject arg) {
+        Object value = toJava(arg, byte.class);
+        if (value instanceof Byte) {
+            return ((Byte)value).byteValue();
+        }
+        throw mismatch();
+    }
+
+    static char toChar(LispObject arg) {
+        if (arg instanceof LispCharacter) {
+            return ((LispCharacter)arg).value;
+        }
+        Object value = toJava(arg, char.class);
+        if (value instanceof Character) {
+            return ((Character)value).charValue();
+        }
+        throw mismatch();
+    }
+
+    static short toShort(LispObject arg) {
+        Object value = toJava(arg, short.class);
+        if (value instanceof Short || value instanceof Byte) {
+            return ((Number)value).shortValue();
+        }
+        throw mismatch();
+    }
+
+    static int toInt(LispObject arg) {
+        if (arg instanceof Fixnum) {
+            return ((Fixnum)arg).value;
+        }
+        Object value = unbox(arg, int.class);
+        if (value instanceof Integer || value instanceof Short
+            || value instanceof Byte) {
+            return ((Number)value).intValue();
+        }
+        throw mismatch();
+    }
+
+    static long toLong(LispObject arg) {
+        if (arg instanceof Fixnum) {
+            return ((Fixnum)arg).value;
+        }
+        Object value = unbox(arg, long.class);
+        if (value instanceof Long || value instanceof Integer
+            || value instanceof Short || value instanceof Byte) {
+            return ((Number)value).longValue();
+        }
+        throw mismatch();
+    }
+
+    static float toFloat(LispObject arg) {
+        if (arg instanceof SingleFloat) {
+            return ((SingleFloat)arg).value;
+        }
+        if (arg instanceof Fixnum) {
+            return ((Fixnum)arg).value;
+        }
+        Object value = unbox(arg, float.class);
+        if (value instanceof Number && !(value instanceof Double)
+            && isPrimitiveWrapper(value)) {
+            return ((Number)value).floatValue();
+        }
+        throw mismatch();
+    }
+
+    static double toDouble(LispObject arg) {
+        if (arg instanceof DoubleFloat) {
+            return ((DoubleFloat)arg).value;
+        }
+        if (arg instanceof SingleFloat) {
+            return ((SingleFloat)arg).value;
+        }
+        if (arg instanceof Fixnum) {
+            return ((Fixnum)arg).value;
+        }
+        Object value = unbox(arg, double.class);
+        if (value instanceof Number && isPrimitiveWrapper(value)) {
+            return ((Number)value).doubleValue();
+        }
+        throw mismatch();
+    }
+
+    private static boolean isPrimitiveWrapper(Object value) {
+        return value instanceof Double || value instanceof Float
+            || value instanceof Long || value instanceof Integer
+            || value instanceof Short || value instanceof Byte;
+    }
+
+    // Conversions of primitive results, as done by
+    // JavaObject.getInstance(Object, true, Class)
+
+    static LispObject fromBoolean(boolean value) {
+        return value ? T : NIL;
+    }
+
+    static LispObject fromByte(byte value) {
+        return Fixnum.getInstance(value);
+    }
+
+    static LispObject fromChar(char value) {
+        return LispCharacter.getInstance(value);
+    }
+
+    static LispObject fromShort(short value) {
+        return Fixnum.getInstance(value);
+    }
+
+    static LispObject fromInt(int value) {
+        return Fixnum.getInstance(value);
+    }
+
+    static LispObject fromLong(long value) {
+        return LispInteger.getInstance(value);
+    }
+
+    static LispObject fromFloat(float value) {
+        return new SingleFloat(value);
+    }
+
+    static LispObject fromDouble(double value) {
+        return new DoubleFloat(value);
+    }
+}
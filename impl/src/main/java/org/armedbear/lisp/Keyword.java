@@ -53,6 +53,7 @@ public final class Keyword
         CASE                = internKeyword("CASE"),
         CAUSE               = internKeyword("CAUSE"),
         CHAR                = internKeyword("CHAR"),
+        CHARACTER           = internKeyword("CHARACTER"),
         COMMON              = internKeyword("COMMON"),
         COMMON_LISP         = internKeyword("COMMON-LISP"),
         COMPILE_TOPLEVEL    = internKeyword("COMPILE-TOPLEVEL"),
@@ -76,6 +77,7 @@ public final class Keyword
         EXTERNAL            = internKeyword("EXTERNAL"),
         EXTERNAL_FORMAT     = internKeyword("EXTERNAL-FORMAT"),
         FILL_POINTER        = internKeyword("FILL-POINTER"),
+        FIXNUM              = internKeyword("FIXNUM"),
         FORMAT_ARGUMENTS    = internKeyword("FORMAT-ARGUMENTS"),
         FORMAT_CONTROL      = internKeyword("FORMAT-CONTROL"),
         FROM_END            = internKeyword("FROM-END"),
@@ -1146,7 +1146,7 @@ public final class Lisp
     if (oldValue instanceof Fixnum)
       sb.append(((Fixnum)oldValue).value);
     else if (oldValue instanceof Bignum)
-      sb.append(((Bignum)oldValue).value.toString());
+      sb.append(((Bignum)oldValue).getBigInteger().toString());
 
     return new Symbol(new SimpleString(sb));
   }
@@ -1502,6 +1502,31 @@ public final class Lisp
   public static final LispObject UNSIGNED_BYTE_32_MAX_VALUE =
     Bignum.getInstance(4294967296L);
 
+  public static final LispObject SIGNED_BYTE_32 =
+    list(Symbol.SIGNED_BYTE, Fixnum.constants[32]);
+
+  public static final LispObject SIGNED_BYTE_64 =
+    list(Symbol.SIGNED_BYTE, Fixnum.constants[64]);
+
+  private static final LispObject SIGNED_BYTE_64_MIN_VALUE =
+    Bignum.getInstance(Long.MIN_VALUE);
+
+  private static final LispObject SIGNED_BYTE_64_MAX_VALUE =
+    Bignum.getInstance(Long.MAX_VALUE);
+
+  // Returns (SIGNED-BYTE 32) or (SIGNED-BYTE 64) if all integers from
+  // LOWER to UPPER fit in one, or null.
+  private static LispObject getUpgradedSignedType(LispObject lower,
+                                                  LispObject upper)
+  {
+    if (lower instanceof Fixnum && upper instanceof Fixnum)
+      return SIGNED_BYTE_32;
+    if (lower.isGreaterThanOrEqualTo(SIGNED_BYTE_64_MIN_VALUE) &&
+        upper.isLessThanOrEqualTo(SIGNED_BYTE_64_MAX_VALUE))
+      return SIGNED_BYTE_64;
+    return null;
+  }
+
   public static final LispObject getUpgradedArrayElementType(LispObject type)
 
   {
@@ -1512,11 +1537,23 @@ public final class Lisp
           return Symbol.CHARACTER;
         if (type == Symbol.BIT)
           return Symbol.BIT;
+        if (type == Symbol.DOUBLE_FLOAT || type == Symbol.LONG_FLOAT)
+          return Symbol.DOUBLE_FLOAT;
+        if (type == Symbol.SINGLE_FLOAT || type == Symbol.SHORT_FLOAT)
+          return Symbol.SINGLE_FLOAT;
+        if (type == Symbol.FIXNUM)
+          return SIGNED_BYTE_32;
         if (type == NIL)
           return NIL;
       }
     if (type == BuiltInClass.CHARACTER)
       return Symbol.CHARACTER;
+    if (type == BuiltInClass.DOUBLE_FLOAT)
+      return Symbol.DOUBLE_FLOAT;
+    if (type == BuiltInClass.SINGLE_FLOAT)
+      return Symbol.SINGLE_FLOAT;
+    if (type == BuiltInClass.FIXNUM)
+      return SIGNED_BYTE_32;
     if (type instanceof Cons)
       {
         if (type.equal(UNSIGNED_BYTE_8))
@@ -1526,6 +1563,22 @@ public final class Lisp
         if (type.equal(UNSIGNED_BYTE_32))
           return type;
         LispObject car = type.car();
+        if (car == Symbol.DOUBLE_FLOAT || car == Symbol.LONG_FLOAT)
+          return Symbol.DOUBLE_FLOAT;
+        if (car == Symbol.SINGLE_FLOAT || car == Symbol.SHORT_FLOAT)
+          return Symbol.SINGLE_FLOAT;
+        if (car == Symbol.SIGNED_BYTE && type.cdr() instanceof Cons)
+          {
+            LispObject size = type.cadr();
+            if (size instanceof Fixnum)
+              {
+                int n = ((Fixnum)size).value;
+                if (n > 0 && n <= 32)
+                  return SIGNED_BYTE_32;
+                if (n > 0 && n <= 64)
+                  return SIGNED_BYTE_64;
+              }
+          }
         if (car == Symbol.INTEGER)
           {
             LispObject lower = type.cadr();
@@ -1560,6 +1613,9 @@ public final class Lisp
                           return UNSIGNED_BYTE_32;
                       }
                   }
+                LispObject signedType = getUpgradedSignedType(lower, upper);
+                if (signedType != null)
+                  return signedType;
               }
           }
         else if (car == Symbol.EQL)
@@ -1578,6 +1634,7 @@ public final class Lisp
                       return UNSIGNED_BYTE_16;
                     return UNSIGNED_BYTE_32;
                   }
+                return SIGNED_BYTE_32;
               }
             else if (obj instanceof Bignum)
               {
@@ -1586,7 +1643,14 @@ public final class Lisp
                     if (obj.isLessThan(UNSIGNED_BYTE_32_MAX_VALUE))
                       return UNSIGNED_BYTE_32;
                   }
+                LispObject signedType = getUpgradedSignedType(obj, obj);
+                if (signedType != null)
+                  return signedType;
               }
+            else if (obj instanceof DoubleFloat)
+              return Symbol.DOUBLE_FLOAT;
+            else if (obj instanceof SingleFloat)
+              return Symbol.SINGLE_FLOAT;
           }
         else if (car == Symbol.MEMBER)
           {
@@ -1841,6 +1905,8 @@ public final class Lisp
       return Pathname.parseNamestring((AbstractString)arg);
     if (arg instanceof FileStream)
       return ((FileStream)arg).getPathname();
+    if (arg instanceof MappedFileStream)
+      return ((MappedFileStream)arg).getPathname();
     if (arg instanceof JarStream)
       return ((JarStream)arg).getPathname();
     if (arg instanceof URLStream)
@@ -2408,6 +2474,13 @@ public final class Lisp
     public static final Symbol _FASL_LOADER_ =
 	exportSpecial("*FASL-LOADER*", PACKAGE_SYS, NIL);
 
+    // ### *parallel-fasl-loading*
+    // When true, the function classes of a FASL are read and defined
+    // in parallel as soon as its class loader is made.
+    public static final Symbol _PARALLEL_FASL_LOADING_ =
+        exportSpecial("*PARALLEL-FASL-LOADING*", PACKAGE_SYS,
+                      Boolean.getBoolean("abcl.fasl.parallelLoading") ? T : NIL);
+
   // ### *source*
   // internal symbol
   public static final Symbol _SOURCE_ =
@@ -37,34 +37,66 @@ import static org.armedbear.lisp.Lisp.*;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
 
-public final class LispCharacter extends LispObject
+public final class LispCharacter extends LispObject implements java.io.Serializable
 {
   public static final LispCharacter[] constants;
   public static final CharHashMap<LispCharacter> lispChars;
 
+  /** getInstance() returns shared instances for the characters with a
+   *  code below CACHE_SIZE, which is set with the system property
+   *  abcl.character.cache.size; those above Latin-1 are made when first
+   *  asked for.  Characters past the cache are allocated every time. */
+  public static final int CACHE_SIZE
+    = Math.max(256, Math.min(Character.MAX_VALUE + 1,
+                             Integer.getInteger("abcl.character.cache.size",
+                                                Character.MAX_VALUE + 1)));
+  private static final LispCharacter[] cache = new LispCharacter[CACHE_SIZE];
+
+  /** Counts the characters getInstance() allocates, if the system
+   *  property abcl.allocation.counters is true; null otherwise. */
+  static final LongAdder allocations
+    = Boolean.getBoolean("abcl.allocation.counters") ? new LongAdder() : null;
+
   static
   {
     lispChars = new CharHashMap<LispCharacter>(LispCharacter.class,null){
       public LispCharacter get(char c) {
         LispCharacter lc = super.get(c);
-        if (lc==null) {
-          lc = new LispCharacter(c);
-          put(c, lc);
-        }
-        return lc;
+        return lc == null ? getInstance(c) : lc;
       }
     };
     constants = lispChars.constants;
     for (int i = constants.length; i-- > 0;)
-      constants[i] = new LispCharacter((char)i);
+      cache[i] = constants[i] = new LispCharacter((char)i);
   }
 
   public final char value;
   private String name;
   public static LispCharacter getInstance(char c)
   {
-    return lispChars.get(c);
+    if (c < CACHE_SIZE)
+      {
+        LispCharacter lc = cache[c];
+        return lc != null ? lc : cacheInstance(c);
+      }
+    if (allocations != null)
+      allocations.increment();
+    return new LispCharacter(c);
+  }
+
+  private static synchronized LispCharacter cacheInstance(char c)
+  {
+    LispCharacter lc = cache[c];
+    if (lc == null)
+      {
+        if (allocations != null)
+          allocations.increment();
+        lc = new LispCharacter(c);
+        cache[c] = lc;
+      }
+    return lc;
   }
 
   // This needs to be public for the compiler.
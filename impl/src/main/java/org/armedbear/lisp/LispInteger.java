@@ -33,6 +33,8 @@
 
 package org.armedbear.lisp;
 
+import java.math.BigInteger;
+
 /** This class merely serves as the super class for
  * Fixnum and Bignum
  */
@@ -50,5 +52,49 @@ public class LispInteger extends LispObject implements java.io.Serializable
       return Fixnum.getInstance(i);
   }
 
+  // Arithmetic on (SIGNED-BYTE 64) values for compiled code, which
+  // signals a TYPE-ERROR instead of wrapping around when the result
+  // doesn't fit.
+
+  public static long addExact(long a, long b) {
+      try {
+          return Math.addExact(a, b);
+      }
+      catch (ArithmeticException e) {
+          return overflow(BigInteger.valueOf(a).add(BigInteger.valueOf(b)));
+      }
+  }
+
+  public static long subtractExact(long a, long b) {
+      try {
+          return Math.subtractExact(a, b);
+      }
+      catch (ArithmeticException e) {
+          return overflow(BigInteger.valueOf(a).subtract(BigInteger.valueOf(b)));
+      }
+  }
+
+  public static long multiplyExact(long a, long b) {
+      try {
+          return Math.multiplyExact(a, b);
+      }
+      catch (ArithmeticException e) {
+          return overflow(BigInteger.valueOf(a).multiply(BigInteger.valueOf(b)));
+      }
+  }
 
+  public static long negateExact(long a) {
+      try {
+          return Math.negateExact(a);
+      }
+      catch (ArithmeticException e) {
+          return overflow(BigInteger.valueOf(a).negate());
+      }
+  }
+
+  private static long overflow(BigInteger result) {
+      Lisp.type_error(Bignum.getInstance(result), Lisp.SIGNED_BYTE_64);
+      // Not reached.
+      return 0;
+  }
 }
@@ -524,6 +524,16 @@ public class LispObject //extends Lisp
     return AREF(index).intValue();
   }
 
+  public double aref_double(int index)
+  {
+    return DoubleFloat.getValue(AREF(index));
+  }
+
+  public float aref_float(int index)
+  {
+    return (float) SingleFloat.getValue(AREF(index));
+  }
+
   public LispObject AREF(int index)
   {
     return type_error(this, Symbol.ARRAY);
@@ -540,6 +550,21 @@ public class LispObject //extends Lisp
           aset(index, Fixnum.getInstance(n));
   }
 
+  public void aset(int index, long n)
+  {
+    aset(index, LispInteger.getInstance(n));
+  }
+
+  public void aset(int index, double d)
+  {
+    aset(index, DoubleFloat.getInstance(d));
+  }
+
+  public void aset(int index, float f)
+  {
+    aset(index, SingleFloat.getInstance(f));
+  }
+
   public void aset(int index, LispObject newValue)
 
   {
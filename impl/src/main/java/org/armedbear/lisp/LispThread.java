@@ -34,9 +34,12 @@
 package org.armedbear.lisp;
 
 import java.lang.ref.WeakReference;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
 
 import static org.armedbear.lisp.Lisp.*;
 
+import java.util.BitSet;
 import java.util.Iterator;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
@@ -71,11 +74,20 @@ public final class LispThread extends LispObject
     }
 
     final Thread javaThread;
+    /** Whether this thread runs on a virtual thread: it then starts out
+     * with small specials, binding stack and stack, grown on demand, so
+     * that very many of them can be parked at the same time.
+     */
+    private final boolean virtual;
     private boolean destroyed;
     final LispObject name;
     public LispObject[] _values;
     private boolean threadInterrupted;
     private LispObject pending = NIL;
+    /** The world this thread runs in, whose packages it sees; null
+     * outside of any world.
+     */
+    World world;
     private Symbol wrapper =
         PACKAGE_THREADS.intern("THREAD-FUNCTION-WRAPPER");
 
@@ -83,14 +95,22 @@ public final class LispThread extends LispObject
     {
         this.javaThread = javaThread;
         name = new SimpleString(javaThread.getName());
+        virtual = false;
+        allocate();
     }
 
-    LispThread(final Function fun, LispObject name)
+    LispThread(final Function fun, LispObject name, boolean virtual)
     {
+        this.virtual = virtual;
+        allocate();
+        // A thread runs in the world of the thread which made it
+        final World parentWorld = currentThread().world;
         Runnable r = new Runnable() {
             public void run()
             {
                 try {
+                    if (parentWorld != null)
+                        parentWorld.enter(LispThread.this);
                     threadValue = funcall(wrapper,
                             new LispObject[] { fun },
                             LispThread.this);
@@ -116,7 +136,7 @@ public final class LispThread extends LispObject
                 }
             }
         };
-        javaThread = new Thread(r);
+        javaThread = virtual ? newVirtualThread(r) : new Thread(r);
         this.name = name;
         map.put(javaThread, this);
         if (name != NIL)
@@ -125,6 +145,40 @@ public final class LispThread extends LispObject
         javaThread.start();
     }
 
+    // Thread.ofVirtual() and Thread.Builder.unstarted(Runnable), which
+    // appeared in Java 21; null before.
+    private static final Method OF_VIRTUAL;
+    private static final Method UNSTARTED;
+    static {
+        Method ofVirtual = null;
+        Method unstarted = null;
+        try {
+            ofVirtual = Thread.class.getMethod("ofVirtual");
+            unstarted = Class.forName("java.lang.Thread$Builder")
+                .getMethod("unstarted", Runnable.class);
+        } catch (Exception e) {
+            ofVirtual = null;
+        }
+        OF_VIRTUAL = ofVirtual;
+        UNSTARTED = unstarted;
+    }
+
+    /** Whether MAKE-THREAD creates virtual threads unless told
+     * otherwise, as set by the abcl.threads.virtual property.
+     */
+    static final boolean virtualByDefault
+        = Boolean.getBoolean("abcl.threads.virtual") && OF_VIRTUAL != null;
+
+    private static Thread newVirtualThread(Runnable r) {
+        try {
+            return (Thread) UNSTARTED.invoke(OF_VIRTUAL.invoke(null), r);
+        } catch (InvocationTargetException e) {
+            throw new Error(e.getCause());
+        } catch (IllegalAccessException e) {
+            throw new Error(e);
+        }
+    }
+
     public StackTraceElement[] getJavaStackTrace() {
         return javaThread.getStackTrace();
     }
@@ -355,8 +409,7 @@ public final class LispThread extends LispObject
      * SpecialBinding object, but the value field of it is null, that
      * indicates an "UNBOUND VARIABLE" situation.
      */
-    SpecialBinding[] specials
-        = new SpecialBinding[specialsInitialSize + 1];
+    SpecialBinding[] specials;
 
     final static ConcurrentHashMap<Integer, WeakReference<Symbol>> specialNames
         = new ConcurrentHashMap<Integer, WeakReference<Symbol>>();
@@ -367,29 +420,116 @@ public final class LispThread extends LispObject
     final static int specialsDelta
         = Integer.valueOf(System.getProperty("abcl.specials.grow.delta","1024"));
 
-    /** This variable points to the head of a linked list of saved
-     * special bindings. Its main purpose is to allow a mark/reset
-     * interface to special binding and unbinding.
+    final static int bindingStackInitialSize
+        = Integer.valueOf(System.getProperty("abcl.specials.bindingStack.initialSize","256"));
+
+    /** The binding stack, held in parallel arrays: for each active
+     * special binding, in the order in which they were made, the index
+     * in the specials array of the bound symbol and the binding it
+     * shadows.  Its main purpose is to allow a mark/reset interface to
+     * special binding and unbinding.
+     */
+    int[] savedSpecialIndices;
+    SpecialBinding[] savedSpecialBindings;
+
+    /** The SpecialBinding objects made for each depth of the binding
+     * stack, reused by the next binding at the same depth once the
+     * binding has been undone.
      */
-    SpecialBindingsMark savedSpecials = null;
+    private SpecialBinding[] bindingPool;
+
+    /** The number of active bindings on the binding stack. */
+    int bindingStackDepth = 0;
+
+    /** The initial size of the binding stack and of the stack of
+     * virtual threads.
+     */
+    private static final int VIRTUAL_INITIAL_SIZE = 16;
+
+    private void allocate() {
+        specials = new SpecialBinding[virtual ? 0 : specialsInitialSize + 1];
+        final int depth = virtual ? VIRTUAL_INITIAL_SIZE : bindingStackInitialSize;
+        savedSpecialIndices = new int[depth];
+        savedSpecialBindings = new SpecialBinding[depth];
+        bindingPool = new SpecialBinding[depth];
+        topStackSegment = new StackSegment(initialSegmentSize(), null);
+        stack = topStackSegment.stack;
+    }
 
     /** Marks the state of the special bindings,
      * for later rewinding by resetSpecialBindings().
      */
     public final SpecialBindingsMark markSpecialBindings() {
-        return savedSpecials;
+        return SpecialBindingsMark.of(bindingStackDepth);
     }
 
     /** Restores the state of the special bindings to what
      * was captured in the marker 'mark' by a call to markSpecialBindings().
      */
     public final void resetSpecialBindings(SpecialBindingsMark mark) {
-        SpecialBindingsMark c = savedSpecials;
-        while (mark != c) {
-            specials[c.idx] = c.binding;
-            c = c.next;
+        final int depth = (mark == null) ? 0 : mark.depth;
+        if (depth >= bindingStackDepth)
+            return;
+        final int[] indices = savedSpecialIndices;
+        final SpecialBinding[] bindings = savedSpecialBindings;
+        final SpecialBinding[] pool = bindingPool;
+        for (int i = bindingStackDepth; i-- > depth;) {
+            specials[indices[i]] = bindings[i];
+            bindings[i] = null;
+            // don't keep the value alive until the binding is reused
+            pool[i].value = null;
         }
-        savedSpecials = c;
+        bindingStackDepth = depth;
+    }
+
+    /** Returns a copy of the innermost binding of each special bound
+     * in this thread, for bindSpecials() to bind in another thread.
+     */
+    final SpecialBinding[] copySpecialBindings() {
+        SpecialBinding[] copy = new SpecialBinding[bindingStackDepth];
+        final BitSet copied = new BitSet();
+        int n = 0;
+        for (int i = bindingStackDepth; i-- > 0;) {
+            final int idx = savedSpecialIndices[i];
+            // Only the innermost binding, which may be one installed by
+            // installSpecialBinding() rather than one from the pool
+            if (idx != 0 && !copied.get(idx)) {
+                copied.set(idx);
+                copy[n++] = new SpecialBinding(idx, specials[idx].value);
+            }
+        }
+        SpecialBinding[] result = new SpecialBinding[n];
+        System.arraycopy(copy, 0, result, 0, n);
+        return result;
+    }
+
+    /** Binds the specials of 'bindings', as returned by
+     * copySpecialBindings(), to their values; up to the caller to
+     * undo them with resetSpecialBindings().
+     */
+    final void bindSpecials(SpecialBinding[] bindings) {
+        for (SpecialBinding b : bindings)
+            pushSpecialBinding(b.idx, ensureSpecialBinding(b.idx), b.value);
+    }
+
+    /** Makes 'binding' itself the innermost binding of 'name', so that
+     * every thread it is installed in sees and assigns the same value;
+     * undone by resetSpecialBindings() like the bindings of bindSpecial().
+     */
+    final void installSpecialBinding(Symbol name, SpecialBinding binding) {
+        assignSpecialIndex(name);
+        final int idx = binding.idx = name.specialIndex;
+        final SpecialBinding shadowed = ensureSpecialBinding(idx);
+        int depth = bindingStackDepth;
+        if (depth == savedSpecialIndices.length)
+            growBindingStack();
+        savedSpecialIndices[depth] = idx;
+        savedSpecialBindings[depth] = shadowed;
+        // resetSpecialBindings() clears the pooled binding of each depth
+        if (bindingPool[depth] == null)
+            bindingPool[depth] = new SpecialBinding(idx, null);
+        bindingStackDepth = depth + 1;
+        specials[idx] = binding;
     }
 
     /** Clears out all active special bindings including any marks
@@ -413,7 +553,7 @@ public final class LispThread extends LispObject
             // Don't use an atomic access: we'll be swapping values only once.
             if (sym.specialIndex == 0) {
                 Integer next = freeSpecialIndices.poll();
-                if (next == null
+                if (next == null && !virtual
                         && specials.length < lastSpecial.get()
                         && null == System.getProperty("abcl.specials.grow.slowly")) {
                     // free slots are exhausted; in the middle and at the end.
@@ -441,26 +581,28 @@ public final class LispThread extends LispObject
             while (it.hasNext()) {
                 LispThread thread = it.next();
 
-                // clear out the values in the saved specials list
-                SpecialBindingsMark savedSpecial = thread.savedSpecials;
-                while (savedSpecial != null) {
-                    if (savedSpecial.idx == index) {
-                        savedSpecial.idx = 0;
-                        savedSpecial.binding = null;
+                // clear out the values on the binding stack
+                for (int i = thread.bindingStackDepth; i-- > 0;) {
+                    if (thread.savedSpecialIndices[i] == index) {
+                        thread.savedSpecialIndices[i] = 0;
+                        thread.savedSpecialBindings[i] = null;
                     }
-                    savedSpecial = savedSpecial.next;
                 }
 
-                thread.specials[index] = null;
+                if (index < thread.specials.length)
+                    thread.specials[index] = null;
             }
 
             freeSpecialIndices.add(new Integer(index));
         }
     }
 
-    private void growSpecials() {
-        SpecialBinding[] newSpecials
-                = new SpecialBinding[specials.length + specialsDelta];
+    private void growSpecials(int idx) {
+        // Virtual threads grow only as far as needed
+        final int length = virtual
+            ? Math.max(idx + 1, specials.length + (specials.length >> 1))
+            : specials.length + specialsDelta;
+        SpecialBinding[] newSpecials = new SpecialBinding[length];
         System.arraycopy(specials, 0, newSpecials, 0, specials.length);
         specials = newSpecials;
     }
@@ -476,20 +618,65 @@ public final class LispThread extends LispObject
             catch (ArrayIndexOutOfBoundsException e) {
                 assigned = false;
                 binding = null;  // suppresses 'unassigned' error
-                growSpecials();
+                growSpecials(idx);
             }
         } while (! assigned);
         return binding;
     }
 
+    /** Returns the binding of the special at 'idx' without growing the
+     * specials array: there is none beyond its end.
+     */
+    private SpecialBinding specialBinding(int idx) {
+        final SpecialBinding[] s = specials;
+        return idx < s.length ? s[idx] : null;
+    }
+
+    private void growBindingStack() {
+        final int size = savedSpecialIndices.length * 2;
+        int[] newIndices = new int[size];
+        System.arraycopy(savedSpecialIndices, 0, newIndices, 0,
+                         bindingStackDepth);
+        SpecialBinding[] newBindings = new SpecialBinding[size];
+        System.arraycopy(savedSpecialBindings, 0, newBindings, 0,
+                         bindingStackDepth);
+        SpecialBinding[] newPool = new SpecialBinding[size];
+        System.arraycopy(bindingPool, 0, newPool, 0, bindingPool.length);
+        savedSpecialIndices = newIndices;
+        savedSpecialBindings = newBindings;
+        bindingPool = newPool;
+    }
+
+    /** Pushes a new binding of the special at 'idx', which shadows
+     * 'binding', onto the binding stack; allocates only when the stack
+     * hasn't been this deep before.
+     */
+    private SpecialBinding pushSpecialBinding(int idx, SpecialBinding binding,
+                                              LispObject value)
+    {
+        int depth = bindingStackDepth;
+        if (depth == savedSpecialIndices.length)
+            growBindingStack();
+        savedSpecialIndices[depth] = idx;
+        savedSpecialBindings[depth] = binding;
+        SpecialBinding newBinding = bindingPool[depth];
+        if (newBinding == null)
+            newBinding = bindingPool[depth] = new SpecialBinding(idx, value);
+        else {
+            newBinding.idx = idx;
+            newBinding.value = value;
+        }
+        bindingStackDepth = depth + 1;
+        return specials[idx] = newBinding;
+    }
+
     public final SpecialBinding bindSpecial(Symbol name, LispObject value)
     {
         int idx;
 
         assignSpecialIndex(name);
         SpecialBinding binding = ensureSpecialBinding(idx = name.specialIndex);
-        savedSpecials = new SpecialBindingsMark(idx, binding, savedSpecials);
-        return specials[idx] = new SpecialBinding(idx, value);
+        return pushSpecialBinding(idx, binding, value);
     }
 
     public final SpecialBinding bindSpecialToCurrentValue(Symbol name)
@@ -498,11 +685,9 @@ public final class LispThread extends LispObject
 
         assignSpecialIndex(name);
         SpecialBinding binding = ensureSpecialBinding(idx = name.specialIndex);
-        savedSpecials = new SpecialBindingsMark(idx, binding, savedSpecials);
-        return specials[idx]
-            = new SpecialBinding(idx,
-                                 (binding == null) ?
-                                 name.getSymbolValue() : binding.value);
+        return pushSpecialBinding(idx, binding,
+                                  (binding == null) ?
+                                  name.getSymbolValue() : binding.value);
     }
 
     /** Looks up the value of a special binding in the context of the
@@ -518,18 +703,18 @@ public final class LispThread extends LispObject
      */
     public final LispObject lookupSpecial(Symbol name)
     {
-        SpecialBinding binding = ensureSpecialBinding(name.specialIndex);
+        SpecialBinding binding = specialBinding(name.specialIndex);
         return (binding == null) ? null : binding.value;
     }
 
     public final SpecialBinding getSpecialBinding(Symbol name)
     {
-        return ensureSpecialBinding(name.specialIndex);
+        return specialBinding(name.specialIndex);
     }
 
     public final LispObject setSpecialVariable(Symbol name, LispObject value)
     {
-        SpecialBinding binding = ensureSpecialBinding(name.specialIndex);
+        SpecialBinding binding = specialBinding(name.specialIndex);
         if (binding != null)
             return binding.value = value;
 
@@ -540,7 +725,7 @@ public final class LispThread extends LispObject
     public final LispObject pushSpecial(Symbol name, LispObject thing)
 
     {
-        SpecialBinding binding = ensureSpecialBinding(name.specialIndex);
+        SpecialBinding binding = specialBinding(name.specialIndex);
         if (binding != null)
             return binding.value = new Cons(thing, binding.value);
 
@@ -556,7 +741,7 @@ public final class LispThread extends LispObject
     // Returns symbol value or NIL if unbound.
     public final LispObject safeSymbolValue(Symbol name)
     {
-        SpecialBinding binding = ensureSpecialBinding(name.specialIndex);
+        SpecialBinding binding = specialBinding(name.specialIndex);
         if (binding != null)
             return binding.value;
 
@@ -637,8 +822,8 @@ public final class LispThread extends LispObject
     //
     // Stack consists of a list of StackSegments.
     // Top StackSegment is cached in variables stack and stackPtr.
-    private StackSegment topStackSegment = new StackSegment(INITIAL_SEGMENT_SIZE, null);
-    private Object[] stack = topStackSegment.stack;
+    private StackSegment topStackSegment;
+    private Object[] stack;
     private int stackPtr = 0;
     private StackSegment spareStackSegment;
     
@@ -669,6 +854,10 @@ public final class LispThread extends LispObject
     }
 
     private static final int INITIAL_SEGMENT_SIZE = 1 << 10;
+
+    private int initialSegmentSize() {
+        return virtual ? VIRTUAL_INITIAL_SIZE : INITIAL_SEGMENT_SIZE;
+    }
     private static final int SEGMENT_SIZE = (1 << 19) - 4; // 4 MiB page on x86_64
 
     private void grow(int numEntries) {
@@ -781,12 +970,29 @@ public final class LispThread extends LispObject
 
     public void resetStack()
     {
-        topStackSegment = new StackSegment(INITIAL_SEGMENT_SIZE, null);
+        topStackSegment = new StackSegment(initialSegmentSize(), null);
         stack = topStackSegment.stack;
         spareStackSegment = null;
         stackPtr = 0;
     }
 
+    /** Drops whatever the last task run by a pooled thread left behind,
+     * keeping the stack and the specials array for the next task.
+     */
+    final synchronized void resetForReuse()
+    {
+        if (stackPtr != 0 || topStackSegment.next != null)
+            resetStack();
+        clearSpecialBindings();
+        world = null;
+        catchTags = NIL;
+        _values = null;
+        pending = NIL;
+        threadInterrupted = false;
+        destroyed = false;
+        Thread.interrupted();
+    }
+
     @Override
     public LispObject execute(LispObject function)
     {
@@ -1137,9 +1343,17 @@ public final class LispThread extends LispObject
         return new SimpleString(unreadableString(sb.toString()));
     }
 
-    @DocString(name="make-thread", args="function &key name")
+    private static final Symbol VIRTUAL = internKeyword("VIRTUAL");
+
+    @DocString(name="make-thread", args="function &key name virtual",
+    doc="Returns a new thread running FUNCTION, named NAME.\n"
+      + "With VIRTUAL non-NIL, the thread is a virtual thread, which needs\n"
+      + "Java 21 or later.  VIRTUAL defaults to the value of the Java\n"
+      + "property abcl.threads.virtual, where virtual threads are\n"
+      + "available.")
     private static final Primitive MAKE_THREAD =
-        new Primitive("make-thread", PACKAGE_THREADS, true, "function &key name")
+        new Primitive("make-thread", PACKAGE_THREADS, true,
+                      "function &key name virtual")
     {
         @Override
         public LispObject execute(LispObject[] args)
@@ -1148,18 +1362,21 @@ public final class LispThread extends LispObject
             if (length == 0)
                 error(new WrongNumberOfArgumentsException(this, 1, -1));
             LispObject name = NIL;
-            if (length > 1) {
-                if ((length - 1) % 2 != 0)
-                    program_error("Odd number of keyword arguments.");
-                if (length > 3)
-                    error(new WrongNumberOfArgumentsException(this, -1, 2)); // don't count the keyword itself as an argument
-                if (args[1] == Keyword.NAME)
-                    name = args[2].STRING();
+            boolean virtual = virtualByDefault;
+            if ((length - 1) % 2 != 0)
+                program_error("Odd number of keyword arguments.");
+            for (int i = 1; i < length; i += 2) {
+                if (args[i] == Keyword.NAME)
+                    name = args[i + 1].STRING();
+                else if (args[i] == VIRTUAL)
+                    virtual = args[i + 1] != NIL;
                 else
                     program_error("Unrecognized keyword argument "
-                                  + args[1].princToString() + ".");
+                                  + args[i].princToString() + ".");
             }
-            return new LispThread(checkFunction(args[0]), name);
+            if (virtual && OF_VIRTUAL == null)
+                error(new SimpleError("Virtual threads need Java 21 or later."));
+            return new LispThread(checkFunction(args[0]), name, virtual);
         }
     };
 
@@ -1259,6 +1476,18 @@ public final class LispThread extends LispObject
       return (n < Integer.MAX_VALUE ? (int) n : Integer.MAX_VALUE);
     }
 
+    /** Returns the interval of SECONDS in nanoseconds, as taken by
+     * the timed methods of java.util.concurrent.
+     */
+    static final long timeoutNanos(LispObject seconds) {
+      double d
+        = checkDoubleFloat(seconds.multiplyBy(THOUSAND)).getValue() * 1.0e6;
+      if (d < 0) {
+        type_error(seconds, list(Symbol.REAL, Fixnum.ZERO));
+      }
+      return (d < Long.MAX_VALUE ? (long) d : Long.MAX_VALUE);
+    }
+
 
     @DocString(name="sleep", args="seconds",
     doc="Causes the invoking thread to sleep for an interveral expressed in SECONDS.\n"
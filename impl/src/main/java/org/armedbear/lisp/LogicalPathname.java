@@ -269,7 +269,7 @@ public final class LogicalPathname extends Pathname
             if (version instanceof Fixnum)
                 sb.append(Integer.toString(((Fixnum)version).value, base).toUpperCase());
             else if (version instanceof Bignum)
-                sb.append(((Bignum)version).value.toString(base).toUpperCase());
+                sb.append(((Bignum)version).getBigInteger().toString(base).toUpperCase());
         } else if (version == Keyword.WILD) {
             sb.append(".*");
         } else if (version == Keyword.NEWEST) {
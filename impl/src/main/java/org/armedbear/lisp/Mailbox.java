@@ -0,0 +1,325 @@
+/*
+ * Mailbox.java
+ *
+ * Copyright (C) 2026 The Armed Bear Common Lisp Project
+ * $Id$
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ *
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent
+ * modules, and to copy and distribute the resulting executable under
+ * terms of your choice, provided that you also meet, for each linked
+ * independent module, the terms and conditions of the license of that
+ * module.  An independent module is a module which is not derived from
+ * or based on this library.  If you modify this library, you may extend
+ * this exception to your version of the library, but you are not
+ * obligated to do so.  If you do not wish to do so, delete this
+ * exception statement from your version.
+ */
+package org.armedbear.lisp;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.armedbear.lisp.Lisp.*;
+
+/**
+ * A first-in, first-out queue of messages between threads, created by
+ * THREADS:MAKE-MAILBOX.
+ *
+ * Mailboxes are backed by a LinkedBlockingQueue, or by an
+ * ArrayBlockingQueue when they are created with a capacity, in which
+ * case senders block while the mailbox is full.  A thread blocked on a
+ * mailbox runs the functions queued by THREADS:INTERRUPT-THREAD and
+ * then resumes waiting.
+ */
+public final class Mailbox extends LispObject
+{
+    private static final Symbol CAPACITY = internKeyword("CAPACITY");
+
+    private final BlockingQueue<LispObject> queue;
+
+    public Mailbox() {
+        queue = new LinkedBlockingQueue<LispObject>();
+    }
+
+    public Mailbox(int capacity) {
+        queue = new ArrayBlockingQueue<LispObject>(capacity);
+    }
+
+    @Override
+    public LispObject typeOf() {
+        return Symbol.MAILBOX;
+    }
+
+    @Override
+    public LispObject classOf() {
+        return BuiltInClass.MAILBOX;
+    }
+
+    @Override
+    public LispObject typep(LispObject typeSpecifier) {
+        if (typeSpecifier == Symbol.MAILBOX) {
+            return T;
+        }
+        if (typeSpecifier == BuiltInClass.MAILBOX) {
+            return T;
+        }
+        return super.typep(typeSpecifier);
+    }
+
+    @Override
+    public LispObject printObject() {
+        return new SimpleString(unreadableString("MAILBOX"));
+    }
+
+    public void send(LispObject item) {
+        while (true) {
+            try {
+                queue.put(item);
+                return;
+            } catch (InterruptedException e) {
+                LispThread.currentThread().processThreadInterrupts();
+            }
+        }
+    }
+
+    /** Returns false when the mailbox stayed full for `nanos'. */
+    public boolean send(LispObject item, long nanos) {
+        final long deadline = System.nanoTime() + nanos;
+        while (true) {
+            try {
+                return queue.offer(item, nanos, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                LispThread.currentThread().processThreadInterrupts();
+                nanos = deadline - System.nanoTime();
+            }
+        }
+    }
+
+    public LispObject read() {
+        while (true) {
+            try {
+                return queue.take();
+            } catch (InterruptedException e) {
+                LispThread.currentThread().processThreadInterrupts();
+            }
+        }
+    }
+
+    /** Returns null when the mailbox stayed empty for `nanos'. */
+    public LispObject read(long nanos) {
+        final long deadline = System.nanoTime() + nanos;
+        while (true) {
+            try {
+                return queue.poll(nanos, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                LispThread.currentThread().processThreadInterrupts();
+                nanos = deadline - System.nanoTime();
+            }
+        }
+    }
+
+    private static Mailbox checkMailbox(LispObject obj) {
+        if (obj instanceof Mailbox) {
+            return (Mailbox) obj;
+        }
+        return (Mailbox) // Not reached.
+            type_error(obj, Symbol.MAILBOX);
+    }
+
+    private static LispObject readValues(LispObject item) {
+        return LispThread.currentThread().setValues(item == null ? NIL : item,
+                                                    item == null ? NIL : T);
+    }
+
+    private static final Primitive MAKE_MAILBOX = new pf_make_mailbox();
+    @DocString(name="make-mailbox", args="&key capacity",
+    doc="Returns a new mailbox, a first-in, first-out queue of messages.\n"
+      + "When CAPACITY is given, MAILBOX-SEND blocks while the mailbox\n"
+      + "holds CAPACITY messages.")
+    private static final class pf_make_mailbox extends Primitive
+    {
+        pf_make_mailbox() {
+            super("make-mailbox", PACKAGE_THREADS, true, "&key capacity");
+        }
+
+        @Override
+        public LispObject execute() {
+            return new Mailbox();
+        }
+
+        @Override
+        public LispObject execute(LispObject key, LispObject capacity) {
+            if (key != CAPACITY) {
+                return program_error("Unrecognized keyword argument "
+                                     + key.princToString() + ".");
+            }
+            if (capacity == NIL) {
+                return new Mailbox();
+            }
+            if (!(capacity instanceof Fixnum) || ((Fixnum) capacity).value < 1) {
+                return type_error(capacity,
+                                  list(Symbol.INTEGER, Fixnum.ONE,
+                                       Fixnum.getInstance(Integer.MAX_VALUE)));
+            }
+            return new Mailbox(((Fixnum) capacity).value);
+        }
+    };
+
+    private static final Primitive MAILBOX_SEND = new pf_mailbox_send();
+    @DocString(name="mailbox-send", args="mailbox item &optional timeout",
+    doc="Adds ITEM at the end of MAILBOX, waking up a thread waiting\n"
+      + "in MAILBOX-READ.  When MAILBOX is full, waits for room, for at\n"
+      + "most TIMEOUT seconds if given.  Returns T, or NIL on timeout.")
+    private static final class pf_mailbox_send extends Primitive
+    {
+        pf_mailbox_send() {
+            super("mailbox-send", PACKAGE_THREADS, true,
+                  "mailbox item &optional timeout");
+        }
+
+        @Override
+        public LispObject execute(LispObject mailbox, LispObject item) {
+            checkMailbox(mailbox).send(item);
+            return T;
+        }
+
+        @Override
+        public LispObject execute(LispObject mailbox, LispObject item,
+                                  LispObject timeout) {
+            if (timeout == NIL) {
+                return execute(mailbox, item);
+            }
+            Mailbox m = checkMailbox(mailbox);
+            return m.send(item, LispThread.timeoutNanos(timeout)) ? T : NIL;
+        }
+    };
+
+    private static final Primitive TRY_MAILBOX_SEND = new pf_try_mailbox_send();
+    @DocString(name="try-mailbox-send", args="mailbox item",
+    doc="Adds ITEM at the end of MAILBOX unless MAILBOX is full.\n"
+      + "Returns T when ITEM was added, NIL otherwise.")
+    private static final class pf_try_mailbox_send extends Primitive
+    {
+        pf_try_mailbox_send() {
+            super("try-mailbox-send", PACKAGE_THREADS, true, "mailbox item");
+        }
+
+        @Override
+        public LispObject execute(LispObject mailbox, LispObject item) {
+            return checkMailbox(mailbox).queue.offer(item) ? T : NIL;
+        }
+    };
+
+    private static final Primitive MAILBOX_READ = new pf_mailbox_read();
+    @DocString(name="mailbox-read", args="mailbox &optional timeout",
+    doc="Removes and returns the first item of MAILBOX, waiting for one\n"
+      + "to arrive while MAILBOX is empty, for at most TIMEOUT seconds if\n"
+      + "given.  The second value is T, or NIL when the wait timed out.")
+    private static final class pf_mailbox_read extends Primitive
+    {
+        pf_mailbox_read() {
+            super("mailbox-read", PACKAGE_THREADS, true,
+                  "mailbox &optional timeout");
+        }
+
+        @Override
+        public LispObject execute(LispObject mailbox) {
+            return readValues(checkMailbox(mailbox).read());
+        }
+
+        @Override
+        public LispObject execute(LispObject mailbox, LispObject timeout) {
+            if (timeout == NIL) {
+                return execute(mailbox);
+            }
+            Mailbox m = checkMailbox(mailbox);
+            return readValues(m.read(LispThread.timeoutNanos(timeout)));
+        }
+    };
+
+    private static final Primitive TRY_MAILBOX_READ = new pf_try_mailbox_read();
+    @DocString(name="try-mailbox-read", args="mailbox",
+    doc="Removes and returns the first item of MAILBOX without waiting.\n"
+      + "The second value is T, or NIL when MAILBOX was empty.")
+    private static final class pf_try_mailbox_read extends Primitive
+    {
+        pf_try_mailbox_read() {
+            super("try-mailbox-read", PACKAGE_THREADS, true, "mailbox");
+        }
+
+        @Override
+        public LispObject execute(LispObject mailbox) {
+            return readValues(checkMailbox(mailbox).queue.poll());
+        }
+    };
+
+    private static final Primitive MAILBOX_PEEK = new pf_mailbox_peek();
+    @DocString(name="mailbox-peek", args="mailbox",
+    doc="Returns two values. The second returns non-NIL when the mailbox\n"
+      + "is empty. The first is the next item to be read from the mailbox.\n"
+      + "\n"
+      + "Note that due to multi-threading, the first value returned upon\n"
+      + "peek, may be different from the one returned upon next read in the\n"
+      + "calling thread.")
+    private static final class pf_mailbox_peek extends Primitive
+    {
+        pf_mailbox_peek() {
+            super("mailbox-peek", PACKAGE_THREADS, true, "mailbox");
+        }
+
+        @Override
+        public LispObject execute(LispObject mailbox) {
+            LispObject item = checkMailbox(mailbox).queue.peek();
+            return LispThread.currentThread().setValues(item == null ? NIL : item,
+                                                        item == null ? T : NIL);
+        }
+    };
+
+    private static final Primitive MAILBOX_EMPTY_P = new pf_mailbox_empty_p();
+    @DocString(name="mailbox-empty-p", args="mailbox",
+    doc="Returns non-NIL if the mailbox is empty, NIL otherwise.")
+    private static final class pf_mailbox_empty_p extends Primitive
+    {
+        pf_mailbox_empty_p() {
+            super("mailbox-empty-p", PACKAGE_THREADS, true, "mailbox");
+        }
+
+        @Override
+        public LispObject execute(LispObject mailbox) {
+            return checkMailbox(mailbox).queue.isEmpty() ? T : NIL;
+        }
+    };
+
+    private static final Primitive MAILBOX_COUNT = new pf_mailbox_count();
+    @DocString(name="mailbox-count", args="mailbox",
+    doc="Returns the number of items waiting in MAILBOX.")
+    private static final class pf_mailbox_count extends Primitive
+    {
+        pf_mailbox_count() {
+            super("mailbox-count", PACKAGE_THREADS, true, "mailbox");
+        }
+
+        @Override
+        public LispObject execute(LispObject mailbox) {
+            return Fixnum.getInstance(checkMailbox(mailbox).queue.size());
+        }
+    };
+}
@@ -32,11 +32,19 @@
  */
 package org.armedbear.lisp;
 
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
 public final class Main {
 
     public static final long startTimeMillis = System.currentTimeMillis();
 
-    public static void main(final String[] args) {
+    public static void main(String[] argv) {
+        final String[] args = launchWithSharedArchive(argv);
+        if (args == null)
+            return;
         // Run the interpreter in a secondary thread so we can control the stack
         // size.
         Runnable r = new Runnable() {
@@ -53,4 +61,70 @@ public final class Main {
         };
         new Thread(null, r, "interpreter", 4194304L).start();
     }
+
+    // Handles the --cds-archive <FILE> option, which may only be given
+    // before any other argument.  A class data sharing archive has to be
+    // named to the JVM when it starts, so unless FILE is already mapped
+    // this starts a new JVM with the same options and class path which
+    // uses FILE, or, if FILE doesn't exist yet, writes it on exit, and
+    // exits with its status; this returns null then.  Otherwise this
+    // returns the remaining arguments.
+    private static String[] launchWithSharedArchive(String[] args) {
+        if (args.length == 0 || !args[0].equals("--cds-archive"))
+            return args;
+        if (args.length < 2) {
+            System.err.println("No argument supplied to --cds-archive");
+            System.exit(1);
+        }
+        String archive = new File(args[1]).getAbsolutePath();
+        String[] rest = new String[args.length - 2];
+        System.arraycopy(args, 2, rest, 0, rest.length);
+
+        List<String> jvmArgs
+            = ManagementFactory.getRuntimeMXBean().getInputArguments();
+        for (String arg : jvmArgs)
+            if (arg.startsWith("-XX:SharedArchiveFile=")
+                || arg.startsWith("-XX:ArchiveClassesAtExit="))
+                return rest;
+        boolean exists = new File(archive).isFile();
+        // Dynamic archives need JDK 13, application classes in an
+        // archive JDK 10.
+        int version = javaVersion();
+        if (version < (exists ? 10 : 13)) {
+            System.err.println("Ignoring --cds-archive: not supported by Java "
+                               + System.getProperty("java.version") + ".");
+            return rest;
+        }
+
+        List<String> command = new ArrayList<String>();
+        command.add(System.getProperty("java.home") + File.separator
+                    + "bin" + File.separator + "java");
+        command.addAll(jvmArgs);
+        command.add(exists
+                    ? "-XX:SharedArchiveFile=" + archive
+                    : "-XX:ArchiveClassesAtExit=" + archive);
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(Main.class.getName());
+        for (String arg : rest)
+            command.add(arg);
+        try {
+            Process process = new ProcessBuilder(command).inheritIO().start();
+            System.exit(process.waitFor());
+        } catch (Exception e) {
+            System.err.println("Failed to start Java with --cds-archive: " + e);
+            return rest;
+        }
+        return null;
+    }
+
+    private static int javaVersion() {
+        String version = System.getProperty("java.specification.version");
+        try {
+            return Integer.parseInt(version.startsWith("1.")
+                                    ? version.substring(2) : version);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
 }
@@ -0,0 +1,291 @@
+/*
+ * MappedFileStream.java
+ *
+ * Copyright (C) 2026 The Armed Bear Common Lisp Project
+ * $Id$
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ *
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent
+ * modules, and to copy and distribute the resulting executable under
+ * terms of your choice, provided that you also meet, for each linked
+ * independent module, the terms and conditions of the license of that
+ * module.  An independent module is a module which is not derived from
+ * or based on this library.  If you modify this library, you may extend
+ * this exception to your version of the library, but you are not
+ * obligated to do so.  If you do not wish to do so, delete this
+ * exception statement from your version.
+ */
+package org.armedbear.lisp;
+
+import static org.armedbear.lisp.Lisp.*;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A binary input stream reading a file through memory mappings,
+ * created by (OPEN ... :MAPPED T).
+ *
+ * READ-BYTE, READ-SEQUENCE into (UNSIGNED-BYTE 8) vectors and
+ * FILE-POSITION work directly on the mapped buffers.  Since a buffer
+ * can't hold more than 2GB, larger files are mapped in segments.
+ */
+public final class MappedFileStream extends Stream
+{
+	private static final int SEGMENT_SIZE = 1 << 30;
+	private static final ByteBuffer[] CLOSED = { ByteBuffer.allocate(0) };
+
+	// sun.misc.Unsafe and its invokeCleaner(ByteBuffer), which unmaps a
+	// buffer right away on Java 9 and later; null if not available, in
+	// which case a buffer is unmapped once it is garbage collected.
+	private static final Object UNSAFE;
+	private static final Method INVOKE_CLEANER;
+	static
+	{
+		Object unsafe = null;
+		Method invokeCleaner = null;
+		try {
+			Class<?> c = Class.forName("sun.misc.Unsafe");
+			invokeCleaner = c.getMethod("invokeCleaner", ByteBuffer.class);
+			Field f = c.getDeclaredField("theUnsafe");
+			f.setAccessible(true);
+			unsafe = f.get(null);
+		}
+		catch (Exception e) {
+			invokeCleaner = null;
+		}
+		UNSAFE = unsafe;
+		INVOKE_CLEANER = invokeCleaner;
+	}
+
+	private final Pathname pathname;
+	private final int bytesPerUnit;
+	private final long length;
+
+	private ByteBuffer[] segments;
+	private int segment;
+	// segments[segment], from which the next byte is read
+	private ByteBuffer buffer;
+
+	public MappedFileStream(Pathname pathname, String namestring,
+							LispObject elementType)
+		throws IOException
+	{
+		super(Symbol.FILE_STREAM);
+		RandomAccessFile raf = new RandomAccessFile(namestring, "r");
+		try {
+			// The mappings stay valid once the file is closed
+			FileChannel channel = raf.getChannel();
+			length = channel.size();
+			int count = (int) ((length + SEGMENT_SIZE - 1) / SEGMENT_SIZE);
+			segments = new ByteBuffer[Math.max(count, 1)];
+			for (int i = 0; i < segments.length; i++) {
+				long start = (long) i * SEGMENT_SIZE;
+				segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start,
+										  Math.min(SEGMENT_SIZE, length - start));
+			}
+		} finally {
+			raf.close();
+		}
+		buffer = segments[0];
+
+		this.pathname = pathname;
+		this.elementType = elementType;
+		isInputStream = true;
+		isBinaryStream = true;
+		bytesPerUnit = Fixnum.getValue(elementType.cadr()) / 8;
+	}
+
+	@Override
+	public LispObject typeOf()
+	{
+		return Symbol.FILE_STREAM;
+	}
+
+	@Override
+	public LispObject classOf()
+	{
+		return BuiltInClass.FILE_STREAM;
+	}
+
+	@Override
+	public LispObject typep(LispObject typeSpecifier)
+	{
+		if (typeSpecifier == Symbol.FILE_STREAM)
+			return T;
+		if (typeSpecifier == BuiltInClass.FILE_STREAM)
+			return T;
+		return super.typep(typeSpecifier);
+	}
+
+	public Pathname getPathname()
+	{
+		return pathname;
+	}
+
+	@Override
+	public LispObject fileLength()
+	{
+		return number(length / bytesPerUnit);
+	}
+
+	// Moves to the next segment, returning false at end of file.
+	private boolean nextSegment()
+	{
+		if (segment + 1 >= segments.length)
+			return false;
+		buffer = segments[++segment];
+		buffer.position(0);
+		return true;
+	}
+
+	@Override
+	public int _readByte()
+	{
+		if (!buffer.hasRemaining() && !nextSegment())
+			return -1;
+		return buffer.get() & 0xff;
+	}
+
+	@Override
+	public int _readBytes(byte[] bytes, int start, int end)
+	{
+		while (start < end) {
+			if (!buffer.hasRemaining() && !nextSegment())
+				break;
+			int n = Math.min(end - start, buffer.remaining());
+			buffer.get(bytes, start, n);
+			start += n;
+		}
+		return start;
+	}
+
+	@Override
+	protected boolean _byteReady()
+	{
+		return buffer.hasRemaining() || segment + 1 < segments.length;
+	}
+
+	@Override
+	public void _clearInput()
+	{
+		setPosition(length);
+	}
+
+	@Override
+	protected long _getFilePosition()
+	{
+		return ((long) segment * SEGMENT_SIZE + buffer.position()) / bytesPerUnit;
+	}
+
+	@Override
+	protected boolean _setFilePosition(LispObject arg)
+	{
+		long pos;
+		if (arg == Keyword.START)
+			pos = 0;
+		else if (arg == Keyword.END)
+			pos = length;
+		else
+			pos = arg.longValue() * bytesPerUnit;
+		if (pos < 0 || pos > length)
+			return false;
+		setPosition(pos);
+		return true;
+	}
+
+	private void setPosition(long pos)
+	{
+		// The end of a file filling its last segment is the limit of
+		// that segment.
+		int i = (int) Math.min(pos / SEGMENT_SIZE, segments.length - 1);
+		segment = i;
+		buffer = segments[i];
+		buffer.position((int) (pos - (long) i * SEGMENT_SIZE));
+	}
+
+	@Override
+	public void _close()
+	{
+		ByteBuffer[] mapped = segments;
+		segments = CLOSED;
+		segment = 0;
+		buffer = CLOSED[0];
+		setOpen(false);
+		if (INVOKE_CLEANER != null && mapped != CLOSED) {
+			for (ByteBuffer b : mapped) {
+				try {
+					INVOKE_CLEANER.invoke(UNSAFE, b);
+				}
+				catch (Exception e) {
+					// Left to the garbage collector
+				}
+			}
+		}
+	}
+
+	@Override
+	public LispObject printObject()
+	{
+		StringBuilder sb = new StringBuilder("FILE-STREAM ");
+		sb.append(pathname.printObject().getStringValue());
+		return new SimpleString(unreadableString(sb.toString()));
+	}
+
+	// ### make-mapped-file-stream pathname namestring element-type => stream
+	private static final Primitive MAKE_MAPPED_FILE_STREAM =
+		new Primitive("make-mapped-file-stream", PACKAGE_SYS, true,
+					  "pathname namestring element-type")
+	{
+		@Override
+		public LispObject execute(LispObject first, LispObject second,
+								  LispObject third)
+		{
+			final Pathname pathname;
+			if (first instanceof Pathname) {
+				pathname = (Pathname) first;
+			}
+			else {
+				return type_error(first, Symbol.PATHNAME);
+			}
+			final LispObject namestring = checkString(second);
+			LispObject elementType = third;
+
+			if (pathname.isJar() || pathname.isURL())
+				return error(new FileError("Only local files can be mapped.", pathname));
+			if (elementType == Symbol.CHARACTER || elementType == Symbol.BASE_CHAR)
+				return error(new FileError("Only binary streams can be mapped.", pathname));
+			try {
+				return new MappedFileStream(pathname, namestring.getStringValue(),
+											elementType);
+			}
+			catch (FileNotFoundException e) {
+				return error(new FileError("Unable to open the file to be mapped.",
+										   pathname));
+			}
+			catch (IOException e) {
+				return error(new StreamError(null, e));
+			}
+		}
+	};
+}
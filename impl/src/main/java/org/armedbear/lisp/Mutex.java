@@ -0,0 +1,287 @@
+/*
+ * Mutex.java
+ *
+ * Copyright (C) 2026 The Armed Bear Common Lisp Project
+ * $Id$
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ *
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent
+ * modules, and to copy and distribute the resulting executable under
+ * terms of your choice, provided that you also meet, for each linked
+ * independent module, the terms and conditions of the license of that
+ * module.  An independent module is a module which is not derived from
+ * or based on this library.  If you modify this library, you may extend
+ * this exception to your version of the library, but you are not
+ * obligated to do so.  If you do not wish to do so, delete this
+ * exception statement from your version.
+ */
+package org.armedbear.lisp;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.armedbear.lisp.Lisp.*;
+
+/**
+ * A lock created by THREADS:MAKE-MUTEX, backed by a ReentrantLock.
+ *
+ * The thread holding a mutex may acquire it again, and has to release
+ * it as many times.  Each mutex has a condition on which its holder can
+ * wait with THREADS:MUTEX-WAIT until another thread calls
+ * THREADS:MUTEX-NOTIFY.
+ */
+public final class Mutex extends LispObject
+{
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition condition = lock.newCondition();
+
+    @Override
+    public LispObject typeOf() {
+        return Symbol.MUTEX;
+    }
+
+    @Override
+    public LispObject classOf() {
+        return BuiltInClass.MUTEX;
+    }
+
+    @Override
+    public LispObject typep(LispObject typeSpecifier) {
+        if (typeSpecifier == Symbol.MUTEX) {
+            return T;
+        }
+        if (typeSpecifier == BuiltInClass.MUTEX) {
+            return T;
+        }
+        return super.typep(typeSpecifier);
+    }
+
+    @Override
+    public LispObject printObject() {
+        return new SimpleString(unreadableString(lock.isLocked()
+                                                 ? "MUTEX (locked)"
+                                                 : "MUTEX"));
+    }
+
+    public void acquire() {
+        while (true) {
+            try {
+                lock.lockInterruptibly();
+                return;
+            } catch (InterruptedException e) {
+                LispThread.currentThread().processThreadInterrupts();
+            }
+        }
+    }
+
+    /** Returns false when the mutex stayed locked for `nanos'. */
+    public boolean acquire(long nanos) {
+        final long deadline = System.nanoTime() + nanos;
+        while (true) {
+            try {
+                return lock.tryLock(nanos, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                LispThread.currentThread().processThreadInterrupts();
+                nanos = deadline - System.nanoTime();
+            }
+        }
+    }
+
+    public void release() {
+        try {
+            lock.unlock();
+        } catch (IllegalMonitorStateException e) {
+            notHeld(this);
+        }
+    }
+
+    private static LispObject notHeld(LispObject mutex) {
+        return error(new IllegalMonitorState("The current thread doesn't hold "
+                                             + mutex.printObject()
+                                                    .getStringValue() + "."));
+    }
+
+    private static Mutex checkMutex(LispObject obj) {
+        if (obj instanceof Mutex) {
+            return (Mutex) obj;
+        }
+        return (Mutex) // Not reached.
+            type_error(obj, Symbol.MUTEX);
+    }
+
+    private static final Primitive MAKE_MUTEX = new pf_make_mutex();
+    @DocString(name="make-mutex", args="",
+    doc="Returns a new mutex.")
+    private static final class pf_make_mutex extends Primitive
+    {
+        pf_make_mutex() {
+            super("make-mutex", PACKAGE_THREADS, true, "");
+        }
+
+        @Override
+        public LispObject execute() {
+            return new Mutex();
+        }
+    };
+
+    private static final Primitive GET_MUTEX = new pf_get_mutex();
+    @DocString(name="get-mutex", args="mutex &optional timeout",
+    doc="Acquires a lock on the `mutex', waiting for at most TIMEOUT\n"
+      + "seconds if given.  Returns T, or NIL when the wait timed out.")
+    private static final class pf_get_mutex extends Primitive
+    {
+        pf_get_mutex() {
+            super("get-mutex", PACKAGE_THREADS, true, "mutex &optional timeout");
+        }
+
+        @Override
+        public LispObject execute(LispObject mutex) {
+            checkMutex(mutex).acquire();
+            return T;
+        }
+
+        @Override
+        public LispObject execute(LispObject mutex, LispObject timeout) {
+            if (timeout == NIL) {
+                return execute(mutex);
+            }
+            Mutex m = checkMutex(mutex);
+            return m.acquire(LispThread.timeoutNanos(timeout)) ? T : NIL;
+        }
+    };
+
+    private static final Primitive TRY_GET_MUTEX = new pf_try_get_mutex();
+    @DocString(name="try-get-mutex", args="mutex",
+    doc="Acquires a lock on the `mutex' if no other thread holds it.\n"
+      + "Returns T when the lock was acquired, NIL otherwise.")
+    private static final class pf_try_get_mutex extends Primitive
+    {
+        pf_try_get_mutex() {
+            super("try-get-mutex", PACKAGE_THREADS, true, "mutex");
+        }
+
+        @Override
+        public LispObject execute(LispObject mutex) {
+            return checkMutex(mutex).lock.tryLock() ? T : NIL;
+        }
+    };
+
+    private static final Primitive RELEASE_MUTEX = new pf_release_mutex();
+    @DocString(name="release-mutex", args="mutex",
+    doc="Releases a lock on the `mutex', which the current thread must hold.\n"
+      + "Signals a PROGRAM-ERROR otherwise.")
+    private static final class pf_release_mutex extends Primitive
+    {
+        pf_release_mutex() {
+            super("release-mutex", PACKAGE_THREADS, true, "mutex");
+        }
+
+        @Override
+        public LispObject execute(LispObject mutex) {
+            checkMutex(mutex).release();
+            return NIL;
+        }
+    };
+
+    private static final Primitive MUTEX_WAIT = new pf_mutex_wait();
+    @DocString(name="mutex-wait", args="mutex &optional timeout",
+    doc="Releases the `mutex', which the current thread must hold, and\n"
+      + "waits until MUTEX-NOTIFY or MUTEX-NOTIFY-ALL is called on it, for\n"
+      + "at most TIMEOUT seconds if given.  The mutex is acquired again\n"
+      + "before returning.  Returns NIL when the wait timed out, T\n"
+      + "otherwise; as with OBJECT-WAIT, the thread may also wake up\n"
+      + "without being notified.")
+    private static final class pf_mutex_wait extends Primitive
+    {
+        pf_mutex_wait() {
+            super("mutex-wait", PACKAGE_THREADS, true, "mutex &optional timeout");
+        }
+
+        @Override
+        public LispObject execute(LispObject mutex) {
+            try {
+                checkMutex(mutex).condition.await();
+            } catch (InterruptedException e) {
+                LispThread.currentThread().processThreadInterrupts();
+            } catch (IllegalMonitorStateException e) {
+                return notHeld(mutex);
+            }
+            return T;
+        }
+
+        @Override
+        public LispObject execute(LispObject mutex, LispObject timeout) {
+            if (timeout == NIL) {
+                return execute(mutex);
+            }
+            Mutex m = checkMutex(mutex);
+            long nanos = LispThread.timeoutNanos(timeout);
+            try {
+                return m.condition.awaitNanos(nanos) > 0 ? T : NIL;
+            } catch (InterruptedException e) {
+                LispThread.currentThread().processThreadInterrupts();
+            } catch (IllegalMonitorStateException e) {
+                return notHeld(mutex);
+            }
+            return T;
+        }
+    };
+
+    private static final Primitive MUTEX_NOTIFY = new pf_mutex_notify();
+    @DocString(name="mutex-notify", args="mutex",
+    doc="Wakes up one of the threads waiting in MUTEX-WAIT on the `mutex',\n"
+      + "which the current thread must hold.")
+    private static final class pf_mutex_notify extends Primitive
+    {
+        pf_mutex_notify() {
+            super("mutex-notify", PACKAGE_THREADS, true, "mutex");
+        }
+
+        @Override
+        public LispObject execute(LispObject mutex) {
+            try {
+                checkMutex(mutex).condition.signal();
+            } catch (IllegalMonitorStateException e) {
+                return notHeld(mutex);
+            }
+            return NIL;
+        }
+    };
+
+    private static final Primitive MUTEX_NOTIFY_ALL = new pf_mutex_notify_all();
+    @DocString(name="mutex-notify-all", args="mutex",
+    doc="Wakes up all the threads waiting in MUTEX-WAIT on the `mutex',\n"
+      + "which the current thread must hold.")
+    private static final class pf_mutex_notify_all extends Primitive
+    {
+        pf_mutex_notify_all() {
+            super("mutex-notify-all", PACKAGE_THREADS, true, "mutex");
+        }
+
+        @Override
+        public LispObject execute(LispObject mutex) {
+            try {
+                checkMutex(mutex).condition.signalAll();
+            } catch (IllegalMonitorStateException e) {
+                return notHeld(mutex);
+            }
+            return NIL;
+        }
+    };
+}
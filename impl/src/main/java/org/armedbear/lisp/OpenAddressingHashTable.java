@@ -0,0 +1,411 @@
+/*
+ * OpenAddressingHashTable.java
+ *
+ * Copyright (C) 2026 The Armed Bear Common Lisp Project
+ * $Id$
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ *
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent
+ * modules, and to copy and distribute the resulting executable under
+ * terms of your choice, provided that you also meet, for each linked
+ * independent module, the terms and conditions of the license of that
+ * module.  An independent module is a module which is not derived from
+ * or based on this library.  If you modify this library, you may extend
+ * this exception to your version of the library, but you are not
+ * obligated to do so.  If you do not wish to do so, delete this
+ * exception statement from your version.
+ */
+package org.armedbear.lisp;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.armedbear.lisp.Lisp.*;
+
+/**
+ * An EQ or EQL hash table without entry objects, created by
+ * (MAKE-HASH-TABLE ... :OPEN-ADDRESSING T).
+ *
+ * Keys and values are stored in parallel arrays, using linear probing.
+ * In an EQL table, as long as all keys are fixnums, the keys are
+ * stored in an int[] array; the first other key switches the table to
+ * a LispObject[] array of keys.  EQ tables always use the latter, as
+ * fixnums outside the Fixnum cache are not EQ to a copy.
+ *
+ * As in HashTable, readers don't lock.  For that reason a slot is never
+ * reused once a key has been stored in it: removed entries leave a
+ * tombstone behind, which is dropped the next time the table is
+ * rehashed into new arrays.  A reader may see the value of a new entry
+ * before its key; such entries are looked up again under the lock.
+ */
+public class OpenAddressingHashTable extends HashTable
+{
+    // Marks removed entries: in the values of fixnum keys, in the keys
+    // otherwise.
+    private static final LispObject DELETED = new LispObject();
+
+    private volatile Storage storage;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    protected OpenAddressingHashTable(Comparator c, int size,
+                                      LispObject rehashSize,
+                                      LispObject rehashThreshold) {
+        super(c, 0, rehashSize, rehashThreshold);
+        storage = c instanceof EqlComparator
+            ? new FixnumStorage(capacityFor(size))
+            : new ObjectStorage(capacityFor(size));
+        threshold = (int) (storage.capacity() * loadFactor);
+    }
+
+    public static HashTable newEqHashTable(int size, LispObject rehashSize,
+            LispObject rehashThreshold) {
+        return new OpenAddressingHashTable(new Comparator(), size,
+                                           rehashSize, rehashThreshold);
+    }
+
+    public static HashTable newEqlHashTable(int size, LispObject rehashSize,
+            LispObject rehashThreshold) {
+        return new OpenAddressingHashTable(new EqlComparator(), size,
+                                           rehashSize, rehashThreshold);
+    }
+
+    private static int capacityFor(int size) {
+        return calculateInitialCapacity(Math.max(16, (int) (size / loadFactor) + 1));
+    }
+
+    // Spreads the bits of the hash over the low bits used for probing.
+    private static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        return h ^ (h >>> 16);
+    }
+
+    @Override
+    public int getSize() {
+        return storage.capacity();
+    }
+
+    @Override
+    public void clear() {
+        lock.lock();
+        try {
+            storage = storage.emptyCopy(storage.capacity());
+            count = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public LispObject get(LispObject key) {
+        if (count == 0) {
+            return null;
+        }
+        LispObject value = storage.get(key);
+        if (value != DELETED) {
+            return value;
+        }
+        // The key was seen before its value was stored
+        lock.lock();
+        try {
+            value = storage.get(key);
+            return value == DELETED ? null : value;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void put(LispObject key, LispObject value) {
+        lock.lock();
+        try {
+            Storage s = storage;
+            if (s instanceof FixnumStorage && !(key instanceof Fixnum)) {
+                s = storage = s.copyTo(new ObjectStorage(s.capacity()));
+            }
+            if (s.put(key, value)) {
+                if (s.used > threshold) {
+                    // Sized for the live entries only, which doubles the
+                    // capacity unless many tombstones are dropped
+                    storage = s.copyTo(s.emptyCopy(capacityFor(count + 1)));
+                    threshold = (int) (storage.capacity() * loadFactor);
+                }
+                // Written last, see get()
+                count = count + 1;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public LispObject remove(LispObject key) {
+        lock.lock();
+        try {
+            LispObject value = storage.remove(key);
+            if (value != null) {
+                count = count - 1;
+            }
+            return value;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    protected void rehash() {
+        lock.lock();
+        try {
+            storage = storage.copyTo(storage.emptyCopy(storage.capacity() * 2));
+            threshold = (int) (storage.capacity() * loadFactor);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public LispObject getEntries() {
+        final LispObject[] list = { NIL };
+        storage.forEach(new EntryVisitor() {
+                void visit(LispObject key, LispObject value) {
+                    list[0] = new Cons(new Cons(key, value), list[0]);
+                }
+            });
+        return list[0];
+    }
+
+    @Override
+    public LispObject getParts() {
+        final LispObject[] parts = { NIL };
+        storage.forEach(new EntryVisitor() {
+                void visit(LispObject key, LispObject value) {
+                    parts[0] = parts[0].push(new Cons("KEY", key));
+                    parts[0] = parts[0].push(new Cons("VALUE", value));
+                }
+            });
+        return parts[0].nreverse();
+    }
+
+    @Override
+    public LispObject MAPHASH(final LispObject function) {
+        // No lock, as in HashTable
+        storage.forEach(new EntryVisitor() {
+                void visit(LispObject key, LispObject value) {
+                    function.execute(key, value);
+                }
+            });
+        return NIL;
+    }
+
+    private static abstract class EntryVisitor {
+        abstract void visit(LispObject key, LispObject value);
+    }
+
+    private abstract class Storage {
+
+        final LispObject[] values;
+        // The number of slots holding an entry or a tombstone.
+        int used;
+
+        Storage(int capacity) {
+            values = new LispObject[capacity];
+        }
+
+        final int capacity() {
+            return values.length;
+        }
+
+        /** Returns the value of `key', null when there is none, or
+         * DELETED when its entry isn't fully visible yet.
+         */
+        abstract LispObject get(LispObject key);
+
+        /** Returns true when a new entry was added. */
+        abstract boolean put(LispObject key, LispObject value);
+
+        abstract LispObject remove(LispObject key);
+
+        abstract Storage emptyCopy(int capacity);
+
+        abstract void forEach(EntryVisitor visitor);
+
+        final Storage copyTo(final Storage target) {
+            forEach(new EntryVisitor() {
+                    void visit(LispObject key, LispObject value) {
+                        target.put(key, value);
+                    }
+                });
+            return target;
+        }
+    }
+
+    private final class FixnumStorage extends Storage {
+
+        // A slot is empty while its value is null.
+        final int[] keys;
+
+        FixnumStorage(int capacity) {
+            super(capacity);
+            keys = new int[capacity];
+        }
+
+        LispObject get(LispObject key) {
+            if (!(key instanceof Fixnum)) {
+                return null;
+            }
+            final int k = ((Fixnum) key).value;
+            final int mask = values.length - 1;
+            for (int i = mix(k) & mask; ; i = (i + 1) & mask) {
+                LispObject value = values[i];
+                if (value == null) {
+                    return null;
+                }
+                if (keys[i] == k && value != DELETED) {
+                    // Without the lock, a key of 0 may be one which
+                    // isn't visible yet
+                    if (k == 0 && !lock.isHeldByCurrentThread()) {
+                        return DELETED;
+                    }
+                    return value;
+                }
+            }
+        }
+
+        boolean put(LispObject key, LispObject value) {
+            final int k = ((Fixnum) key).value;
+            final int mask = values.length - 1;
+            for (int i = mix(k) & mask; ; i = (i + 1) & mask) {
+                LispObject v = values[i];
+                if (v == null) {
+                    keys[i] = k;
+                    values[i] = value;
+                    used++;
+                    return true;
+                }
+                if (keys[i] == k && v != DELETED) {
+                    values[i] = value;
+                    return false;
+                }
+            }
+        }
+
+        LispObject remove(LispObject key) {
+            if (!(key instanceof Fixnum)) {
+                return null;
+            }
+            final int k = ((Fixnum) key).value;
+            final int mask = values.length - 1;
+            for (int i = mix(k) & mask; ; i = (i + 1) & mask) {
+                LispObject value = values[i];
+                if (value == null) {
+                    return null;
+                }
+                if (keys[i] == k && value != DELETED) {
+                    values[i] = DELETED;
+                    return value;
+                }
+            }
+        }
+
+        Storage emptyCopy(int capacity) {
+            return new FixnumStorage(capacity);
+        }
+
+        void forEach(EntryVisitor visitor) {
+            for (int i = values.length; i-- > 0;) {
+                LispObject value = values[i];
+                if (value != null && value != DELETED) {
+                    visitor.visit(Fixnum.getInstance(keys[i]), value);
+                }
+            }
+        }
+    }
+
+    private final class ObjectStorage extends Storage {
+
+        // A slot is empty while its key is null.
+        final LispObject[] keys;
+
+        ObjectStorage(int capacity) {
+            super(capacity);
+            keys = new LispObject[capacity];
+        }
+
+        private int indexOf(LispObject key) {
+            final int mask = keys.length - 1;
+            for (int i = mix(comparator.hash(key)) & mask; ;
+                 i = (i + 1) & mask) {
+                LispObject k = keys[i];
+                if (k == null) {
+                    return ~i;
+                }
+                if (k == key || (k != DELETED && comparator.keysEqual(key, k))) {
+                    return i;
+                }
+            }
+        }
+
+        LispObject get(LispObject key) {
+            int i = indexOf(key);
+            if (i < 0) {
+                return null;
+            }
+            LispObject value = values[i];
+            return value == null ? DELETED : value;
+        }
+
+        boolean put(LispObject key, LispObject value) {
+            int i = indexOf(key);
+            if (i >= 0) {
+                values[i] = value;
+                return false;
+            }
+            i = ~i;
+            keys[i] = key;
+            values[i] = value;
+            used++;
+            return true;
+        }
+
+        LispObject remove(LispObject key) {
+            int i = indexOf(key);
+            if (i < 0) {
+                return null;
+            }
+            LispObject value = values[i];
+            values[i] = null;
+            keys[i] = DELETED;
+            return value;
+        }
+
+        Storage emptyCopy(int capacity) {
+            return new ObjectStorage(capacity);
+        }
+
+        void forEach(EntryVisitor visitor) {
+            for (int i = keys.length; i-- > 0;) {
+                LispObject key = keys[i];
+                LispObject value = values[i];
+                if (key != null && key != DELETED && value != null) {
+                    visitor.visit(key, value);
+                }
+            }
+        }
+    }
+}
@@ -143,7 +143,7 @@ public final class Package extends LispObject implements java.io.Serializable
         propertyList = obj;
     }
 
-    public final List getNicknames()
+    public final List<String> getNicknames()
     {
         return nicknames;
     }
@@ -162,6 +162,11 @@ public final class Package extends LispObject implements java.io.Serializable
 
     public final synchronized boolean delete()
     {
+        if (World.isShared(this)) {
+            error(new PackageError("The package " + name
+                                   + " is shared by all worlds."));
+            return false;
+        }
         if (name != null) {
             if(useList instanceof Cons) {
                 LispObject usedPackages = useList;
@@ -202,6 +207,11 @@ public final class Package extends LispObject implements java.io.Serializable
     public final synchronized void rename(String newName, LispObject newNicks)
 
     {
+        if (World.isShared(this)) {
+            error(new PackageError("The package " + name
+                                   + " is shared by all worlds."));
+            return;
+        }
         ArrayList<String> arrayList = null;
         while (newNicks != NIL) {
             if (arrayList == null)
@@ -52,6 +52,26 @@ public class Packages
 	protected void setData(Map<String,Package> data) {
 		map = data;
 	}
+
+	/** Whether a World has been created: until then, the registry is
+	    always the global one and lookups don't need the current thread.
+	*/
+	static volatile boolean worlds = false;
+
+	/** The registry of the world of the current thread, or the global
+	    one outside of any world.
+	*/
+	private static Map<String,Package> registry() {
+		if (!worlds)
+			return map;
+		final World world = LispThread.currentThread().world;
+		return world == null ? map : world.packages;
+	}
+
+	/** The global registry, which every world starts from. */
+	static Map<String,Package> globalRegistry() {
+		return map;
+	}
 	
 	public static final synchronized Package createPackage(String name)
 	{
@@ -60,6 +80,7 @@ public class Packages
 
 	public static final synchronized Package createPackage(String name, int size)
 	{
+		final Map<String,Package> map = registry();
 		Package pkg = (Package) map.get(name);
 		if (pkg == null)
 			{
@@ -75,6 +96,7 @@ public class Packages
 	public static final synchronized void addPackage(Package pkg)
 
 	{
+		final Map<String,Package> map = registry();
 		final String name = pkg.getName();
 		if (map.get(name) != null)
 			{
@@ -106,6 +128,7 @@ public class Packages
 	
 	public static Package findOrCreate(String name) 
 	{
+		final Map<String,Package> map = registry();
 		if (map.containsKey(name)) {
 			return map.get(name);
 		}
@@ -119,12 +142,14 @@ public class Packages
 	// nicknames.
 	public static final synchronized Package findPackageGlobally(String name)
 	{
+		final Map<String,Package> map = registry();
 		return (Package) map.get(name);
 	}
 
 	public static final synchronized Package makePackage(String name)
 
 	{
+		final Map<String,Package> map = registry();
 		if (map.get(name) != null)
 			{
 				error(new LispError("A package named " + name + " already exists."));
@@ -139,6 +164,7 @@ public class Packages
 	public static final synchronized void addNickname(Package pkg, String nickname)
 
 	{
+		final Map<String,Package> map = registry();
 		Object obj = map.get(nickname);
 		if (obj != null && obj != pkg)
 			{
@@ -151,6 +177,7 @@ public class Packages
 	// Removes name and nicknames from map, removes pkg from packages.
 	public static final synchronized boolean deletePackage(Package pkg)
 	{
+		final Map<String,Package> map = registry();
 		String name = pkg.getName();
 		if (name != null)
 			{
@@ -171,6 +198,7 @@ public class Packages
 
 	public static final synchronized LispObject listAllPackages()
 	{
+		final Map<String,Package> map = registry();
 		LispObject result = NIL;
 		for (Package pkg : map.values()) {
 			result = new Cons(pkg, result);
@@ -180,6 +208,7 @@ public class Packages
 
 	public static final synchronized Package[] getAllPackages()
 	{
+		final Map<String,Package> map = registry();
 		Package[] array = new Package[map.size()];
 		map.values().toArray(array);
 		return array;
@@ -187,6 +216,7 @@ public class Packages
 
 	public static final synchronized LispObject getPackagesNicknamingPackage(Package thePackage)
 	{
+		final Map<String,Package> map = registry();
 		LispObject result = NIL;
 		for (Package pkg : map.values()) {
 			for (Package nicknamedPackage : pkg.getLocallyNicknamedPackages()) {
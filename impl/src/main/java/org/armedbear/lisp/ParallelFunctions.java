@@ -0,0 +1,471 @@
+/*
+ * ParallelFunctions.java
+ *
+ * Copyright (C) 2026 The Armed Bear Common Lisp Project
+ * $Id$
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ *
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent
+ * modules, and to copy and distribute the resulting executable under
+ * terms of your choice, provided that you also meet, for each linked
+ * independent module, the terms and conditions of the license of that
+ * module.  An independent module is a module which is not derived from
+ * or based on this library.  If you modify this library, you may extend
+ * this exception to your version of the library, but you are not
+ * obligated to do so.  If you do not wish to do so, delete this
+ * exception statement from your version.
+ */
+package org.armedbear.lisp;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+import static org.armedbear.lisp.Lisp.*;
+
+/**
+ * The primitives behind SYS:PMAP, SYS:PREDUCE and SYS:PSORT, defined
+ * in parallel.lisp.
+ *
+ * The work is split over a fork-join pool whose workers each have a
+ * LispThread from the start.  A function called on a worker sees the
+ * special bindings of the calling thread at the time of the call, but
+ * its own bindings and assignments of them stay on the worker.  The
+ * handlers and restarts of the caller are not visible: an error
+ * signalled on a worker abandons the computation and is signalled
+ * again in the calling thread.  The function runs in the world of the
+ * caller, if any.
+ */
+public final class ParallelFunctions
+{
+    private ParallelFunctions() {}
+
+    private static final Symbol HANDLER_CLUSTERS
+        = PACKAGE_SYS.intern("*HANDLER-CLUSTERS*");
+    private static final Symbol RESTART_CLUSTERS
+        = PACKAGE_SYS.intern("*RESTART-CLUSTERS*");
+
+    private static final class Worker extends ForkJoinWorkerThread
+    {
+        Worker(ForkJoinPool pool) {
+            super(pool);
+        }
+
+        @Override
+        protected void onStart() {
+            super.onStart();
+            LispThread.currentThread();
+        }
+
+        @Override
+        protected void onTermination(Throwable exception) {
+            LispThread.map.remove(this);
+            super.onTermination(exception);
+        }
+    }
+
+    // Created on first use
+    private static final class Pool
+    {
+        static final ForkJoinPool pool
+            = new ForkJoinPool(Integer.getInteger("abcl.parallel.threads",
+                                                  Runtime.getRuntime().availableProcessors()),
+                               new ForkJoinPool.ForkJoinWorkerThreadFactory() {
+                                   public ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+                                       return new Worker(pool);
+                                   }
+                               },
+                               null, false);
+    }
+
+    /** Carries an error signalled on a worker back to the caller. */
+    private static final class TaskError extends RuntimeException
+    {
+        final LispObject condition;
+
+        TaskError(LispObject condition) {
+            super(null, null, false, false);
+            this.condition = condition;
+        }
+    }
+
+    // The handler established on the workers
+    private static final Function abandon = new Function() {
+            @Override
+            public LispObject execute(LispObject condition) {
+                throw new TaskError(condition);
+            }
+        };
+
+    // Errors on a worker go to this handler only
+    private static final LispObject handlers
+        = list(list(new Cons(Symbol.ERROR, abandon)));
+
+    /** What the workers take over from the calling thread. */
+    private static final class Caller
+    {
+        /** The special bindings of the caller, except its handlers and
+         * restarts.
+         */
+        final SpecialBinding[] bindings;
+        final World world;
+
+        Caller() {
+            final LispThread thread = LispThread.currentThread();
+            SpecialBinding[] all = thread.copySpecialBindings();
+            int n = 0;
+            for (SpecialBinding b : all) {
+                if (b.idx != HANDLER_CLUSTERS.specialIndex
+                    && b.idx != RESTART_CLUSTERS.specialIndex) {
+                    all[n++] = b;
+                }
+            }
+            bindings = new SpecialBinding[n];
+            System.arraycopy(all, 0, bindings, 0, n);
+            world = thread.world;
+        }
+    }
+
+    /** Binds the caller's bindings in the current worker and moves it
+     * to the caller's world; leave() undoes both, given the returned
+     * mark and the world the worker was in before.
+     */
+    private static SpecialBindingsMark enter(LispThread thread,
+                                             Caller caller) {
+        final SpecialBindingsMark mark = thread.markSpecialBindings();
+        thread.world = caller.world;
+        thread.bindSpecials(caller.bindings);
+        thread.bindSpecial(HANDLER_CLUSTERS, handlers);
+        thread.bindSpecial(RESTART_CLUSTERS, NIL);
+        return mark;
+    }
+
+    private static void leave(LispThread thread, SpecialBindingsMark mark,
+                              World world) {
+        thread.resetSpecialBindings(mark);
+        thread.world = world;
+        thread._values = null;
+    }
+
+    /** The number of elements below which a task isn't split. */
+    private static int threshold(int length) {
+        return Math.max(1, length / (Pool.pool.getParallelism() * 8));
+    }
+
+    private static <T> T invoke(java.util.concurrent.ForkJoinTask<T> task) {
+        try {
+            return Pool.pool.invoke(task);
+        } catch (RuntimeException e) {
+            for (Throwable t = e; t != null; t = t.getCause()) {
+                if (t instanceof TaskError) {
+                    error(((TaskError) t).condition);
+                }
+            }
+            throw e;
+        }
+    }
+
+    private static final class MapTask extends RecursiveAction
+    {
+        final LispObject function;
+        final LispObject[][] args;
+        final LispObject[] results;
+        final Caller caller;
+        final int start, end, threshold;
+
+        MapTask(LispObject function, LispObject[][] args, LispObject[] results,
+                Caller caller, int start, int end, int threshold) {
+            this.function = function;
+            this.args = args;
+            this.results = results;
+            this.caller = caller;
+            this.start = start;
+            this.end = end;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start > threshold) {
+                int middle = (start + end) >>> 1;
+                invokeAll(new MapTask(function, args, results, caller,
+                                      start, middle, threshold),
+                          new MapTask(function, args, results, caller,
+                                      middle, end, threshold));
+                return;
+            }
+            final LispThread thread = LispThread.currentThread();
+            final World world = thread.world;
+            final SpecialBindingsMark mark = enter(thread, caller);
+            try {
+                switch (args.length) {
+                case 1: {
+                    final LispObject[] a = args[0];
+                    for (int i = start; i < end; i++) {
+                        results[i] = thread.execute(function, a[i]);
+                    }
+                    break;
+                }
+                case 2: {
+                    final LispObject[] a = args[0];
+                    final LispObject[] b = args[1];
+                    for (int i = start; i < end; i++) {
+                        results[i] = thread.execute(function, a[i], b[i]);
+                    }
+                    break;
+                }
+                default:
+                    for (int i = start; i < end; i++) {
+                        LispObject[] funArgs = new LispObject[args.length];
+                        for (int j = 0; j < args.length; j++) {
+                            funArgs[j] = args[j][i];
+                        }
+                        results[i] = thread.execute(function, funArgs);
+                    }
+                }
+            } finally {
+                leave(thread, mark, world);
+            }
+        }
+    }
+
+    private static final class ReduceTask extends RecursiveTask<LispObject>
+    {
+        final LispObject function;
+        final LispObject[] elements;
+        final Caller caller;
+        final int start, end, threshold;
+
+        ReduceTask(LispObject function, LispObject[] elements,
+                   Caller caller, int start, int end, int threshold) {
+            this.function = function;
+            this.elements = elements;
+            this.caller = caller;
+            this.start = start;
+            this.end = end;
+            this.threshold = threshold;
+        }
+
+        private LispObject combine(LispObject left, LispObject right) {
+            final LispThread thread = LispThread.currentThread();
+            final World world = thread.world;
+            final SpecialBindingsMark mark = enter(thread, caller);
+            try {
+                return thread.execute(function, left, right);
+            } finally {
+                leave(thread, mark, world);
+            }
+        }
+
+        @Override
+        protected LispObject compute() {
+            if (end - start > threshold) {
+                int middle = (start + end) >>> 1;
+                ReduceTask left = new ReduceTask(function, elements, caller,
+                                                 start, middle, threshold);
+                ReduceTask right = new ReduceTask(function, elements, caller,
+                                                  middle, end, threshold);
+                right.fork();
+                LispObject leftValue = left.compute();
+                return combine(leftValue, right.join());
+            }
+            final LispThread thread = LispThread.currentThread();
+            final World world = thread.world;
+            final SpecialBindingsMark mark = enter(thread, caller);
+            try {
+                LispObject value = elements[start];
+                for (int i = start + 1; i < end; i++) {
+                    value = thread.execute(function, value, elements[i]);
+                }
+                return value;
+            } finally {
+                leave(thread, mark, world);
+            }
+        }
+    }
+
+    /** A stable merge sort, sorting the halves of large ranges in
+     * parallel.
+     */
+    private static final class SortTask extends RecursiveAction
+    {
+        final LispObject predicate;
+        final LispObject key;
+        final LispObject[] elements;
+        final LispObject[] scratch;
+        final Caller caller;
+        final int start, end, threshold;
+
+        SortTask(LispObject predicate, LispObject key, LispObject[] elements,
+                 LispObject[] scratch, Caller caller,
+                 int start, int end, int threshold) {
+            this.predicate = predicate;
+            this.key = key;
+            this.elements = elements;
+            this.scratch = scratch;
+            this.caller = caller;
+            this.start = start;
+            this.end = end;
+            this.threshold = threshold;
+        }
+
+        // True when b sorts strictly before a.
+        private boolean before(LispThread thread, LispObject b, LispObject a) {
+            if (key != NIL) {
+                b = thread.execute(key, b);
+                a = thread.execute(key, a);
+            }
+            return thread.execute(predicate, b, a) != NIL;
+        }
+
+        private void sort(LispThread thread, int from, int to) {
+            if (to - from < 2) {
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            sort(thread, from, middle);
+            sort(thread, middle, to);
+            merge(thread, from, middle, to);
+        }
+
+        // Merges the sorted ranges [from, middle) and [middle, to).
+        private void merge(LispThread thread, int from, int middle, int to) {
+            if (!before(thread, elements[middle], elements[middle - 1])) {
+                return;
+            }
+            System.arraycopy(elements, from, scratch, from, middle - from);
+            int i = from, j = middle, k = from;
+            while (i < middle && j < to) {
+                if (before(thread, elements[j], scratch[i])) {
+                    elements[k++] = elements[j++];
+                } else {
+                    elements[k++] = scratch[i++];
+                }
+            }
+            while (i < middle) {
+                elements[k++] = scratch[i++];
+            }
+        }
+
+        @Override
+        protected void compute() {
+            final LispThread thread = LispThread.currentThread();
+            int middle = (start + end) >>> 1;
+            if (end - start > threshold) {
+                invokeAll(new SortTask(predicate, key, elements, scratch,
+                                       caller, start, middle, threshold),
+                          new SortTask(predicate, key, elements, scratch,
+                                       caller, middle, end, threshold));
+            }
+            final World world = thread.world;
+            final SpecialBindingsMark mark = enter(thread, caller);
+            try {
+                if (end - start > threshold) {
+                    merge(thread, start, middle, end);
+                } else {
+                    sort(thread, start, end);
+                }
+            } finally {
+                leave(thread, mark, world);
+            }
+        }
+    }
+
+    private static LispObject[] checkSimpleVector(LispObject obj) {
+        if (obj instanceof SimpleVector) {
+            return ((SimpleVector) obj).data;
+        }
+        type_error(obj, Symbol.SIMPLE_VECTOR);
+        return null; // Not reached.
+    }
+
+    // ### %pmap function vectors => simple-vector
+    private static final Primitive _PMAP = new pf__pmap();
+    private static final class pf__pmap extends Primitive
+    {
+        pf__pmap() {
+            super("%pmap", PACKAGE_SYS, false, "function vectors");
+        }
+
+        @Override
+        public LispObject execute(LispObject function, LispObject vectors) {
+            LispObject[][] args = new LispObject[vectors.length()][];
+            int length = Integer.MAX_VALUE;
+            for (int i = 0; i < args.length; i++, vectors = vectors.cdr()) {
+                args[i] = checkSimpleVector(vectors.car());
+                length = Math.min(length, args[i].length);
+            }
+            if (args.length == 0) {
+                return error(new WrongNumberOfArgumentsException(this, 2, -1));
+            }
+            LispObject[] results = new LispObject[length];
+            if (length > 0) {
+                invoke(new MapTask(coerceToFunction(function), args, results,
+                                   new Caller(), 0, length,
+                                   threshold(length)));
+            }
+            return new SimpleVector(results);
+        }
+    };
+
+    // ### %preduce function vector => value
+    private static final Primitive _PREDUCE = new pf__preduce();
+    private static final class pf__preduce extends Primitive
+    {
+        pf__preduce() {
+            super("%preduce", PACKAGE_SYS, false, "function vector");
+        }
+
+        @Override
+        public LispObject execute(LispObject function, LispObject vector) {
+            LispObject[] elements = checkSimpleVector(vector);
+            int length = ((SimpleVector) vector).capacity;
+            if (length == 0) {
+                return error(new LispError("%PREDUCE: empty vector."));
+            }
+            return invoke(new ReduceTask(coerceToFunction(function), elements,
+                                         new Caller(), 0, length,
+                                         threshold(length)));
+        }
+    };
+
+    // ### %psort vector predicate key => vector
+    private static final Primitive _PSORT = new pf__psort();
+    private static final class pf__psort extends Primitive
+    {
+        pf__psort() {
+            super("%psort", PACKAGE_SYS, false, "vector predicate key");
+        }
+
+        @Override
+        public LispObject execute(LispObject vector, LispObject predicate,
+                                  LispObject key) {
+            LispObject[] elements = checkSimpleVector(vector);
+            int length = ((SimpleVector) vector).capacity;
+            if (length > 1) {
+                invoke(new SortTask(coerceToFunction(predicate),
+                                    key == NIL ? NIL : coerceToFunction(key),
+                                    elements, new LispObject[length],
+                                    new Caller(), 0, length,
+                                    Math.max(threshold(length), 16)));
+            }
+            return vector;
+        }
+    };
+}
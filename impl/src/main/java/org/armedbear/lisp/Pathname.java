@@ -61,12 +61,13 @@ import java.text.MessageFormat;
 import java.util.StringTokenizer;
 import java.util.jar.JarFile;
 import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 import java.util.zip.ZipInputStream;
 
 import org.armedbear.lisp.io.IPathname;
 import org.armedbear.lisp.io.InputStreamFacade;
 
-public class Pathname extends LispObject implements IPathname {
+public class Pathname extends LispObject implements IPathname, java.io.Serializable {
 
 	private static Object jarFileFactory;
 	private static Method jarFileFactory_getCachedJarFile;
@@ -903,7 +904,7 @@ public class Pathname extends LispObject implements IPathname {
 				if (version instanceof Fixnum) {
 					sb.append(Integer.toString(((Fixnum) version).value, base).toUpperCase());
 				} else if (version instanceof Bignum) {
-					sb.append(((Bignum) version).value.toString(base).toUpperCase());
+					sb.append(((Bignum) version).getBigInteger().toString(base).toUpperCase());
 				}
 			} else if (version == Keyword.WILD) {
 				sb.append(".*");
@@ -2614,6 +2615,29 @@ public class Pathname extends LispObject implements IPathname {
 				} else {
 					// 3. Entry in JAR
 					
+					Pathname jarPathname = (Pathname)d.car();
+					if (!jarPathname.isURL()) {
+						// Look the entry up in the central directory
+						// instead of inflating the whole file.
+						ZipFile zip = null;
+						try {
+							zip = new ZipFile(jarPathname.getFile());
+							ZipEntry e = zip.getEntry(entryPath);
+							if (e == null || e.getTime() == -1) {
+								return 0;
+							}
+							return e.getTime();
+						} catch (IOException e) {
+							return 0;
+						} finally {
+							if (zip != null) {
+								try {
+									zip.close();
+								} catch (IOException e) {
+								}
+							}
+						}
+					}
 					
 					InputStream jaris = ((Pathname)d.car()).getInputStream(true);
 					
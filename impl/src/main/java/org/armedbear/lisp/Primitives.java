@@ -3084,7 +3084,7 @@ public final class Primitives {
                     return new Symbol(new SimpleString(sb));
                 }
             } else if (arg instanceof Bignum) {
-                BigInteger n = ((Bignum)arg).value;
+                BigInteger n = ((Bignum)arg).getBigInteger();
                 if (n.signum() >= 0) {
                     StringBuilder sb = new StringBuilder("G");
                     sb.append(n.toString()); // Decimal representation.
@@ -5056,7 +5056,7 @@ public final class Primitives {
                 return Fixnum.getInstance(count);
             }
             if (arg instanceof Bignum)
-                return Fixnum.getInstance(((Bignum)arg).value.bitLength());
+                return Fixnum.getInstance(((Bignum)arg).getBigInteger().bitLength());
             return type_error(arg, Symbol.INTEGER);
         }
     };
@@ -5076,13 +5076,13 @@ public final class Primitives {
             if (first instanceof Fixnum)
                 n1 = BigInteger.valueOf(((Fixnum)first).value);
             else if (first instanceof Bignum)
-                n1 = ((Bignum)first).value;
+                n1 = ((Bignum)first).getBigInteger();
             else
                 return type_error(first, Symbol.INTEGER);
             if (second instanceof Fixnum)
                 n2 = BigInteger.valueOf(((Fixnum)second).value);
             else if (second instanceof Bignum)
-                n2 = ((Bignum)second).value;
+                n2 = ((Bignum)second).getBigInteger();
             else
                 return type_error(second, Symbol.INTEGER);
             return number(n1.gcd(n2));
@@ -5769,6 +5769,27 @@ public final class Primitives {
         }
     };
 
+    // ### allocation-counts => plist
+    // The numbers of Fixnums and characters allocated because they were
+    // outside the instance caches, or NIL unless the system property
+    // abcl.allocation.counters is true.
+    private static final Primitive ALLOCATION_COUNTS = new pf_allocation_counts();
+    private static final class pf_allocation_counts extends Primitive {
+        pf_allocation_counts() {
+            super("allocation-counts", PACKAGE_SYS, true, "");
+        }
+
+        @Override
+        public LispObject execute() {
+            if (Fixnum.allocations == null)
+                return NIL;
+            return list(Keyword.FIXNUM,
+                        LispInteger.getInstance(Fixnum.allocations.sum()),
+                        Keyword.CHARACTER,
+                        LispInteger.getInstance(LispCharacter.allocations.sum()));
+        }
+    };
+
     // ### copy-tree
     private static final Primitive COPY_TREE = new pf_copy_tree();
     private static final class pf_copy_tree extends Primitive {
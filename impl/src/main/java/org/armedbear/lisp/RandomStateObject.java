@@ -245,7 +245,7 @@ public final class RandomStateObject
                 return Fixnum.getInstance(n);
             }
         } else if (arg != null && arg.isBignum()) {
-            BigInteger limit = ((Bignum)arg).value;
+            BigInteger limit = ((Bignum)arg).getBigInteger();
             if (limit.signum() > 0) {
                 int bitLength = limit.bitLength();
                 BigInteger rand = new BigInteger(bitLength + 1, random);
@@ -37,7 +37,7 @@ import static org.armedbear.lisp.Lisp.*;
 
 import java.math.BigInteger;
 
-public final class Ratio extends LispObject
+public final class Ratio extends LispObject implements java.io.Serializable
 {
     private BigInteger numerator;
     private BigInteger denominator;
@@ -240,7 +240,7 @@ public final class Ratio extends LispObject
             return number(n, denominator);
         }
         if (obj instanceof Bignum) {
-            BigInteger n = ((Bignum)obj).value;
+            BigInteger n = ((Bignum)obj).getBigInteger();
             return number(numerator.add(n.multiply(denominator)),
                 denominator);
         }
@@ -275,7 +275,7 @@ public final class Ratio extends LispObject
             return number(n, denominator);
         }
         if (obj instanceof Bignum) {
-            BigInteger n = ((Bignum)obj).value;
+            BigInteger n = ((Bignum)obj).getBigInteger();
             return number(numerator.subtract(n.multiply(denominator)),
                 denominator);
         }
@@ -310,7 +310,7 @@ public final class Ratio extends LispObject
             return number(numerator.multiply(n), denominator);
         }
         if (obj instanceof Bignum) {
-            BigInteger n = ((Bignum)obj).value;
+            BigInteger n = ((Bignum)obj).getBigInteger();
             return number(numerator.multiply(n), denominator);
         }
         if (obj instanceof Ratio) {
@@ -340,7 +340,7 @@ public final class Ratio extends LispObject
             return number(numerator, denominator.multiply(n));
         }
         if (obj instanceof Bignum) {
-            BigInteger n = ((Bignum)obj).value;
+            BigInteger n = ((Bignum)obj).getBigInteger();
             return number(numerator, denominator.multiply(n));
         }
         if (obj instanceof Ratio) {
@@ -405,7 +405,7 @@ public final class Ratio extends LispObject
             return numerator.compareTo(n2) < 0;
         }
         if (obj instanceof Bignum) {
-            BigInteger n = ((Bignum)obj).value.multiply(denominator);
+            BigInteger n = ((Bignum)obj).getBigInteger().multiply(denominator);
             return numerator.compareTo(n) < 0;
         }
         if (obj instanceof Ratio) {
@@ -430,7 +430,7 @@ public final class Ratio extends LispObject
             return numerator.compareTo(n2) > 0;
         }
         if (obj instanceof Bignum) {
-            BigInteger n = ((Bignum)obj).value.multiply(denominator);
+            BigInteger n = ((Bignum)obj).getBigInteger().multiply(denominator);
             return numerator.compareTo(n) > 0;
         }
         if (obj instanceof Ratio) {
@@ -455,7 +455,7 @@ public final class Ratio extends LispObject
             return numerator.compareTo(n2) <= 0;
         }
         if (obj instanceof Bignum) {
-            BigInteger n = ((Bignum)obj).value.multiply(denominator);
+            BigInteger n = ((Bignum)obj).getBigInteger().multiply(denominator);
             return numerator.compareTo(n) <= 0;
         }
         if (obj instanceof Ratio) {
@@ -480,7 +480,7 @@ public final class Ratio extends LispObject
             return numerator.compareTo(n2) >= 0;
         }
         if (obj instanceof Bignum) {
-            BigInteger n = ((Bignum)obj).value.multiply(denominator);
+            BigInteger n = ((Bignum)obj).getBigInteger().multiply(denominator);
             return numerator.compareTo(n) >= 0;
         }
         if (obj instanceof Ratio) {
@@ -513,7 +513,7 @@ public final class Ratio extends LispObject
             n = ((Fixnum)obj).getBigInteger();
             d = BigInteger.ONE;
 	  } else if (obj instanceof Bignum) {
-            n = ((Bignum)obj).value;
+            n = ((Bignum)obj).getBigInteger();
             d = BigInteger.ONE;
 	  } else if (obj instanceof Ratio) {
             n = ((Ratio)obj).numerator();
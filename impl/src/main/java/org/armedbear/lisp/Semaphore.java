@@ -0,0 +1,222 @@
+/*
+ * Semaphore.java
+ *
+ * Copyright (C) 2026 The Armed Bear Common Lisp Project
+ * $Id$
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ *
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent
+ * modules, and to copy and distribute the resulting executable under
+ * terms of your choice, provided that you also meet, for each linked
+ * independent module, the terms and conditions of the license of that
+ * module.  An independent module is a module which is not derived from
+ * or based on this library.  If you modify this library, you may extend
+ * this exception to your version of the library, but you are not
+ * obligated to do so.  If you do not wish to do so, delete this
+ * exception statement from your version.
+ */
+package org.armedbear.lisp;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.armedbear.lisp.Lisp.*;
+
+/**
+ * A counting semaphore created by THREADS:MAKE-SEMAPHORE, backed by a
+ * java.util.concurrent.Semaphore.
+ */
+public final class Semaphore extends LispObject
+{
+    private final java.util.concurrent.Semaphore semaphore;
+
+    public Semaphore(int count) {
+        semaphore = new java.util.concurrent.Semaphore(count);
+    }
+
+    @Override
+    public LispObject typeOf() {
+        return Symbol.SEMAPHORE;
+    }
+
+    @Override
+    public LispObject classOf() {
+        return BuiltInClass.SEMAPHORE;
+    }
+
+    @Override
+    public LispObject typep(LispObject typeSpecifier) {
+        if (typeSpecifier == Symbol.SEMAPHORE) {
+            return T;
+        }
+        if (typeSpecifier == BuiltInClass.SEMAPHORE) {
+            return T;
+        }
+        return super.typep(typeSpecifier);
+    }
+
+    @Override
+    public LispObject printObject() {
+        return new SimpleString(unreadableString("SEMAPHORE count "
+                                                 + semaphore.availablePermits()));
+    }
+
+    public void acquire() {
+        while (true) {
+            try {
+                semaphore.acquire();
+                return;
+            } catch (InterruptedException e) {
+                LispThread.currentThread().processThreadInterrupts();
+            }
+        }
+    }
+
+    /** Returns false when the count stayed at zero for `nanos'. */
+    public boolean acquire(long nanos) {
+        final long deadline = System.nanoTime() + nanos;
+        while (true) {
+            try {
+                return semaphore.tryAcquire(nanos, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                LispThread.currentThread().processThreadInterrupts();
+                nanos = deadline - System.nanoTime();
+            }
+        }
+    }
+
+    private static Semaphore checkSemaphore(LispObject obj) {
+        if (obj instanceof Semaphore) {
+            return (Semaphore) obj;
+        }
+        return (Semaphore) // Not reached.
+            type_error(obj, Symbol.SEMAPHORE);
+    }
+
+    private static int checkCount(LispObject count) {
+        if (count instanceof Fixnum && ((Fixnum) count).value >= 0) {
+            return ((Fixnum) count).value;
+        }
+        type_error(count, list(Symbol.INTEGER, Fixnum.ZERO,
+                               Fixnum.getInstance(Integer.MAX_VALUE)));
+        return 0; // Not reached.
+    }
+
+    private static final Primitive MAKE_SEMAPHORE = new pf_make_semaphore();
+    @DocString(name="make-semaphore", args="&optional count",
+    doc="Returns a new semaphore with an initial COUNT, which defaults to 0.")
+    private static final class pf_make_semaphore extends Primitive
+    {
+        pf_make_semaphore() {
+            super("make-semaphore", PACKAGE_THREADS, true, "&optional count");
+        }
+
+        @Override
+        public LispObject execute() {
+            return new Semaphore(0);
+        }
+
+        @Override
+        public LispObject execute(LispObject count) {
+            return new Semaphore(checkCount(count));
+        }
+    };
+
+    private static final Primitive SIGNAL_SEMAPHORE = new pf_signal_semaphore();
+    @DocString(name="signal-semaphore", args="semaphore &optional n",
+    doc="Increments the count of SEMAPHORE by N, which defaults to 1,\n"
+      + "waking up as many threads waiting in WAIT-ON-SEMAPHORE.")
+    private static final class pf_signal_semaphore extends Primitive
+    {
+        pf_signal_semaphore() {
+            super("signal-semaphore", PACKAGE_THREADS, true,
+                  "semaphore &optional n");
+        }
+
+        @Override
+        public LispObject execute(LispObject semaphore) {
+            checkSemaphore(semaphore).semaphore.release();
+            return NIL;
+        }
+
+        @Override
+        public LispObject execute(LispObject semaphore, LispObject n) {
+            checkSemaphore(semaphore).semaphore.release(checkCount(n));
+            return NIL;
+        }
+    };
+
+    private static final Primitive WAIT_ON_SEMAPHORE = new pf_wait_on_semaphore();
+    @DocString(name="wait-on-semaphore", args="semaphore &optional timeout",
+    doc="Decrements the count of SEMAPHORE, first waiting while it is zero,\n"
+      + "for at most TIMEOUT seconds if given.  Returns T, or NIL when the\n"
+      + "wait timed out.")
+    private static final class pf_wait_on_semaphore extends Primitive
+    {
+        pf_wait_on_semaphore() {
+            super("wait-on-semaphore", PACKAGE_THREADS, true,
+                  "semaphore &optional timeout");
+        }
+
+        @Override
+        public LispObject execute(LispObject semaphore) {
+            checkSemaphore(semaphore).acquire();
+            return T;
+        }
+
+        @Override
+        public LispObject execute(LispObject semaphore, LispObject timeout) {
+            if (timeout == NIL) {
+                return execute(semaphore);
+            }
+            Semaphore s = checkSemaphore(semaphore);
+            return s.acquire(LispThread.timeoutNanos(timeout)) ? T : NIL;
+        }
+    };
+
+    private static final Primitive TRY_SEMAPHORE = new pf_try_semaphore();
+    @DocString(name="try-semaphore", args="semaphore",
+    doc="Decrements the count of SEMAPHORE unless it is zero.\n"
+      + "Returns T when the count was decremented, NIL otherwise.")
+    private static final class pf_try_semaphore extends Primitive
+    {
+        pf_try_semaphore() {
+            super("try-semaphore", PACKAGE_THREADS, true, "semaphore");
+        }
+
+        @Override
+        public LispObject execute(LispObject semaphore) {
+            return checkSemaphore(semaphore).semaphore.tryAcquire() ? T : NIL;
+        }
+    };
+
+    private static final Primitive SEMAPHORE_COUNT = new pf_semaphore_count();
+    @DocString(name="semaphore-count", args="semaphore",
+    doc="Returns the current count of SEMAPHORE.")
+    private static final class pf_semaphore_count extends Primitive
+    {
+        pf_semaphore_count() {
+            super("semaphore-count", PACKAGE_THREADS, true, "semaphore");
+        }
+
+        @Override
+        public LispObject execute(LispObject semaphore) {
+            return Fixnum.getInstance(checkSemaphore(semaphore)
+                                      .semaphore.availablePermits());
+        }
+    };
+}
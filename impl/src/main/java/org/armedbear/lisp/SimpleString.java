@@ -40,6 +40,11 @@ public final class SimpleString extends AbstractString
     private int capacity;
     private char[] chars;
 
+    // The values of sxhash() and psxhash(), or 0 until they are
+    // computed again after a modification.
+    private transient int sxhash;
+    private transient int psxhash;
+
     public SimpleString(LispCharacter c)
     {
         chars = new char[1];
@@ -164,6 +169,8 @@ public final class SimpleString extends AbstractString
             SimpleString string = (SimpleString) obj;
             if (string.capacity != capacity)
                 return false;
+            if (sxhash != 0 && string.sxhash != 0 && sxhash != string.sxhash)
+                return false;
             for (int i = capacity; i-- > 0;)
                 if (string.chars[i] != chars[i])
                     return false;
@@ -258,6 +265,7 @@ public final class SimpleString extends AbstractString
     {
         for (int i = capacity; i-- > 0;)
             chars[i] = c;
+        charsModified();
     }
 
     @Override
@@ -268,6 +276,7 @@ public final class SimpleString extends AbstractString
             System.arraycopy(chars, 0, newArray, 0, n);
             chars = newArray;
             capacity = n;
+            charsModified();
             return;
         }
         if (n == capacity)
@@ -297,6 +306,7 @@ public final class SimpleString extends AbstractString
             ++i;
             --j;
         }
+        charsModified();
         return this;
     }
 
@@ -347,6 +357,7 @@ public final class SimpleString extends AbstractString
     {
         try {
             chars[index] = c;
+            charsModified();
         }
         catch (ArrayIndexOutOfBoundsException e) {
             badIndex(index, capacity);
@@ -407,15 +418,27 @@ public final class SimpleString extends AbstractString
     {
         try {
             chars[index] = LispCharacter.getValue(obj);
+            charsModified();
         }
         catch (ArrayIndexOutOfBoundsException e) {
             badIndex(index, capacity);
         }
     }
 
+    /** Forgets the cached hash codes, once the characters have been
+     * changed by other means than the methods of this class.
+     */
+    void charsModified()
+    {
+        sxhash = 0;
+        psxhash = 0;
+    }
+
     @Override
     public int sxhash()
     {
+        if (sxhash != 0)
+            return sxhash;
         int hashCode = randomStringHashBase;
         for (int i = 0; i < capacity; i++) {
             hashCode += chars[i];
@@ -425,13 +448,15 @@ public final class SimpleString extends AbstractString
         hashCode += (hashCode << 3);
         hashCode ^= (hashCode >> 11);
         hashCode += (hashCode << 15);
-        return (hashCode & 0x7fffffff);
+        return sxhash = (hashCode & 0x7fffffff);
         }
 
     // For EQUALP hash tables.
     @Override
     public int psxhash()
     {
+        if (psxhash != 0)
+            return psxhash;
         int hashCode = randomStringHashBase;
         for (int i = 0; i < capacity; i++) {
             hashCode += Character.toUpperCase(chars[i]);
@@ -441,7 +466,7 @@ public final class SimpleString extends AbstractString
         hashCode += (hashCode << 3);
         hashCode ^= (hashCode >> 11);
         hashCode += (hashCode << 15);
-        return (hashCode & 0x7fffffff);
+        return psxhash = (hashCode & 0x7fffffff);
     }
 
     @Override
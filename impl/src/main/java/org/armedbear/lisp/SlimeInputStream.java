@@ -112,6 +112,18 @@ public class SlimeInputStream extends Stream
         return n;
     }
 
+    @Override
+    public int _readChars(char[] chars, int start, int end)
+    {
+        for (int i = start; i < end; i++) {
+            int n = _readChar();
+            if (n < 0)
+                return i;
+            chars[i] = (char) n;
+        }
+        return end;
+    }
+
     @Override
     protected void _unreadChar(int n)
     {
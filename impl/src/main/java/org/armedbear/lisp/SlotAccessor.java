@@ -0,0 +1,231 @@
+/*
+ * SlotAccessor.java
+ *
+ * Copyright (C) 2026 The Armed Bear Common Lisp Project
+ * $Id$
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ *
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent
+ * modules, and to copy and distribute the resulting executable under
+ * terms of your choice, provided that you also meet, for each linked
+ * independent module, the terms and conditions of the license of that
+ * module.  An independent module is a module which is not derived from
+ * or based on this library.  If you modify this library, you may extend
+ * this exception to your version of the library, but you are not
+ * obligated to do so.  If you do not wish to do so, delete this
+ * exception statement from your version.
+ */
+package org.armedbear.lisp;
+
+
+import static org.armedbear.lisp.Lisp.*;
+
+/**
+ * A function reading or writing one slot of standard instances, which
+ * remembers the Layout of the last instance it accessed and the index
+ * of the slot in that layout.  Instances with that layout have their
+ * slot accessed directly; all others go through a fallback function,
+ * after which the layout of the instance is remembered instead.
+ *
+ * Readers are used as the discriminating function of generic functions
+ * with a single standard reader method and for calls to SLOT-VALUE with
+ * a constant slot name; writers likewise for writer methods and
+ * (SETF SLOT-VALUE).
+ */
+public abstract class SlotAccessor extends Function
+{
+  // Immutable, so that racing threads never see the layout of one
+  // instance with the index of another.
+  private static final class Location
+  {
+    final Layout layout;
+    final int index;
+
+    Location(Layout layout, int index)
+    {
+      this.layout = layout;
+      this.index = index;
+    }
+  }
+
+  private static final Location NO_LOCATION = new Location(null, -1);
+
+  final LispObject slotName;
+  // The specializer of the accessor method, or null for SLOT-VALUE.
+  final LispObject specializer;
+  // Called on a cache miss, or null for SLOT-VALUE.
+  final LispObject fallback;
+
+  private Location location = NO_LOCATION;
+
+  SlotAccessor(LispObject slotName, LispObject specializer,
+               LispObject fallback)
+  {
+    this.slotName = slotName;
+    this.specializer = specializer;
+    this.fallback = fallback;
+  }
+
+  /** Returns the slots of 'instance' when the slot can be accessed at
+   * the remembered index, null otherwise.
+   */
+  final LispObject[] cachedSlots(LispObject instance)
+  {
+    if (instance instanceof StandardObject)
+      {
+        final Layout layout = ((StandardObject)instance).layout;
+        if (layout == location.layout && !layout.isInvalid())
+          return ((StandardObject)instance).slots;
+      }
+    return null;
+  }
+
+  final int cachedIndex()
+  {
+    return location.index;
+  }
+
+  /** Remembers the layout of 'instance', after the fallback accessed
+   * its slot without error.
+   */
+  final void updateLocation(LispObject instance)
+  {
+    if (!(instance instanceof StandardObject))
+      return;
+    final Layout layout = ((StandardObject)instance).layout;
+    if (layout.isInvalid())
+      return;
+    final int index = layout.getSlotIndex(slotName);
+    if (index < 0)
+      // A shared slot, or a missing one
+      return;
+    if (specializer == null)
+      {
+        // SLOT-VALUE only accesses slots directly for these metaclasses
+        final LispObject lispClass = layout.getLispClass();
+        if (!(lispClass instanceof StandardObject))
+          return;
+        final LispObject metaclass
+          = ((StandardObject)lispClass).getLispClass();
+        if (metaclass != StandardClass.STANDARD_CLASS
+            && metaclass != StandardClass.FUNCALLABLE_STANDARD_CLASS)
+          return;
+      }
+    else if (instance.typep(specializer) == NIL)
+      // NO-APPLICABLE-METHOD returned
+      return;
+    location = new Location(layout, index);
+  }
+
+  private static final class SlotReader extends SlotAccessor
+  {
+    SlotReader(LispObject slotName, LispObject specializer,
+               LispObject fallback)
+    {
+      super(slotName, specializer, fallback);
+    }
+
+    @Override
+    public LispObject execute(LispObject instance)
+    {
+      final LispObject[] slots = cachedSlots(instance);
+      if (slots != null)
+        {
+          final LispObject value = slots[cachedIndex()];
+          if (value != UNBOUND_VALUE)
+            return value;
+        }
+      final LispObject value = (fallback == null)
+        ? Symbol.SLOT_VALUE.execute(instance, slotName)
+        : fallback.execute(instance);
+      updateLocation(instance);
+      return value;
+    }
+  }
+
+  private static final class SlotWriter extends SlotAccessor
+  {
+    SlotWriter(LispObject slotName, LispObject specializer,
+               LispObject fallback)
+    {
+      super(slotName, specializer, fallback);
+    }
+
+    @Override
+    public LispObject execute(LispObject newValue, LispObject instance)
+    {
+      final LispObject[] slots = cachedSlots(instance);
+      if (slots != null)
+        {
+          slots[cachedIndex()] = newValue;
+          return newValue;
+        }
+      final LispObject value = (fallback == null)
+        ? Symbol._SET_SLOT_VALUE.execute(instance, slotName, newValue)
+        : fallback.execute(newValue, instance);
+      updateLocation(instance);
+      return value;
+    }
+  }
+
+  // ### %make-slot-reader slot-name specializer fallback => function
+  private static final Primitive _MAKE_SLOT_READER
+    = new pf__make_slot_reader();
+  @DocString(name="%make-slot-reader",
+             args="slot-name specializer fallback",
+             returns="function")
+  private static final class pf__make_slot_reader extends Primitive
+  {
+    pf__make_slot_reader()
+    {
+      super("%make-slot-reader", PACKAGE_SYS, true,
+            "slot-name specializer fallback");
+    }
+    @Override
+    public LispObject execute(LispObject slotName, LispObject specializer,
+                              LispObject fallback)
+    {
+      return new SlotReader(slotName,
+                            specializer == NIL ? null : specializer,
+                            fallback == NIL ? null : fallback);
+    }
+  };
+
+  // ### %make-slot-writer slot-name specializer fallback => function
+  private static final Primitive _MAKE_SLOT_WRITER
+    = new pf__make_slot_writer();
+  @DocString(name="%make-slot-writer",
+             args="slot-name specializer fallback",
+             returns="function")
+  private static final class pf__make_slot_writer extends Primitive
+  {
+    pf__make_slot_writer()
+    {
+      super("%make-slot-writer", PACKAGE_SYS, true,
+            "slot-name specializer fallback");
+    }
+    @Override
+    public LispObject execute(LispObject slotName, LispObject specializer,
+                              LispObject fallback)
+    {
+      return new SlotWriter(slotName,
+                            specializer == NIL ? null : specializer,
+                            fallback == NIL ? null : fallback);
+    }
+  };
+}
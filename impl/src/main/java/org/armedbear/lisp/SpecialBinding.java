@@ -39,8 +39,11 @@ final public class SpecialBinding implements IBinding
 {
     /** The index in the specials array of the symbol
      *  to which this value belongs.
+     *
+     *  Not final: LispThread reuses its SpecialBinding objects once
+     *  the bindings have been undone.
      */
-    final int idx;
+    int idx;
 
     /** The value bound */
     public LispObject value;
@@ -36,23 +36,32 @@ package org.armedbear.lisp;
 /** Class used to mark special bindings state.
  * Returned by LispThread.markSpecialBindings() and consumed by
  * LispThread.resetSpecialBindings() to abstract from the implementation.
+ *
+ * A mark only records the depth of the binding stack, so the marks of
+ * the first depths are shared instead of allocated for every binding.
  */
 final public class SpecialBindingsMark {
 
-    /** The index in the specials array of the saved binding. */
-    int idx;
+    private static final SpecialBindingsMark[] marks
+        = new SpecialBindingsMark[1024];
+
+    static {
+        for (int i = 0; i < marks.length; i++)
+            marks[i] = new SpecialBindingsMark(i);
+    }
 
-    /** Special binding state to be restored */
+    /** The number of bindings on the binding stack. */
     // package level access
-    SpecialBinding binding;
-    SpecialBindingsMark next;
+    final int depth;
+
+    private SpecialBindingsMark(int depth) {
+        this.depth = depth;
+    }
 
-    /** Constructor to be called by LispThread.markSpecialBindings() only */
+    /** To be called by LispThread.markSpecialBindings() only */
     // package level access
-    SpecialBindingsMark(int idx, SpecialBinding binding,
-                        SpecialBindingsMark next) {
-        this.idx = idx;
-        this.binding = binding;
-        this.next = next;
+    static SpecialBindingsMark of(int depth) {
+        return depth < marks.length
+            ? marks[depth] : new SpecialBindingsMark(depth);
     }
-}
\ No newline at end of file
+}
@@ -35,7 +35,7 @@ package org.armedbear.lisp;
 
 import static org.armedbear.lisp.Lisp.*;
 
-public class StandardObject extends LispObject
+public class StandardObject extends LispObject implements java.io.Serializable
 {
   protected Layout layout;
   protected LispObject[] slots;
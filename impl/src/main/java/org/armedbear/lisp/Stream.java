@@ -1818,6 +1818,67 @@ public class Stream extends StructureObject {
 		return n;
 	}
 
+	/** Reads characters off the underlying stream into `chars',
+	 * translating line endings as _readChar() does, until `end' is
+	 * reached or at end-of-file
+	 *
+	 * @param chars
+	 * @param start
+	 * @param end
+	 * @return the index following the last character read
+	 */
+	public int _readChars(char[] chars, int start, int end) throws IOException {
+		if (reader == null)
+			streamNotCharacterInputStream();
+
+		int i = start;
+		while (i < end) {
+			int n = reader.read(chars, i, end - i);
+			if (n < 0) {
+				pastEnd = true;
+				break;
+			}
+			offset += n;
+			int limit = i + n;
+			if (eolStyle == EolStyle.CRLF)
+				limit = foldCrlf(chars, i, limit);
+			for (; i < limit; i++) {
+				if (chars[i] == eolChar) {
+					chars[i] = '\n';
+					++lineNumber;
+				}
+			}
+		}
+		return i;
+	}
+
+	// Replaces each CR LF pair in chars[start..limit) by a newline,
+	// reading ahead when the last character is a CR.  Returns the new
+	// limit.
+	private int foldCrlf(char[] chars, int start, int limit) throws IOException {
+		int to = start;
+		for (int from = start; from < limit; from++) {
+			char c = chars[from];
+			if (c == '\r') {
+				if (from + 1 < limit) {
+					if (chars[from + 1] == '\n') {
+						c = '\n';
+						++from;
+					}
+				} else {
+					int n = reader.read();
+					if (n == '\n') {
+						++offset;
+						c = '\n';
+					} else if (n >= 0)
+						reader.unread(n);
+				}
+			}
+			chars[to++] = c;
+		}
+		return to;
+	}
+
 	/** Puts a character back into the (underlying) stream
 	 *
 	 * @param n
@@ -1893,10 +1954,29 @@ public class Stream extends StructureObject {
 	{
 		try {
 			if (eolStyle != EolStyle.RAW) {
-				for (int i = start; i < end; i++)
-					//###FIXME: the number of writes can be greatly reduced by
-					// writing the space between newlines as chunks.
-					_writeChar(chars[i]);
+				// Write the characters between newlines as chunks
+				int from = start;
+				for (int i = start; i < end; i++) {
+					if (chars[i] == '\n') {
+						if (from < i)
+							writer.write(chars, from, i - from);
+						if (eolStyle == EolStyle.CRLF
+							&& (i > start ? chars[i-1] : lastChar) != '\r')
+							writer.write('\r');
+						writer.write(eolChar);
+						from = i + 1;
+					}
+				}
+				if (from < end)
+					writer.write(chars, from, end - from);
+				if (start < end)
+					lastChar = (chars[end-1] == '\n') ? eolChar : chars[end-1];
+				if (from == start)
+					charPos += (end - start);
+				else {
+					charPos = end - from;
+					writer.flush();
+				}
 				return;
 			}
 
@@ -1976,6 +2056,24 @@ public class Stream extends StructureObject {
 		}
 	}
 
+	/** Reads 8-bit bytes off the underlying stream into `bytes',
+	 * until `end' is reached or at end-of-file
+	 *
+	 * @param bytes
+	 * @param start
+	 * @param end
+	 * @return the index following the last byte read
+	 */
+	public int _readBytes(byte[] bytes, int start, int end) {
+		for (int i = start; i < end; i++) {
+			int n = _readByte();
+			if (n < 0)
+				return i;
+			bytes[i] = (byte) n;
+		}
+		return end;
+	}
+
 	// Writes an 8-bit byte.
 	/** Writes an 8-bit byte off the underlying stream
 	 *
@@ -2592,6 +2690,77 @@ public class Stream extends StructureObject {
 		}
 	};
 
+	// ### write-vector-character vector stream start end => vector
+	private static final Primitive WRITE_VECTOR_CHARACTER =
+		new Primitive("write-vector-character", PACKAGE_SYS, true,
+	"vector stream start end") {
+		@Override
+		public LispObject execute(LispObject first, LispObject second,
+								  LispObject third, LispObject fourth)
+
+		{
+			final AbstractVector v = checkVector(first);
+			final Stream stream = checkCharacterOutputStream(second);
+			int start = Fixnum.getValue(third);
+			int end = Fixnum.getValue(fourth);
+			checkBounds(start, end, v.length());
+			if (v instanceof SimpleString) {
+				stream._writeChars(((SimpleString)v).chars(), start, end);
+				return v;
+			}
+			char[] chars = new char[Math.min(end - start, 8192)];
+			while (start < end) {
+				int n = Math.min(end - start, chars.length);
+				for (int i = 0; i < n; i++)
+					chars[i] = LispCharacter.getValue(v.AREF(start + i));
+				stream._writeChars(chars, 0, n);
+				start += n;
+			}
+			return v;
+		}
+	};
+
+	// ### read-vector-character vector stream start end => position
+	private static final Primitive READ_VECTOR_CHARACTER =
+		new Primitive("read-vector-character", PACKAGE_SYS, true,
+	"vector stream start end") {
+		@Override
+		public LispObject execute(LispObject first, LispObject second,
+								  LispObject third, LispObject fourth)
+
+		{
+			AbstractVector v = checkVector(first);
+			Stream stream = checkCharacterInputStream(second);
+			int start = Fixnum.getValue(third);
+			int end = Fixnum.getValue(fourth);
+			checkBounds(start, end, v.length());
+			try {
+				if (v instanceof SimpleString) {
+					SimpleString string = (SimpleString)v;
+					try {
+						return Fixnum.getInstance(
+							stream._readChars(string.chars(), start, end));
+					} finally {
+						string.charsModified();
+					}
+				}
+				char[] chars = new char[Math.min(end - start, 8192)];
+				while (start < end) {
+					int count = Math.min(end - start, chars.length);
+					int n = stream._readChars(chars, 0, count);
+					for (int i = 0; i < n; i++)
+						v.aset(start + i, LispCharacter.getInstance(chars[i]));
+					start += n;
+					if (n < count)
+						break; // End of file.
+				}
+				return Fixnum.getInstance(start);
+			} catch (IOException e) {
+				return error(new StreamError(stream, e));
+			}
+		}
+	};
+
 	// ### read-vector-unsigned-byte-8 vector stream start end => position
 	private static final Primitive READ_VECTOR_UNSIGNED_BYTE_8 =
 		new Primitive("read-vector-unsigned-byte-8", PACKAGE_SYS, true,
@@ -2608,6 +2777,11 @@ public class Stream extends StructureObject {
 			if (!v.getElementType().equal(UNSIGNED_BYTE_8))
 				return type_error(first, list(Symbol.VECTOR,
 											  UNSIGNED_BYTE_8));
+			if (v instanceof BasicVector_UnsignedByte8) {
+				checkBounds(start, end, v.length());
+				byte[] bytes = ((BasicVector_UnsignedByte8)v).elements();
+				return Fixnum.getInstance(stream._readBytes(bytes, start, end));
+			}
 			for (int i = start; i < end; i++) {
 				int n = stream._readByte();
 				if (n < 0) {
@@ -35,7 +35,7 @@ package org.armedbear.lisp;
 
 import static org.armedbear.lisp.Lisp.*;
 
-public class StructureObject extends LispObject
+public class StructureObject extends LispObject implements java.io.Serializable
 {
   private final StructureClass structureClass;
   final LispObject[] slots;
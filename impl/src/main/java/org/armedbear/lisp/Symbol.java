@@ -35,6 +35,8 @@ package org.armedbear.lisp;
 
 import static org.armedbear.lisp.Lisp.*;
 
+import java.lang.invoke.SwitchPoint;
+
 public class Symbol extends LispObject implements java.io.Serializable
 {
   // Bit flags.
@@ -59,6 +61,8 @@ public class Symbol extends LispObject implements java.io.Serializable
   private LispObject pkg; // Either a package object or NIL.
   private transient LispObject value;
   private transient LispObject function;
+  /** Invalidated when the function cell changes; see FunctionCallSite. */
+  private transient volatile SwitchPoint functionSwitchPoint;
   private transient LispObject propertyList;
   private int flags;
 
@@ -439,7 +443,31 @@ public class Symbol extends LispObject implements java.io.Serializable
 		}
 	    }
 	}
-    this.function = obj;
+    SwitchPoint switchPoint;
+    synchronized (this)
+      {
+        this.function = obj;
+        switchPoint = functionSwitchPoint;
+        functionSwitchPoint = null;
+      }
+    if (switchPoint != null)
+      SwitchPoint.invalidateAll(new SwitchPoint[] { switchPoint });
+  }
+
+  /** Returns the switch point guarding call sites bound to the
+   * current function of this symbol.
+   */
+  final SwitchPoint getFunctionSwitchPoint()
+  {
+    SwitchPoint switchPoint = functionSwitchPoint;
+    if (switchPoint == null)
+      synchronized (this)
+        {
+          switchPoint = functionSwitchPoint;
+          if (switchPoint == null)
+            functionSwitchPoint = switchPoint = new SwitchPoint();
+        }
+    return switchPoint;
   }
 
   /** See LispObject.getStringValue() */
@@ -948,6 +976,8 @@ public class Symbol extends LispObject implements java.io.Serializable
 	    Symbol s = ((Package) pkg).intern(name.getStringValue());
 	    return s;
 	} else {
+	    // The hash of the name depends on the runtime
+	    hash = -1;
 	    return this;
 	}
     }
@@ -2960,6 +2990,8 @@ public class Symbol extends LispObject implements java.io.Serializable
     PACKAGE_EXT.addExternalSymbol("MAILBOX");
   public static final Symbol MUTEX =
     PACKAGE_EXT.addExternalSymbol("MUTEX");
+  public static final Symbol SEMAPHORE =
+    PACKAGE_EXT.addExternalSymbol("SEMAPHORE");
   public static final Symbol SUPPRESS_COMPILER_WARNINGS =
     PACKAGE_EXT.addExternalSymbol("*SUPPRESS-COMPILER-WARNINGS*");
   public static final Symbol NEQ =
@@ -2992,6 +3024,8 @@ public class Symbol extends LispObject implements java.io.Serializable
   // MOP.
   public static final Symbol CLASS_LAYOUT =
     PACKAGE_MOP.addInternalSymbol("CLASS-LAYOUT");
+  public static final Symbol _SET_SLOT_VALUE =
+    PACKAGE_MOP.addInternalSymbol("%SET-SLOT-VALUE");
   public static final Symbol CLASS_DEFAULT_INITARGS =
     PACKAGE_MOP.addExternalSymbol("CLASS-DEFAULT_INITARGS");
   public static final Symbol CLASS_DIRECT_METHODS =
@@ -3160,6 +3194,8 @@ public class Symbol extends LispObject implements java.io.Serializable
     PACKAGE_SYS.addExternalSymbol("UNDEFINED-FUNCTION-CALLED");
   public static final Symbol URL_STREAM =
     PACKAGE_SYS.addExternalSymbol("URL-STREAM");
+  public static final Symbol WORLD =
+    PACKAGE_SYS.addExternalSymbol("WORLD");
 
 
   // Internal symbols in SYSTEM package.
@@ -3273,6 +3309,10 @@ public class Symbol extends LispObject implements java.io.Serializable
   // THREADS
   public static final Symbol THREAD =
     PACKAGE_THREADS.addExternalSymbol("THREAD");
+  public static final Symbol THREAD_POOL =
+    PACKAGE_THREADS.addExternalSymbol("THREAD-POOL");
+  public static final Symbol FUTURE =
+    PACKAGE_THREADS.addExternalSymbol("FUTURE");
 
   @Override
   public final boolean isSymbol() {
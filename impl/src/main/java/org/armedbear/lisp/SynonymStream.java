@@ -133,6 +133,13 @@ public final class SynonymStream extends Stream
         return checkStream(symbol.symbolValue())._readChar();
     }
 
+    @Override
+    public int _readChars(char[] chars, int start, int end)
+        throws java.io.IOException
+    {
+        return checkStream(symbol.symbolValue())._readChars(chars, start, end);
+    }
+
     @Override
     protected void _unreadChar(int n) throws java.io.IOException
     {
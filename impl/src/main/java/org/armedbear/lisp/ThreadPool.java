@@ -0,0 +1,377 @@
+/*
+ * ThreadPool.java
+ *
+ * Copyright (C) 2026 The Armed Bear Common Lisp Project
+ * $Id$
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ *
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent
+ * modules, and to copy and distribute the resulting executable under
+ * terms of your choice, provided that you also meet, for each linked
+ * independent module, the terms and conditions of the license of that
+ * module.  An independent module is a module which is not derived from
+ * or based on this library.  If you modify this library, you may extend
+ * this exception to your version of the library, but you are not
+ * obligated to do so.  If you do not wish to do so, delete this
+ * exception statement from your version.
+ */
+package org.armedbear.lisp;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.armedbear.lisp.Lisp.*;
+
+/**
+ * A fixed number of worker threads running the functions passed to
+ * THREADS:SUBMIT, created by THREADS:MAKE-THREAD-POOL.
+ *
+ * Each worker is a LispThread for its whole life: its stack and
+ * specials array are reused from task to task.  Like a thread made by
+ * MAKE-THREAD, a task starts out without special bindings, other than
+ * those of the world it was submitted from, and the bindings, stack
+ * frames and pending interrupts it leaves behind are dropped once it
+ * ends.
+ */
+public final class ThreadPool extends LispObject
+{
+    private static final Symbol SIZE = internKeyword("SIZE");
+
+    private static final Symbol wrapper =
+        PACKAGE_THREADS.intern("FUTURE-FUNCTION-WRAPPER");
+
+    private final ExecutorService executor;
+    private final LispObject name;
+
+    ThreadPool(int size, final LispObject name) {
+        this.name = name;
+        final String prefix = name.getStringValue() + "-";
+        executor = Executors.newFixedThreadPool(size, new ThreadFactory() {
+                final AtomicInteger count = new AtomicInteger();
+
+                public Thread newThread(final Runnable r) {
+                    Thread t = new Thread(new Runnable() {
+                            public void run() {
+                                // Makes the LispThread of the worker
+                                LispThread.currentThread();
+                                try {
+                                    r.run();
+                                } finally {
+                                    LispThread.map.remove(Thread.currentThread());
+                                }
+                            }
+                        }, prefix + count.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                }
+            });
+    }
+
+    @Override
+    public LispObject typeOf() {
+        return Symbol.THREAD_POOL;
+    }
+
+    @Override
+    public LispObject classOf() {
+        return BuiltInClass.THREAD_POOL;
+    }
+
+    @Override
+    public LispObject typep(LispObject typeSpecifier) {
+        if (typeSpecifier == Symbol.THREAD_POOL) {
+            return T;
+        }
+        if (typeSpecifier == BuiltInClass.THREAD_POOL) {
+            return T;
+        }
+        return super.typep(typeSpecifier);
+    }
+
+    @Override
+    public LispObject printObject() {
+        return new SimpleString(unreadableString("THREAD-POOL \""
+                                                 + name.getStringValue()
+                                                 + "\""));
+    }
+
+    /**
+     * The result of a function submitted to a thread pool.
+     */
+    public static final class Future extends LispObject
+        implements Callable<LispObject>
+    {
+        private final LispObject function;
+        // The world of the thread which submitted the function
+        private final World world;
+        final FutureTask<LispObject> task;
+
+        Future(LispObject function) {
+            this.function = function;
+            world = LispThread.currentThread().world;
+            task = new FutureTask<LispObject>(this);
+        }
+
+        /** Returns the list of the values of the function, or the error
+         * it signalled.
+         */
+        public LispObject call() {
+            final LispThread thread = LispThread.currentThread();
+            try {
+                if (world != null) {
+                    world.enter(thread);
+                }
+                return funcall(wrapper, new LispObject[] { function }, thread);
+            } finally {
+                thread.resetForReuse();
+            }
+        }
+
+        @Override
+        public LispObject typeOf() {
+            return Symbol.FUTURE;
+        }
+
+        @Override
+        public LispObject classOf() {
+            return BuiltInClass.FUTURE;
+        }
+
+        @Override
+        public LispObject typep(LispObject typeSpecifier) {
+            if (typeSpecifier == Symbol.FUTURE) {
+                return T;
+            }
+            if (typeSpecifier == BuiltInClass.FUTURE) {
+                return T;
+            }
+            return super.typep(typeSpecifier);
+        }
+
+        @Override
+        public LispObject printObject() {
+            return new SimpleString(unreadableString(task.isDone()
+                                                     ? "FUTURE (done)"
+                                                     : "FUTURE"));
+        }
+
+        /** Returns null when the function didn't return within `nanos'. */
+        LispObject get(long nanos) {
+            final long deadline = System.nanoTime() + nanos;
+            while (true) {
+                try {
+                    return nanos < 0 ? task.get()
+                        : task.get(nanos, TimeUnit.NANOSECONDS);
+                } catch (InterruptedException e) {
+                    LispThread.currentThread().processThreadInterrupts();
+                    if (nanos >= 0) {
+                        nanos = Math.max(0, deadline - System.nanoTime());
+                    }
+                } catch (TimeoutException e) {
+                    return null;
+                } catch (CancellationException e) {
+                    return error(new SimpleError("The function of "
+                                                 + printObject().getStringValue()
+                                                 + " was cancelled."));
+                } catch (ExecutionException e) {
+                    return error(new SimpleError("The function of "
+                                                 + printObject().getStringValue()
+                                                 + " failed: " + e.getCause()));
+                }
+            }
+        }
+    }
+
+    private static ThreadPool checkThreadPool(LispObject obj) {
+        if (obj instanceof ThreadPool) {
+            return (ThreadPool) obj;
+        }
+        return (ThreadPool) // Not reached.
+            type_error(obj, Symbol.THREAD_POOL);
+    }
+
+    private static Future checkFuture(LispObject obj) {
+        if (obj instanceof Future) {
+            return (Future) obj;
+        }
+        return (Future) // Not reached.
+            type_error(obj, Symbol.FUTURE);
+    }
+
+    private static final Primitive MAKE_THREAD_POOL = new pf_make_thread_pool();
+    @DocString(name="make-thread-pool", args="&key size name",
+    doc="Returns a thread pool of SIZE worker threads, by default as many\n"
+      + "as there are processors.  The workers are named after NAME.")
+    private static final class pf_make_thread_pool extends Primitive
+    {
+        pf_make_thread_pool() {
+            super("make-thread-pool", PACKAGE_THREADS, true, "&key size name");
+        }
+
+        @Override
+        public LispObject execute(LispObject[] args) {
+            if (args.length % 2 != 0) {
+                return program_error("Odd number of keyword arguments.");
+            }
+            int size = Runtime.getRuntime().availableProcessors();
+            LispObject name = new SimpleString("thread-pool");
+            for (int i = 0; i < args.length; i += 2) {
+                if (args[i] == SIZE) {
+                    LispObject n = args[i + 1];
+                    if (!(n instanceof Fixnum) || ((Fixnum) n).value < 1) {
+                        return type_error(n, list(Symbol.INTEGER, Fixnum.ONE,
+                                                  Fixnum.getInstance(Integer.MAX_VALUE)));
+                    }
+                    size = ((Fixnum) n).value;
+                } else if (args[i] == Keyword.NAME) {
+                    name = args[i + 1].STRING();
+                } else {
+                    return program_error("Unrecognized keyword argument "
+                                         + args[i].princToString() + ".");
+                }
+            }
+            return new ThreadPool(size, name);
+        }
+    };
+
+    private static final Primitive SUBMIT = new pf_submit();
+    @DocString(name="submit", args="thread-pool function",
+    doc="Calls FUNCTION without arguments on one of the threads of\n"
+      + "THREAD-POOL, and returns a future for its values.")
+    private static final class pf_submit extends Primitive
+    {
+        pf_submit() {
+            super("submit", PACKAGE_THREADS, true, "thread-pool function");
+        }
+
+        @Override
+        public LispObject execute(LispObject pool, LispObject function) {
+            ThreadPool p = checkThreadPool(pool);
+            Future future = new Future(coerceToFunction(function));
+            try {
+                p.executor.execute(future.task);
+            } catch (RejectedExecutionException e) {
+                return error(new SimpleError(p.printObject().getStringValue()
+                                             + " has been shut down."));
+            }
+            return future;
+        }
+    };
+
+    private static final Primitive FUTURE_VALUE = new pf_future_value();
+    @DocString(name="future-value", args="future &optional timeout default",
+    doc="Waits for the function of FUTURE to return, for at most TIMEOUT\n"
+      + "seconds if given, and returns its values.  If the function\n"
+      + "signalled an error, signals it again.  Returns DEFAULT when the\n"
+      + "wait timed out.")
+    private static final class pf_future_value extends Primitive
+    {
+        pf_future_value() {
+            super("future-value", PACKAGE_THREADS, true,
+                  "future &optional timeout default");
+        }
+
+        private LispObject value(Future future, long nanos,
+                                 LispObject defaultValue) {
+            LispObject result = future.get(nanos);
+            if (result == null) {
+                return defaultValue;
+            }
+            if (!result.listp()) {
+                return error(result);
+            }
+            return LispThread.currentThread().setValues(result.copyToArray());
+        }
+
+        @Override
+        public LispObject execute(LispObject future) {
+            return value(checkFuture(future), -1, NIL);
+        }
+
+        @Override
+        public LispObject execute(LispObject future, LispObject timeout) {
+            return execute(future, timeout, NIL);
+        }
+
+        @Override
+        public LispObject execute(LispObject future, LispObject timeout,
+                                  LispObject defaultValue) {
+            return value(checkFuture(future),
+                         timeout == NIL ? -1 : LispThread.timeoutNanos(timeout),
+                         defaultValue);
+        }
+    };
+
+    private static final Primitive FUTURE_DONE_P = new pf_future_done_p();
+    @DocString(name="future-done-p", args="future",
+    doc="Returns T when the function of FUTURE has returned, NIL otherwise.")
+    private static final class pf_future_done_p extends Primitive
+    {
+        pf_future_done_p() {
+            super("future-done-p", PACKAGE_THREADS, true, "future");
+        }
+
+        @Override
+        public LispObject execute(LispObject future) {
+            return checkFuture(future).task.isDone() ? T : NIL;
+        }
+    };
+
+    private static final Primitive SHUTDOWN_THREAD_POOL
+        = new pf_shutdown_thread_pool();
+    @DocString(name="shutdown-thread-pool", args="thread-pool &optional abort",
+    doc="Stops THREAD-POOL from accepting new functions; its threads end\n"
+      + "once the functions already submitted have returned.  With ABORT,\n"
+      + "the functions which haven't started yet are cancelled instead,\n"
+      + "and the running ones are interrupted.")
+    private static final class pf_shutdown_thread_pool extends Primitive
+    {
+        pf_shutdown_thread_pool() {
+            super("shutdown-thread-pool", PACKAGE_THREADS, true,
+                  "thread-pool &optional abort");
+        }
+
+        @Override
+        public LispObject execute(LispObject pool) {
+            checkThreadPool(pool).executor.shutdown();
+            return NIL;
+        }
+
+        @Override
+        public LispObject execute(LispObject pool, LispObject abort) {
+            if (abort == NIL) {
+                return execute(pool);
+            }
+            List<Runnable> tasks = checkThreadPool(pool).executor.shutdownNow();
+            for (Runnable task : tasks) {
+                ((FutureTask<?>) task).cancel(false);
+            }
+            return NIL;
+        }
+    };
+}
@@ -128,6 +128,13 @@ public class TwoWayStream extends Stream
         return in._readChar();
     }
 
+    @Override
+    public int _readChars(char[] chars, int start, int end)
+        throws java.io.IOException
+    {
+        return in._readChars(chars, start, end);
+    }
+
     @Override
     protected void _unreadChar(int n) throws java.io.IOException
     {
@@ -0,0 +1,327 @@
+/*
+ * World.java
+ *
+ * Copyright (C) 2026 The Armed Bear Common Lisp Project
+ * $Id$
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ *
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent
+ * modules, and to copy and distribute the resulting executable under
+ * terms of your choice, provided that you also meet, for each linked
+ * independent module, the terms and conditions of the license of that
+ * module.  An independent module is a module which is not derived from
+ * or based on this library.  If you modify this library, you may extend
+ * this exception to your version of the library, but you are not
+ * obligated to do so.  If you do not wish to do so, delete this
+ * exception statement from your version.
+ */
+package org.armedbear.lisp;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.armedbear.lisp.Lisp.*;
+
+/**
+ * A Lisp world, with its own package registry and its own global values
+ * of the standard specials in GLOBALS, inside the one runtime of the
+ * JVM.
+ *
+ * A world starts out with the packages of the global registry, except
+ * COMMON-LISP-USER, of which it has a fresh one.  Those packages, their
+ * symbols and the functions and global values of those symbols stay
+ * shared with the global registry and all other worlds; the packages
+ * the world creates are its own.  The global values of the specials in
+ * GLOBALS are kept in bindings which every thread in the world installs
+ * below its own bindings, so that assigning them in one thread of the
+ * world assigns them in all, and in no other world.
+ *
+ * Threads enter a world with SYS:CALL-IN-WORLD, or from Java with
+ * call() and evaluate(); threads made by a thread in a world, and the
+ * functions it submits to a thread pool or passes to SYS:PMAP, run in
+ * the same world.
+ */
+public final class World extends LispObject
+{
+    /** The specials of which each world has its own global value. */
+    private static final Symbol[] GLOBALS = {
+        Symbol._PACKAGE_,
+        Symbol.CURRENT_READTABLE,
+        Symbol.FEATURES,
+        Symbol.MODULES,
+        Symbol.DEFAULT_PATHNAME_DEFAULTS,
+        Symbol.GENSYM_COUNTER,
+    };
+
+    private final String name;
+
+    /** Guarded by the lock on Packages, like the global registry. */
+    final Map<String,Package> packages = new HashMap<String,Package>();
+
+    private final SpecialBinding[] globals
+        = new SpecialBinding[GLOBALS.length];
+
+    private volatile boolean destroyed;
+
+    public World(String name) {
+        this.name = name;
+        synchronized (Packages.class) {
+            packages.putAll(Packages.globalRegistry());
+            Packages.worlds = true;
+        }
+        final LispThread thread = LispThread.currentThread();
+        final World previous = thread.world;
+        thread.world = this;
+        final Package user;
+        try {
+            Package globalUser = PACKAGE_CL_USER;
+            Packages.deletePackage(globalUser);
+            user = Packages.createPackage(globalUser.getName());
+            List<String> nicknames = globalUser.getNicknames();
+            if (nicknames != null) {
+                for (String nickname : nicknames) {
+                    user.addNickname(nickname);
+                }
+            }
+            for (LispObject list = globalUser.getUseList(); list != NIL;
+                 list = list.cdr()) {
+                user.usePackage((Package) list.car());
+            }
+        } finally {
+            thread.world = previous;
+        }
+        for (int i = 0; i < GLOBALS.length; i++) {
+            globals[i] = new SpecialBinding(0, GLOBALS[i].getSymbolValue());
+        }
+        globals[0].value = user;
+        globals[1].value = new Readtable(NIL);
+        globals[2].value = copyList(Symbol.FEATURES.getSymbolValue());
+        globals[3].value = copyList(Symbol.MODULES.getSymbolValue());
+    }
+
+    private static LispObject copyList(LispObject list) {
+        LispObject result = NIL;
+        for (; list != NIL; list = list.cdr()) {
+            result = new Cons(list.car(), result);
+        }
+        return result.nreverse();
+    }
+
+    /** Makes 'thread' run in this world, until the caller resets the
+     * special bindings of the thread to a mark made before and sets its
+     * world back.
+     */
+    final void enter(LispThread thread) {
+        if (destroyed) {
+            error(new LispError(printObject().getStringValue()
+                                + " has been destroyed."));
+        }
+        thread.world = this;
+        for (int i = 0; i < GLOBALS.length; i++) {
+            thread.installSpecialBinding(GLOBALS[i], globals[i]);
+        }
+    }
+
+    /** Calls 'function' on 'args' in this world, in the current thread. */
+    public LispObject call(LispObject function, LispObject... args) {
+        final LispThread thread = LispThread.currentThread();
+        final World previous = thread.world;
+        final SpecialBindingsMark mark = thread.markSpecialBindings();
+        enter(thread);
+        try {
+            return funcall(function, args, thread);
+        } finally {
+            thread.resetSpecialBindings(mark);
+            thread.world = previous;
+        }
+    }
+
+    /** Reads and evaluates 's' in this world, as Interpreter.evaluate()
+     * does in the global one.
+     */
+    public LispObject evaluate(final String s) {
+        final LispThread thread = LispThread.currentThread();
+        final World previous = thread.world;
+        final SpecialBindingsMark mark = thread.markSpecialBindings();
+        enter(thread);
+        try {
+            return Interpreter.evaluate(s);
+        } finally {
+            thread.resetSpecialBindings(mark);
+            thread.world = previous;
+        }
+    }
+
+    /** Deletes the packages created in this world, so that the shared
+     * packages they use no longer refer to them.  The world can't be
+     * entered any more.
+     */
+    public void destroy() {
+        final List<Package> own = new ArrayList<Package>();
+        synchronized (Packages.class) {
+            if (destroyed) {
+                return;
+            }
+            destroyed = true;
+            final Map<String,Package> global = Packages.globalRegistry();
+            for (Package pkg : packages.values()) {
+                if (global.get(pkg.getName()) != pkg && !own.contains(pkg)) {
+                    own.add(pkg);
+                }
+            }
+        }
+        final LispThread thread = LispThread.currentThread();
+        final World previous = thread.world;
+        thread.world = this;
+        try {
+            for (Package pkg : own) {
+                pkg.delete();
+            }
+        } finally {
+            thread.world = previous;
+        }
+    }
+
+    /** Whether 'pkg' belongs to the global registry, when the current
+     * thread runs in a world: the world must not delete or rename it.
+     */
+    static boolean isShared(Package pkg) {
+        if (!Packages.worlds || LispThread.currentThread().world == null) {
+            return false;
+        }
+        synchronized (Packages.class) {
+            final String name = pkg.getName();
+            return name != null && Packages.globalRegistry().get(name) == pkg;
+        }
+    }
+
+    @Override
+    public LispObject typeOf() {
+        return Symbol.WORLD;
+    }
+
+    @Override
+    public LispObject classOf() {
+        return BuiltInClass.WORLD;
+    }
+
+    @Override
+    public LispObject typep(LispObject typeSpecifier) {
+        if (typeSpecifier == Symbol.WORLD) {
+            return T;
+        }
+        if (typeSpecifier == BuiltInClass.WORLD) {
+            return T;
+        }
+        return super.typep(typeSpecifier);
+    }
+
+    @Override
+    public LispObject printObject() {
+        return new SimpleString(unreadableString(name == null ? "WORLD"
+                                                 : "WORLD " + name));
+    }
+
+    private static World checkWorld(LispObject obj) {
+        if (obj instanceof World) {
+            return (World) obj;
+        }
+        return (World) // Not reached.
+            type_error(obj, Symbol.WORLD);
+    }
+
+    private static final Primitive MAKE_WORLD = new pf_make_world();
+    @DocString(name="make-world", args="&optional name",
+    doc="Returns a new world, with its own packages and its own global\n"
+      + "values of *PACKAGE*, *READTABLE*, *FEATURES*, *MODULES*,\n"
+      + "*DEFAULT-PATHNAME-DEFAULTS* and *GENSYM-COUNTER*.")
+    private static final class pf_make_world extends Primitive
+    {
+        pf_make_world() {
+            super("make-world", PACKAGE_SYS, true, "&optional name");
+        }
+
+        @Override
+        public LispObject execute() {
+            return new World(null);
+        }
+
+        @Override
+        public LispObject execute(LispObject name) {
+            return new World(name == NIL ? null : javaString(name));
+        }
+    };
+
+    private static final Primitive CALL_IN_WORLD = new pf_call_in_world();
+    @DocString(name="call-in-world", args="world function &rest args",
+    doc="Calls FUNCTION on ARGS in WORLD, in the current thread, and\n"
+      + "returns its values.")
+    private static final class pf_call_in_world extends Primitive
+    {
+        pf_call_in_world() {
+            super("call-in-world", PACKAGE_SYS, true,
+                  "world function &rest args");
+        }
+
+        @Override
+        public LispObject execute(LispObject[] args) {
+            if (args.length < 2) {
+                return error(new WrongNumberOfArgumentsException(this, 2, -1));
+            }
+            LispObject[] funArgs = new LispObject[args.length - 2];
+            System.arraycopy(args, 2, funArgs, 0, funArgs.length);
+            return checkWorld(args[0]).call(args[1], funArgs);
+        }
+    };
+
+    private static final Primitive CURRENT_WORLD = new pf_current_world();
+    @DocString(name="current-world",
+    doc="Returns the world the current thread runs in, or NIL outside\n"
+      + "of any world.")
+    private static final class pf_current_world extends Primitive
+    {
+        pf_current_world() {
+            super("current-world", PACKAGE_SYS, true, "");
+        }
+
+        @Override
+        public LispObject execute() {
+            final World world = LispThread.currentThread().world;
+            return world == null ? NIL : world;
+        }
+    };
+
+    private static final Primitive DESTROY_WORLD = new pf_destroy_world();
+    @DocString(name="destroy-world", args="world",
+    doc="Deletes the packages created in WORLD, which can't be entered\n"
+      + "any more.")
+    private static final class pf_destroy_world extends Primitive
+    {
+        pf_destroy_world() {
+            super("destroy-world", PACKAGE_SYS, true, "world");
+        }
+
+        @Override
+        public LispObject execute(LispObject world) {
+            checkWorld(world).destroy();
+            return T;
+        }
+    };
+}
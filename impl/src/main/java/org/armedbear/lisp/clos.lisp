@@ -2314,13 +2314,17 @@ Initialized with the true value near the end of the file.")
               (slot-definition (std-slot-value method 'sys::%slot-definition))
               (slot-name (std-slot-value slot-definition 'sys:name))
               (class (car (std-method-specializers method))))
-         #'(lambda (instance)
-             ;; TODO: elide this test for low values of SAFETY
-             (unless (typep instance class)
-               (no-applicable-method gf (list instance)))
-             ;; hash table lookup for slot position in Layout object via
-             ;; StandardObject.SLOT_VALUE, so should be reasonably fast
-             (std-slot-value instance slot-name))))
+         ;; The reader accesses the slot by index in instances with the
+         ;; layout it saw last, falling back to this function otherwise
+         (%make-slot-reader
+          slot-name class
+          #'(lambda (instance)
+              ;; TODO: elide this test for low values of SAFETY
+              (unless (typep instance class)
+                (no-applicable-method gf (list instance)))
+              ;; hash table lookup for slot position in Layout object via
+              ;; StandardObject.SLOT_VALUE, so should be reasonably fast
+              (std-slot-value instance slot-name)))))
       ((and (= (length methods) 1)
             (eq (type-of (car methods)) 'standard-writer-method)
             (eq (type-of (second (std-method-specializers (car methods))))
@@ -2329,13 +2333,15 @@ Initialized with the true value near the end of the file.")
               (slot-definition (std-slot-value method 'sys::%slot-definition))
               (slot-name (std-slot-value slot-definition 'sys:name))
               (class (car (std-method-specializers method))))
-         #'(lambda (new-value instance)
-             ;; TODO: elide this test for low values of SAFETY
-             (unless (typep instance class)
-               (no-applicable-method gf (list new-value instance)))
-             ;; hash table lookup for slot position in Layout object via
-             ;; StandardObject.SET_SLOT_VALUE, so should be reasonably fast
-             (setf (std-slot-value instance slot-name) new-value))))
+         (%make-slot-writer
+          slot-name class
+          #'(lambda (new-value instance)
+              ;; TODO: elide this test for low values of SAFETY
+              (unless (typep instance class)
+                (no-applicable-method gf (list new-value instance)))
+              ;; hash table lookup for slot position in Layout object via
+              ;; StandardObject.SET_SLOT_VALUE, so should be reasonably fast
+              (setf (std-slot-value instance slot-name) new-value)))))
       (t
        (let* ((number-required (length (generic-function-required-arguments gf)))
               (lambda-list (generic-function-lambda-list gf))
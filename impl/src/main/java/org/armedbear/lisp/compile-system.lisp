@@ -377,6 +377,7 @@
                            "gentemp.lisp"
                            "gray-streams.lisp"
                            "gui.lisp"
+                           "image.lisp"
                            "inline.lisp"
                            "inspect.lisp"
                            "java.lisp"
@@ -410,6 +411,7 @@
                            "parse-integer.lisp"
                            "parse-lambda-list.lisp"
                            "package.lisp"
+                           "parallel.lisp"
                            "pathnames.lisp"
                            "print-object.lisp"
                            "print-unreadable-object.lisp"
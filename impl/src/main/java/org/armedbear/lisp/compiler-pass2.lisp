@@ -248,6 +248,34 @@ the top-most value's representation being 'rep1'."
                   (mapcar 'pretty-java-type arg-types)))))
     (setf (instruction-stack instruction) (1- stack-effect))))
 
+(defknown emit-invokedynamic-execute (fixnum) t)
+(defun emit-invokedynamic-execute (numargs)
+  "Emits an INVOKEDYNAMIC instruction calling the function of the symbol
+on the stack below `numargs' arguments through a `FunctionCallSite'.
+
+When the class can't be written in a class file version supporting
+INVOKEDYNAMIC, the instruction is replaced by the virtual call
+emitted by `emit-call-execute'."
+  (let* ((arg-types (lisp-object-arg-types numargs))
+         (stack-effect (apply #'descriptor-stack-effect
+                              +lisp-object+ +lisp-object+ arg-types))
+         (bootstrap (class-add-bootstrap-method
+                     *class-file*
+                     (pool-add-method-handle
+                      *pool* :invoke-static +lisp-function-call-site+
+                      "bootstrap"
+                      (list +java-call-site+ +java-method-handles-lookup+
+                            +java-string+ +java-method-type+))))
+         (fallback (pool-add-method-ref *pool* +lisp-object+ "execute"
+                                        (cons +lisp-object+ arg-types)))
+         (index (pool-add-invoke-dynamic *pool* bootstrap "execute"
+                                         (list* +lisp-object+ +lisp-object+
+                                                arg-types)
+                                         (cons 182 fallback))) ; INVOKEVIRTUAL
+         (instruction (%emit 'invokedynamic index)))
+    (declare (type (signed-byte 8) stack-effect))
+    (setf (instruction-stack instruction) stack-effect)))
+
 (defknown emit-invokespecial-init (string list) t)
 (defun emit-invokespecial-init (class-name arg-types)
   (let* ((stack-effect (apply #'descriptor-stack-effect :void arg-types))
@@ -2124,20 +2152,31 @@ itself is *not* compiled by this function."
               (format t ";   full call to ~S~%" op)))))
       (when (or (<= *speed* *debug*) *require-stack-frame*)
         (emit-push-current-thread))
-      (cond ((and (eq op (compiland-name *current-compiland*))
-                  (null (compiland-parent *current-compiland*)))
+      (let ((call-site-p nil))
+        (cond ((and (eq op (compiland-name *current-compiland*))
+                    (null (compiland-parent *current-compiland*)))
                                         ; recursive call
-             (if (notinline-p op)
-                 (emit-load-externalized-object op)
-                 (aload 0)))
-            (t
-             (emit-load-externalized-object op)))
-      (process-args args
-                    (if (or (<= *speed* *debug*) *require-stack-frame*)
-                        '(nil nil) '(nil)))
-      (if (or (<= *speed* *debug*) *require-stack-frame*)
-          (emit-call-thread-execute numargs)
-          (emit-call-execute numargs))
+               (if (notinline-p op)
+                   (emit-load-externalized-object op)
+                   (aload 0)))
+              (t
+               (emit-load-externalized-object op)
+               ;; link the call through the symbol's function cell
+               ;; when the class file version supports INVOKEDYNAMIC
+               (setf call-site-p
+                     (and (< *debug* *speed*)
+                          (not *require-stack-frame*)
+                          (<= numargs call-registers-limit)
+                          (<= 51 (class-file-version *class-file*))))))
+        (process-args args
+                      (if (or (<= *speed* *debug*) *require-stack-frame*)
+                          '(nil nil) '(nil)))
+        (cond ((or (<= *speed* *debug*) *require-stack-frame*)
+               (emit-call-thread-execute numargs))
+              (call-site-p
+               (emit-invokedynamic-execute numargs))
+              (t
+               (emit-call-execute numargs))))
       (fix-boxing representation (derive-compiler-type form))
       (emit-move-from-stack target representation))))
 
@@ -3333,7 +3372,13 @@ given a specific common representation.")
       (variable-derived-type variable))
     (cond ((neq type :none)
            (setf (variable-representation variable)
-                 (type-representation type))
+                 (if (and (integer-type-p type)
+                          (java-long-type-p type)
+                          (not (fixnum-type-p type)))
+                     ;; TYPE-REPRESENTATION can't see through the
+                     ;; compiler's integer types.
+                     :long
+                     (type-representation type)))
            (unless (memq (variable-representation variable) '(:int :long))
              ;; We don't support unboxed variables other than INT and LONG (yet)
              (setf (variable-representation variable) NIL)))
@@ -5542,6 +5587,31 @@ We need more thought here.
     (fix-boxing representation nil) ; FIXME use derived result type
     (emit-move-from-stack target representation)))
 
+(defknown long-operand-p (t) t)
+(defun long-operand-p (form)
+  "Returns true if FORM can be compiled to the :LONG representation
+without losing bits: either its type fits in a long, or it is itself
+arithmetic on such operands, which checks for overflow when compiled
+to :LONG."
+  (or (java-long-type-p (derive-compiler-type form))
+      (and (consp form)
+           (memq (%car form) '(+ - *))
+           (if (eq (%car form) '-)
+               (<= 2 (length form) 3)
+               (= (length form) 3))
+           (every #'long-operand-p (%cdr form)))))
+
+(defknown emit-long-arithmetic (t t) t)
+(defun emit-long-arithmetic (instruction method)
+  "Emits INSTRUCTION for the :LONG operands on the stack, or, unless
+safety is 0, a call to the LispInteger METHOD which signals a TYPE-ERROR
+when the result doesn't fit in a long."
+  (if (zerop *safety*)
+      (emit instruction)
+      (emit-invokestatic +lisp-integer+ method
+                         (if (eq instruction 'lneg) '(:long) '(:long :long))
+                         :long)))
+
 (defun p2-times (form target representation)
   (case (length form)
     (1 (compile-constant 1 target representation))
@@ -5575,6 +5645,16 @@ We need more thought here.
                            (sys::format t "p2-times: unsupported rep case")))))
               (convert-representation result-rep representation)
               (emit-move-from-stack target representation))
+             ((and (eq representation :long)
+                   (long-operand-p arg1)
+                   (long-operand-p arg2))
+              ;; The product may not fit, but it's wanted as a long.
+              (with-operand-accumulation
+                   ((compile-operand arg1 :long)
+                    (compile-operand arg2 :long)
+                    (maybe-emit-clear-values arg1 arg2))
+                 (emit-long-arithmetic 'lmul "multiplyExact"))
+              (emit-move-from-stack target representation))
              ((fixnump arg2)
               (compile-forms-and-maybe-emit-clear-values arg1 'stack nil)
               (emit-push-int arg2)
@@ -5700,6 +5780,16 @@ We need more thought here.
                          (assert nil)))))
               (convert-representation result-rep representation)
               (emit-move-from-stack target representation))
+             ((and (eq representation :long)
+                   (long-operand-p arg1)
+                   (long-operand-p arg2))
+              ;; The sum may not fit, but it's wanted as a long.
+              (with-operand-accumulation
+                   ((compile-operand arg1 :long)
+                    (compile-operand arg2 :long)
+                    (maybe-emit-clear-values arg1 arg2))
+                (emit-long-arithmetic 'ladd "addExact"))
+              (emit-move-from-stack target representation))
              ((eql arg2 1)
               (compile-forms-and-maybe-emit-clear-values arg1 'stack nil)
               (emit-invoke-method "incr" target representation))
@@ -5751,6 +5841,11 @@ We need more thought here.
                        (assert nil))))
               (convert-representation type-rep representation)
               (emit-move-from-stack target representation))
+             ((and (eq representation :long)
+                   (long-operand-p arg))
+              (compile-form arg 'stack :long)
+              (emit-long-arithmetic 'lneg "negateExact")
+              (emit-move-from-stack target representation))
              (t
               (compile-forms-and-maybe-emit-clear-values arg 'stack nil)
               (emit-invokevirtual +lisp-object+ "negate"
@@ -5782,6 +5877,16 @@ We need more thought here.
                          (assert nil)))))
               (convert-representation result-rep representation)
               (emit-move-from-stack target representation))
+             ((and (eq representation :long)
+                   (long-operand-p arg1)
+                   (long-operand-p arg2))
+              ;; The difference may not fit, but it's wanted as a long.
+              (with-operand-accumulation
+                  ((compile-operand arg1 :long)
+                   (compile-operand arg2 :long)
+                   (maybe-emit-clear-values arg1 arg2))
+                (emit-long-arithmetic 'lsub "subtractExact"))
+              (emit-move-from-stack target representation))
              ((fixnum-type-p type2)
               (with-operand-accumulation
                   ((compile-operand arg1 nil)
@@ -5981,9 +6086,23 @@ We need more thought here.
                     (emit-invokevirtual +lisp-object+
                                         "AREF" '(:int) +lisp-object+)
                     (emit-unbox-character))))
-            ((nil :float :double :boolean)
-             ;;###FIXME for float and double, we probably want
-             ;; separate java methods to retrieve the values.
+            (:double
+             (cond ((compiler-subtypep type1 '(array double-float))
+                    (emit-invokevirtual +lisp-object+
+                                        "aref_double" '(:int) :double))
+                   (t
+                    (emit-invokevirtual +lisp-object+
+                                        "AREF" '(:int) +lisp-object+)
+                    (convert-representation nil representation))))
+            (:float
+             (cond ((compiler-subtypep type1 '(array single-float))
+                    (emit-invokevirtual +lisp-object+
+                                        "aref_float" '(:int) :float))
+                   (t
+                    (emit-invokevirtual +lisp-object+
+                                        "AREF" '(:int) +lisp-object+)
+                    (convert-representation nil representation))))
+            ((nil :boolean)
              (emit-invokevirtual +lisp-object+ "AREF" '(:int) +lisp-object+)
              (convert-representation nil representation))))
        (emit-move-from-stack target representation)))
@@ -5997,9 +6116,24 @@ We need more thought here.
                 (arg1 (first args))
                 (arg2 (second args))
                 (arg3 (third args))
+                (type1 (derive-compiler-type arg1))
                 (type3 (derive-compiler-type arg3))
+                ;; Longs and floats are stored unboxed into arrays of
+                ;; their own type only.
+                (value-rep
+                 (cond ((fixnum-type-p type3) :int)
+                       ((and (eq (type-representation type3) :long)
+                             (compiler-subtypep type1 '(array (signed-byte 64))))
+                        :long)
+                       ((and (eq (type-representation type3) :double)
+                             (compiler-subtypep type1 '(array double-float)))
+                        :double)
+                       ((and (eq (type-representation type3) :float)
+                             (compiler-subtypep type1 '(array single-float)))
+                        :float)))
                 (*register* *register*)
-                (value-register (unless (null target) (allocate-register nil))))
+                (value-register (unless (null target)
+                                  (allocate-register value-rep))))
            (with-operand-accumulation
                (
            ;; array
@@ -6008,33 +6142,22 @@ We need more thought here.
                 (compile-operand arg2 :int)
            ;; value
                 (accumulate-operand
-                         ((when (fixnum-type-p type3) :int)
+                         (value-rep
                           :unsafe-p (some-nested-block
                                      #'node-opstack-unsafe-p
                                      (find-enclosed-blocks arg3)))
-                   (cond ((fixnum-type-p type3)
-                          (compile-form arg3 'stack :int)
-                          (when value-register
-                            (emit 'dup)
-                            (emit-move-from-stack value-register :int)))
-                         (t
-                          (compile-form arg3 'stack nil)
-                          (when value-register
-                            (emit 'dup)
-                            (emit-move-from-stack value-register nil)))))))
+                   (compile-form arg3 'stack value-rep)
+                   (when value-register
+                     (emit (if (memq value-rep '(:long :double)) 'dup2 'dup))
+                     (emit-move-from-stack value-register value-rep)))))
            (maybe-emit-clear-values arg1 arg2 arg3)
-           (cond ((fixnum-type-p type3)
-                  (emit-invokevirtual +lisp-object+ "aset" '(:int :int) nil))
-                 (t
-                  (emit-invokevirtual +lisp-object+ "aset"
-                                      (list :int +lisp-object+) nil)))
+           (emit-invokevirtual +lisp-object+ "aset"
+                               (list :int (or value-rep +lisp-object+)) nil)
            (when value-register
-             (cond ((fixnum-type-p type3)
-                    (emit 'iload value-register)
-                    (convert-representation :int representation))
-                   (t
-                    (aload value-register)
-                    (fix-boxing representation type3)))
+             (emit-push-register value-register value-rep)
+             (if value-rep
+                 (convert-representation value-rep representation)
+                 (fix-boxing representation type3))
              (emit-move-from-stack target representation))))
         (t
          (compile-function-call form target representation))))
@@ -67,6 +67,10 @@
             (i 0))
        (declare (type index i))
        (dolist (seq sequences result)
-         (dotimes (j (length seq))
-           (setf (elt result i) (elt seq j))
-           (incf i)))))))
+         (if (listp seq)
+             (dolist (x seq)
+               (setf (elt result i) x)
+               (incf i))
+             (dotimes (j (length seq))
+               (setf (elt result i) (elt seq j))
+               (incf i))))))))
@@ -79,8 +79,11 @@
        (return))))
 
 (defun df-check-vector (object)
-  (dotimes (index (length object))
-    (df-check-object (aref object index))))
+  ;; Specialized vectors only hold numbers or characters, which can't
+  ;; be circular (and unboxed floats aren't EQ between AREFs anyway).
+  (when (eq (array-element-type object) t)
+    (dotimes (index (length object))
+      (df-check-object (aref object index)))))
 
 (defun df-check-instance (object)
   (df-check-object (get-instance-form object)))
@@ -162,6 +165,20 @@
       (dump-object (aref object (1- length)) stream))
     (%stream-write-char #\) stream)))
 
+(declaim (ftype (function (t stream) t) dump-specialized-vector))
+(defun dump-specialized-vector (object stream)
+  ;; Keep the element type, so the vector is loaded unboxed again.
+  (write-string "#.(MAKE-ARRAY " stream)
+  (write (length object) :stream stream)
+  (write-string " :ELEMENT-TYPE '" stream)
+  (%stream-output-object (array-element-type object) stream)
+  (write-string " :INITIAL-CONTENTS '#(" stream)
+  (dotimes (i (length object))
+    (unless (zerop i)
+      (%stream-write-char #\space stream))
+    (%stream-output-object (aref object i) stream))
+  (write-string "))" stream))
+
 (declaim (ftype (function (t stream) t) dump-instance))
 (defun dump-instance (object stream)
   (write-string "#." stream)
@@ -204,6 +221,10 @@
            (dump-pathname object stream))
           ((bit-vector-p object)
            (%stream-output-object object stream))
+          ((typep object '(or (vector double-float) (vector single-float)
+                              (vector (signed-byte 32))
+                              (vector (signed-byte 64))))
+           (dump-specialized-vector object stream))
           ((vectorp object)
            (dump-vector object stream))
           ((or (structure-object-p object) ;; FIXME instance-p
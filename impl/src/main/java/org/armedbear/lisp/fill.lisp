@@ -58,7 +58,8 @@
 		(null end))
 	   (simple-string-fill sequence item))
 	  (t
-	   (vector-fill sequence item start end)))
+	   (or (%float-vector-fill sequence item start end)
+	       (vector-fill sequence item start end))))
     (sequence:fill sequence item
 		   :start start
 		   :end (sequence::%check-generic-sequence-bounds
@@ -0,0 +1,250 @@
+;;; image.lisp
+;;;
+;;; Copyright (C) 2026 The Armed Bear Common Lisp Project
+;;;
+;;; $Id$
+;;;
+;;; This program is free software; you can redistribute it and/or
+;;; modify it under the terms of the GNU General Public License
+;;; as published by the Free Software Foundation; either version 2
+;;; of the License, or (at your option) any later version.
+;;;
+;;; This program is distributed in the hope that it will be useful,
+;;; but WITHOUT ANY WARRANTY; without even the implied warranty of
+;;; MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+;;; GNU General Public License for more details.
+;;;
+;;; You should have received a copy of the GNU General Public License
+;;; along with this program; if not, write to the Free Software
+;;; Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+;;;
+;;; As a special exception, the copyright holders of this library give you
+;;; permission to link this library with independent modules to produce an
+;;; executable, regardless of the license terms of these independent
+;;; modules, and to copy and distribute the resulting executable under
+;;; terms of your choice, provided that you also meet, for each linked
+;;; independent module, the terms and conditions of the license of that
+;;; module.  An independent module is a module which is not derived from
+;;; or based on this library.  If you modify this library, you may extend
+;;; this exception to your version of the library, but you are not
+;;; obligated to do so.  If you do not wish to do so, delete this
+;;; exception statement from your version.
+
+;;; Saved images of the packages an application has made, restored in a
+;;; fresh runtime instead of loading the application's FASLs again.
+;;;
+;;; SAVE-IMAGE writes the packages, the classes and generic functions
+;;; named by their symbols, and then the symbols with their values,
+;;; functions and property lists, by means of Image.java.  Compiled
+;;; functions are saved with the classes of their FASLs; functions
+;;; compiled in memory, streams and threads can't be saved, and are
+;;; left out with a warning.  An image can only be restored by the
+;;; version of ABCL which wrote it, which must have booted already:
+;;; the packages of the runtime itself are not saved, and the image
+;;; expects to find them.
+
+(in-package #:system)
+
+(export '(save-image load-image))
+
+(defun image-class-p (class)
+  (or (typep class 'structure-class)
+      (typep class 'standard-class)
+      (typep class 'funcallable-standard-class)))
+
+(defun image-classes (packages)
+  "Returns the classes named by the symbols of PACKAGES, superclasses
+first."
+  (let ((classes ())
+        (sorted ())
+        (visited ()))
+    (dolist (package packages)
+      (do-symbols (symbol package)
+        (when (eq (symbol-package symbol) package)
+          (let ((class (find-class symbol nil)))
+            (when (and class
+                       (eq (class-name class) symbol)
+                       (image-class-p class))
+              (pushnew class classes))))))
+    (labels ((visit (class)
+               (unless (member class visited)
+                 (push class visited)
+                 (dolist (superclass (mop:class-direct-superclasses class))
+                   (when (member superclass classes)
+                     (visit superclass)))
+                 (push class sorted))))
+      (mapc #'visit classes))
+    (nreverse sorted)))
+
+(defun image-class-record (class)
+  (if (typep class 'structure-class)
+      (let ((superclass (second (mop:class-precedence-list class))))
+        (list :structure (class-name class)
+              (mop:class-direct-slots class)
+              (mop:class-slots class)
+              (unless (eq superclass (find-class 'structure-object))
+                (class-name superclass))))
+      (list :class (class-name class)
+            (class-name (class-of class))
+            (mapcar #'class-name (mop:class-direct-superclasses class))
+            (mapcar #'(lambda (slot)
+                        (list :name (mop:slot-definition-name slot)
+                              :initform (mop:slot-definition-initform slot)
+                              :initfunction (mop:slot-definition-initfunction slot)
+                              :initargs (mop:slot-definition-initargs slot)
+                              :readers (mop:slot-definition-readers slot)
+                              :writers (mop:slot-definition-writers slot)
+                              :type (mop:slot-definition-type slot)
+                              :allocation (mop:slot-definition-allocation slot)
+                              :documentation (mop:slot-definition-documentation slot)))
+                    (mop:class-direct-slots class))
+            (mop:class-direct-default-initargs class)
+            (documentation class t))))
+
+(defun image-method-record (method)
+  (list (method-qualifiers method)
+        (mop:method-lambda-list method)
+        (mapcar #'(lambda (specializer)
+                    (if (typep specializer 'mop:eql-specializer)
+                        (list 'eql (mop:eql-specializer-object specializer))
+                        specializer))
+                (mop:method-specializers method))
+        (mop:method-function method)
+        (mop::std-method-fast-function method)
+        (documentation method t)))
+
+(defun image-method-p (method)
+  "Methods made by DEFMETHOD, as accessor methods are made again by
+their classes."
+  (and (typep method 'standard-method)
+       (not (typep method 'mop:standard-accessor-method))))
+
+(defun image-generic-function-records (packages classes)
+  (let ((records ())
+        (generic-functions ()))
+    (dolist (package packages)
+      (do-symbols (symbol package)
+        (when (eq (symbol-package symbol) package)
+          (dolist (name (list symbol (list 'setf symbol)))
+            (when (fboundp name)
+              (let ((gf (fdefinition name)))
+                (when (and (typep gf 'standard-generic-function)
+                           (equal (mop:generic-function-name gf) name)
+                           (not (member gf generic-functions)))
+                  (push gf generic-functions)
+                  (let ((combination
+                          (mop:generic-function-method-combination gf)))
+                    (push (list :generic-function name
+                                (mop:generic-function-lambda-list gf)
+                                (mop:generic-function-argument-precedence-order gf)
+                                (documentation gf t)
+                                (unless (eq combination
+                                            mop::+the-standard-method-combination+)
+                                  combination)
+                                (mapcar #'image-method-record
+                                        (remove-if-not #'image-method-p
+                                                       (mop:generic-function-methods gf))))
+                          records)))))))))
+    ;; Methods of other generic functions on the classes saved
+    (let ((methods ()))
+      (dolist (class classes)
+        (dolist (method (mop:specializer-direct-methods class))
+          (let ((gf (mop:method-generic-function method)))
+            (when (and gf
+                       (image-method-p method)
+                       (not (member gf generic-functions)))
+              (pushnew method methods)))))
+      (dolist (method (nreverse methods))
+        (push (list :method
+                    (mop:generic-function-name (mop:method-generic-function method))
+                    (image-method-record method))
+              records)))
+    (nreverse records)))
+
+(defun save-image (pathname &key (packages (%image-default-packages)))
+  "Writes an image of PACKAGES to the file PATHNAME: the symbols present
+in them, with their values, functions and property lists, the classes
+and generic functions named by these symbols, and *FEATURES* and
+*MODULES*.  PACKAGES defaults to the packages made after booting, and
+COMMON-LISP-USER.
+
+LOAD-IMAGE, or the --image command line option, restores the image in
+a runtime of the same version of ABCL.  Returns the truename of the
+file."
+  (let* ((packages (mapcar #'(lambda (designator)
+                               (or (find-package designator)
+                                   (error "There is no package named ~S."
+                                          designator)))
+                           packages))
+         (classes (image-classes packages))
+         (definitions (append (mapcar #'image-class-record classes)
+                              (image-generic-function-records packages classes)
+                              (list (list :globals *features* *modules*))))
+         (pathname (merge-pathnames pathname))
+         (dropped (%save-image (namestring (translate-logical-pathname pathname))
+                               packages definitions)))
+    (when dropped
+      (warn "These were left out of the image ~A:~{~%  ~A~}"
+            (namestring pathname) dropped))
+    (truename pathname)))
+
+(defun load-image-method (name record)
+  (destructuring-bind (qualifiers lambda-list specializers function
+                       fast-function documentation)
+      record
+    (mop::ensure-method name
+                        :qualifiers qualifiers
+                        :lambda-list lambda-list
+                        :specializers (mapcar #'(lambda (specializer)
+                                                  (if (consp specializer)
+                                                      (mop:intern-eql-specializer
+                                                       (second specializer))
+                                                      specializer))
+                                              specializers)
+                        :function function
+                        :fast-function fast-function
+                        :documentation documentation)))
+
+(defun load-image-definition (definition)
+  (ecase (first definition)
+    (:structure
+     (destructuring-bind (name direct-slots slots include) (rest definition)
+       (make-structure-class name direct-slots slots include)))
+    (:class
+     (destructuring-bind (name metaclass superclasses direct-slots
+                          direct-default-initargs documentation)
+         (rest definition)
+       (let ((class (mop:ensure-class name
+                                      :metaclass metaclass
+                                      :direct-superclasses superclasses
+                                      :direct-slots direct-slots
+                                      :direct-default-initargs direct-default-initargs
+                                      :documentation documentation)))
+         (unless (mop:class-finalized-p class)
+           (mop:finalize-inheritance class)))))
+    (:generic-function
+     (destructuring-bind (name lambda-list argument-precedence-order
+                          documentation combination methods)
+         (rest definition)
+       (apply #'ensure-generic-function name
+              :lambda-list lambda-list
+              :argument-precedence-order argument-precedence-order
+              :documentation documentation
+              (when combination
+                (list :method-combination combination)))
+       (dolist (method methods)
+         (load-image-method name method))))
+    (:method
+     (load-image-method (second definition) (third definition)))
+    (:globals
+     (destructuring-bind (features modules) (rest definition)
+       (setf *features* (union *features* features)
+             *modules* (union *modules* modules :test #'string=))))))
+
+(defun load-image (pathname)
+  "Restores the image in the file PATHNAME, written by SAVE-IMAGE.
+Returns the truename of the file."
+  (let ((pathname (merge-pathnames pathname)))
+    (%load-image (namestring (translate-logical-pathname pathname))
+                 #'load-image-definition)
+    (truename pathname)))
@@ -162,6 +162,10 @@ initialized from the `java-dotted-name'."
 (define-class-name +java-out-of-memory+ "java.lang.OutOfMemoryError")
 (define-class-name +java-io-input-stream+ "java.io.InputStream")
 (define-class-name +java-util-collection+ "java.util.Collection")
+(define-class-name +java-call-site+ "java.lang.invoke.CallSite")
+(define-class-name +java-method-handles-lookup+
+    "java.lang.invoke.MethodHandles$Lookup")
+(define-class-name +java-method-type+ "java.lang.invoke.MethodType")
 (define-class-name +lisp-object+ "org.armedbear.lisp.LispObject")
 (defconstant +lisp-object-array+ (class-array +lisp-object+))
 (define-class-name +lisp-simple-string+ "org.armedbear.lisp.SimpleString")
@@ -170,6 +174,8 @@ initialized from the `java-dotted-name'."
 (define-class-name +lisp-class+ "org.armedbear.lisp.LispClass")
 (define-class-name +lisp-symbol+ "org.armedbear.lisp.Symbol")
 (define-class-name +lisp-thread+ "org.armedbear.lisp.LispThread")
+(define-class-name +lisp-function-call-site+
+    "org.armedbear.lisp.FunctionCallSite")
 (define-class-name +lisp-closure-binding+ "org.armedbear.lisp.ClosureBinding")
 (defconstant +closure-binding-array+ (class-array +lisp-closure-binding+))
 (define-class-name +lisp-integer+ "org.armedbear.lisp.LispInteger")
@@ -337,7 +343,9 @@ take that effect into account."
     (:long           5 2)
     (:double         6 2)
     (:name-and-type 12 1)
-    (:utf8           1 1)))
+    (:utf8           1 1)
+    (:method-handle 15 1)
+    (:invoke-dynamic 18 1)))
 
 (defstruct (constant-class (:constructor make-constant-class (index name-index))
                            (:include constant
@@ -420,6 +428,35 @@ take that effect into account."
 interface-method reference."
   (%make-constant-member-ref 11 index class-index name/type-index))
 
+(defstruct (constant-method-handle (:constructor
+                                   make-constant-method-handle
+                                       (index reference-kind reference-index))
+                                  (:include constant
+                                            (tag 15)))
+  "Structure holding information on a 'method handle' type item in the
+constant pool; the handle refers to the field or method item at
+`reference-index', `reference-kind' (a number in the range 1-9)
+indicating how the handle accesses the member."
+  reference-kind
+  reference-index)
+
+(defstruct (constant-invoke-dynamic (:constructor
+                                     make-constant-invoke-dynamic
+                                         (index bootstrap-method-index
+                                                name/type-index fallback))
+                                    (:include constant
+                                              (tag 18)))
+  "Structure holding information on an 'invoke dynamic' type item in the
+constant pool, describing the call site of an INVOKEDYNAMIC instruction.
+
+`bootstrap-method-index' is an index into the BootstrapMethods attribute
+of the class.  `fallback' is a (opcode . index) pair describing the
+instruction (having the same stack effect) to be used instead when the
+class is written in a class file version without INVOKEDYNAMIC."
+  bootstrap-method-index
+  name/type-index
+  fallback)
+
 (defstruct (constant-string (:constructor
                              make-constant-string (index value-index))
                             (:include constant
@@ -583,18 +620,21 @@ and string contents."
   "Returns the index of the constant-pool class item for `class'.
 
 `class' must be an instance of `class-name' or a string (which will be converted
-to a `class-name')."
-  (let ((class (if (jvm-class-name-p class)
-                   class
-                   (make-jvm-class-name class))))
-    (let ((entry (gethash class (pool-entries pool))))
-      (unless entry
-        (let ((utf8 (pool-add-utf8 pool (class-name-internal class))))
-          (setf entry
-                (make-constant-class (incf (pool-index pool)) utf8)
-                (gethash class (pool-entries pool)) entry))
-        (push entry (pool-entries-list pool)))
-      (constant-index entry))))
+to a `class-name').  Strings naming the same class share a single item."
+  (let* ((key (if (jvm-class-name-p class)
+                  class
+                  (cons 7 (substitute #\/ #\. class)))) ;; 7 == class tag
+         (entry (gethash key (pool-entries pool))))
+    (unless entry
+      (let* ((class (if (jvm-class-name-p class)
+                        class
+                        (make-jvm-class-name class)))
+             (utf8 (pool-add-utf8 pool (class-name-internal class))))
+        (setf entry
+              (make-constant-class (incf (pool-index pool)) utf8)
+              (gethash key (pool-entries pool)) entry))
+      (push entry (pool-entries-list pool)))
+    (constant-index entry)))
 
 (defun pool-add-field-ref (pool class name type)
   "Returns the index of the constant-pool item which denotes a reference
@@ -642,6 +682,42 @@ See `pool-add-method-ref' for remarks."
       (push entry (pool-entries-list pool)))
     (constant-index entry)))
 
+(defun pool-add-method-handle (pool kind class name type)
+  "Returns the index of the constant-pool item which denotes a handle
+to the method `name' in `class', which is of `type'.
+
+`kind' is the reference kind keyword (currently only :invoke-static),
+the other arguments are the same as for `pool-add-method-ref'."
+  (let* ((kind (ecase kind
+                 (:invoke-static 6)))
+         (key (list* 15 kind (acons name type class)))
+         (entry (gethash key (pool-entries pool))))
+    (unless entry
+      (let ((method-ref (pool-add-method-ref pool class name type)))
+        (setf entry (make-constant-method-handle (incf (pool-index pool))
+                                                 kind method-ref)
+              (gethash key (pool-entries pool)) entry))
+      (push entry (pool-entries-list pool)))
+    (constant-index entry)))
+
+(defun pool-add-invoke-dynamic (pool bootstrap-method-index name type
+                                &optional fallback)
+  "Returns the index of the constant-pool item which denotes a call site
+named `name' of `type' (a method descriptor), linked by the bootstrap
+method at `bootstrap-method-index' in the BootstrapMethods attribute.
+
+See `constant-invoke-dynamic' for the meaning of `fallback'."
+  (let* ((key (list 18 bootstrap-method-index name type))
+         (entry (gethash key (pool-entries pool))))
+    (unless entry
+      (let ((n/t (pool-add-name/type pool name type)))
+        (setf entry (make-constant-invoke-dynamic (incf (pool-index pool))
+                                                  bootstrap-method-index
+                                                  n/t fallback)
+              (gethash key (pool-entries pool)) entry))
+      (push entry (pool-entries-list pool)))
+    (constant-index entry)))
+
 (defun pool-add-string (pool string)
   "Returns the index of the constant-pool item denoting the string."
   (let ((entry (gethash (cons 8 string) ;; 8 == string-tag
@@ -719,9 +795,19 @@ class file as UTF-8 encoded data."
       (push entry (pool-entries-list pool)))
     (constant-index entry)))
 
+(defvar *class-file-version* 49
+  "The major version of the class files being generated.
+
+The default, 49 (Java 1.5), makes the JVM verify the generated code
+using the old type inferencing verifier.  With 50 or higher, every
+method gets a StackMapTable attribute, allowing the faster type
+checking verifier to be used.  Classes for which no frames can be
+computed are written using version 49 instead.")
+
 (defstruct (class-file (:constructor
                         make-class-file (class superclass access-flags)))
   "Holds the components of a class file."
+  (version *class-file-version*)
   (constants (make-pool))
   access-flags
   class
@@ -826,6 +912,8 @@ The class can't be modified after finalization."
     (finalize-field field class))
   (dolist (method (class-file-methods class))
     (finalize-method method class))
+  (when (< (class-file-version class) 51)
+    (finalize-invokedynamic-constants class))
   ;; top-level attributes (no parent attributes to refer to)
   (finalize-attributes (class-file-attributes class) nil class))
 
@@ -917,7 +1005,8 @@ The class can't be modified after finalization."
   ;; header
   (write-u4 #xCAFEBABE stream)
   (write-u2 0 stream)
-  (write-u2 49 stream)  ;; our <clinit> methods use class literals
+  (write-u2 (class-file-version class) stream)
+  ;; our <clinit> methods use class literals
   ;; which require a high enough class file format
   ;; we used to have 45, but the LDC instruction doesn't support
   ;; class literals in that version... (49 == Java 1.5)
@@ -991,6 +1080,13 @@ to allow debugging output of the constant section of the class file.")
            (write-u2 (constant-class-name-index entry) stream))
           (8                            ; string
            (write-u2 (constant-string-value-index entry) stream))
+          (15                           ; method handle
+           (write-u1 (constant-method-handle-reference-kind entry) stream)
+           (write-u2 (constant-method-handle-reference-index entry) stream))
+          (18                           ; invoke dynamic
+           (write-u2 (constant-invoke-dynamic-bootstrap-method-index entry)
+                     stream)
+           (write-u2 (constant-invoke-dynamic-name/type-index entry) stream))
           (t
            (error "write-constant-pool-entry unhandled tag ~D~%" tag)))))))
 
@@ -1011,7 +1107,13 @@ to allow debugging output of the constant section of the class file.")
                         (constant-name/type-name-index entry)
                         (constant-name/type-descriptor-index entry)))
       (7 (sys::%format t "cls: ~a~%" (constant-class-name-index entry)))
-      (8 (sys::%format t "str: ~a~%" (constant-string-value-index entry))))))
+      (8 (sys::%format t "str: ~a~%" (constant-string-value-index entry)))
+      (15 (sys::%format t "mh: ~a,~a~%"
+                        (constant-method-handle-reference-kind entry)
+                        (constant-method-handle-reference-index entry)))
+      (18 (sys::%format t "indy: ~a,~a~%"
+                        (constant-invoke-dynamic-bootstrap-method-index entry)
+                        (constant-invoke-dynamic-name/type-index entry))))))
 
 
 (defmethod print-pool-constant (pool (entry constant-utf8) stream &key)
@@ -1267,6 +1369,26 @@ has been finalized."
     (unless (code-max-locals code)
       (setf (code-max-locals code)
             (analyze-locals code)))
+    (when (<= 50 (class-file-version class))
+      (multiple-value-bind
+            (frames new-code initial-locals)
+          (compute-stack-map-frames c handlers (code-max-locals code)
+                                    (find code (class-file-methods class)
+                                          :key #'method-attributes
+                                          :test #'member)
+                                    class)
+        (cond
+          (new-code
+           (setf c new-code)
+           (when frames
+             (code-add-attribute code
+                                 (make-stack-map-table-attribute
+                                  :frames frames
+                                  :initial-locals initial-locals))))
+          (t
+           (class-file-drop-stack-maps class)))))
+    (when (< (class-file-version class) 51)
+      (setf c (replace-invokedynamic-instructions c class)))
     (multiple-value-bind
           (c labels)
         (code-bytes c)
@@ -1319,6 +1441,87 @@ has been finalized."
 
   (write-attributes (code-attributes code) stream))
 
+(defun class-file-drop-stack-maps (class)
+  "Reverts `class' to class file version 49, removing the StackMapTable
+attributes computed for the methods finalized so far and replacing
+their INVOKEDYNAMIC instructions."
+  (setf (class-file-version class) 49)
+  (dolist (method (class-file-methods class))
+    (dolist (code (remove-if-not #'code-attribute-p
+                                 (method-attributes method)))
+      (setf (code-attributes code)
+            (remove-if #'stack-map-table-attribute-p
+                       (code-attributes code)))
+      (when (vectorp (code-code code)) ;; finalized already
+        (replace-invokedynamic-bytes (code-code code) class)))))
+
+(defun invokedynamic-fallback (class index)
+  "Returns the opcode and the argument of the instruction replacing an
+INVOKEDYNAMIC instruction for the call site item at `index'."
+  (let ((fallback (constant-invoke-dynamic-fallback
+                   (find-pool-entry (class-file-constants class) index))))
+    (assert fallback)
+    (values (car fallback) (cdr fallback))))
+
+(defun replace-invokedynamic-instructions (code class)
+  "Returns `code', a vector of resolved instructions, with INVOKEDYNAMIC
+instructions replaced by their fallbacks, padded with NOPs."
+  (if (notany #'(lambda (instruction)
+                  (= (instruction-opcode instruction) 186))
+              code)
+      code
+      (let ((new-code (make-array (length code) :fill-pointer 0
+                                  :adjustable t)))
+        (dotimes (i (length code) new-code)
+          (let ((instruction (aref code i)))
+            (cond
+              ((= (instruction-opcode instruction) 186) ; INVOKEDYNAMIC
+               (let ((args (instruction-args instruction)))
+                 (multiple-value-bind
+                       (opcode index)
+                     (invokedynamic-fallback class
+                                             (logior (ash (first args) 8)
+                                                     (second args)))
+                   (vector-push-extend (inst opcode (u2 index)) new-code)
+                   (dotimes (j (- (opcode-size 186) (opcode-size opcode)))
+                     (vector-push-extend (inst 0) new-code))))) ; NOP
+              (t
+               (vector-push-extend instruction new-code))))))))
+
+(defun replace-invokedynamic-bytes (bytes class)
+  "Replaces the INVOKEDYNAMIC instructions in `bytes', the code of a
+finalized method, by their fallbacks, padded with NOPs.
+
+The code mustn't contain variable length instructions."
+  (do ((i 0 (+ i (opcode-size (svref bytes i)))))
+      ((>= i (length bytes)))
+    (when (= (svref bytes i) 186) ; INVOKEDYNAMIC
+      (multiple-value-bind
+            (opcode index)
+          (invokedynamic-fallback class (logior (ash (svref bytes (1+ i)) 8)
+                                                (svref bytes (+ i 2))))
+        (setf (subseq bytes i (+ i (opcode-size 186)))
+              (append (list opcode) (u2 index)
+                      (make-list (- (opcode-size 186) (opcode-size opcode))
+                                 :initial-element 0)))))))
+
+(defun finalize-invokedynamic-constants (class)
+  "Replaces the call site and method handle items in the constant pool
+of `class' by placeholders, for class file versions which don't support
+them, along with the BootstrapMethods attribute referring to them."
+  (setf (class-file-attributes class)
+        (remove "BootstrapMethods" (class-file-attributes class)
+                :test #'equal :key #'attribute-name))
+  (let ((pool (class-file-constants class)))
+    (setf (pool-entries-list pool)
+          (mapcar #'(lambda (entry)
+                      (if (or (constant-invoke-dynamic-p entry)
+                              (constant-method-handle-p entry))
+                          (make-constant-utf8 (constant-index entry)
+                                              "unused")
+                          entry))
+                  (pool-entries-list pool)))))
+
 (defun make-code-attribute (arg-count &optional optimize)
   "Creates an empty 'Code' attribute for a method which takes
 `arg-count` parameters, including the implicit `this` parameter."
@@ -1396,6 +1599,108 @@ After finalization, the fields contain offsets instead of labels."
   (dolist (exception (reverse (checked-table checked-exceptions)))
     (write-u2 exception stream)))
 
+(defstruct (stack-map-table-attribute
+             (:conc-name stack-map-table-)
+             (:include attribute
+                       (name "StackMapTable")
+                       (finalizer #'finalize-stack-map-table)
+                       (writer #'write-stack-map-table)))
+  "An attribute of `code-attribute', containing the types of the local
+variables and operand stack entries at the branch targets of the code.
+
+Required by the type checking verifier for class file versions 50 and up."
+  frames ;; a list of (offset locals stack), in order of ascending offset
+  initial-locals ;; the locals of the implicit frame at the method's entry
+  )
+
+(defun finalize-stack-map-table (stack-map-table code class)
+  "Replaces the class names in the frames of `stack-map-table' by
+the constant pool indices of the corresponding class items."
+  (declare (ignore code))
+  (let ((pool (class-file-constants class)))
+    (flet ((finalize-types (types)
+             (mapcar #'(lambda (type)
+                         (if (stringp type)
+                             (cons :object (pool-add-class pool type))
+                             type))
+                     types)))
+      (setf (stack-map-table-initial-locals stack-map-table)
+            (finalize-types (stack-map-table-initial-locals stack-map-table))
+            (stack-map-table-frames stack-map-table)
+            (mapcar #'(lambda (frame)
+                        (destructuring-bind (offset locals stack) frame
+                          (list offset
+                                (finalize-types locals)
+                                (finalize-types stack))))
+                    (stack-map-table-frames stack-map-table))))))
+
+(defun write-verification-type (type stream)
+  (cond
+    ((consp type)
+     (write-u1 (ecase (car type)
+                 (:object 7)
+                 (:uninitialized 8)) stream)
+     (write-u2 (cdr type) stream))
+    (t
+     (write-u1 (ecase type
+                 (:top 0)
+                 (:integer 1)
+                 (:float 2)
+                 (:double 3)
+                 (:long 4)
+                 (:null 5)
+                 (:uninitialized-this 6)) stream))))
+
+(defun write-stack-map-table (stack-map-table stream)
+  "Writes `stack-map-table' to `stream', choosing the most compact
+frame type available for each of its frames."
+  (let ((frames (stack-map-table-frames stack-map-table)))
+    (write-u2 (length frames) stream)
+    (do* ((frames frames (cdr frames))
+          (previous-offset -1 offset)
+          (previous-locals (stack-map-table-initial-locals stack-map-table)
+                           locals)
+          (offset (first (car frames)) (first (car frames)))
+          (locals (second (car frames)) (second (car frames)))
+          (stack (third (car frames)) (third (car frames))))
+         ((null frames))
+      (let ((delta (- offset previous-offset 1))
+            (extra (- (length locals) (length previous-locals))))
+        (cond
+          ((and (null stack) (equal locals previous-locals))
+           (cond ((< delta 64)
+                  (write-u1 delta stream))           ;; same_frame
+                 (t
+                  (write-u1 251 stream)              ;; same_frame_extended
+                  (write-u2 delta stream))))
+          ((and (= 1 (length stack)) (equal locals previous-locals))
+           (cond ((< delta 64)                       ;; same_locals_1_stack_item
+                  (write-u1 (+ 64 delta) stream))
+                 (t                        ;; same_locals_1_stack_item_extended
+                  (write-u1 247 stream)
+                  (write-u2 delta stream)))
+           (write-verification-type (car stack) stream))
+          ((and (null stack) (<= -3 extra -1)
+                (equal locals (subseq previous-locals 0 (length locals))))
+           (write-u1 (+ 251 extra) stream)           ;; chop_frame
+           (write-u2 delta stream))
+          ((and (null stack) (<= 1 extra 3)
+                (equal previous-locals
+                       (subseq locals 0 (length previous-locals))))
+           (write-u1 (+ 251 extra) stream)           ;; append_frame
+           (write-u2 delta stream)
+           (dolist (type (nthcdr (length previous-locals) locals))
+             (write-verification-type type stream)))
+          (t
+           (write-u1 255 stream)                     ;; full_frame
+           (write-u2 delta stream)
+           (write-u2 (length locals) stream)
+           (dolist (type locals)
+             (write-verification-type type stream))
+           (write-u2 (length stack) stream)
+           (dolist (type stack)
+             (write-verification-type type stream))))))))
+
 ;; Can't be used yet: serialization missing
 (defstruct (deprecated-attribute (:include attribute
                                            (name "Deprecated")
@@ -1464,6 +1769,45 @@ it was compiled from."
   (write-u2 (source-filename source-file) stream))
 
 
+(defstruct (bootstrap-methods-attribute
+             (:conc-name bootstrap-methods-)
+             (:include attribute
+                       (name "BootstrapMethods")
+                       (finalizer (constantly nil))
+                       (writer #'write-bootstrap-methods)))
+  ;; the finalizer needs to do nothing: all entries are pool indices
+  "An attribute of the class file listing the bootstrap methods used
+to link its INVOKEDYNAMIC call sites."
+  methods ;; a list of (method-handle-index argument-indices...), in order
+  )
+
+(defun write-bootstrap-methods (bootstrap-methods stream)
+  (write-u2 (length (bootstrap-methods-methods bootstrap-methods)) stream)
+  (dolist (method (bootstrap-methods-methods bootstrap-methods))
+    (write-u2 (car method) stream)
+    (write-u2 (length (cdr method)) stream)
+    (dolist (argument (cdr method))
+      (write-u2 argument stream))))
+
+(defun class-add-bootstrap-method (class method-handle-index
+                                   &optional argument-indices)
+  "Returns the index of the bootstrap method invoking the method handle
+at `method-handle-index' with the static arguments at `argument-indices'
+in the BootstrapMethods attribute of `class', adding it when necessary."
+  (let ((attribute (class-attribute class "BootstrapMethods"))
+        (method (cons method-handle-index argument-indices)))
+    (unless attribute
+      (setf attribute (make-bootstrap-methods-attribute))
+      (class-add-attribute class attribute))
+    (or (position method (bootstrap-methods-methods attribute)
+                  :test #'equal)
+        (prog1
+            (length (bootstrap-methods-methods attribute))
+          (setf (bootstrap-methods-methods attribute)
+                (append (bootstrap-methods-methods attribute)
+                        (list method)))))))
+
+
 (defstruct (synthetic-attribute (:include attribute
                                           (name "Synthetic")
                                           (finalizer (constantly nil))
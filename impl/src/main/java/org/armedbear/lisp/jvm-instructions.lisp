@@ -143,8 +143,8 @@
 (define-opcode ldc2_w 20 3 2 nil "P")
 (define-opcode iload 21 2 1 t)
 (define-opcode lload 22 2 2 t)
-(define-opcode fload 23 2 nil t)
-(define-opcode dload 24 2 nil t)
+(define-opcode fload 23 2 1 t)
+(define-opcode dload 24 2 2 t)
 (define-opcode aload 25 2 1 t)
 (define-opcode iload_0 26 1 1 0)
 (define-opcode iload_1 27 1 1 1)
@@ -154,14 +154,14 @@
 (define-opcode lload_1 31 1 2 1)
 (define-opcode lload_2 32 1 2 2)
 (define-opcode lload_3 33 1 2 3)
-(define-opcode fload_0 34 1 nil 0)
-(define-opcode fload_1 35 1 nil 1)
-(define-opcode fload_2 36 1 nil 2)
-(define-opcode fload_3 37 1 nil 3)
-(define-opcode dload_0 38 1 nil 0)
-(define-opcode dload_1 39 1 nil 1)
-(define-opcode dload_2 40 1 nil 2)
-(define-opcode dload_3 41 1 nil 3)
+(define-opcode fload_0 34 1 1 0)
+(define-opcode fload_1 35 1 1 1)
+(define-opcode fload_2 36 1 1 2)
+(define-opcode fload_3 37 1 1 3)
+(define-opcode dload_0 38 1 2 0)
+(define-opcode dload_1 39 1 2 1)
+(define-opcode dload_2 40 1 2 2)
+(define-opcode dload_3 41 1 2 3)
 (define-opcode aload_0 42 1 1 0)
 (define-opcode aload_1 43 1 1 1)
 (define-opcode aload_2 44 1 1 2)
@@ -176,8 +176,8 @@
 (define-opcode saload 53 1 nil nil)
 (define-opcode istore 54 2 -1 t)
 (define-opcode lstore 55 2 -2 t)
-(define-opcode fstore 56 2 nil t)
-(define-opcode dstore 57 2 nil t)
+(define-opcode fstore 56 2 -1 t)
+(define-opcode dstore 57 2 -2 t)
 (define-opcode astore 58 2 -1 t)
 (define-opcode istore_0 59 1 -1 0)
 (define-opcode istore_1 60 1 -1 1)
@@ -187,14 +187,14 @@
 (define-opcode lstore_1 64 1 -2 1)
 (define-opcode lstore_2 65 1 -2 2)
 (define-opcode lstore_3 66 1 -2 3)
-(define-opcode fstore_0 67 1 nil 0)
-(define-opcode fstore_1 68 1 nil 1)
-(define-opcode fstore_2 69 1 nil 2)
-(define-opcode fstore_3 70 1 nil 3)
-(define-opcode dstore_0 71 1 nil 0)
-(define-opcode dstore_1 72 1 nil 1)
-(define-opcode dstore_2 73 1 nil 2)
-(define-opcode dstore_3 74 1 nil 3)
+(define-opcode fstore_0 67 1 -1 0)
+(define-opcode fstore_1 68 1 -1 1)
+(define-opcode fstore_2 69 1 -1 2)
+(define-opcode fstore_3 70 1 -1 3)
+(define-opcode dstore_0 71 1 -2 0)
+(define-opcode dstore_1 72 1 -2 1)
+(define-opcode dstore_2 73 1 -2 2)
+(define-opcode dstore_3 74 1 -2 3)
 (define-opcode astore_0 75 1 -1 0)
 (define-opcode astore_1 76 1 -1 1)
 (define-opcode astore_2 77 1 -1 2)
@@ -307,7 +307,7 @@
 (define-opcode invokespecial 183 3 nil nil "P")
 (define-opcode invokestatic 184 3 nil nil "P")
 (define-opcode invokeinterface 185 5 nil nil "P")
-(define-opcode unused 186 0 nil nil)
+(define-opcode invokedynamic 186 5 nil nil "P")
 (define-opcode new 187 3 1 nil "P")
 (define-opcode newarray 188 2 nil nil)
 (define-opcode anewarray 189 3 0 nil)
@@ -714,6 +714,22 @@
 (define-resolver 55 (instruction)
   (load/store-resolver instruction 63 55 "LSTORE unsupported case"))
 
+;; fload
+(define-resolver 23 (instruction)
+  (load/store-resolver instruction 34 23 "FLOAD unsupported case"))
+
+;; fstore
+(define-resolver 56 (instruction)
+  (load/store-resolver instruction 67 56 "FSTORE unsupported case"))
+
+;; dload
+(define-resolver 24 (instruction)
+  (load/store-resolver instruction 38 24 "DLOAD unsupported case"))
+
+;; dstore
+(define-resolver 57 (instruction)
+  (load/store-resolver instruction 71 57 "DSTORE unsupported case"))
+
 ;; bipush, sipush
 (define-resolver (16 17) (instruction)
   (let* ((args (instruction-args instruction))
@@ -765,6 +781,13 @@
           (u2 arg))
     instruction))
 
+(define-resolver 186 (instruction)
+  ;; the pool index is followed by two zero bytes
+  (let* ((arg (car (instruction-args instruction))))
+    (setf (instruction-args instruction)
+          (append (u2 arg) (list 0 0)))
+    instruction))
+
 (defknown resolve-instruction (t) t)
 (defun resolve-instruction (instruction)
   (declare (optimize speed))
@@ -874,6 +897,635 @@
                              opcode-register))
                        0)))))))
 
+;; STACK MAP FRAMES
+
+;; Types are represented as in the StackMapTable attribute:
+;; :top, :integer, :float, :long, :double, :null, :uninitialized-this,
+;; (:uninitialized . index) with `index' the index of the NEW instruction,
+;; or a string holding the internal name of a class or array class.
+;;
+;; Locals and stack entries are tracked per slot: the second slot of a
+;; long or double holds :top.  The operand stack is a list, top first.
+
+(defstruct (stack-map-state (:constructor make-stack-map-state
+                                          (locals stack)))
+  locals
+  stack)
+
+(defun copy-stack-map-state* (state)
+  (make-stack-map-state (copy-seq (stack-map-state-locals state))
+                        (stack-map-state-stack state)))
+
+(defun stack-map-fail ()
+  (throw 'stack-map-frames nil))
+
+(defun pool-entries-vector (pool)
+  (let ((vector (make-array (1+ (pool-index pool)) :initial-element nil)))
+    (dolist (entry (pool-entries-list pool) vector)
+      (setf (svref vector (constant-index entry)) entry))))
+
+(defun descriptor-types (descriptor &optional (start 0))
+  "Returns the list of types encoded in `descriptor' from `start' up
+to the closing parenthesis or the end of the string, as well as the
+index just beyond the last type."
+  (let ((types nil)
+        (index start)
+        (length (length descriptor)))
+    (loop
+       (when (or (>= index length)
+                 (char= (char descriptor index) #\)))
+         (return (values (nreverse types) index)))
+       (let ((end index))
+         (loop while (char= (char descriptor end) #\[)
+            do (incf end))
+         (when (char= (char descriptor end) #\L)
+           (setf end (position #\; descriptor :start end)))
+         (incf end)
+         (push (if (= (- end index) 1)
+                   (ecase (char descriptor index)
+                     ((#\I #\Z #\B #\C #\S) :integer)
+                     (#\F :float)
+                     (#\J :long)
+                     (#\D :double)
+                     (#\V nil))
+                   (if (char= (char descriptor index) #\L)
+                       (subseq descriptor (1+ index) (1- end))
+                       (subseq descriptor index end)))
+               types)
+         (setf index end)))))
+
+(defun method-descriptor-types (descriptor)
+  "Returns the argument types and the return type (NIL for void) of
+the method `descriptor'."
+  (multiple-value-bind
+        (arguments index)
+      (descriptor-types descriptor 1)
+    (values arguments
+            (first (descriptor-types descriptor (1+ index))))))
+
+(declaim (inline wide-type-p))
+(defun wide-type-p (type)
+  (or (eq type :long) (eq type :double)))
+
+(defun stack-map-pool-utf8 (pool-vector index)
+  (constant-utf8-value (svref pool-vector index)))
+
+(defun stack-map-pool-class (pool-vector index)
+  (stack-map-pool-utf8 pool-vector
+                       (constant-class-name-index (svref pool-vector index))))
+
+(defun stack-map-member-ref (pool-vector index)
+  "Returns the class, name and descriptor of the member reference
+stored at `index'."
+  (let* ((ref (svref pool-vector index))
+         (name/type (svref pool-vector
+                           (constant-member-ref-name/type-index ref))))
+    (values (stack-map-pool-class pool-vector
+                                  (constant-member-ref-class-index ref))
+            (stack-map-pool-utf8 pool-vector
+                                 (constant-name/type-name-index name/type))
+            (stack-map-pool-utf8 pool-vector
+                                 (constant-name/type-descriptor-index
+                                  name/type)))))
+
+(defvar *stack-map-superclass-cache* (make-hash-table :test 'equal))
+
+(defun stack-map-java-class (name)
+  (ignore-errors (java:jclass (substitute #\. #\/ name))))
+
+(defun stack-map-common-superclass (type-1 type-2)
+  "Returns the most specific class both class names `type-1' and
+`type-2' are assignable to, as the verifier sees it: interfaces are
+treated like java.lang.Object."
+  (let ((key (cons type-1 type-2)))
+    (multiple-value-bind
+          (superclass present-p)
+        (gethash key *stack-map-superclass-cache*)
+      (when present-p
+        (return-from stack-map-common-superclass superclass)))
+    (setf (gethash key *stack-map-superclass-cache*)
+          (cond
+            ((or (char= (char type-1 0) #\[)
+                 (char= (char type-2 0) #\[))
+             (if (and (char= (char type-1 0) #\[)
+                      (char= (char type-2 0) #\[)
+                      (find (char type-1 1) "L[")
+                      (find (char type-2 1) "L["))
+                 (let ((component
+                        (stack-map-common-superclass
+                         (first (descriptor-types type-1 1))
+                         (first (descriptor-types type-2 1)))))
+                   (if (char= (char component 0) #\[)
+                       (concatenate 'string "[" component)
+                       (concatenate 'string "[L" component ";")))
+                 "java/lang/Object"))
+            (t
+             (let ((class-1 (stack-map-java-class type-1))
+                   (class-2 (stack-map-java-class type-2)))
+               (if (or (null class-1)
+                       (null class-2)
+                       (java:jclass-interface-p class-1)
+                       (java:jclass-interface-p class-2))
+                   "java/lang/Object"
+                   (do ((class class-1 (java:jclass-superclass class)))
+                       ((or (null class)
+                            (java:jclass-superclass-p class class-2))
+                        (if class
+                            (substitute #\/ #\. (java:jclass-name class))
+                            "java/lang/Object"))))))))))
+
+(defun merge-stack-map-types (type-1 type-2)
+  "Returns the type both `type-1' and `type-2' can be assigned to, or
+:top if there isn't one."
+  (cond
+    ((equal type-1 type-2) type-1)
+    ((and (eq type-1 :null) (stringp type-2)) type-2)
+    ((and (stringp type-1) (eq type-2 :null)) type-1)
+    ((and (stringp type-1) (stringp type-2))
+     (stack-map-common-superclass type-1 type-2))
+    (t :top)))
+
+(defun merge-stack-map-state (state frames index)
+  "Merges `state' into the frame at `index' in `frames', returning
+non-NIL if that frame changed."
+  (let ((frame (svref frames index)))
+    (cond
+      ((null frame)
+       (setf (svref frames index) (copy-stack-map-state* state))
+       t)
+      (t
+       (let ((changed nil)
+             (locals (stack-map-state-locals frame))
+             (stack (stack-map-state-stack frame)))
+         (unless (= (length stack) (length (stack-map-state-stack state)))
+           (stack-map-fail))
+         (dotimes (i (length locals))
+           (let ((merged (merge-stack-map-types
+                          (svref locals i)
+                          (svref (stack-map-state-locals state) i))))
+             (unless (equal merged (svref locals i))
+               (setf (svref locals i) merged
+                     changed t))))
+         (let ((merged-stack
+                (mapcar #'(lambda (type-1 type-2)
+                            (let ((merged (merge-stack-map-types type-1
+                                                                 type-2)))
+                              (when (and (eq merged :top)
+                                         (not (eq type-1 :top)))
+                                ;; no stack entry is allowed to lose its type
+                                (stack-map-fail))
+                              merged))
+                        stack (stack-map-state-stack state))))
+           (unless (equal merged-stack stack)
+             (setf (stack-map-state-stack frame) merged-stack
+                   changed t)))
+         changed)))))
+
+(defun execute-stack-map-instruction (instruction index state
+                                      pool-vector this-class)
+  "Updates `state' to reflect the effect of executing `instruction',
+found at `index' in the code vector."
+  (let ((opcode (instruction-opcode instruction))
+        (args (instruction-args instruction))
+        (locals (stack-map-state-locals state)))
+    (labels ((push-type (type)
+               (when (wide-type-p type)
+                 (push type (stack-map-state-stack state))
+                 (setf type :top))
+               (push type (stack-map-state-stack state)))
+             (pop-slots (n)
+               (dotimes (i n)
+                 (unless (stack-map-state-stack state)
+                   (stack-map-fail))
+                 (pop (stack-map-state-stack state))))
+             (pop-type (type)
+               (pop-slots (if (wide-type-p type) 2 1)))
+             (pop-push (n type)
+               (pop-slots n)
+               (push-type type))
+             (pool-index ()
+               (logior (ash (first args) 8) (second args)))
+             (local-slot (base)
+               (if (<= base opcode (+ base 3))
+                   (- opcode base)
+                   (first args)))
+             (load-local (index)
+               (unless (< index (length locals))
+                 (stack-map-fail))
+               (let ((type (svref locals index)))
+                 (when (eq type :top)
+                   (stack-map-fail))
+                 (push-type type)))
+             (store-local (index type)
+               (unless (< (+ index (if (wide-type-p type) 1 0))
+                          (length locals))
+                 (stack-map-fail))
+               (when (and (< 0 index)
+                          (wide-type-p (svref locals (1- index))))
+                 (setf (svref locals (1- index)) :top))
+               (setf (svref locals index) type)
+               (when (wide-type-p type)
+                 (setf (svref locals (1+ index)) :top)))
+             (replace-type (old new)
+               (dotimes (i (length locals))
+                 (when (equal (svref locals i) old)
+                   (setf (svref locals i) new)))
+               (setf (stack-map-state-stack state)
+                     (substitute new old (stack-map-state-stack state)
+                                 :test #'equal)))
+             (constant-type (index)
+               (ecase (constant-tag (svref pool-vector index))
+                 (3 :integer)
+                 (4 :float)
+                 (5 :long)
+                 (6 :double)
+                 (7 "java/lang/Class")
+                 (8 "java/lang/String")))
+             (invoke (receiver-p)
+               (multiple-value-bind
+                     (class name descriptor)
+                   (stack-map-member-ref pool-vector (pool-index))
+                 (multiple-value-bind
+                       (arguments return-type)
+                     (method-descriptor-types descriptor)
+                   (dolist (type (reverse arguments))
+                     (pop-type type))
+                   (when receiver-p
+                     (let ((receiver (first (stack-map-state-stack state))))
+                       (pop-slots 1)
+                       (when (string= name "<init>")
+                         (cond
+                           ((eq receiver :uninitialized-this)
+                            (replace-type receiver this-class))
+                           ((and (consp receiver)
+                                 (eq (car receiver) :uninitialized))
+                            (replace-type receiver class))))))
+                   (when return-type
+                     (push-type return-type)))))
+             (stack-list (n)
+               (when (< (length (stack-map-state-stack state)) n)
+                 (stack-map-fail))
+               (subseq (stack-map-state-stack state) 0 n)))
+      (case opcode
+        ((0 132))                                      ; nop iinc
+        (1 (push-type :null))                          ; aconst_null
+        ((2 3 4 5 6 7 8 16 17) (push-type :integer))   ; iconst_* bipush sipush
+        ((9 10) (push-type :long))                     ; lconst_*
+        ((11 12 13) (push-type :float))                ; fconst_*
+        ((14 15) (push-type :double))                  ; dconst_*
+        (18 (push-type (constant-type (first args))))  ; ldc
+        ((19 20) (push-type (constant-type (pool-index)))) ; ldc_w ldc2_w
+        ((21 26 27 28 29) (load-local (local-slot 26))) ; iload
+        ((22 30 31 32 33) (load-local (local-slot 30))) ; lload
+        ((23 34 35 36 37) (load-local (local-slot 34))) ; fload
+        ((24 38 39 40 41) (load-local (local-slot 38))) ; dload
+        ((25 42 43 44 45) (load-local (local-slot 42))) ; aload
+        ((46 51 52 53) (pop-push 2 :integer))          ; [ibcs]aload
+        (47 (pop-push 2 :long))                        ; laload
+        (48 (pop-push 2 :float))                       ; faload
+        (49 (pop-push 2 :double))                      ; daload
+        (50                                            ; aaload
+         (let ((array (second (stack-map-state-stack state))))
+           (pop-slots 2)
+           (push-type (cond
+                        ((eq array :null) :null)
+                        ((and (stringp array)
+                              (char= (char array 0) #\[))
+                         (first (descriptor-types array 1)))
+                        (t (stack-map-fail))))))
+        ((54 59 60 61 62) (pop-slots 1)                ; istore
+         (store-local (local-slot 59) :integer))
+        ((55 63 64 65 66) (pop-slots 2)                ; lstore
+         (store-local (local-slot 63) :long))
+        ((56 67 68 69 70) (pop-slots 1)                ; fstore
+         (store-local (local-slot 67) :float))
+        ((57 71 72 73 74) (pop-slots 2)                ; dstore
+         (store-local (local-slot 71) :double))
+        ((58 75 76 77 78)                              ; astore
+         (let ((type (first (stack-map-state-stack state))))
+           (pop-slots 1)
+           (store-local (local-slot 75) type)))
+        ((79 81 83 84 85 86) (pop-slots 3))            ; [ifabcs]astore
+        ((80 82) (pop-slots 4))                        ; [ld]astore
+        (87 (pop-slots 1))                             ; pop
+        (88 (pop-slots 2))                             ; pop2
+        ((89 90 91 92 93 94 95)                        ; dup* swap
+         (let* ((n (case opcode
+                     (89 1) ((90 92 95) 2) ((91 93) 3) (94 4)))
+                (top (stack-list n)))
+           (pop-slots n)
+           (dolist (type (reverse
+                          (case opcode
+                            (89 (list (first top) (first top)))
+                            (90 (list (first top) (second top) (first top)))
+                            (91 (list (first top) (second top) (third top)
+                                      (first top)))
+                            (92 (list (first top) (second top)
+                                      (first top) (second top)))
+                            (93 (list (first top) (second top) (third top)
+                                      (first top) (second top)))
+                            (94 (list (first top) (second top) (third top)
+                                      (fourth top) (first top) (second top)))
+                            (95 (list (second top) (first top))))))
+             (push type (stack-map-state-stack state)))))
+        ((96 100 104 108 112 120 122 124 126 128 130)  ; int arithmetic
+         (pop-push 2 :integer))
+        ((97 101 105 109 113 127 129 131)              ; long arithmetic
+         (pop-push 4 :long))
+        ((98 102 106 110 114) (pop-push 2 :float))     ; float arithmetic
+        ((99 103 107 111 115) (pop-push 4 :double))    ; double arithmetic
+        (116 (pop-push 1 :integer))                    ; ineg
+        (117 (pop-push 2 :long))                       ; lneg
+        (118 (pop-push 1 :float))                      ; fneg
+        (119 (pop-push 2 :double))                     ; dneg
+        ((121 123 125) (pop-push 3 :long))             ; lshl lshr lushr
+        (133 (pop-push 1 :long))                       ; i2l
+        (134 (pop-push 1 :float))                      ; i2f
+        (135 (pop-push 1 :double))                     ; i2d
+        (136 (pop-push 2 :integer))                    ; l2i
+        (137 (pop-push 2 :float))                      ; l2f
+        (138 (pop-push 2 :double))                     ; l2d
+        (139 (pop-push 1 :integer))                    ; f2i
+        (140 (pop-push 1 :long))                       ; f2l
+        (141 (pop-push 1 :double))                     ; f2d
+        (142 (pop-push 2 :integer))                    ; d2i
+        (143 (pop-push 2 :long))                       ; d2l
+        (144 (pop-push 2 :float))                      ; d2f
+        ((145 146 147) (pop-push 1 :integer))          ; i2b i2c i2s
+        ((148 151 152) (pop-push 4 :integer))          ; lcmp dcmp*
+        ((149 150) (pop-push 2 :integer))              ; fcmp*
+        ((153 154 155 156 157 158 198 199) (pop-slots 1)) ; if* ifnull
+        ((159 160 161 162 163 164 165 166) (pop-slots 2)) ; if_?cmp*
+        ((167 200 172 173 174 175 176 177 191))        ; goto *return athrow
+        (178 (push-type (first (descriptor-types      ; getstatic
+                                (nth-value 2 (stack-map-member-ref
+                                              pool-vector (pool-index)))))))
+        (179 (pop-type (first (descriptor-types       ; putstatic
+                               (nth-value 2 (stack-map-member-ref
+                                             pool-vector (pool-index)))))))
+        (180 (pop-push 1 (first (descriptor-types     ; getfield
+                                 (nth-value 2 (stack-map-member-ref
+                                               pool-vector (pool-index)))))))
+        (181 (pop-type (first (descriptor-types       ; putfield
+                               (nth-value 2 (stack-map-member-ref
+                                             pool-vector (pool-index))))))
+         (pop-slots 1))
+        ((182 183 185) (invoke t))                     ; invoke{virtual,special,interface}
+        (184 (invoke nil))                             ; invokestatic
+        (186 (let* ((call-site (svref pool-vector (pool-index))) ; invokedynamic
+                    (name/type (svref pool-vector
+                                      (constant-invoke-dynamic-name/type-index
+                                       call-site))))
+               (multiple-value-bind
+                     (arguments return-type)
+                   (method-descriptor-types
+                    (stack-map-pool-utf8 pool-vector
+                                         (constant-name/type-descriptor-index
+                                          name/type)))
+                 (dolist (type (reverse arguments))
+                   (pop-type type))
+                 (when return-type
+                   (push-type return-type)))))
+        (187 (push-type (cons :uninitialized index)))  ; new
+        (188 (pop-push 1 (ecase (first args)           ; newarray
+                           (4 "[Z") (5 "[C") (6 "[F") (7 "[D")
+                           (8 "[B") (9 "[S") (10 "[I") (11 "[J"))))
+        (189 (let ((class (stack-map-pool-class pool-vector (pool-index))))
+               (pop-push 1 (if (char= (char class 0) #\[) ; anewarray
+                               (concatenate 'string "[" class)
+                               (concatenate 'string "[L" class ";")))))
+        (190 (pop-push 1 :integer))                    ; arraylength
+        (192 (pop-push 1 (stack-map-pool-class         ; checkcast
+                          pool-vector (pool-index))))
+        (193 (pop-push 1 :integer))                    ; instanceof
+        ((194 195) (pop-slots 1))                      ; monitor{enter,exit}
+        (t (stack-map-fail))))))
+
+(defun initial-stack-map-state (max-locals descriptor static-p
+                                constructor-p this-class)
+  (let ((locals (make-array max-locals :initial-element :top))
+        (index 0))
+    (flet ((add-local (type)
+             (unless (< index max-locals)
+               (stack-map-fail))
+             (setf (svref locals index) type)
+             (incf index)
+             (when (wide-type-p type)
+               (incf index))))
+      (unless static-p
+        (add-local (if (and constructor-p
+                            (string/= this-class "java/lang/Object"))
+                       :uninitialized-this
+                       this-class)))
+      (dolist (type (method-descriptor-types descriptor))
+        (add-local type)))
+    (make-stack-map-state locals nil)))
+
+(defun stack-map-verification-types (types offsets)
+  "Converts the per-slot `types' (a sequence) to the list of
+verification types of a frame, with uninitialized types referring to
+the code offsets stored in `offsets'."
+  (let ((result nil)
+        (skip nil))
+    (map nil #'(lambda (type)
+                 (cond
+                   (skip (setf skip nil))
+                   (t
+                    (push (if (and (consp type)
+                                   (eq (car type) :uninitialized))
+                              (cons :uninitialized
+                                    (svref offsets (cdr type)))
+                              type)
+                          result)
+                    (setf skip (wide-type-p type)))))
+         types)
+    (nreverse result)))
+
+(defun stack-map-verification-locals (locals offsets)
+  "Like `stack-map-verification-types', but drops the unused locals
+at the end, which the verifier treats as :top."
+  (let ((types (stack-map-verification-types locals offsets)))
+    (subseq types 0 (1+ (or (position :top types :test-not #'eq
+                                      :from-end t)
+                            -1)))))
+
+(defun compute-stack-map-frames (code handlers max-locals method class)
+  "Computes the stack map frames for `code', the resolved instruction
+vector of `method' in `class', a class file which is being finalized.
+
+Returns three values: the list of frames to be stored in the method's
+StackMapTable attribute, the code vector with unreachable code replaced
+by NOP ... ATHROW sequences, and the locals of the method's initial
+frame.  Returns NIL if no frames can be computed for the code."
+  (catch 'stack-map-frames
+    (let* ((pool-vector (pool-entries-vector (class-file-constants class)))
+           (this-class (stack-map-pool-class pool-vector
+                                             (class-file-class class)))
+           (flags (method-access-flags method))
+           (name (stack-map-pool-utf8 pool-vector (method-name method)))
+           (descriptor (stack-map-pool-utf8 pool-vector
+                                            (method-descriptor method)))
+           (length (length code))
+           (frames (make-array length :initial-element nil))
+           (reached (make-array length :initial-element nil))
+           (label-indices (make-hash-table :test 'eq))
+           (offsets (make-array (1+ length)))
+           (ranges nil)
+           (work-list nil))
+      ;; Index the labels and calculate the offsets of all instructions
+      (let ((offset 0))
+        (dotimes (i length)
+          (let ((instruction (aref code i)))
+            (setf (svref offsets i) offset)
+            (if (label-p instruction)
+                (setf (gethash (instruction-label instruction) label-indices) i)
+                (incf offset (opcode-size (instruction-opcode instruction))))))
+        (setf (svref offsets length) offset))
+      (flet ((label-index (label)
+               (or (gethash label label-indices)
+                   (stack-map-fail))))
+        ;; Collect the exception handlers protecting at least one instruction
+        (dolist (handler handlers)
+          (let ((start (label-index (exception-start-pc handler)))
+                (end (label-index (exception-end-pc handler)))
+                (catch-type (exception-catch-type handler)))
+            (when (< (svref offsets start) (svref offsets end))
+              (push (list start end (label-index (exception-handler-pc handler))
+                          (cond
+                            ((null catch-type) "java/lang/Throwable")
+                            ((jvm-class-name-p catch-type)
+                             (class-name-internal catch-type))
+                            (t (substitute #\/ #\. catch-type))))
+                    ranges))))
+        (setf (svref frames 0)
+              (initial-stack-map-state max-locals descriptor
+                                       (logtest flags #x0008)
+                                       (string= name "<init>")
+                                       this-class))
+        (push 0 work-list)
+        ;; Propagate the frames along all paths through the code
+        (loop while work-list
+           do (let* ((start (pop work-list))
+                     (state (copy-stack-map-state* (svref frames start))))
+                (do ((i start (1+ i)))
+                    ((>= i length))
+                  (let* ((instruction (aref code i))
+                         (opcode (instruction-opcode instruction)))
+                    (when (and (/= i start) (label-p instruction))
+                      (when (merge-stack-map-state state frames i)
+                        (push i work-list))
+                      (return))
+                    (setf (svref reached i) t)
+                    (flet ((merge-handlers ()
+                             (dolist (range ranges)
+                               (destructuring-bind
+                                     (range-start range-end handler type)
+                                   range
+                                 (when (and (< range-start i range-end)
+                                            (merge-stack-map-state
+                                             (make-stack-map-state
+                                              (stack-map-state-locals state)
+                                              (list type))
+                                             frames handler))
+                                   (pushnew handler work-list))))))
+                      (unless (label-p instruction)
+                        ;; The verifier checks the handlers against the
+                        ;; locals before and after each instruction
+                        (merge-handlers)
+                        (execute-stack-map-instruction instruction i state
+                                                       pool-vector this-class)
+                        (merge-handlers)))
+                    (when (branch-p opcode)
+                      (let ((target (label-index
+                                     (car (instruction-args instruction)))))
+                        (when (merge-stack-map-state state frames target)
+                          (pushnew target work-list))))
+                    (when (unconditional-control-transfer-p opcode)
+                      (return)))))))
+      ;; Frames are required at branch targets, exception handlers and
+      ;; after unconditional control transfers.  When labels share an
+      ;; offset, the last one of them holds the frame to be used.
+      (let ((targets (make-hash-table :test 'eql))
+            (result nil)
+            (new-code (make-array length :fill-pointer 0 :adjustable t))
+            (dead-code-p nil)
+            (transfer-p nil))
+        (dolist (range ranges)
+          (setf (gethash (third range) targets) t))
+        (dotimes (i length)
+          (let ((opcode (instruction-opcode (aref code i))))
+            (when (branch-p opcode)
+              (setf (gethash (gethash (car (instruction-args (aref code i)))
+                                      label-indices)
+                             targets)
+                    t))))
+        (dotimes (i length)
+          (let ((instruction (aref code i))
+                (offset (svref offsets i)))
+            (cond
+              ((svref reached i)
+               (setf dead-code-p nil)
+               (cond
+                 ((not (label-p instruction))
+                  (setf transfer-p (unconditional-control-transfer-p
+                                    (instruction-opcode instruction))))
+                 ((< offset (svref offsets length))
+                  (let ((required-p (or transfer-p (gethash i targets))))
+                    (when (eql offset (first (first result)))
+                      (when (fourth (pop result))
+                        (setf required-p t)))
+                    (push (list offset
+                                (stack-map-verification-locals
+                                 (stack-map-state-locals (svref frames i))
+                                 offsets)
+                                (stack-map-verification-types
+                                 (reverse
+                                  (stack-map-state-stack (svref frames i)))
+                                 offsets)
+                                required-p)
+                          result))))
+               (vector-push-extend instruction new-code))
+              ((label-p instruction)
+               (vector-push-extend instruction new-code))
+              (t
+               ;; Unreachable code isn't verified when it's replaced
+               ;; by NOPs followed by an ATHROW; just like all other
+               ;; code, it needs a frame though.
+               (dolist (range ranges)
+                 (when (< (first range) i (second range))
+                   ;; also needs the protected ranges to be split
+                   (stack-map-fail)))
+               (unless dead-code-p
+                 (when (eql offset (first (first result)))
+                   (pop result))
+                 (push (list offset nil (list "java/lang/Throwable") t)
+                       result)
+                 (setf dead-code-p t
+                       transfer-p t))
+               (let ((size (opcode-size (instruction-opcode instruction)))
+                     (last-p (do ((j (1+ i) (1+ j)))
+                                 ((or (>= j length)
+                                      (svref reached j))
+                                  t)
+                               (unless (label-p (aref code j))
+                                 (return nil)))))
+                 (dotimes (j size)
+                   (vector-push-extend
+                    (inst (if (and last-p (= j (1- size)))
+                              191 ; ATHROW
+                              0)) ; NOP
+                    new-code)))))))
+        (values (mapcar #'butlast
+                        (nreverse (remove-if-not #'fourth result)))
+                new-code
+                (stack-map-verification-locals
+                 (stack-map-state-locals
+                  (initial-stack-map-state max-locals descriptor
+                                           (logtest flags #x0008)
+                                           (string= name "<init>")
+                                           this-class))
+                 offsets))))))
+
 (defun delete-unused-labels (code handler-labels)
   (declare (optimize speed))
   (let ((code (coerce code 'vector))
@@ -31,7 +31,8 @@
 
 (in-package "JVM")
 
-(export '(compile-defun *catch-errors* derive-compiler-type))
+(export '(compile-defun *catch-errors* derive-compiler-type
+          *class-file-version*))
 
 (require "JVM-CLASS-FILE")
 
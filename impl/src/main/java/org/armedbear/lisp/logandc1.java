@@ -54,19 +54,19 @@ public final class logandc1 extends Primitive
                                   ((Fixnum)second).value);
             if (second instanceof Bignum) {
                 BigInteger n1 = ((Fixnum)first).getBigInteger();
-                BigInteger n2 = ((Bignum)second).value;
+                BigInteger n2 = ((Bignum)second).getBigInteger();
                 return number(n1.not().and(n2));
             }
             return type_error(second, Symbol.INTEGER);
         }
         if (first instanceof Bignum) {
-            BigInteger n1 = ((Bignum)first).value;
+            BigInteger n1 = ((Bignum)first).getBigInteger();
             if (second instanceof Fixnum) {
                 BigInteger n2 = ((Fixnum)second).getBigInteger();
                 return number(n1.not().and(n2));
             }
             if (second instanceof Bignum) {
-                BigInteger n2 = ((Bignum)second).value;
+                BigInteger n2 = ((Bignum)second).getBigInteger();
                 return number(n1.not().and(n2));
             }
             return type_error(second, Symbol.INTEGER);
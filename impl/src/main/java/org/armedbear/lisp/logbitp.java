@@ -55,7 +55,7 @@ public final class logbitp extends Primitive
         } else if (first instanceof Bignum) {
             // FIXME If the number is really big, we're not checking the right
             // bit...
-            if (((Bignum)first).value.signum() > 0)
+            if (((Bignum)first).getBigInteger().signum() > 0)
                 index = Integer.MAX_VALUE;
         }
         if (index < 0)
@@ -64,7 +64,7 @@ public final class logbitp extends Primitive
         if (second instanceof Fixnum)
             n = ((Fixnum)second).getBigInteger();
         else if (second instanceof Bignum)
-            n = ((Bignum)second).value;
+            n = ((Bignum)second).getBigInteger();
         else
             return type_error(second, Symbol.INTEGER);
         // FIXME See above.
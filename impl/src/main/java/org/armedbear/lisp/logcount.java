@@ -53,7 +53,7 @@ public final class logcount extends Primitive
         if (arg instanceof Fixnum)
             n = ((Fixnum)arg).getBigInteger();
         else if (arg instanceof Bignum)
-            n = ((Bignum)arg).value;
+            n = ((Bignum)arg).getBigInteger();
         else
             return type_error(arg, Symbol.INTEGER);
         return Fixnum.getInstance(n.bitCount());
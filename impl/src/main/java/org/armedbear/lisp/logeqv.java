@@ -73,7 +73,7 @@ public final class logeqv extends Primitive
             if (arg instanceof Fixnum)
                 n = ((Fixnum)arg).getBigInteger();
             else if (arg instanceof Bignum)
-                n = ((Bignum)arg).value;
+                n = ((Bignum)arg).getBigInteger();
             else
                 return type_error(arg, Symbol.INTEGER);
             if (result == null)
@@ -54,19 +54,19 @@ public final class lognand extends Primitive
                                     ((Fixnum)second).value));
             if (second instanceof Bignum) {
                 BigInteger n1 = ((Fixnum)first).getBigInteger();
-                BigInteger n2 = ((Bignum)second).value;
+                BigInteger n2 = ((Bignum)second).getBigInteger();
                 return number(n1.and(n2).not());
             }
             return type_error(second, Symbol.INTEGER);
         }
         if (first instanceof Bignum) {
-            BigInteger n1 = ((Bignum)first).value;
+            BigInteger n1 = ((Bignum)first).getBigInteger();
             if (second instanceof Fixnum) {
                 BigInteger n2 = ((Fixnum)second).getBigInteger();
                 return number(n1.and(n2).not());
             }
             if (second instanceof Bignum) {
-                BigInteger n2 = ((Bignum)second).value;
+                BigInteger n2 = ((Bignum)second).getBigInteger();
                 return number(n1.and(n2).not());
             }
             return type_error(second, Symbol.INTEGER);
@@ -57,19 +57,19 @@ public final class logorc1 extends Primitive
                                   ((Fixnum)second).value);
             if (second instanceof Bignum) {
                 BigInteger n1 = ((Fixnum)first).getBigInteger();
-                BigInteger n2 = ((Bignum)second).value;
+                BigInteger n2 = ((Bignum)second).getBigInteger();
                 return number(n1.not().or(n2));
             }
             return type_error(second, Symbol.INTEGER);
         }
         if (first instanceof Bignum) {
-            BigInteger n1 = ((Bignum)first).value;
+            BigInteger n1 = ((Bignum)first).getBigInteger();
             if (second instanceof Fixnum) {
                 BigInteger n2 = ((Fixnum)second).getBigInteger();
                 return number(n1.not().or(n2));
             }
             if (second instanceof Bignum) {
-                BigInteger n2 = ((Bignum)second).value;
+                BigInteger n2 = ((Bignum)second).getBigInteger();
                 return number(n1.not().or(n2));
             }
             return type_error(second, Symbol.INTEGER);
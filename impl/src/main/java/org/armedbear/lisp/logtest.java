@@ -57,13 +57,13 @@ public final class logtest extends Primitive
             if (first instanceof Fixnum)
                 n1 = ((Fixnum)first).getBigInteger();
             else if (first instanceof Bignum)
-                n1 = ((Bignum)first).value;
+                n1 = ((Bignum)first).getBigInteger();
             else
                 return type_error(first, Symbol.INTEGER);
             if (second instanceof Fixnum)
                 n2 = ((Fixnum)second).getBigInteger();
             else if (second instanceof Bignum)
-                n2 = ((Bignum)second).value;
+                n2 = ((Bignum)second).getBigInteger();
             else
                 return type_error(second, Symbol.INTEGER);
             return n1.and(n2).signum() == 0 ? NIL : T;
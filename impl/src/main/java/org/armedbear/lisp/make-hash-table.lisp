@@ -33,7 +33,8 @@
 
 (defun make-hash-table (&key (test 'eql) (size 11) (rehash-size 1.5)
                              (rehash-threshold 0.75)
-                             (weakness nil))
+                             (weakness nil) (concurrent nil)
+                             (open-addressing nil))
   (setf test (coerce-to-function test))
   (unless (and (integerp size) (>= size 0))
     (error 'type-error :datum size :expected-type '(integer 0)))
@@ -41,14 +42,26 @@
         (weakness-types '(or (eql :key) (eql :value)
                              (eql :key-and-value)
                              (eql :key-or-value))))
-    (if weakness
-        (if (not (typep weakness weakness-types))
-            (error 'type-error :datum weakness 
-                   :expected-type weakness-types)
-            (%make-weak-hash-table test size rehash-size 
-                                   rehash-threshold weakness))
-	(%make-hash-table test size 
-                          rehash-size rehash-threshold))))
+    (when (and open-addressing (or weakness concurrent))
+      (error "Open addressing hash tables can't be weak or concurrent."))
+    (cond (weakness
+           (cond ((not (typep weakness weakness-types))
+                  (error 'type-error :datum weakness
+                         :expected-type weakness-types))
+                 (concurrent
+                  (error "Weak hash tables can't be concurrent."))
+                 (t
+                  (%make-weak-hash-table test size rehash-size
+                                         rehash-threshold weakness))))
+          (concurrent
+           (%make-concurrent-hash-table test size
+                                        rehash-size rehash-threshold))
+          (open-addressing
+           (%make-open-addressing-hash-table test size
+                                             rehash-size rehash-threshold))
+          (t
+           (%make-hash-table test size
+                             rehash-size rehash-threshold)))))
 
     
   
@@ -105,8 +105,13 @@
 	     (element-type 'character)
 	     (if-exists nil if-exists-given)
 	     (if-does-not-exist nil if-does-not-exist-given)
-	     (external-format :default))
+	     (external-format :default)
+	     (mapped nil))
 ;  (declare (ignore external-format)) ; FIXME
+  "Opens a stream to FILENAME.
+
+As an extension, a binary input stream is read through memory mappings
+of the file when MAPPED is true."
   (setf element-type (case element-type
                        ((character base-char)
                         'character)
@@ -147,7 +152,11 @@
                    :pathname pathname
                    :format-control "The file ~S does not exist."
                    :format-arguments (list namestring)))))
-       (make-file-stream pathname namestring element-type :input nil external-format))
+       (cond ((not mapped)
+              (make-file-stream pathname namestring element-type :input nil
+                                external-format))
+             ((or if-does-not-exist (probe-file pathname))
+              (make-mapped-file-stream pathname namestring element-type))))
       (:probe
        (case if-does-not-exist
          (:error
@@ -167,6 +176,10 @@
            (close stream))
          stream))
       ((:output :io)
+       (when mapped
+         (error 'file-error
+                :pathname pathname
+                :format-control "Only input streams can be mapped."))
        (case if-does-not-exist
          (:error
           (unless (probe-file pathname)
@@ -0,0 +1,81 @@
+;;; parallel.lisp
+;;;
+;;; Copyright (C) 2026 The Armed Bear Common Lisp Project
+;;;
+;;; $Id$
+;;;
+;;; This program is free software; you can redistribute it and/or
+;;; modify it under the terms of the GNU General Public License
+;;; as published by the Free Software Foundation; either version 2
+;;; of the License, or (at your option) any later version.
+;;;
+;;; This program is distributed in the hope that it will be useful,
+;;; but WITHOUT ANY WARRANTY; without even the implied warranty of
+;;; MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+;;; GNU General Public License for more details.
+;;;
+;;; You should have received a copy of the GNU General Public License
+;;; along with this program; if not, write to the Free Software
+;;; Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+;;;
+;;; As a special exception, the copyright holders of this library give you
+;;; permission to link this library with independent modules to produce an
+;;; executable, regardless of the license terms of these independent
+;;; modules, and to copy and distribute the resulting executable under
+;;; terms of your choice, provided that you also meet, for each linked
+;;; independent module, the terms and conditions of the license of that
+;;; module.  An independent module is a module which is not derived from
+;;; or based on this library.  If you modify this library, you may extend
+;;; this exception to your version of the library, but you are not
+;;; obligated to do so.  If you do not wish to do so, delete this
+;;; exception statement from your version.
+
+;;; Parallel MAP, MAPCAR, REDUCE and SORT, on the fork-join pool of
+;;; ParallelFunctions.java.
+;;;
+;;; FUNCTION is called on several threads at once, in no particular
+;;; order, so it must be safe to do so.  It sees the special bindings
+;;; of the calling thread as they were at the time of the call, but
+;;; not the handlers and restarts established by it; bindings and
+;;; assignments made by FUNCTION aren't visible to the caller.  The
+;;; first error signalled by FUNCTION abandons the computation and is
+;;; signalled again in the calling thread.
+;;;
+;;; The number of threads is given by the system property
+;;; abcl.parallel.threads, by default the number of processors.
+
+(in-package #:system)
+
+(export '(pmap pmapcar preduce psort))
+
+(defun pmap (result-type function first-sequence &rest more-sequences)
+  "Like MAP, calling FUNCTION on several threads at once."
+  (let ((result (%pmap function
+                       (mapcar #'(lambda (sequence)
+                                   (coerce sequence 'simple-vector))
+                               (cons first-sequence more-sequences)))))
+    (when result-type
+      (coerce result result-type))))
+
+(defun pmapcar (function list &rest more-lists)
+  "Like MAPCAR, calling FUNCTION on several threads at once."
+  (coerce (apply #'pmap 'simple-vector function list more-lists) 'list))
+
+(defun preduce (function sequence &key key (initial-value nil initial-value-p))
+  "Like REDUCE without :FROM-END, :START and :END, calling FUNCTION on
+several threads at once.  FUNCTION must be associative: the elements are
+reduced in order, but not grouped from the left."
+  (let ((vector (if key
+                    (%pmap key (list (coerce sequence 'simple-vector)))
+                    (coerce sequence 'simple-vector))))
+    (cond ((zerop (length vector))
+           (if initial-value-p initial-value (funcall function)))
+          (initial-value-p
+           (funcall function initial-value (%preduce function vector)))
+          (t
+           (%preduce function vector)))))
+
+(defun psort (vector predicate &key key)
+  "Destructively sorts the simple vector VECTOR, as STABLE-SORT does,
+calling PREDICATE and KEY on several threads at once."
+  (%psort vector predicate key))
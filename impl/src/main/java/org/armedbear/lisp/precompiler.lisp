@@ -247,6 +247,29 @@
         `(,(cadr callee) ,@(cdr args))
         form)))
 
+;; Calls to SLOT-VALUE with a constant slot name go through a reader
+;; of their own, which accesses the slot by index in instances with the
+;; layout it saw last.
+(define-compiler-macro slot-value (&whole form &rest args)
+  (let ((slot-name (second args)))
+    (if (and (= (length args) 2)
+             (quoted-form-p slot-name)
+             (symbolp (cadr slot-name)))
+        `(funcall (load-time-value (%make-slot-reader ,slot-name nil nil))
+                  ,(first args))
+        form)))
+
+(define-compiler-macro mop::%set-slot-value (&whole form &rest args)
+  (let ((slot-name (second args)))
+    (if (and (= (length args) 3)
+             (quoted-form-p slot-name)
+             (symbolp (cadr slot-name)))
+        (let ((instance (gensym "INSTANCE")))
+          `(let ((,instance ,(first args)))
+             (funcall (load-time-value (%make-slot-writer ,slot-name nil nil))
+                      ,(third args) ,instance)))
+        form)))
+
 (define-compiler-macro byte (size position)
   `(cons ,size ,position))
 
@@ -960,6 +983,12 @@
                         &optional precompile-env)
   (let ((*in-jvm-compile* in-jvm-compile)
         (*inline-declarations* *inline-declarations*)
+        ;; OPTIMIZE declarations in FORM only apply to FORM.
+        (*speed* *speed*)
+        (*space* *space*)
+        (*safety* *safety*)
+        (*debug* *debug*)
+        (*explain* *explain*)
         (pre::*precompile-env* precompile-env))
     (precompile1 form)))
 
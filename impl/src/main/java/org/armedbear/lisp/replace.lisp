@@ -144,7 +144,9 @@
                                                     source-end)
   (when (null target-end) (setq target-end (length target-sequence)))
   (when (null source-end) (setq source-end (length source-sequence)))
-  (mumble-replace-from-mumble))
+  (or (%float-vector-replace target-sequence source-sequence
+                             target-start target-end source-start source-end)
+      (mumble-replace-from-mumble)))
 
 ;;; REPLACE cannot default end arguments to the length of sequence since it
 ;;; is not an error to supply nil for their values.  We must test for ends
@@ -166,6 +168,9 @@ elements into it from the source sequence."
 	(apply #'sequence:replace target-sequence source-sequence args))
       (sequence::seq-dispatch source-sequence
         (mumble-replace-from-list)
-	(mumble-replace-from-mumble)
+	(or (%float-vector-replace target-sequence source-sequence
+                                   target-start target-end
+                                   source-start source-end)
+            (mumble-replace-from-mumble))
 	(apply #'sequence:replace target-sequence source-sequence args))
       (apply #'sequence:replace target-sequence source-sequence args))))
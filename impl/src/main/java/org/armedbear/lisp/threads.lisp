@@ -46,78 +46,17 @@
       (funcall fun)
     (abort () :report "Abort thread.")))
 
-;;
-;; Mailbox implementation
-;;
-
-;; this export statement is also in autoloads.lisp
-(export '(make-mailbox mailbox-send mailbox-empty-p mailbox-read mailbox-peek))
-
-(defstruct mailbox
-  queue)
-
-(defun mailbox-send (mailbox item)
-  "Sends an item into the mailbox, notifying 1 waiter
-to wake up for retrieval of that object."
-  (threads:synchronized-on mailbox
-     (push item (mailbox-queue mailbox))
-     (threads:object-notify mailbox)))
-
-(defun mailbox-empty-p (mailbox)
-  "Returns non-NIL if the mailbox can be read from, NIL otherwise."
-  ;; Because we're just checking the value of an object reference,
-  ;; (which are atomically gotten and set) we don't need to lock
-  ;; the mailbox before operating on it.
-  (null (mailbox-queue mailbox)))
-
-(defun mailbox-read (mailbox)
-  "Blocks on the mailbox until an item is available for reading.
-When an item is available, it is returned."
-  (threads:synchronized-on mailbox
-     (loop
-        (unless (mailbox-empty-p mailbox)
-          (return))
-        (object-wait mailbox))
-     (pop (mailbox-queue mailbox))))
-
-(defun mailbox-peek (mailbox)
-  "Returns two values. The second returns non-NIL when the mailbox
-is empty. The first is the next item to be read from the mailbox.
-
-Note that due to multi-threading, the first value returned upon
-peek, may be different from the one returned upon next read in the
-calling thread."
-  (threads:synchronized-on mailbox
-     (values (car (mailbox-queue mailbox))
-             (null (mailbox-queue mailbox)))))
-
-
+(defun future-function-wrapper (fun)
+  "Calls FUN on behalf of a future: returns the list of its values, or
+the error it signalled, for FUTURE-VALUE to signal again."
+  (handler-case (multiple-value-list (funcall fun))
+    (error (condition) condition)))
 
 ;;
-;; Mutex implementation
+;; Mailboxes, mutexes and semaphores are implemented in Mailbox.java,
+;; Mutex.java and Semaphore.java
 ;;
 
-
-;; this export statement is also in autoloads.lisp
-(export '(make-mutex get-mutex release-mutex))
-
-(defstruct mutex
-  in-use)
-
-(defun get-mutex (mutex)
-  "Acquires a lock on the `mutex'."
-  (synchronized-on mutex
-    (loop
-       while (mutex-in-use mutex)
-       do (object-wait mutex))
-    (setf (mutex-in-use mutex) T)))
-
-(defun release-mutex (mutex)
-  "Releases a lock on the `mutex'."
-  (synchronized-on mutex
-    (setf (mutex-in-use mutex) NIL)
-    (object-notify mutex)))
-
 (defmacro with-mutex ((mutex) &body body)
   "Acquires a lock on `mutex', executes the body
 and releases the lock."
@@ -372,6 +372,82 @@
       (nreverse registers))
   (1 1 2 2 3))
 
+;; generation of a class with branches, requiring a StackMapTable
+(deftest stack-map-table.1
+    (let* ((jvm::*class-file-version* 52)
+           (class (jvm::make-jvm-class-name "org.armedbear.lisp.smt_1"))
+           (file (jvm::make-class-file class jvm::+lisp-primitive+ '(:public))))
+      (let ((method (jvm::make-jvm-method :constructor :void nil)))
+        (jvm::class-add-method file method)
+        (jvm::with-code-to-method (file method)
+          (jvm::emit 'aload 0)
+          (jvm::emit-getstatic jvm::+lisp+ "NIL" jvm::+lisp-symbol+)
+          (jvm::emit-getstatic jvm::+lisp+ "NIL" jvm::+lisp-symbol+)
+          (jvm::emit-invokespecial-init jvm::+lisp-primitive+
+                                        (list jvm::+lisp-object+
+                                              jvm::+lisp-object+))
+          (jvm::emit 'return)))
+      (let ((method (jvm::make-jvm-method "execute" jvm::+lisp-object+
+                                          (list jvm::+lisp-object+))))
+        (jvm::class-add-method file method)
+        (jvm::with-code-to-method (file method)
+          (let ((label1 (gensym)))
+            (jvm::emit 'aload 1)
+            (jvm::emit-getstatic jvm::+lisp+ "NIL" jvm::+lisp-symbol+)
+            (jvm::emit 'jvm::if_acmpeq label1)
+            (jvm::emit-getstatic jvm::+lisp+ "NIL" jvm::+lisp-symbol+)
+            (jvm::emit 'jvm::areturn)
+            (jvm::label label1)
+            (jvm::emit-getstatic jvm::+lisp+ "T" jvm::+lisp-symbol+)
+            (jvm::emit 'jvm::areturn))))
+      (jvm::finalize-class-file file)
+      (with-open-stream (stream (sys::%make-byte-array-output-stream))
+        (jvm::write-class-file file stream)
+        (let* ((bytes (sys::%get-output-stream-bytes stream))
+               (function (sys::load-compiled-function bytes)))
+          (values (java:jarray-ref bytes 7)
+                  (funcall function nil)
+                  (funcall function 42)))))
+  52 T NIL)
+
+(deftest stack-map-table.2
+    (let ((jvm::*class-file-version* 52))
+      (funcall (compile nil '(lambda (n)
+                              (declare (fixnum n))
+                              (let ((sum 0))
+                                (dotimes (i n)
+                                  (incf sum i))
+                                (handler-case
+                                    (if (> sum 10)
+                                        (error "~D" sum)
+                                        sum)
+                                  (error (e)
+                                    (princ-to-string e))))))
+               100))
+  "4950")
+
+;; calls through an INVOKEDYNAMIC call site follow redefinitions
+(deftest invokedynamic.1
+    (let ((jvm::*class-file-version* 52))
+      (setf (symbol-function 'invokedynamic-1-callee)
+            #'(lambda (x) (1+ x)))
+      (let ((caller (compile nil '(lambda (x)
+                                   (declare (optimize speed (debug 0)))
+                                   (invokedynamic-1-callee x)))))
+        (prog1
+            (list (funcall caller 1)
+                  (funcall caller 2)
+                  (progn
+                    (setf (symbol-function 'invokedynamic-1-callee)
+                          #'(lambda (x) (* 10 x)))
+                    (funcall caller 3))
+                  (progn
+                    (fmakunbound 'invokedynamic-1-callee)
+                    (handler-case (funcall caller 4)
+                      (undefined-function () :undefined))))
+          (fmakunbound 'invokedynamic-1-callee))))
+  (2 3 30 :undefined))
+
 ;; ;;  generation of an ABCL-like function, with mixed output to constructor,
 ;; ;;  static initializer and function method(s)
 ;; (deftest generate-method.6
@@ -521,3 +521,62 @@
     (dmc-test-args-with-optional.4c T)
   nil
   nil)
+
+;; more argument classes than the inline cache of the EMF cache holds,
+;; and EQL specializers
+(defgeneric emf-cache.1 (x y)
+  (:method ((x integer) (y integer)) :integer-integer)
+  (:method ((x integer) (y symbol)) :integer-symbol)
+  (:method ((x symbol) y) :symbol-t)
+  (:method ((x (eql :key)) y) :key-t)
+  (:method (x y) :t-t))
+
+(deftest emf-cache.1
+    (loop repeat 3
+          collect (list (emf-cache.1 1 2) (emf-cache.1 1 'a)
+                        (emf-cache.1 'a 1) (emf-cache.1 :key 1)
+                        (emf-cache.1 "a" 1) (emf-cache.1 1 "a")
+                        (emf-cache.1 'b "a")))
+  ((:integer-integer :integer-symbol :symbol-t :key-t :t-t :t-t :symbol-t)
+   (:integer-integer :integer-symbol :symbol-t :key-t :t-t :t-t :symbol-t)
+   (:integer-integer :integer-symbol :symbol-t :key-t :t-t :t-t :symbol-t)))
+
+;; accessors and SLOT-VALUE with a constant slot name remember the
+;; layout of the last instance; they must notice subclasses with
+;; another slot index and redefinition of the class
+(defclass slot-accessor.1 ()
+  ((a :initarg :a :accessor slot-accessor.1-a)))
+
+(defclass slot-accessor.1-sub (slot-accessor.1)
+  ((b :initarg :b)))
+
+(defun slot-accessor.1-a* (instance)
+  (slot-value instance 'a))
+
+(defun (setf slot-accessor.1-a*) (new-value instance)
+  (setf (slot-value instance 'a) new-value))
+
+(deftest slot-accessor.1
+    (let ((x (make-instance 'slot-accessor.1 :a 1))
+          (y (make-instance 'slot-accessor.1-sub :a 2 :b 3)))
+      (list (slot-accessor.1-a x) (slot-accessor.1-a y)
+            (slot-accessor.1-a* x) (slot-accessor.1-a* y)
+            (progn
+              (setf (slot-accessor.1-a x) 4
+                    (slot-accessor.1-a* y) 5)
+              (list (slot-accessor.1-a* x) (slot-accessor.1-a y)))
+            (progn
+              (defclass slot-accessor.1 ()
+                ((c :initform 6)
+                 (a :initarg :a :accessor slot-accessor.1-a)))
+              (list (slot-accessor.1-a x) (slot-accessor.1-a* y)
+                    (slot-value x 'c)))
+            (progn
+              (slot-makunbound x 'a)
+              (list (handler-case (slot-accessor.1-a x)
+                      (unbound-slot () :unbound))
+                    (handler-case (slot-accessor.1-a* x)
+                      (unbound-slot () :unbound))))
+            (handler-case (slot-accessor.1-a 7)
+              (error () :error))))
+  (1 2 1 2 (4 5) (4 5 6) (:unbound :unbound) :error))
@@ -501,3 +501,55 @@
           (compile nil '(lambda (&key args &optional x))))
       (typep error 'program-error))
   t)
+
+#+abcl
+(deftest compiler.5
+    (let ((tmpfile (ext::make-temp-file))
+          (forms '((defun compiler.5-a (x) (1+ x))
+                   (defun compiler.5-b (x) (list x (compiler.5-a x)))
+                   (defun compiler.5-c () (compiler.5-b 41)))))
+      (with-open-file (s tmpfile :direction :output)
+        (dolist (form forms)
+          (write form :stream s)))
+      (let ((fasl (compile-file tmpfile)))
+        (delete-file tmpfile)
+        (unwind-protect
+             (progn
+               (let ((sys:*parallel-fasl-loading* t))
+                 (load fasl))
+               (funcall 'compiler.5-c))
+          (delete-file fasl))))
+  (41 42))
+
+;;; Arithmetic on (SIGNED-BYTE 64) variables stays unboxed and signals
+;;; a TYPE-ERROR when the result doesn't fit.
+(deftest compiler.6
+    (let ((f (compile nil '(lambda (start n step)
+                            (declare (type (signed-byte 64) start step)
+                                     (fixnum n))
+                            (let ((x start))
+                              (declare (type (signed-byte 64) x))
+                              (dotimes (i n x)
+                                (setq x (+ x step))
+                                (setq x (- (* x 1) (- step step)))))))))
+      (list (funcall f 1700000000000 3 1000)
+            (funcall f (- (expt 2 63) 10) 2 4)
+            (handler-case (funcall f (- (expt 2 63) 10) 3 4)
+              (type-error (e) (type-error-datum e)))))
+  (1700000003000 #.(- (expt 2 63) 2) #.(+ (expt 2 63) 2)))
+
+(deftest compiler.7
+    (let ((f (compile nil '(lambda (p q)
+                            (declare (type (signed-byte 64) p q))
+                            (let ((x 0)
+                                  (y 0))
+                              (declare (type (signed-byte 64) x y))
+                              (setq x (* p q)
+                                    y (- p))
+                              (list x y))))))
+      (list (funcall f (expt 2 31) (expt 2 31))
+            (handler-case (funcall f (expt 2 32) (expt 2 32))
+              (type-error () :type-error))
+            (handler-case (funcall f (- (expt 2 63)) 1)
+              (type-error () :type-error))))
+  ((#.(expt 2 62) #.(- (expt 2 31))) :type-error :type-error))
@@ -513,3 +513,62 @@
          (delete-directory directory-namestring))
        )))
   t t t t)
+
+#+abcl
+(deftest open.mapped.1
+  (let ((file (make-temporary-filename *this-directory*)))
+    (with-open-file (stream file :direction :output
+                                 :element-type '(unsigned-byte 8))
+      (dotimes (i 300)
+        (write-byte (mod i 256) stream)))
+    (unwind-protect
+         (list
+          (with-open-file (stream file :element-type '(unsigned-byte 8)
+                                       :mapped t)
+            (let ((vector (make-array 10 :element-type '(unsigned-byte 8))))
+              (list (typep stream 'file-stream)
+                    (pathnames-equal-p (pathname stream) file)
+                    (file-length stream)
+                    (read-byte stream)
+                    (read-sequence vector stream :start 2)
+                    vector
+                    (file-position stream)
+                    (file-position stream 255)
+                    (read-byte stream)
+                    (read-byte stream)
+                    (file-position stream :end)
+                    (read-byte stream nil :eof))))
+          (with-open-file (stream file :element-type '(unsigned-byte 16)
+                                       :mapped t)
+            (list (file-length stream)
+                  (file-position stream 1)
+                  (read-byte stream)
+                  (file-position stream)))
+          (handler-case (open file :mapped t)
+            (file-error () :error)))
+      (delete-file file)))
+  ((t t 300 0 10 #(0 0 1 2 3 4 5 6 7 8) 9 t 255 0 t :eof)
+   (150 t #x0203 2)
+   :error))
+
+#+abcl
+(deftest open.mapped.2
+  (let ((file (make-temporary-filename *this-directory*)))
+    (list
+     (handler-case (sys::make-mapped-file-stream file (namestring file)
+                                                '(unsigned-byte 8))
+       (file-error () :error))
+     (open file :element-type '(unsigned-byte 8) :mapped t
+                :if-does-not-exist nil)
+     (progn
+       (with-open-file (stream file :direction :output
+                                    :element-type '(unsigned-byte 8))
+         (write-byte 1 stream))
+       (unwind-protect
+            (let ((stream (open file :element-type '(unsigned-byte 8)
+                                     :mapped t)))
+              (close stream)
+              (not (null (search (file-namestring file)
+                                 (princ-to-string stream)))))
+         (delete-file file)))))
+  (:error nil t))
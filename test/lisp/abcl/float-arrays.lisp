@@ -0,0 +1,135 @@
+(in-package #:abcl.test.lisp)
+
+(deftest float-arrays.1
+    (list (upgraded-array-element-type 'double-float)
+          (upgraded-array-element-type 'long-float)
+          (upgraded-array-element-type 'single-float)
+          (upgraded-array-element-type 'short-float)
+          (upgraded-array-element-type '(double-float 0d0 1d0))
+          (upgraded-array-element-type '(eql 1.5d0)))
+  (double-float double-float single-float single-float double-float
+   double-float))
+
+(deftest float-arrays.2
+    (let ((v (make-array 3 :element-type 'double-float))
+          (m (make-array '(2 2) :element-type 'single-float
+                         :initial-element 1.5)))
+      (list (array-element-type v) (array-element-type m)
+            (aref v 1) (aref m 1 1)
+            (typep v '(simple-array double-float (*)))
+            (typep m '(simple-array single-float (2 2)))))
+  (double-float single-float 0d0 1.5 t t))
+
+(deftest float-arrays.3
+    (let ((v (make-array 3 :element-type 'double-float
+                         :initial-contents '(1d0 2d0 3d0))))
+      (setf (aref v 0) 5d0)
+      (list (coerce v 'list)
+            (handler-case (progn (setf (aref v 1) 1) :no-error)
+              (type-error () :type-error))
+            (aref v 1)))
+  ((5d0 2d0 3d0) :type-error 2d0))
+
+(deftest float-arrays.4
+    (let ((v (make-array 5 :element-type 'single-float
+                         :initial-contents '(1.0 2.0 3.0 4.0 5.0))))
+      (fill v 0.0 :start 3)
+      (replace v v :start1 1 :end1 3 :start2 0)
+      (coerce v 'list))
+  (1.0 1.0 2.0 0.0 0.0))
+
+(deftest float-arrays.5
+    (let ((v (make-array 4 :element-type 'double-float :initial-element 1d0))
+          (w (make-array 2 :element-type 'double-float
+                         :initial-contents '(7d0 8d0))))
+      (replace v w :start1 2)
+      (list (coerce v 'list)
+            (coerce (subseq v 1 3) 'list)
+            (coerce (reverse v) 'list)))
+  ((1d0 1d0 7d0 8d0) (1d0 7d0) (8d0 7d0 1d0 1d0)))
+
+(deftest float-arrays.6
+    (let ((f (compile nil '(lambda (m)
+                            (declare (type (simple-array double-float (*)) m)
+                                     (optimize speed))
+                            (dotimes (i (length m) m)
+                              (setf (aref m i) (* 2d0 (aref m i))))))))
+      (coerce (funcall f (make-array 3 :element-type 'double-float
+                                     :initial-contents '(1d0 2d0 3d0)))
+              'list))
+  (2d0 4d0 6d0))
+
+(deftest float-arrays.7
+    (let ((f (compile nil '(lambda (m x)
+                            (declare (type (simple-array single-float (*)) m)
+                                     (type single-float x))
+                            (setf (aref m 0) x)))))
+      (let ((m (make-array 1 :element-type 'single-float)))
+        (list (funcall f m 2.5) (aref m 0))))
+  (2.5 2.5))
+
+(deftest float-arrays.8
+    (let ((v (make-array 2 :element-type 'double-float
+                         :initial-contents '(1d0 2d0))))
+      (list (prin1-to-string v)
+            (handler-case (let ((*print-readably* t)) (prin1-to-string v))
+              (print-not-readable () :print-not-readable))))
+  ("#(1.0d0 2.0d0)" :print-not-readable))
+
+(deftest float-arrays.9
+    (let ((v (make-array 2 :element-type 'double-float :initial-element 3d0)))
+      (setf v (adjust-array v 4 :initial-element 0d0))
+      (list (array-element-type v) (coerce v 'list)))
+  (double-float (3d0 3d0 0d0 0d0)))
+
+;;; Literal float vectors keep their element type through a fasl.
+(deftest float-arrays.10
+    (let ((source (ext::make-temp-file))
+          (fasl nil))
+      (unwind-protect
+           (progn
+             (with-open-file (s source :direction :output :if-exists :supersede)
+               (write-string "(in-package :abcl.test.lisp)
+(defun float-arrays-10 ()
+  #.(make-array 2 :element-type 'single-float :initial-element 1.5))" s))
+             (setf fasl (compile-file source))
+             (load fasl)
+             (let ((v (funcall 'float-arrays-10)))
+               (list (array-element-type v) (coerce v 'list))))
+        (delete-file source)
+        (when fasl
+          (delete-file fasl))))
+  (single-float (1.5 1.5)))
+
+;;; Upgrading doesn't depend on whether the array is adjustable or has a
+;;; fill pointer.
+(deftest float-arrays.11
+    (let ((v (make-array 2 :element-type 'double-float :fill-pointer 0
+                         :adjustable t))
+          (w (make-array 2 :element-type 'single-float :fill-pointer 1)))
+      (vector-push-extend 1d0 v)
+      (vector-push-extend 2d0 v)
+      (vector-push-extend 3d0 v)
+      (list (array-element-type v) (array-element-type w)
+            (coerce v 'list) (coerce w 'list)
+            (handler-case (progn (vector-push-extend 4 v) :no-error)
+              (type-error () :type-error))
+            (length v)))
+  (double-float single-float (1d0 2d0 3d0) (0.0) :type-error 3))
+
+(deftest float-arrays.12
+    (let* ((m (make-array '(2 2) :element-type 'double-float :adjustable t
+                          :initial-element 1d0))
+           (v (make-array 4 :element-type 'single-float :initial-element 2.5))
+           (d (make-array 3 :element-type 'single-float :displaced-to v
+                          :displaced-index-offset 1))
+           (w (adjust-array (make-array 1 :element-type 'single-float) 2
+                            :displaced-to v)))
+      (list (eq m (adjust-array m '(3 3) :initial-element 0d0))
+            (array-element-type m) (aref m 1 1) (aref m 2 2)
+            (handler-case (progn (setf (aref m 0 0) 1.0) :no-error)
+              (type-error () :type-error))
+            (array-element-type d) (coerce d 'list)
+            (array-element-type w) (coerce w 'list)))
+  (t double-float 1d0 0d0 :type-error single-float (2.5 2.5 2.5)
+   single-float (2.5 2.5)))
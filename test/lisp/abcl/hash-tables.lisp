@@ -0,0 +1,170 @@
+(in-package #:abcl.test.lisp)
+
+(deftest concurrent-hash-table.1
+    (let ((tables (mapcar #'(lambda (test)
+                              (make-hash-table :test test :concurrent t))
+                          '(eq eql equal equalp))))
+      (loop for table in tables
+            do (dotimes (i 200)
+                 (setf (gethash i table) (* i i)))
+               (dotimes (i 100)
+                 (remhash (* 2 i) table))
+            collect (list (hash-table-count table)
+                          (gethash 3 table)
+                          (nth-value 1 (gethash 4 table))
+                          (let ((sum 0))
+                            (maphash #'(lambda (k v)
+                                         (declare (ignore v))
+                                         (incf sum k))
+                                     table)
+                            sum))))
+  ((100 9 nil 10000) (100 9 nil 10000)
+   (100 9 nil 10000) (100 9 nil 10000)))
+
+(deftest concurrent-hash-table.2
+    (let ((table (make-hash-table :test 'equal :concurrent t)))
+      (mapc #'threads:thread-join
+            (loop for i below 8
+                  collect (let ((offset (* i 1000)))
+                            (threads:make-thread
+                             #'(lambda ()
+                                 (dotimes (j 1000)
+                                   (setf (gethash (format nil "~D" (+ offset j))
+                                                  table)
+                                         j)))))))
+      (values (hash-table-count table)
+              (gethash "7999" table)
+              (progn (clrhash table)
+                     (hash-table-count table))))
+  8000 999 0)
+
+(deftest concurrent-hash-table.3
+    (signals-error (make-hash-table :weakness :key :concurrent t) 'error)
+  t)
+
+;; EQUALP tables hash to the same value whether concurrent or not
+(deftest concurrent-hash-table.4
+    (let ((table (make-hash-table :test 'equal))
+          (concurrent (make-hash-table :test 'equal :concurrent t)))
+      (dolist (key '("x" "y" "z"))
+        (setf (gethash key table) 1
+              (gethash key concurrent) 1))
+      (values (equalp table concurrent)
+              (= (sys:psxhash table) (sys:psxhash concurrent))))
+  t t)
+
+(deftest open-addressing-hash-table.1
+    (let ((table (make-hash-table :test 'eql :open-addressing t)))
+      (dotimes (i 10000)
+        (setf (gethash i table) (- i)))
+      (dotimes (i 5000)
+        (remhash (* 2 i) table))
+      (dotimes (i 100)
+        (setf (gethash (* 2 i) table) :again))
+      (list (hash-table-count table)
+            (gethash 9999 table)
+            (gethash 198 table)
+            (gethash 200 table)
+            (gethash "9999" table)))
+  (5100 -9999 :again nil nil))
+
+;; switching from fixnum keys to other keys
+(deftest open-addressing-hash-table.2
+    (let ((table (make-hash-table :test 'eql :open-addressing t))
+          (big (expt 2 40)))
+      (dotimes (i 100)
+        (setf (gethash i table) i))
+      (setf (gethash big table) :big
+            (gethash 1.5d0 table) :double
+            (gethash #\a table) :char)
+      (remhash 50 table)
+      (list (hash-table-count table)
+            (gethash (expt 2 40) table)
+            (gethash 1.5d0 table)
+            (gethash 99 table)
+            (gethash 50 table)
+            (let ((sum 0))
+              (maphash #'(lambda (k v)
+                           (when (integerp v)
+                             (incf sum k)))
+                       table)
+              sum)))
+  (102 :big :double 99 nil 4900))
+
+(deftest open-addressing-hash-table.3
+    (let ((table (make-hash-table :test 'eq :open-addressing t))
+          (keys (loop for i below 1000 collect (list i))))
+      (dolist (key keys)
+        (setf (gethash key table) (car key)))
+      (values (hash-table-count table)
+              (gethash (nth 500 keys) table)
+              (gethash (list 500) table)
+              (progn (clrhash table)
+                     (gethash (nth 500 keys) table))))
+  1000 500 nil nil)
+
+(deftest open-addressing-hash-table.4
+    (signals-error (make-hash-table :test 'equal :open-addressing t) 'error)
+  t)
+
+;; a fixnum key outside the Fixnum cache stays found once a symbol key
+;; has been added
+(deftest open-addressing-hash-table.5
+    (let ((table (make-hash-table :test 'eq :open-addressing t))
+          (key (parse-integer "100000")))
+      (setf (gethash key table) 1
+            (gethash 'x table) 2)
+      (values (gethash key table) (gethash 'x table)))
+  1 2)
+
+;; a reader looking up 0 never sees the value of a key being added
+(deftest open-addressing-hash-table.6
+    (let* ((table (make-hash-table :test 'eql :open-addressing t))
+           (writer (threads:make-thread
+                    #'(lambda ()
+                        (loop for i from 1 to 200000
+                              do (setf (gethash i table) i)))))
+           (seen nil))
+      (loop while (threads:thread-alive-p writer)
+            do (let ((value (gethash 0 table)))
+                 (when value
+                   (setf seen value))))
+      (threads:thread-join writer)
+      (setf (gethash 0 table) :zero)
+      (values seen (gethash 0 table) (gethash 200000 table)))
+  nil :zero 200000)
+
+;; string hash codes are cached, and must follow destructive changes
+(deftest string-hash.1
+    (let ((simple (copy-seq "abcdef"))
+          (complex (make-array 6 :element-type 'character :fill-pointer 3
+                                 :adjustable t :initial-contents "abcdef"))
+          (results ()))
+      (flet ((check (string)
+               (push (= (sxhash string) (sxhash (copy-seq string))) results)
+               (let ((table (make-hash-table :test 'equalp)))
+                 (setf (gethash string table) t)
+                 (push (gethash (string-upcase string) table) results))))
+        (check simple)
+        (setf (char simple 0) #\x)
+        (check simple)
+        (nreverse simple)
+        (check simple)
+        (fill simple #\y :start 2)
+        (check simple)
+        (with-input-from-string (s "zz")
+          (read-sequence simple s))
+        (check simple)
+        (check complex)
+        (vector-push-extend #\q complex)
+        (check complex)
+        (setf (fill-pointer complex) 2)
+        (check complex)
+        (setf (char complex 1) #\r)
+        (check complex)
+        (adjust-array complex 4 :displaced-to simple :fill-pointer 4)
+        (check complex)
+        (setf (char simple 0) #\w)
+        (check complex))
+      (values (every #'identity results) simple complex))
+  t "wzyyyy" "wzyy")
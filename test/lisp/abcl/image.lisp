@@ -0,0 +1,151 @@
+(in-package #:abcl.test.lisp)
+
+(defparameter *image-test-source* "
+(defpackage #:image-test (:use #:cl) (:nicknames #:image-test-nickname)
+  (:export #:greet))
+(in-package #:image-test)
+(defvar *table* (make-hash-table :test 'eq))
+(defvar *strings* (make-hash-table :test 'equal))
+(defvar *list* (loop for i below 20000 collect i))
+(defconstant +answer+ 42)
+(defun greet (name) (format nil \"Hello, ~A!\" name))
+(defmacro twice (form) `(progn ,form ,form))
+(let ((count 0)) (defun next-count () (incf count)))
+(defstruct point x y)
+(defclass shape () ((name :initarg :name :initform \"shape\" :reader shape-name)))
+(defclass circle (shape) ((r :initarg :r :reader circle-r))
+  (:default-initargs :name \"circle\"))
+(defgeneric area (shape) (:documentation \"The area of SHAPE.\"))
+(defmethod area ((c circle)) (* 3 (circle-r c) (circle-r c)))
+(defmethod print-object ((c circle) stream)
+  (format stream \"#<CIRCLE ~A>\" (circle-r c)))
+(define-condition shape-error (error) ((code :initarg :code :reader shape-error-code)))
+(defvar *circle* (make-instance 'circle :r 2))
+(setf (gethash 'origin *table*) (make-point :x 0 :y 0)
+      (gethash \"key\" *strings*) 'value
+      (get 'greet 'note) \"a note\")
+")
+
+;;; Saves an image of the package IMAGE-TEST, made by loading
+;;; *IMAGE-TEST-SOURCE*, deletes the package and restores it from the
+;;; image, and returns the values of FORM, read afterwards.
+(defun image-round-trip (form &optional (setup ""))
+  (let ((source (ext::make-temp-file))
+        (image (ext::make-temp-file))
+        (fasl nil))
+    (unwind-protect
+         (progn
+           (with-open-file (s source :direction :output :if-exists :supersede)
+             (write-string *image-test-source* s)
+             (write-string setup s))
+           (setf fasl (compile-file source))
+           (load fasl)
+           (sys:save-image image :packages '(:image-test))
+           (delete-package :image-test)
+           (sys:load-image image)
+           (eval (let ((*package* (find-package :image-test)))
+                   (read-from-string form))))
+      (when (find-package :image-test)
+        (delete-package :image-test))
+      (delete-file source)
+      (delete-file image)
+      (when fasl
+        (delete-file fasl)))))
+
+(deftest image.1
+    (image-round-trip
+     "(list (greet \"image\") (next-count) (next-count)
+            (macroexpand-1 '(twice 1)) +answer+ (length *list*)
+            (get 'greet 'note)
+            (package-name (find-package :image-test-nickname))
+            (eq (find-symbol \"GREET\" :image-test) 'greet)
+            (nth-value 1 (find-symbol \"GREET\" :image-test)))")
+  ("Hello, image!" 1 2 (progn 1 1) 42 20000 "a note" "IMAGE-TEST" t :external))
+
+(deftest image.2
+    (image-round-trip
+     "(list (point-x (gethash 'origin *table*))
+            (symbol-name (gethash \"key\" *strings*))
+            (point-y (make-point :y 3))
+            (typep (gethash 'origin *table*) 'point))")
+  (0 "VALUE" 3 t))
+
+(deftest image.3
+    (image-round-trip
+     "(list (area *circle*) (shape-name *circle*)
+            (area (make-instance 'circle :r 1))
+            (prin1-to-string *circle*)
+            (documentation 'area 'function)
+            (shape-error-code (make-condition 'shape-error :code 7)))")
+  (12 "circle" 3 "#<CIRCLE 2>" "The area of SHAPE." 7))
+
+;;; Values which can't be saved are left out with a warning.
+(deftest image.4
+    (let ((warned nil))
+      (handler-bind ((warning #'(lambda (c)
+                                  (setf warned t)
+                                  (muffle-warning c))))
+        (list
+         (image-round-trip
+          "(list (boundp '*stream*) (greet \"again\"))"
+          "(defvar *stream* (make-string-output-stream))")
+         warned)))
+  ((nil "Hello, again!") t))
+
+;;; An image restored from an image can be saved again after the FASL
+;;; is gone, and saving an image leaves no threads behind.
+(deftest image.5
+    (let ((threads (length (threads:mapcar-threads #'identity)))
+          (image (ext::make-temp-file)))
+      (unwind-protect
+           (list
+            (image-round-trip
+             (format nil "(progn (sys:save-image ~S :packages '(:image-test))
+                                 (greet \"first\"))"
+                     (namestring image)))
+            (progn
+              (sys:load-image image)
+              (funcall (find-symbol "GREET" :image-test) "second"))
+            (= threads (length (threads:mapcar-threads #'identity))))
+        (when (find-package :image-test)
+          (delete-package :image-test))
+        (delete-file image)))
+  ("Hello, first!" "Hello, second!" t))
+
+;;; Interpreted closures are saved with their environment, and numbers,
+;;; characters and pathnames by value.
+(deftest image.6
+    (image-round-trip
+     "(list (funcall *adder* 1) (funcall *adder* 2) *values*)"
+     "(defvar *adder* (eval '(let ((n 10)) (lambda (x) (incf n x)))))
+      (defvar *values* (list 1/3 #c(1 2) 1.5d0 2.5 #\\a #p\"/tmp/x.lisp\"
+                             (expt 2 100)))")
+  (11 13 (1/3 #c(1 2) 1.5d0 2.5 #\a #p"/tmp/x.lisp"
+          1267650600228229401496703205376)))
+
+;;; An image naming a class which isn't part of ABCL is rejected.
+(deftest image.7
+    (let ((image (ext::make-temp-file)))
+      (unwind-protect
+           (let ((data (java:jnew "java.io.DataOutputStream"
+                                  (java:jnew "java.util.zip.GZIPOutputStream"
+                                             (java:jnew "java.io.FileOutputStream"
+                                                        (namestring image)))))
+                 (bytes (java:jnew "java.io.ByteArrayOutputStream")))
+             (let ((out (java:jnew "java.io.ObjectOutputStream" bytes)))
+               (java:jcall "writeObject" out (java:jnew "java.util.ArrayList"))
+               (java:jcall "close" out))
+             (java:jcall "writeUTF" data "ABCL-IMAGE")
+             (java:jcall "writeInt" data 1)
+             (java:jcall "writeUTF" data
+                         (java:jstatic "getVersion" "org.armedbear.lisp.Version"))
+             (java:jcall "writeInt" data 0)
+             (java:jcall "writeInt" data (java:jcall "size" bytes))
+             (java:jcall "writeTo" bytes data)
+             (java:jcall "close" data)
+             (handler-case (progn (sys:load-image image) nil)
+               (error (c)
+                 (not (null (search "not allowed in an image"
+                                    (princ-to-string c)))))))
+        (delete-file image)))
+  t)
@@ -0,0 +1,120 @@
+(in-package #:abcl.test.lisp)
+
+(deftest integer-arrays.1
+    (list (upgraded-array-element-type 'fixnum)
+          (upgraded-array-element-type '(signed-byte 8))
+          (upgraded-array-element-type '(signed-byte 16))
+          (upgraded-array-element-type '(signed-byte 32))
+          (upgraded-array-element-type '(signed-byte 33))
+          (upgraded-array-element-type '(signed-byte 64))
+          (upgraded-array-element-type '(signed-byte 65))
+          (upgraded-array-element-type '(integer -1 1))
+          (upgraded-array-element-type '(integer 0 #.(expt 2 40)))
+          (upgraded-array-element-type '(eql -1))
+          (upgraded-array-element-type '(integer 0 255)))
+  ((signed-byte 32) (signed-byte 32) (signed-byte 32) (signed-byte 32)
+   (signed-byte 64) (signed-byte 64) t (signed-byte 32) (signed-byte 64)
+   (signed-byte 32) (unsigned-byte 8)))
+
+(deftest integer-arrays.2
+    (let ((v (make-array 3 :element-type 'fixnum))
+          (w (make-array 2 :element-type '(signed-byte 64)
+                           :initial-contents
+                           (list most-negative-fixnum (expt 2 62))))
+          (m (make-array '(2 2) :element-type '(signed-byte 8)
+                         :initial-element -3)))
+      (list (array-element-type v) (coerce v 'list)
+            (array-element-type w) (aref w 1)
+            (array-element-type m) (aref m 1 1)
+            (typep v '(simple-array fixnum (*)))
+            (typep (make-array 3) '(simple-array fixnum (*)))
+            (typep w '(simple-array (signed-byte 64) (*)))))
+  ((signed-byte 32) (0 0 0) (signed-byte 64) #.(expt 2 62)
+   (signed-byte 32) -3 t nil t))
+
+(deftest integer-arrays.3
+    (let ((v (make-array 2 :element-type 'fixnum))
+          (w (make-array 2 :element-type '(signed-byte 64))))
+      (setf (aref v 0) -5
+            (aref w 0) (- (expt 2 63)))
+      (list (aref v 0) (aref w 0)
+            (handler-case (progn (setf (aref v 1) (expt 2 31)) :no-error)
+              (type-error () :type-error))
+            (handler-case (progn (setf (aref w 1) (expt 2 63)) :no-error)
+              (type-error () :type-error))
+            (handler-case (progn (setf (aref w 1) 1.0) :no-error)
+              (type-error () :type-error))))
+  (-5 #.(- (expt 2 63)) :type-error :type-error :type-error))
+
+(deftest integer-arrays.4
+    (let ((v (coerce '(3 -1 2) '(vector fixnum)))
+          (w (coerce #(1 2) '(simple-array (signed-byte 64) (*)))))
+      (list (array-element-type v) (coerce (sort v #'<) 'list)
+            (array-element-type w) (coerce (reverse w) 'list)
+            (coerce (subseq (fill v 7 :start 1) 1) 'list)))
+  ((signed-byte 32) (-1 2 3) (signed-byte 64) (2 1) (7 7)))
+
+(deftest integer-arrays.5
+    (let* ((v (make-array 2 :element-type 'fixnum :initial-element 4))
+           (w (adjust-array v 4 :initial-element -1))
+           (m (adjust-array (make-array '(2 2) :element-type '(signed-byte 64)
+                                               :initial-element 1)
+                            '(3 3) :initial-element 0)))
+      (list (array-element-type w) (coerce w 'list)
+            (array-element-type m) (aref m 1 1) (aref m 2 2)))
+  ((signed-byte 32) (4 4 -1 -1) (signed-byte 64) 1 0))
+
+(deftest integer-arrays.6
+    (let ((f (compile nil '(lambda (counts data)
+                            (declare (type (simple-array fixnum (*)) counts data))
+                            (dotimes (i (length data) counts)
+                              (incf (aref counts (aref data i))))))))
+      (coerce (funcall f (make-array 3 :element-type 'fixnum)
+                       (coerce '(0 2 2 1 2) '(vector fixnum)))
+              'list))
+  (1 1 3))
+
+(deftest integer-arrays.7
+    (let ((f (compile nil '(lambda (m x)
+                            (declare (type (simple-array (signed-byte 64) (*)) m)
+                                     (type (signed-byte 64) x))
+                            (setf (aref m 0) x)
+                            (+ (aref m 0) (aref m 1))))))
+      (let ((m (make-array 2 :element-type '(signed-byte 64)
+                           :initial-element 1)))
+        (list (funcall f m (expt 2 40)) (aref m 0))))
+  (#.(1+ (expt 2 40)) #.(expt 2 40)))
+
+;;; Upgrading doesn't depend on whether the array is adjustable or has a
+;;; fill pointer.
+(deftest integer-arrays.8
+    (let ((v (make-array 2 :element-type 'fixnum :fill-pointer 0
+                         :adjustable t))
+          (w (make-array 2 :element-type '(signed-byte 64) :fill-pointer 1)))
+      (vector-push-extend 1 v)
+      (vector-push-extend -2 v)
+      (vector-push-extend 3 v)
+      (setf (aref w 0) (expt 2 40))
+      (list (array-element-type v) (array-element-type w)
+            (coerce v 'list) (coerce w 'list)
+            (handler-case (progn (vector-push-extend 1.5 v) :no-error)
+              (type-error () :type-error))
+            (length v)))
+  ((signed-byte 32) (signed-byte 64) (1 -2 3) (#.(expt 2 40)) :type-error 3))
+
+(deftest integer-arrays.9
+    (let* ((m (make-array '(2 2) :element-type '(signed-byte 64)
+                          :adjustable t :initial-element 1))
+           (v (make-array 4 :element-type 'fixnum :initial-element 7))
+           (d (make-array 3 :element-type 'fixnum :displaced-to v
+                          :displaced-index-offset 1))
+           (w (adjust-array (make-array 1 :element-type 'fixnum) 2
+                            :displaced-to v)))
+      (list (eq m (adjust-array m '(3 3) :initial-element 0))
+            (array-element-type m) (aref m 1 1) (aref m 2 2)
+            (handler-case (progn (setf (aref m 0 0) (expt 2 64)) :no-error)
+              (type-error () :type-error))
+            (array-element-type d) (coerce d 'list)
+            (array-element-type w) (coerce w 'list)))
+  (t (signed-byte 64) 1 0 :type-error (signed-byte 32) (7 7 7)
+   (signed-byte 32) (7 7)))
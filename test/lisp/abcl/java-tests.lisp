@@ -208,6 +208,31 @@
                  #+abcl    'java-exception
                  #+allegro 'jlinker-error))
 
+;; resolved methods are cached by argument classes: the same method
+;; name with other arguments must still find the right overload
+(deftest jcall.8
+  (loop repeat 2
+        collect (list (jcall "indexOf" "abcabc" #\c)
+                      (jcall "indexOf" "abcabc" "bc")
+                      (jcall "indexOf" "abcabc" "bc" 2)
+                      (jstatic "valueOf" "java.lang.String" 1)
+                      (jstatic "valueOf" "java.lang.String" #\a)
+                      (jstatic "valueOf" "java.lang.String" 1.5d0)))
+  ((2 1 4 "1" "a" "1.5") (2 1 4 "1" "a" "1.5")))
+
+;; arguments and results of primitive types, converted without going
+;; through wrapper objects
+(deftest jcall.9
+  (list (jstatic (jmethod "java.lang.Math" "max" "long" "long") nil 1 2)
+        (jstatic (jmethod "java.lang.Math" "max" "double" "double") nil 1 2.5d0)
+        (jstatic (jmethod "java.lang.Math" "max" "float" "float") nil 1.5f0 2)
+        (jstatic (jmethod "java.lang.Character" "isDigit" "char") nil #\7)
+        (jstatic (jmethod "java.lang.Character" "isDigit" "int") nil #\a)
+        (jcall (jmethod "java.lang.String" "charAt" "int") "abc" 1)
+        (jclass-name (jclass-of (jcall-raw (jmethod "java.lang.String" "length")
+                                           "abc"))))
+  (2 2.5d0 2.0f0 t nil #\b "java.lang.Integer"))
+
 (deftest jfield.1
   (type-of (jfield "java.lang.Integer" "TYPE"))
   #+abcl    java-object
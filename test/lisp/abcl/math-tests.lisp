@@ -477,3 +477,27 @@
 
 
      
+
+;;; Integers of up to 64 bits are computed on longs; check the edges
+;;; where the result no longer fits.
+(deftest math.bignum.1
+    (let ((x (expt 2 40))
+          (y (1- (expt 2 62))))
+      (list (+ y y 2) (- (- y) y 3) (* x (expt 2 23)) (* x -1 (expt 2 23))
+            (ash x 23) (ash (- x) 23) (ash x -41) (ash (- x) -41)
+            (truncate (- (expt 2 63)) -1)
+            (typep (- (+ x 5) x) 'fixnum)))
+  (#.(expt 2 63) #.(- -1 (expt 2 63)) #.(expt 2 63) #.(- (expt 2 63))
+   #.(expt 2 63) #.(- (expt 2 63)) 0 -1
+   #.(expt 2 63)
+   t))
+
+(deftest math.bignum.2
+    (let ((x (+ (expt 2 40) 3))
+          (y (read-from-string "1099511627779"))
+          (h (make-hash-table :test 'eql)))
+      (setf (gethash x h) :found)
+      (list (eql x y) (= x y) (< x (1+ y)) (gethash y h)
+            (logand x #xff) (logior x -256) (logxor x y)
+            (ldb (byte 8 40) x) (multiple-value-list (floor (- x) 7))))
+  (t t t :found 3 -253 0 1 (-157073089683 2)))
@@ -108,4 +108,70 @@
                            (setf (values (mystruct-slot struct)
                                          x)
                                  (values 42 2))))))
-  42 2)
\ No newline at end of file
+  42 2)
+;; special bindings deeper than the initial size of the binding stack,
+;; undone by a THROW and reused afterwards
+(defvar *special-binding-depth* 0)
+(defun bind-special-deeply (n)
+  (let ((*special-binding-depth* (1+ *special-binding-depth*)))
+    (if (< *special-binding-depth* n)
+        (bind-special-deeply n)
+        (throw 'special-bindings *special-binding-depth*))))
+(deftest special-bindings.1
+    (funcall (compile nil
+                      '(lambda ()
+                         (list (catch 'special-bindings
+                                 (bind-special-deeply 1000))
+                               *special-binding-depth*
+                               (let ((*special-binding-depth* 42))
+                                 (catch 'special-bindings
+                                   (bind-special-deeply 500))
+                                 *special-binding-depth*)
+                               (progv '(*special-binding-depth*) ()
+                                 (boundp '*special-binding-depth*))
+                               *special-binding-depth*))))
+  (1000 0 42 nil 0))
+
+;; bulk character I/O, into strings and general vectors, across the
+;; streams of a concatenated stream, and with CRLF line endings
+(deftest read-sequence.1
+    (let ((string (make-string 8 :initial-element #\-))
+          (vector (make-array 6 :initial-element nil)))
+      (list (with-input-from-string (s "abcdef")
+              (read-sequence string s :start 1))
+            string
+            (read-sequence vector
+                           (make-concatenated-stream
+                            (make-string-input-stream "ab")
+                            (make-string-input-stream "")
+                            (make-string-input-stream "cd"))
+                           :end 5)
+            vector))
+  (7 "-abcdef-" 4 #(#\a #\b #\c #\d nil nil)))
+(deftest write-sequence.1
+    (let ((file (ext:make-temp-file))
+          (format '(:iso-8859-1 :eol-style :crlf))
+          (string (make-string 5)))
+      (unwind-protect
+           (progn
+             (with-open-file (s file :direction :output :if-exists :supersede
+                                     :external-format format)
+               (write-sequence (vector #\a #\Newline #\b) s)
+               (write-sequence (format nil "~%c") s))
+             (list (with-open-file (s file :element-type '(unsigned-byte 8))
+                     (let ((octets (make-array 10 :element-type '(unsigned-byte 8))))
+                       (map 'string #'code-char
+                            (subseq octets 0 (read-sequence octets s)))))
+                   (with-open-file (s file :external-format format)
+                     (list (read-sequence string s) string))))
+        (delete-file file)))
+  (#.(coerce '(#\a #\Return #\Newline #\b #\Return #\Newline #\c) 'string)
+   (5 #.(coerce '(#\a #\Newline #\b #\Newline #\c) 'string))))
+
+;; fixnums and characters within the instance caches are shared
+(deftest instance-cache.1
+    (list (eq (parse-integer "-100") (- (parse-integer "100")))
+          (eq (parse-integer "1000") (* 10 (parse-integer "100")))
+          (eq (code-char #x4e00) (char (string (code-char #x4e00)) 0))
+          (eq (code-char #x44f) (char-downcase (code-char #x42f))))
+  (t t t t))
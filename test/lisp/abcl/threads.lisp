@@ -0,0 +1,233 @@
+(in-package #:abcl.test.lisp)
+
+(deftest mailbox.1
+    (let ((mailbox (threads:make-mailbox)))
+      (dotimes (i 3)
+        (threads:mailbox-send mailbox i))
+      (values (threads:mailbox-count mailbox)
+              (multiple-value-list (threads:mailbox-peek mailbox))
+              (loop repeat 3 collect (threads:mailbox-read mailbox))
+              (threads:mailbox-empty-p mailbox)
+              (multiple-value-list (threads:mailbox-peek mailbox))))
+  3 (0 nil) (0 1 2) t (nil t))
+
+(deftest mailbox.2
+    (let ((mailbox (threads:make-mailbox :capacity 1)))
+      (list (threads:try-mailbox-send mailbox :a)
+            (threads:try-mailbox-send mailbox :b)
+            (threads:mailbox-send mailbox :c 0.01)
+            (multiple-value-list (threads:try-mailbox-read mailbox))
+            (multiple-value-list (threads:try-mailbox-read mailbox))
+            (multiple-value-list (threads:mailbox-read mailbox 0.01))
+            (typep mailbox 'ext:mailbox)))
+  (t nil nil (:a t) (nil nil) (nil nil) t))
+
+(deftest mailbox.3
+    (let* ((mailbox (threads:make-mailbox :capacity 16))
+           (producers
+            (loop for i below 4
+                  collect (let ((start (* i 1000)))
+                            (threads:make-thread
+                             #'(lambda ()
+                                 (dotimes (j 1000)
+                                   (threads:mailbox-send mailbox
+                                                         (+ start j))))))))
+           (sum 0)
+           (in-order t)
+           (last (make-array 4 :initial-element -1)))
+      (dotimes (i 4000)
+        (let ((n (threads:mailbox-read mailbox)))
+          (incf sum n)
+          ;; messages of each producer arrive in the order they were sent
+          (multiple-value-bind (producer j) (floor n 1000)
+            (unless (> j (aref last producer))
+              (setf in-order nil))
+            (setf (aref last producer) j))))
+      (mapc #'threads:thread-join producers)
+      (values sum in-order (threads:mailbox-empty-p mailbox)))
+  7998000 t t)
+
+(deftest mutex.1
+    (let ((mutex (threads:make-mutex)))
+      (list (threads:get-mutex mutex)
+            (threads:try-get-mutex mutex)
+            (threads:thread-join
+             (threads:make-thread
+              #'(lambda ()
+                  (list (threads:try-get-mutex mutex)
+                        (threads:get-mutex mutex 0.01)))))
+            (threads:release-mutex mutex)
+            (threads:release-mutex mutex)
+            (handler-case (threads:release-mutex mutex)
+              (program-error () :not-held))
+            (typep mutex 'ext:mutex)))
+  (t t (nil nil) nil nil :not-held t))
+
+(deftest mutex.2
+    (let* ((mutex (threads:make-mutex))
+           (ready nil)
+           (thread (threads:make-thread
+                    #'(lambda ()
+                        (threads:with-mutex (mutex)
+                          (loop until ready
+                                do (threads:mutex-wait mutex))
+                          :notified)))))
+      (threads:with-mutex (mutex)
+        (setf ready t)
+        (threads:mutex-notify-all mutex))
+      (list (threads:thread-join thread)
+            (threads:with-mutex (mutex)
+              (threads:mutex-wait mutex 0.01))))
+  (:notified nil))
+
+;;; Only the thread holding a mutex can release it.
+(deftest mutex.3
+    (let ((mutex (threads:make-mutex)))
+      (threads:get-mutex mutex)
+      (list (threads:thread-join
+             (threads:make-thread
+              #'(lambda ()
+                  (handler-case (threads:release-mutex mutex)
+                    (program-error () :not-held)))))
+            (threads:release-mutex mutex)))
+  (:not-held nil))
+
+(deftest semaphore.1
+    (let ((semaphore (threads:make-semaphore 1)))
+      (list (threads:try-semaphore semaphore)
+            (threads:try-semaphore semaphore)
+            (threads:wait-on-semaphore semaphore 0.01)
+            (progn
+              (threads:signal-semaphore semaphore 2)
+              (threads:semaphore-count semaphore))
+            (threads:wait-on-semaphore semaphore)
+            (threads:semaphore-count semaphore)
+            (typep semaphore 'ext:semaphore)))
+  (t nil nil 2 t 1 t))
+
+(defvar *thread-pool-test* :global)
+
+(deftest thread-pool.1
+    (let ((pool (threads:make-thread-pool :size 2)))
+      (unwind-protect
+           (let ((futures (loop for i below 10
+                                collect (let ((i i))
+                                          (threads:submit pool
+                                                          #'(lambda () (* i i)))))))
+             (list (mapcar #'threads:future-value futures)
+                   (every #'threads:future-done-p futures)
+                   (multiple-value-list
+                    (threads:future-value
+                     (threads:submit pool #'(lambda () (values 1 2 3)))))
+                   (typep pool 'threads:thread-pool)
+                   (typep (first futures) 'threads:future)))
+        (threads:shutdown-thread-pool pool)))
+  ((0 1 4 9 16 25 36 49 64 81) t (1 2 3) t t))
+
+(deftest thread-pool.2
+    (let ((pool (threads:make-thread-pool :size 1))
+          (semaphore (threads:make-semaphore)))
+      (unwind-protect
+           (let ((*thread-pool-test* :bound))
+             (list
+              ;; tasks run one after the other on the same thread,
+              ;; without the special bindings of the caller or of the
+              ;; previous tasks
+              (handler-case
+                  (threads:future-value
+                   (threads:submit pool
+                                   #'(lambda ()
+                                       (let ((*thread-pool-test* :task))
+                                         (error "failed in ~A"
+                                                *thread-pool-test*)))))
+                (simple-error (e) (princ-to-string e)))
+              (threads:future-value
+               (threads:submit pool #'(lambda () *thread-pool-test*)))
+              (let ((thread (threads:future-value
+                             (threads:submit pool #'threads:current-thread))))
+                (eq thread
+                    (threads:future-value
+                     (threads:submit pool #'threads:current-thread))))
+              (let ((blocked (threads:submit
+                              pool
+                              #'(lambda () (threads:wait-on-semaphore semaphore)))))
+                (prog1 (multiple-value-list
+                        (threads:future-value blocked 0.01 :timeout))
+                  (threads:signal-semaphore semaphore)))))
+        (threads:shutdown-thread-pool pool)))
+  ("failed in TASK" :global t (:timeout)))
+
+(defun virtual-threads-p ()
+  "Whether the JVM has virtual threads, which need Java 21."
+  (not (null (ignore-errors (java:jmethod "java.lang.Thread" "ofVirtual")))))
+
+#+#.(cl:if (abcl.test.lisp::virtual-threads-p) '(and) '(or))
+(deftest make-thread.virtual.1
+    (let* ((mailbox (threads:make-mailbox))
+           (threads
+            (loop for i below 1000
+                  collect (let ((i i))
+                            (threads:make-thread
+                             #'(lambda ()
+                                 (let ((*thread-pool-test* i))
+                                   (threads:mailbox-read mailbox)
+                                   *thread-pool-test*))
+                             :virtual t)))))
+      (dotimes (i 1000)
+        (threads:mailbox-send mailbox i))
+      (reduce #'+ (mapcar #'threads:thread-join threads)))
+  499500)
+
+#+#.(cl:if (abcl.test.lisp::virtual-threads-p) '(or) '(and))
+(deftest make-thread.virtual.2
+    (handler-case (threads:make-thread #'(lambda ()) :virtual t)
+      (simple-error (e)
+        (not (null (search "Virtual threads need Java 21"
+                           (princ-to-string e))))))
+  t)
+
+(deftest pmap.1
+    (list (sys:pmap 'list #'+ '(1 2 3) #(10 20 30 40))
+          (sys:pmap 'vector #'1+ (loop for i below 10000 collect i))
+          (sys:pmap nil #'identity '(1 2))
+          (sys:pmapcar #'list '(a b) '(1 2) '(x y)))
+  ((11 22 33) #.(coerce (loop for i from 1 to 10000 collect i) 'vector) nil
+   ((a 1 x) (b 2 y))))
+
+(deftest pmap.2
+    (let ((*thread-pool-test* :caller))
+      (list (remove-duplicates
+             (sys:pmapcar #'(lambda (x)
+                              (declare (ignore x))
+                              *thread-pool-test*)
+                          (make-list 1000)))
+            (sys:pmap nil #'(lambda (x)
+                              (setf *thread-pool-test* x))
+                      '(1 2 3))
+            *thread-pool-test*
+            (handler-case
+                (sys:pmap 'list #'(lambda (x) (if (= x 500) (error "bad ~A" x) x))
+                          (loop for i below 1000 collect i))
+              (simple-error (e) (princ-to-string e)))))
+  ((:caller) nil :caller "bad 500"))
+
+(deftest preduce.1
+    (list (sys:preduce #'+ (loop for i below 10001 collect i))
+          (sys:preduce #'+ #() :initial-value 7)
+          (sys:preduce #'+ '())
+          (sys:preduce #'+ '(1 2 3) :key #'1+ :initial-value 100)
+          (sys:preduce #'(lambda (x y) (concatenate 'string x y))
+                       (loop for i below 1000
+                             collect (string (code-char (+ 65 (mod i 26)))))))
+  (50005000 7 0 109
+   #.(coerce (loop for i below 1000 collect (code-char (+ 65 (mod i 26))))
+             'string)))
+
+(deftest psort.1
+    (let* ((list (loop for i below 5000 collect (cons (mod (* i 7919) 100) i)))
+           (vector (coerce list 'vector)))
+      (list (equalp (sys:psort vector #'< :key #'car)
+                    (coerce (stable-sort list #'< :key #'car) 'vector))
+            (sys:psort (vector 3 1 2) #'<)
+            (sys:psort (vector) #'<)))
+  (t #(1 2 3) #()))
@@ -0,0 +1,74 @@
+(in-package #:abcl.test.lisp)
+
+(defun eval-in-world (world string)
+  (sys:call-in-world world
+                     #'(lambda ()
+                         (with-input-from-string (s string)
+                           (loop for form = (read s nil s)
+                                 until (eq form s)
+                                 for value = (eval form)
+                                 finally (return value))))))
+
+(deftest world.1
+    (let ((world (sys:make-world "world.1")))
+      (unwind-protect
+           (list (typep world 'sys:world)
+                 (eval-in-world world "(package-name *package*)")
+                 (eq (eval-in-world world "*package*")
+                     (find-package "CL-USER"))
+                 (eq (sys:call-in-world world #'sys:current-world) world)
+                 (sys:current-world))
+        (sys:destroy-world world)))
+  (t "COMMON-LISP-USER" nil t nil))
+
+(deftest world.2
+    (let ((world-1 (sys:make-world))
+          (world-2 (sys:make-world)))
+      (unwind-protect
+           (list
+            (eval-in-world world-1 "(defpackage :world-test (:use :cl))
+                                    (in-package :world-test)
+                                    (defvar *x* 1)
+                                    (push :world-test *features*)
+                                    (package-name *package*)")
+            ;; *PACKAGE* and *FEATURES* kept their values in WORLD-1
+            (eval-in-world world-1 "(list (package-name *package*)
+                                          (and (member :world-test *features*) t)
+                                          (symbol-value (find-symbol \"*X*\")))")
+            ;; and WORLD-1's packages are its own
+            (eval-in-world world-2 "(list (package-name *package*)
+                                          (find-package :world-test)
+                                          (and (member :world-test *features*) t))")
+            (find-package :world-test)
+            (and (member :world-test *features*) t)
+            ;; threads made in a world run in it
+            (sys:call-in-world world-1
+                               #'(lambda ()
+                                   (threads:thread-join
+                                    (threads:make-thread
+                                     #'(lambda ()
+                                         (package-name
+                                          (find-package :world-test)))))))
+            (sys:call-in-world world-1
+                               #'(lambda ()
+                                   (sys:pmapcar #'(lambda (x)
+                                                    (list x (package-name *package*)))
+                                                '(1 2)))))
+        (sys:destroy-world world-1)
+        (sys:destroy-world world-2)))
+  ("WORLD-TEST" ("WORLD-TEST" t 1) ("COMMON-LISP-USER" nil nil) nil nil
+   "WORLD-TEST" ((1 "WORLD-TEST") (2 "WORLD-TEST"))))
+
+(deftest world.3
+    (let ((world (sys:make-world)))
+      (unwind-protect
+           (list (eval-in-world world "(defpackage :world-test-3) t")
+                 (handler-case (eval-in-world world "(delete-package :cl)")
+                   (package-error () :shared))
+                 (progn
+                   (sys:destroy-world world)
+                   (find-package :world-test-3))
+                 (handler-case (eval-in-world world "t")
+                   (error () :destroyed)))
+        (sys:destroy-world world)))
+  (t :shared nil :destroyed))
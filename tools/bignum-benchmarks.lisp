@@ -0,0 +1,49 @@
+;;; Micro-benchmarks for integers between 32 and 64 bits.
+;;;
+;;; These are Bignums, but arithmetic on them whose result fits in a
+;;; Java long is done on longs, without going through BigInteger.
+;;;
+;;;   (load (compile-file "tools/bignum-benchmarks.lisp"))
+;;;   (run-bignum-benchmarks)
+
+(defvar *count* 1000000)
+
+(defvar *start* 1700000000000)
+
+(defun timestamps (start n)
+  (let ((sum 0))
+    (dotimes (i n sum)
+      (setq sum (+ sum (- (+ start i) start))))))
+
+(defun hashes (start n)
+  (let ((hash start))
+    (dotimes (i n hash)
+      (setq hash (logand (+ (* hash 31) i) #xffffffffffff)))))
+
+(defun shifts (start n)
+  (let ((sum 0))
+    (dotimes (i n sum)
+      (setq sum (logxor sum (ash (+ start i) -7) (ash start (logand i 7)))))))
+
+(defun comparisons (start n)
+  (let ((count 0)
+        (limit (+ start (floor n 2))))
+    (dotimes (i n count)
+      (when (< (+ start i) limit)
+        (incf count)))))
+
+(defun seconds (function)
+  (let ((start (get-internal-real-time)))
+    (funcall function)
+    (/ (- (get-internal-real-time) start)
+       (float internal-time-units-per-second))))
+
+(defun run-bignum-benchmarks (&key (iterations 3))
+  (dolist (benchmark (list #'timestamps #'hashes #'shifts #'comparisons))
+    ;; first iteration is warm-up
+    (funcall benchmark *start* *count*)
+    (format t "~&~(~12A~):~{ ~,3Fs~}~%"
+            (nth-value 2 (function-lambda-expression benchmark))
+            (loop repeat iterations
+                  collect (seconds (lambda ()
+                                     (funcall benchmark *start* *count*)))))))
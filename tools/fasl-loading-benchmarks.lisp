@@ -0,0 +1,45 @@
+;;; Benchmark for loading FASLs with many compiled functions.
+;;;
+;;; Writes and compiles a file of *FUNCTION-COUNT* functions, then
+;;; times loading the FASL with and without SYS:*PARALLEL-FASL-LOADING*.
+;;;
+;;;   (load (compile-file "tools/fasl-loading-benchmarks.lisp"))
+;;;   (run-fasl-loading-benchmarks)
+
+(defvar *function-count* 2000)
+
+(defun write-benchmark-source (pathname)
+  (with-open-file (s pathname :direction :output :if-exists :supersede)
+    (dotimes (i *function-count*)
+      (let ((name (intern (format nil "FASL-BENCHMARK-~D" i))))
+        (print `(defun ,name (x)
+                  (if (consp x)
+                      (list* ,i (car x) (cdr x))
+                      (vector x ,i)))
+               s)))))
+
+(defun time-load (fasl parallel)
+  (let ((sys:*parallel-fasl-loading* parallel)
+        (start (get-internal-real-time)))
+    (load fasl)
+    (/ (- (get-internal-real-time) start)
+       (float internal-time-units-per-second))))
+
+(defun run-fasl-loading-benchmarks (&key (iterations 3))
+  (let* ((source (ext:make-temp-file))
+         (fasl (progn
+                 (write-benchmark-source source)
+                 (let ((*compile-verbose* nil)
+                       (*compile-print* nil))
+                   (compile-file source)))))
+    (unwind-protect
+         (progn
+           ;; first iteration is warm-up
+           (time-load fasl nil)
+           (dolist (parallel '(nil t))
+             (format t "~&~D functions, ~:[serial  ~;parallel~]:~{ ~,3Fs~}~%"
+                     *function-count* parallel
+                     (loop repeat iterations
+                           collect (time-load fasl parallel)))))
+      (delete-file source)
+      (delete-file fasl))))
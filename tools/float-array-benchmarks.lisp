@@ -0,0 +1,63 @@
+;;; Micro-benchmarks for unboxed float arrays.
+;;;
+;;; Compares an element-wise update and a dot product over a
+;;; SIMPLE-VECTOR of DOUBLE-FLOATs with the same loops over a
+;;; (SIMPLE-ARRAY DOUBLE-FLOAT (*)), which keeps its elements in a
+;;; double[] instead of as boxed DoubleFloat objects.
+;;;
+;;;   (load (compile-file "tools/float-array-benchmarks.lisp"))
+;;;   (run-float-array-benchmarks)
+
+(defvar *length* 1000000)
+
+(defun scale-boxed (a)
+  (declare (type simple-vector a) (optimize speed))
+  (dotimes (i (length a) a)
+    (setf (svref a i) (* 1.000001d0 (the double-float (svref a i))))))
+
+(defun scale-unboxed (a)
+  (declare (type (simple-array double-float (*)) a) (optimize speed))
+  (dotimes (i (length a) a)
+    (setf (aref a i) (* 1.000001d0 (aref a i)))))
+
+(defun dot-boxed (a b)
+  (declare (type simple-vector a b) (optimize speed))
+  (let ((sum 0d0))
+    (declare (double-float sum))
+    (dotimes (i (length a) sum)
+      (incf sum (* (the double-float (svref a i))
+                   (the double-float (svref b i)))))))
+
+(defun dot-unboxed (a b)
+  (declare (type (simple-array double-float (*)) a b) (optimize speed))
+  (let ((sum 0d0))
+    (declare (double-float sum))
+    (dotimes (i (length a) sum)
+      (incf sum (* (aref a i) (aref b i))))))
+
+(defun seconds (function)
+  (let ((start (get-internal-real-time)))
+    (funcall function)
+    (/ (- (get-internal-real-time) start)
+       (float internal-time-units-per-second))))
+
+(defun run-float-array-benchmarks (&key (iterations 3))
+  (let* ((contents (loop for i below *length* collect (random 1d0)))
+         (boxed (make-array *length* :initial-contents contents))
+         (unboxed (make-array *length* :element-type 'double-float
+                                       :initial-contents contents)))
+    (dolist (benchmark
+             (list (list "scale" (lambda () (scale-boxed boxed))
+                         (lambda () (scale-unboxed unboxed)))
+                   (list "dot  " (lambda () (dot-boxed boxed boxed))
+                         (lambda () (dot-unboxed unboxed unboxed)))
+                   (list "fill " (lambda () (fill boxed 1d0))
+                         (lambda () (fill unboxed 1d0)))))
+      (destructuring-bind (name boxed unboxed) benchmark
+        ;; first iteration is warm-up
+        (seconds boxed)
+        (seconds unboxed)
+        (format t "~&~A boxed:  ~{ ~,3Fs~}~%" name
+                (loop repeat iterations collect (seconds boxed)))
+        (format t "~&~A unboxed:~{ ~,3Fs~}~%" name
+                (loop repeat iterations collect (seconds unboxed)))))))
@@ -0,0 +1,85 @@
+;;; Multi-threaded micro-benchmarks for hash tables.
+;;;
+;;; Compares tables made with (MAKE-HASH-TABLE :CONCURRENT T) to the
+;;; default ones, for each of the standard tests.  Every thread works
+;;; on the same table, doing one PUTHASH or REMHASH per
+;;; *WRITE-RATIO* GETHASHes.
+;;;
+;;;   (load (compile-file "tools/hash-table-benchmarks.lisp"))
+;;;   (run-hash-table-benchmarks :threads 8)
+;;;
+;;; RUN-STRING-KEY-BENCHMARK times looking up the same long string keys
+;;; in an EQUAL table over and over, on a single thread.
+;;;
+;;;   (run-string-key-benchmark)
+
+(defvar *operations* 1000000
+  "Number of operations done by each thread.")
+(defvar *key-count* 10000)
+(defvar *write-ratio* 10)
+
+(defun make-keys (test)
+  (let ((keys (make-array *key-count*)))
+    (dotimes (i *key-count* keys)
+      (setf (aref keys i)
+            (ecase test
+              (eq (intern (format nil "KEY-~D" i) :keyword))
+              (eql (+ most-positive-fixnum i 1))
+              (equal (format nil "key-~D" i))
+              (equalp (vector (format nil "KEY-~D" i) i)))))))
+
+(defun hammer (table keys seed)
+  (declare (optimize speed) (simple-vector keys) (fixnum seed))
+  (let ((state (make-random-state nil))
+        (n (length keys)))
+    (dotimes (i (the fixnum *operations*))
+      (let ((key (svref keys (mod (+ seed (random n state)) n))))
+        (if (zerop (mod i (the fixnum *write-ratio*)))
+            (if (oddp i)
+                (remhash key table)
+                (setf (gethash key table) i))
+            (gethash key table))))))
+
+(defun time-threads (table keys threads)
+  (let ((start (get-internal-real-time)))
+    (mapc #'threads:thread-join
+          (loop for i below threads
+                collect (let ((seed i))
+                          (threads:make-thread
+                           #'(lambda () (hammer table keys seed))))))
+    (/ (- (get-internal-real-time) start)
+       (float internal-time-units-per-second))))
+
+(defun run-hash-table-benchmarks (&key (threads 4) (iterations 3))
+  (dolist (test '(eq eql equal equalp))
+    (let ((keys (make-keys test)))
+      (dolist (concurrent '(nil t))
+        (let ((table (make-hash-table :test test :concurrent concurrent)))
+          (dotimes (i *key-count*)
+            (setf (gethash (aref keys i) table) i))
+          ;; first iteration is warm-up
+          (time-threads table keys threads)
+          (format t "~&~7A ~:[default   ~;concurrent~] ~D threads:~{ ~,3Fs~}~%"
+                  test concurrent threads
+                  (loop repeat iterations
+                        collect (time-threads table keys threads))))))))
+
+(defun run-string-key-benchmark (&key (key-length 200) (iterations 3))
+  (let* ((keys (coerce (loop for i below 1000
+                             collect (format nil "~v,'xD" key-length i))
+                       'simple-vector))
+         (table (make-hash-table :test 'equal)))
+    (loop for key across keys
+          for i from 0
+          do (setf (gethash key table) i))
+    (flet ((lookups ()
+             (let ((start (get-internal-real-time)))
+               (dotimes (i 10000)
+                 (loop for key across keys
+                       do (gethash key table)))
+               (/ (- (get-internal-real-time) start)
+                  (float internal-time-units-per-second)))))
+      ;; first iteration is warm-up
+      (lookups)
+      (format t "~&10M lookups of ~D character keys:~{ ~,3Fs~}~%"
+              key-length (loop repeat iterations collect (lookups))))))
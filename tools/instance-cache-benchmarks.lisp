@@ -0,0 +1,59 @@
+;;; Micro-benchmarks for the Fixnum and character instance caches.
+;;;
+;;; Fixnums and characters outside the caches are allocated every
+;;; time they are made, even when, as here, they only pass through a
+;;; SIMPLE-VECTOR.  Run with the system property
+;;; abcl.allocation.counters=true to see how many were allocated, and
+;;; compare the default caches with larger ones, e.g.
+;;;
+;;;   -Dabcl.allocation.counters=true
+;;;   -Dabcl.fixnum.cache.min=-1024 -Dabcl.fixnum.cache.max=65535
+;;;
+;;;   (load (compile-file "tools/instance-cache-benchmarks.lisp"))
+;;;   (run-instance-cache-benchmarks)
+
+(defvar *count* 1000000)
+
+(defvar *text*
+  (coerce (loop for code from #x400 below #x4ff collect (code-char code))
+          'string))
+
+;;; Stores loop indexes and negative return codes in a vector.
+(defun indexes (vector n)
+  (declare (type simple-vector vector) (fixnum n))
+  (let ((length (length vector)))
+    (dotimes (i n vector)
+      (setf (svref vector (mod i length)) (mod i 60000)
+            (svref vector (mod (1+ i) length)) (- (mod i 1000))))))
+
+;;; Stores the characters of a Cyrillic text in a vector.
+(defun characters (vector n)
+  (declare (type simple-vector vector) (fixnum n))
+  (let ((length (length vector)))
+    (dotimes (i n vector)
+      (setf (svref vector (mod i length))
+            (char *text* (mod i (length *text*)))))))
+
+(defun seconds (function)
+  (let ((start (get-internal-real-time)))
+    (funcall function)
+    (/ (- (get-internal-real-time) start)
+       (float internal-time-units-per-second))))
+
+(defun run-instance-cache-benchmarks (&key (iterations 3))
+  (let ((vector (make-array 1024)))
+    (dolist (benchmark (list #'indexes #'characters))
+      ;; first iteration is warm-up
+      (funcall benchmark vector *count*)
+      (let ((before (sys:allocation-counts))
+            (times (loop repeat iterations
+                         collect (seconds (lambda ()
+                                            (funcall benchmark vector
+                                                     *count*))))))
+        (format t "~&~(~10A~):~{ ~,3Fs~}~@[ allocated~{ ~(~S~) ~D~}~]~%"
+                (nth-value 2 (function-lambda-expression benchmark))
+                times
+                (when before
+                  (loop for (key count) on (sys:allocation-counts) by #'cddr
+                        collect key
+                        collect (- count (getf before key)))))))))
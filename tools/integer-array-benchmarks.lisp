@@ -0,0 +1,79 @@
+;;; Micro-benchmarks for FIXNUM arrays.
+;;;
+;;; Compares a histogram and an adjacency list walk over SIMPLE-VECTORs
+;;; of FIXNUMs with the same loops over (SIMPLE-ARRAY FIXNUM (*)), which
+;;; keeps its elements in an int[] instead of as boxed Fixnum objects.
+;;;
+;;;   (load (compile-file "tools/integer-array-benchmarks.lisp"))
+;;;   (run-integer-array-benchmarks)
+
+(defvar *length* 1000000)
+
+(defvar *buckets* 1000)
+
+(defun histogram-boxed (counts data)
+  (declare (type simple-vector counts data) (optimize speed))
+  (dotimes (i (length data) counts)
+    (let ((bucket (svref data i)))
+      (declare (fixnum bucket))
+      (setf (svref counts bucket)
+            (1+ (the fixnum (svref counts bucket)))))))
+
+(defun histogram-unboxed (counts data)
+  (declare (type (simple-array fixnum (*)) counts data) (optimize speed))
+  (dotimes (i (length data) counts)
+    (incf (aref counts (aref data i)))))
+
+;;; Sums the targets of all edges, given the start of each node's
+;;; edges in OFFSETS and the edges themselves in TARGETS.
+(defun walk-boxed (offsets targets)
+  (declare (type simple-vector offsets targets) (optimize speed))
+  (let ((sum 0))
+    (declare (fixnum sum))
+    (dotimes (node (1- (length offsets)) sum)
+      (loop for edge fixnum from (svref offsets node)
+              below (svref offsets (1+ node))
+            do (setf sum (logand (+ sum (the fixnum (svref targets edge)))
+                                 #xfffffff))))))
+
+(defun walk-unboxed (offsets targets)
+  (declare (type (simple-array fixnum (*)) offsets targets) (optimize speed))
+  (let ((sum 0))
+    (declare (fixnum sum))
+    (dotimes (node (1- (length offsets)) sum)
+      (loop for edge fixnum from (aref offsets node)
+              below (aref offsets (1+ node))
+            do (setf sum (logand (+ sum (aref targets edge)) #xfffffff))))))
+
+(defun seconds (function)
+  (let ((start (get-internal-real-time)))
+    (funcall function)
+    (/ (- (get-internal-real-time) start)
+       (float internal-time-units-per-second))))
+
+(defun run-integer-array-benchmarks (&key (iterations 3))
+  (let* ((data (loop for i below *length* collect (random *buckets*)))
+         (offsets (loop for i from 0 to *length* by 10 collect i))
+         (boxed-data (make-array *length* :initial-contents data))
+         (boxed-counts (make-array *buckets* :initial-element 0))
+         (boxed-offsets (make-array (length offsets) :initial-contents offsets))
+         (unboxed-data (make-array *length* :element-type 'fixnum
+                                            :initial-contents data))
+         (unboxed-counts (make-array *buckets* :element-type 'fixnum))
+         (unboxed-offsets (make-array (length offsets) :element-type 'fixnum
+                                                       :initial-contents offsets)))
+    (dolist (benchmark
+             (list (list "histogram"
+                         (lambda () (histogram-boxed boxed-counts boxed-data))
+                         (lambda () (histogram-unboxed unboxed-counts unboxed-data)))
+                   (list "walk     "
+                         (lambda () (walk-boxed boxed-offsets boxed-data))
+                         (lambda () (walk-unboxed unboxed-offsets unboxed-data)))))
+      (destructuring-bind (name boxed unboxed) benchmark
+        ;; first iteration is warm-up
+        (seconds boxed)
+        (seconds unboxed)
+        (format t "~&~A boxed:  ~{ ~,3Fs~}~%" name
+                (loop repeat iterations collect (seconds boxed)))
+        (format t "~&~A unboxed:~{ ~,3Fs~}~%" name
+                (loop repeat iterations collect (seconds unboxed)))))))
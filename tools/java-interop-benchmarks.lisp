@@ -0,0 +1,55 @@
+;;; Micro-benchmarks for calling Java methods.
+;;;
+;;; Times JCALL and JSTATIC with method names, which are resolved
+;;; against the classes of the arguments, and with methods resolved
+;;; beforehand by JMETHOD.
+;;;
+;;;   (load (compile-file "tools/java-interop-benchmarks.lisp"))
+;;;   (run-java-interop-benchmarks)
+;;;
+;;; Methods are invoked through method handles, unless the JVM is
+;;; started with -Dabcl.java.methodHandles=false to compare with
+;;; invoking them through reflection.
+
+(defvar *calls* 10000000
+  "Number of calls done by each benchmark.")
+
+(defvar *length* (java:jmethod "java.lang.String" "length"))
+(defvar *char-at* (java:jmethod "java.lang.String" "charAt" "int"))
+(defvar *max* (java:jmethod "java.lang.Math" "max" "int" "int"))
+(defvar *sqrt* (java:jmethod "java.lang.Math" "sqrt" "double"))
+
+(defmacro define-benchmark (name &body body)
+  `(defun ,name (string)
+     (declare (optimize speed) (ignorable string))
+     (dotimes (i (the fixnum *calls*))
+       ,@body)))
+
+(define-benchmark jcall-name-length (java:jcall "length" string))
+(define-benchmark jcall-method-length (java:jcall *length* string))
+(define-benchmark jcall-name-char-at (java:jcall "charAt" string 1))
+(define-benchmark jcall-method-char-at (java:jcall *char-at* string 1))
+(define-benchmark jstatic-name-max (java:jstatic "max" "java.lang.Math" i 42))
+(define-benchmark jstatic-method-max (java:jstatic *max* nil i 42))
+(define-benchmark jstatic-name-sqrt (java:jstatic "sqrt" "java.lang.Math" 2d0))
+(define-benchmark jstatic-method-sqrt (java:jstatic *sqrt* nil 2d0))
+
+(defparameter *benchmarks*
+  '(jcall-name-length jcall-method-length
+    jcall-name-char-at jcall-method-char-at
+    jstatic-name-max jstatic-method-max
+    jstatic-name-sqrt jstatic-method-sqrt))
+
+(defun time-benchmark (function)
+  (let ((start (get-internal-real-time)))
+    (funcall function "benchmark")
+    (/ (- (get-internal-real-time) start)
+       (float internal-time-units-per-second))))
+
+(defun run-java-interop-benchmarks (&key (iterations 3))
+  (dolist (benchmark *benchmarks*)
+    ;; first iteration is warm-up
+    (time-benchmark benchmark)
+    (format t "~&~22A~{ ~,3Fs~}~%" benchmark
+            (loop repeat iterations
+                  collect (time-benchmark benchmark)))))
@@ -0,0 +1,47 @@
+;;; Micro-benchmarks for (SIGNED-BYTE 64) arithmetic.
+;;;
+;;; Millisecond timestamps don't fit in a FIXNUM, so undeclared
+;;; arithmetic on them allocates a Bignum per operation.  With the
+;;; variables declared (SIGNED-BYTE 64) compiled code keeps them in
+;;; Java longs, checking for overflow instead.
+;;;
+;;;   (load (compile-file "tools/long-arithmetic-benchmarks.lisp"))
+;;;   (run-long-arithmetic-benchmarks)
+
+(defvar *count* 10000000)
+
+(defvar *start* 1700000000000)
+
+;;; Sums the distance of a series of timestamps, one STEP apart, from
+;;; START.
+(defun elapsed-boxed (start step n)
+  (declare (fixnum n) (optimize speed))
+  (let ((now start)
+        (sum 0))
+    (dotimes (i n sum)
+      (setq now (+ now step)
+            sum (+ sum (- now start))))))
+
+(defun elapsed-unboxed (start step n)
+  (declare (type (signed-byte 64) start step) (fixnum n) (optimize speed))
+  (let ((now start)
+        (sum 0))
+    (declare (type (signed-byte 64) now sum))
+    (dotimes (i n sum)
+      (setq now (+ now step)
+            sum (+ sum (- now start))))))
+
+(defun seconds (function)
+  (let ((start (get-internal-real-time)))
+    (funcall function)
+    (/ (- (get-internal-real-time) start)
+       (float internal-time-units-per-second))))
+
+(defun run-long-arithmetic-benchmarks (&key (iterations 3))
+  (let ((boxed (lambda () (elapsed-boxed *start* 1 *count*)))
+        (unboxed (lambda () (elapsed-unboxed *start* 1 *count*))))
+    (assert (= (funcall boxed) (funcall unboxed)))
+    (format t "~&elapsed boxed:  ~{ ~,3Fs~}~%"
+            (loop repeat iterations collect (seconds boxed)))
+    (format t "~&elapsed unboxed:~{ ~,3Fs~}~%"
+            (loop repeat iterations collect (seconds unboxed)))))
@@ -0,0 +1,76 @@
+;;; Producer/consumer throughput of mailboxes.
+;;;
+;;; Each of PRODUCERS threads sends *MESSAGES* messages into one
+;;; mailbox, which CONSUMERS threads read until all messages arrived.
+;;; For comparison, the same is timed with a mailbox made of a list
+;;; guarded by SYNCHRONIZED-ON and OBJECT-WAIT, as mailboxes were
+;;; implemented before.
+;;;
+;;;   (load (compile-file "tools/mailbox-benchmarks.lisp"))
+;;;   (run-mailbox-benchmarks :producers 4 :consumers 4)
+
+(defvar *messages* 250000
+  "Number of messages sent by each producer.")
+
+(defstruct list-mailbox
+  (queue nil))
+
+(defun list-mailbox-send (mailbox item)
+  (threads:synchronized-on mailbox
+    (push item (list-mailbox-queue mailbox))
+    (threads:object-notify mailbox)))
+
+(defun list-mailbox-read (mailbox)
+  (threads:synchronized-on mailbox
+    (loop while (null (list-mailbox-queue mailbox))
+          do (threads:object-wait mailbox))
+    (pop (list-mailbox-queue mailbox))))
+
+(defun time-mailbox (send read mailbox producers consumers)
+  (let* ((total (* producers *messages*))
+         (remaining total)
+         (lock (threads:make-mutex))
+         (start (get-internal-real-time))
+         (threads
+          (append
+           (loop repeat producers
+                 collect (threads:make-thread
+                          #'(lambda ()
+                              (dotimes (i *messages*)
+                                (funcall send mailbox i)))))
+           (loop for c below consumers
+                 ;; the last consumer reads whatever the others leave
+                 collect (let ((quota (if (= c (1- consumers))
+                                          (- total (* (1- consumers)
+                                                      (floor total consumers)))
+                                          (floor total consumers))))
+                           (threads:make-thread
+                            #'(lambda ()
+                                (dotimes (i quota)
+                                  (funcall read mailbox))
+                                (threads:with-mutex (lock)
+                                  (decf remaining quota)))))))))
+    (mapc #'threads:thread-join threads)
+    (assert (zerop remaining))
+    (/ (- (get-internal-real-time) start)
+       (float internal-time-units-per-second))))
+
+(defun run-mailbox-benchmarks (&key (producers 4) (consumers 4) (iterations 3))
+  (dolist (kind '(:list :unbounded :bounded))
+    (flet ((run ()
+             (ecase kind
+               (:list
+                (time-mailbox #'list-mailbox-send #'list-mailbox-read
+                              (make-list-mailbox) producers consumers))
+               (:unbounded
+                (time-mailbox #'threads:mailbox-send #'threads:mailbox-read
+                              (threads:make-mailbox) producers consumers))
+               (:bounded
+                (time-mailbox #'threads:mailbox-send #'threads:mailbox-read
+                              (threads:make-mailbox :capacity 1024)
+                              producers consumers)))))
+      ;; first iteration is warm-up
+      (run)
+      (format t "~&~10A ~D producers, ~D consumers, ~D messages:~{ ~,3Fs~}~%"
+              kind producers consumers (* producers *messages*)
+              (loop repeat iterations collect (run))))))
@@ -0,0 +1,43 @@
+;;; Micro-benchmarks for the parallel sequence functions.
+;;;
+;;; Compares SYS:PMAP, SYS:PREDUCE and SYS:PSORT to MAP, REDUCE and
+;;; STABLE-SORT on a vector of *LENGTH* elements.  The number of threads
+;;; used by the parallel functions is set with the system property
+;;; abcl.parallel.threads.
+;;;
+;;;   (load (compile-file "tools/parallel-benchmarks.lisp"))
+;;;   (run-parallel-benchmarks)
+
+(defvar *length* 1000000)
+
+(defun work (x)
+  (declare (fixnum x))
+  (let ((sum 0))
+    (declare (fixnum sum))
+    (dotimes (i 100 sum)
+      (setf sum (logand (+ sum (* x i)) #xffff)))))
+
+(defun seconds (function)
+  (let ((start (get-internal-real-time)))
+    (funcall function)
+    (/ (- (get-internal-real-time) start)
+       (float internal-time-units-per-second))))
+
+(defun run-parallel-benchmarks (&key (iterations 3))
+  (let ((vector (coerce (loop for i below *length* collect (random 1000000))
+                        'simple-vector)))
+    (dolist (benchmark
+             (list (list "map   " (lambda () (map 'simple-vector #'work vector))
+                         (lambda () (sys:pmap 'simple-vector #'work vector)))
+                   (list "reduce" (lambda () (reduce #'+ vector :key #'work))
+                         (lambda () (sys:preduce #'+ vector :key #'work)))
+                   (list "sort  " (lambda () (stable-sort (copy-seq vector) #'<))
+                         (lambda () (sys:psort (copy-seq vector) #'<)))))
+      (destructuring-bind (name serial parallel) benchmark
+        ;; first iteration is warm-up
+        (seconds serial)
+        (seconds parallel)
+        (format t "~&~A serial:  ~{ ~,3Fs~}~%" name
+                (loop repeat iterations collect (seconds serial)))
+        (format t "~&~A parallel:~{ ~,3Fs~}~%" name
+                (loop repeat iterations collect (seconds parallel)))))))
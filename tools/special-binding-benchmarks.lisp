@@ -0,0 +1,55 @@
+;;; Micro-benchmarks for binding special variables.
+;;;
+;;; Reports the time taken and the bytes allocated by the current
+;;; thread per dynamic binding, for bindings nested *DEPTH* deep.
+;;; Allocation is measured through the ThreadMXBean of HotSpot.
+;;;
+;;;   (load (compile-file "tools/special-binding-benchmarks.lisp"))
+;;;   (run-special-binding-benchmarks)
+
+(defvar *bindings* 10000000
+  "Number of bindings done by each run.")
+(defvar *depth* 4)
+
+(defvar *a* nil)
+(defvar *b* nil)
+
+(defun thread-allocated-bytes ()
+  (let ((bean (java:jstatic "getThreadMXBean"
+                            "java.lang.management.ManagementFactory")))
+    (java:jcall (java:jmethod "com.sun.management.ThreadMXBean"
+                              "getThreadAllocatedBytes" "long")
+                bean
+                (java:jcall "getId" (java:jstatic "currentThread"
+                                                  "java.lang.Thread")))))
+
+(defun bind-nested (depth)
+  (declare (optimize speed) (fixnum depth))
+  (if (zerop depth)
+      *a*
+      (let ((*a* depth)
+            (*b* *a*))
+        (bind-nested (1- depth)))))
+
+(defun bind-loop ()
+  (declare (optimize speed))
+  (let ((depth *depth*))
+    (dotimes (i (floor *bindings* (* 2 depth)))
+      (bind-nested depth))))
+
+(defun measure ()
+  (let ((start (get-internal-real-time))
+        (bytes (thread-allocated-bytes)))
+    (bind-loop)
+    (let ((bytes (- (thread-allocated-bytes) bytes))
+          (seconds (/ (- (get-internal-real-time) start)
+                      (float internal-time-units-per-second))))
+      (values seconds (/ bytes (float *bindings*))))))
+
+(defun run-special-binding-benchmarks (&key (iterations 3))
+  ;; first iteration is warm-up
+  (measure)
+  (dotimes (i iterations)
+    (multiple-value-bind (seconds bytes) (measure)
+      (format t "~&~D bindings: ~,3Fs, ~,2F bytes per binding~%"
+              *bindings* seconds bytes))))
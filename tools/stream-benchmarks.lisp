@@ -0,0 +1,111 @@
+;;; Micro-benchmarks for I/O on file streams.
+;;;
+;;; RUN-STREAM-BENCHMARKS writes a file of *LINES* lines, then times
+;;; reading it with READ-SEQUENCE into a string and into a simple
+;;; vector, compared to a READ-CHAR loop, and writing it with
+;;; WRITE-SEQUENCE compared to a WRITE-CHAR loop.
+;;;
+;;; RUN-BINARY-STREAM-BENCHMARKS writes a file of *BINARY-MEGABYTES*
+;;; megabytes, then times reading it with READ-SEQUENCE and with
+;;; READ-BYTE, from file streams and from streams opened with :MAPPED T.
+;;;
+;;;   (load (compile-file "tools/stream-benchmarks.lisp"))
+;;;   (run-stream-benchmarks)
+;;;   (run-binary-stream-benchmarks)
+
+(defvar *lines* 200000)
+(defvar *buffer-size* 65536)
+(defvar *binary-megabytes* 64)
+
+(defun make-text ()
+  (with-output-to-string (s)
+    (dotimes (i *lines*)
+      (format s "~D: the quick brown fox jumps over the lazy dog~%" i))))
+
+(defun read-file-sequence (file buffer)
+  (with-open-file (s file)
+    (loop for n = (read-sequence buffer s)
+          sum n
+          while (= n (length buffer)))))
+
+(defun read-file-chars (file)
+  (declare (optimize speed))
+  (with-open-file (s file)
+    (loop for c = (read-char s nil nil)
+          while c
+          count t)))
+
+(defun write-file-sequence (file text)
+  (with-open-file (s file :direction :output :if-exists :supersede)
+    (write-sequence text s)))
+
+(defun write-file-chars (file text)
+  (declare (optimize speed) (simple-string text))
+  (with-open-file (s file :direction :output :if-exists :supersede)
+    (dotimes (i (length text))
+      (write-char (schar text i) s))))
+
+(defmacro timed (form)
+  `(let ((start (get-internal-real-time)))
+     ,form
+     (/ (- (get-internal-real-time) start)
+        (float internal-time-units-per-second))))
+
+(defun run-stream-benchmarks (&key (iterations 3))
+  (let ((file (ext:make-temp-file))
+        (text (make-text))
+        (string (make-string *buffer-size*))
+        (vector (make-array *buffer-size*)))
+    (unwind-protect
+         (flet ((report (name thunk)
+                  ;; first iteration is warm-up
+                  (funcall thunk)
+                  (format t "~&~24A~{ ~,3Fs~}~%" name
+                          (loop repeat iterations
+                                collect (timed (funcall thunk))))))
+           (report "write-sequence" (lambda () (write-file-sequence file text)))
+           (report "write-char" (lambda () (write-file-chars file text)))
+           (report "read-sequence string"
+                   (lambda () (read-file-sequence file string)))
+           (report "read-sequence vector"
+                   (lambda () (read-file-sequence file vector)))
+           (report "read-char" (lambda () (read-file-chars file))))
+      (delete-file file))))
+
+(defun write-binary-file (file)
+  (let ((buffer (make-array (* 1024 1024) :element-type '(unsigned-byte 8))))
+    (dotimes (i (length buffer))
+      (setf (aref buffer i) (logand i #xff)))
+    (with-open-file (s file :direction :output :if-exists :supersede
+                            :element-type '(unsigned-byte 8))
+      (dotimes (i *binary-megabytes*)
+        (write-sequence buffer s)))))
+
+(defun read-binary-sequence (file mapped)
+  (let ((buffer (make-array *buffer-size* :element-type '(unsigned-byte 8))))
+    (with-open-file (s file :element-type '(unsigned-byte 8) :mapped mapped)
+      (loop for n = (read-sequence buffer s)
+            sum n
+            while (= n (length buffer))))))
+
+(defun read-binary-bytes (file mapped)
+  (declare (optimize speed))
+  (with-open-file (s file :element-type '(unsigned-byte 8) :mapped mapped)
+    (loop for b = (read-byte s nil nil)
+          while b
+          count t)))
+
+(defun run-binary-stream-benchmarks (&key (iterations 3))
+  (let ((file (ext:make-temp-file)))
+    (write-binary-file file)
+    (unwind-protect
+         (dolist (mapped '(nil t))
+           (flet ((report (name thunk)
+                    (funcall thunk)
+                    (format t "~&~14A ~:[file  ~;mapped~]~{ ~,3Fs~}~%"
+                            name mapped
+                            (loop repeat iterations
+                                  collect (timed (funcall thunk))))))
+             (report "read-sequence" (lambda () (read-binary-sequence file mapped)))
+             (report "read-byte" (lambda () (read-binary-bytes file mapped)))))
+      (delete-file file))))
@@ -0,0 +1,38 @@
+;;; Latency of running short functions on another thread.
+;;;
+;;; Compares MAKE-THREAD followed by THREAD-JOIN to SUBMIT followed by
+;;; FUTURE-VALUE on a thread pool, for *TASKS* functions which return
+;;; right away.
+;;;
+;;;   (load (compile-file "tools/thread-pool-benchmarks.lisp"))
+;;;   (run-thread-pool-benchmarks)
+
+(defvar *tasks* 20000)
+
+(defun time-tasks (run)
+  (let ((start (get-internal-real-time)))
+    (dotimes (i *tasks*)
+      (funcall run #'(lambda () i)))
+    (/ (- (get-internal-real-time) start)
+       (float internal-time-units-per-second))))
+
+(defun run-thread-pool-benchmarks (&key (iterations 3))
+  (let ((pool (threads:make-thread-pool :size 4)))
+    (unwind-protect
+         (dolist (kind '(:make-thread :thread-pool))
+           (flet ((run ()
+                    (time-tasks
+                     (ecase kind
+                       (:make-thread
+                        #'(lambda (function)
+                            (threads:thread-join
+                             (threads:make-thread function))))
+                       (:thread-pool
+                        #'(lambda (function)
+                            (threads:future-value
+                             (threads:submit pool function))))))))
+             ;; first iteration is warm-up
+             (run)
+             (format t "~&~12A ~D tasks:~{ ~,3Fs~}~%"
+                     kind *tasks* (loop repeat iterations collect (run)))))
+      (threads:shutdown-thread-pool pool))))